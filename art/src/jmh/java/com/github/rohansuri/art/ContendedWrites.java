@@ -0,0 +1,48 @@
+package com.github.rohansuri.art;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    all threads writing to a single tree: flat combining vs a synchronized wrapper.
+    keys are random ints in a fixed range, so that the tree's size stays about the same.
+ */
+@State(Scope.Benchmark)
+@Threads(32)
+public class ContendedWrites {
+
+    @Param({"1000", "1000000"})
+    int keys;
+
+    @Param({"flatCombining", "synchronized"})
+    String map;
+
+    Map<Integer, Object> m;
+
+    final Object holder = new Object();
+
+    @Setup
+    public void setup() {
+        if (map.equals("flatCombining")) {
+            m = new FlatCombiningAdaptiveRadixTree<>(BinaryComparables.forInteger());
+        } else {
+            m = Collections.synchronizedMap(new AdaptiveRadixTree<>(BinaryComparables.forInteger()));
+        }
+        for (int i = 0; i < keys; i += 2) {
+            m.put(i, holder);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object putRemove() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int key = r.nextInt(keys);
+        return r.nextBoolean() ? m.put(key, holder) : m.remove(key);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.rohansuri.art;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    lookups and (replacing) puts in a tree whose every lookup path goes through
+    a mix of Node4, Node16, Node48 and Node256, so that a findChild call site sees all four
+    node types. the fanout under a byte is picked by the byte itself, hence siblings
+    are of different node types and so are the nodes along a path.
+ */
+@State(Scope.Benchmark)
+public class MixedNodeShapes {
+
+    // fanouts making a Node4, Node16, Node48 and Node256
+    private static final int[] FANOUTS = {3, 12, 40, 200};
+
+    @Param({"4"})
+    int levels;
+
+    AdaptiveRadixTree<Integer, Integer> art;
+    Integer[] toLookup;
+    int next;
+
+    @Setup
+    public void setup() {
+        List<Integer> keys = new ArrayList<>();
+        keys(0, 0, 0, keys);
+        Collections.shuffle(keys);
+        art = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+        for (Integer key : keys) {
+            art.put(key, key);
+        }
+        toLookup = keys.toArray(new Integer[0]);
+    }
+
+    private void keys(int prefix, int level, int fanout, List<Integer> keys) {
+        if (level == levels) {
+            keys.add(prefix);
+            return;
+        }
+        int n = level == 0 ? FANOUTS[FANOUTS.length - 1] : FANOUTS[fanout];
+        for (int b = 0; b < n; b++) {
+            // keep the tree in the millions of keys: Node256s only at the top
+            int childFanout = level == 0 ? b % FANOUTS.length : b % (FANOUTS.length - 1);
+            keys(prefix | (b << (24 - 8 * level)), level + 1, childFanout, keys);
+        }
+    }
+
+    private Integer nextKey() {
+        Integer key = toLookup[next];
+        next = next + 1 == toLookup.length ? 0 : next + 1;
+        return key;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer get() {
+        return art.get(nextKey());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer put() {
+        Integer key = nextKey();
+        return art.put(key, key);
+    }
+}
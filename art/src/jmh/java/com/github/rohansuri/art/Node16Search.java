@@ -0,0 +1,107 @@
+package com.github.rohansuri.art;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Node16's partial key search: SWAR (two longs) vs a scalar loop.
+    the scalar variants are what Node16 falls back to with -Dcom.github.rohansuri.art.node16.swar=false,
+    run the ycsb string benchmarks with and without it to compare lookups in whole trees.
+ */
+public class Node16Search {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"5", "10", "16"})
+        int size;
+
+        byte[] keys = new byte[Node16.NODE_SIZE];
+        // half of them present
+        byte[] toLookup = new byte[64];
+
+        @Setup
+        public void setup() {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            byte[] sorted = new byte[size];
+            for (int i = 0; i < size; i++) {
+                byte b;
+                do {
+                    b = (byte) r.nextInt(256);
+                } while (contains(sorted, i, b));
+                sorted[i] = b;
+            }
+            Arrays.sort(sorted);
+            System.arraycopy(sorted, 0, keys, 0, size);
+            for (int i = 0; i < toLookup.length; i++) {
+                toLookup[i] = i % 2 == 0 ? sorted[r.nextInt(size)] : (byte) r.nextInt(256);
+            }
+        }
+
+        private static boolean contains(byte[] a, int n, byte b) {
+            for (int i = 0; i < n; i++) {
+                if (a[i] == b) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int swarIndexOf(Data d) {
+        int sum = 0;
+        for (byte key : d.toLookup) {
+            sum += Node16.indexOf(d.keys, d.size, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scalarIndexOf(Data d) {
+        int sum = 0;
+        for (byte key : d.toLookup) {
+            int index = -1;
+            for (int i = 0; i < d.size; i++) {
+                if (d.keys[i] == key) {
+                    index = i;
+                    break;
+                }
+            }
+            sum += index;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int swarCeil(Data d) {
+        int sum = 0;
+        for (byte key : d.toLookup) {
+            sum += Node16.countLesser(d.keys, d.size, key, false);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scalarCeil(Data d) {
+        int sum = 0;
+        for (byte key : d.toLookup) {
+            int i = 0;
+            while (i < d.size && d.keys[i] < key) {
+                i++;
+            }
+            sum += i;
+        }
+        return sum;
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.rohansuri.art.ycsb.Long;
 
+import com.github.rohansuri.art.AdaptiveRadixTree;
+import com.github.rohansuri.art.Cursor;
 import org.apache.commons.io.IOUtils;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
@@ -91,4 +93,31 @@ public class E {
         }
         return d.m.size();
     }
+
+    // same as rangeScanAndInsert, but scanning with a reusable Cursor (only for ART)
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int rangeScanAndInsertWithCursor(Blackhole bh, EData d) {
+        if (!(d.m instanceof AdaptiveRadixTree)) {
+            return 0;
+        }
+        Cursor<Long, Object> cursor = ((AdaptiveRadixTree<Long, Object>) d.m).cursor();
+        int lastInsert = 0;
+        int lastScan = 0;
+        for (int i = 0; i < d.operation.length; i++) {
+            if (d.operation[i]) { // scan
+                // inserts in between invalidate the cursor, hence seek again for every scan
+                boolean positioned = cursor.seekCeil(d.scanStart[lastScan]);
+                for (int j = 0; j < d.scanRange[lastScan] - 1 && positioned; j++) {
+                    bh.consume(cursor.value());
+                    positioned = cursor.next();
+                }
+                lastScan++;
+            } else { // insert
+                bh.consume(d.m.put(d.toInsert[lastInsert++], d.holder));
+            }
+        }
+        return d.m.size();
+    }
 }
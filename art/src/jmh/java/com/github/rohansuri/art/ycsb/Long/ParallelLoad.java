@@ -0,0 +1,56 @@
+package com.github.rohansuri.art.ycsb.Long;
+
+import com.github.rohansuri.art.AdaptiveRadixTree;
+import com.github.rohansuri.art.BinaryComparables;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+    load an (unsorted) ycsb generated load.dat file with AdaptiveRadixTree.fromUnsorted,
+    for varying degrees of parallelism. compare with Load's single threaded puts.
+ */
+public class ParallelLoad {
+
+    @State(Scope.Benchmark)
+    public static class LoadData extends Data {
+        @Param({"c_uniform_1000000_randint_load.dat",
+                "c_uniform_10000000_randint_load.dat"})
+        String workloadFile;
+
+        @Param({"1", "2", "4", "8", "16"})
+        int parallelism;
+
+        List<Map.Entry<Long, Object>> toInsert;
+
+        ForkJoinPool pool;
+
+        @Setup
+        public void setup() throws IOException {
+            Object holder = new Object();
+            toInsert = Arrays.stream(loadInArray(workloadFile))
+                    .map(l -> new AbstractMap.SimpleImmutableEntry<>(l, holder))
+                    .collect(Collectors.toList());
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int fromUnsorted(LoadData d) {
+        return AdaptiveRadixTree.fromUnsorted(d.toInsert, BinaryComparables.forLong(), d.pool).size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.rohansuri.art.ycsb.Long;
+
+import com.github.rohansuri.art.LongArtMap;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    load and workload C (100% lookup) for LongArtMap, to compare against
+    ART and TreeMap's numbers of Load and C.
+    keys are kept as primitives throughout.
+ */
+public class Primitive {
+
+    static long[] readKeys(String file, String operation) throws IOException {
+        List<String> s = IOUtils
+                .readLines(new FileInputStream(Data.workloadDirectory + file), StandardCharsets.US_ASCII);
+        Assertions.assertTrue(s.stream().allMatch(line -> line.startsWith(operation)));
+        return s.stream().map(line -> line.substring(line.indexOf(" ") + 1))
+                .mapToLong(Long::parseLong)
+                .toArray();
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadData {
+        @Param({"c_uniform_1000_randint_load.dat",
+                "c_uniform_5000_randint_load.dat",
+                "c_uniform_10000_randint_load.dat",
+                "c_uniform_50000_randint_load.dat",
+                "c_uniform_100000_randint_load.dat",
+                "c_uniform_500000_randint_load.dat",
+                "c_uniform_1000000_randint_load.dat",
+                "c_uniform_5000000_randint_load.dat",
+                "c_uniform_10000000_randint_load.dat",
+                "c_uniform_50000000_randint_load.dat"})
+        String workloadFile;
+
+        long[] toInsert;
+
+        Object holder;
+
+        @Setup
+        public void setup() throws IOException {
+            toInsert = readKeys(workloadFile, "INSERT");
+            holder = new Object();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CData {
+        @Param({"c_uniform_1000_randint_txn.dat",
+                "c_uniform_5000_randint_txn.dat",
+                "c_uniform_10000_randint_txn.dat",
+                "c_uniform_50000_randint_txn.dat",
+                "c_uniform_100000_randint_txn.dat",
+                "c_uniform_500000_randint_txn.dat",
+                "c_uniform_1000000_randint_txn.dat",
+                "c_uniform_5000000_randint_txn.dat",
+                "c_uniform_10000000_randint_txn.dat",
+                "c_uniform_50000000_randint_txn.dat"})
+        String workloadFile;
+
+        LongArtMap<Object> m;
+
+        long[] toLookup;
+
+        @Setup
+        public void setup() throws IOException {
+            Object o = new Object();
+            m = new LongArtMap<>();
+            for (long l : readKeys(workloadFile.replace("txn.dat", "load.dat"), "INSERT")) {
+                m.put(l, o);
+            }
+            toLookup = readKeys(workloadFile, "READ");
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int insert(Blackhole bh, LoadData d) {
+        LongArtMap<Object> m = new LongArtMap<>();
+        for (int i = 0; i < d.toInsert.length; i++) {
+            bh.consume(m.put(d.toInsert[i], d.holder));
+        }
+        return m.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int lookup(Blackhole bh, CData d) {
+        for (int i = 0; i < d.toLookup.length; i++) {
+            bh.consume(d.m.get(d.toLookup[i]));
+        }
+        return d.m.size();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.rohansuri.art.ycsb.Long;
+
+import com.github.rohansuri.art.AdaptiveRadixTree;
+import com.github.rohansuri.art.BinaryComparables;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    warm start: load a ycsb generated load.dat file that has been sorted beforehand,
+    one put at a time vs bulk loading with AdaptiveRadixTree.fromSorted
+ */
+public class SortedLoad {
+
+    @State(Scope.Benchmark)
+    public static class LoadData extends Data {
+        @Param({"c_uniform_1000_randint_load.dat",
+                "c_uniform_10000_randint_load.dat",
+                "c_uniform_100000_randint_load.dat",
+                "c_uniform_1000000_randint_load.dat",
+                "c_uniform_10000000_randint_load.dat",
+                "c_uniform_50000000_randint_load.dat"})
+        String workloadFile;
+
+        // sorted and distinct
+        Map.Entry<Long, Object>[] toInsert;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws IOException {
+            Object holder = new Object();
+            // for longs, signed order is the same as the binary comparable order
+            toInsert = Arrays.stream(loadInArray(workloadFile))
+                    .sorted()
+                    .distinct()
+                    .map(l -> new AbstractMap.SimpleImmutableEntry<>(l, holder))
+                    .toArray(Map.Entry[]::new);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int put(Blackhole bh, LoadData d) {
+        AdaptiveRadixTree<Long, Object> m = new AdaptiveRadixTree<>(BinaryComparables.forLong());
+        for (Map.Entry<Long, Object> e : d.toInsert) {
+            bh.consume(m.put(e.getKey(), e.getValue()));
+        }
+        return m.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int fromSorted(LoadData d) {
+        return AdaptiveRadixTree.fromSorted(Arrays.asList(d.toInsert).iterator(), BinaryComparables.forLong())
+                .size();
+    }
+}
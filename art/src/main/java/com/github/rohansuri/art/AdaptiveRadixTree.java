@@ -12,7 +12,13 @@ import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
 /**
  * An Adaptive Radix tree based {@link NavigableMap} implementation.
@@ -78,16 +84,105 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	 * To be touched where ever size changes.
 	 */
 	private transient int modCount = 0;
+	// whether inner nodes are counted (see Node4.Counted), see rank and select
+	private final boolean orderStatistics;
+	// reused by removals to find their way back up from the leaf, see scratchPath
+	private transient Path scratchPath;
+
+	Node getRoot() {
+		return root;
+	}
 
 	int getModCount() {
 		return modCount;
 	}
 
-	// TODO: offer a bulk create constructor
-
 	public AdaptiveRadixTree(BinaryComparable<K> binaryComparable) {
+		this(binaryComparable, false);
+	}
+
+	/**
+	 * Constructs a new, empty tree which optionally keeps order statistics.
+	 * Such a tree keeps the number of keys under every inner node, which makes finding the
+	 * {@linkplain #rank(Object) rank} of a key, {@linkplain #select(int) selecting} the key at an index
+	 * and {@linkplain #countRange(Object, Object) counting} the keys in a range (including the size
+	 * of sub maps) take time proportional to the length of the key instead of the number of keys.
+	 * In return every insertion and removal of a key updates the counts on it's path from the root.
+	 *
+	 * @param binaryComparable to order the keys by
+	 * @param orderStatistics whether to keep order statistics
+	 */
+	public AdaptiveRadixTree(BinaryComparable<K> binaryComparable, boolean orderStatistics) {
 		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
 		this.binaryComparable = binaryComparable;
+		this.orderStatistics = orderStatistics;
+	}
+
+	// for trees built in bulk
+	AdaptiveRadixTree(BinaryComparable<K> binaryComparable, Node root, int size) {
+		this(binaryComparable, false, root, size);
+	}
+
+	// root's counts must be maintained, if keeping order statistics
+	AdaptiveRadixTree(BinaryComparable<K> binaryComparable, boolean orderStatistics, Node root, int size) {
+		this(binaryComparable, orderStatistics);
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Builds a tree out of entries sorted in strictly ascending order of
+	 * their keys' binary comparable representation (i.e. the order of this map).
+	 * The tree is built bottom up in a single pass, every inner node being created
+	 * once at it's final size, which is much cheaper than putting the entries one by one.
+	 *
+	 * @param entries entries sorted by key
+	 * @param binaryComparable for the keys
+	 * @param <K> the type of keys maintained by the map
+	 * @param <V> the type of mapped values
+	 * @return a new tree with the given entries
+	 * @throws IllegalArgumentException if the entries are not in strictly ascending order of keys
+	 * @throws NullPointerException if any key is null
+	 */
+	public static <K, V> AdaptiveRadixTree<K, V> fromSorted(
+			Iterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+			BinaryComparable<K> binaryComparable) {
+		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
+		return SortedBuilder.build(entries, binaryComparable);
+	}
+
+	/**
+	 * Builds a tree out of entries in no particular order, in parallel on the common {@link ForkJoinPool}.
+	 *
+	 * @see #fromUnsorted(Collection, BinaryComparable, ForkJoinPool)
+	 */
+	public static <K, V> AdaptiveRadixTree<K, V> fromUnsorted(
+			Collection<? extends Map.Entry<? extends K, ? extends V>> entries,
+			BinaryComparable<K> binaryComparable) {
+		return fromUnsorted(entries, binaryComparable, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Builds a tree out of entries in no particular order, in parallel on the given pool.
+	 * The entries are partitioned by their leading key bytes and every partition's subtree
+	 * is built independently, every inner node being created once at it's final size.
+	 * If there are duplicate keys, the one that comes last in the collection's iteration order wins,
+	 * same as putting the entries one by one would do.
+	 *
+	 * @param entries entries to build the tree of
+	 * @param binaryComparable for the keys
+	 * @param pool to build the tree on
+	 * @param <K> the type of keys maintained by the map
+	 * @param <V> the type of mapped values
+	 * @return a new tree with the given entries
+	 * @throws NullPointerException if any key is null
+	 */
+	public static <K, V> AdaptiveRadixTree<K, V> fromUnsorted(
+			Collection<? extends Map.Entry<? extends K, ? extends V>> entries,
+			BinaryComparable<K> binaryComparable, ForkJoinPool pool) {
+		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
+		Objects.requireNonNull(pool);
+		return ParallelBuilder.build(entries, binaryComparable, pool);
 	}
 
 	private Node root;
@@ -96,15 +191,163 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		if (key == null) {
 			throw new NullPointerException();
 		}
-		byte[] bytes = binaryComparable.get(key);
-		if (root == null) {
-			// create leaf node and set root to that
-			root = new LeafNode<>(bytes, key, value);
-			size = 1;
-			modCount++;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			return put(keyBuffer.bytes, keyBuffer.length, key, value);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/*
+		Map's default implementations of the methods below look up the key with a get
+		and then insert or remove it with a put or remove, that is two (or three) encodings of the key
+		and as many descents. here every call encodes once and descends once
+		(removals remember the path taken to the leaf found, see Path).
+	 */
+
+	// encodes key once and descends once, see getOrInsert(byte[], int, ...)
+	private LeafNode<K, V> getOrInsert(K key, V value, Function<? super K, ? extends V> mappingFunction,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			return getOrInsert(keyBuffer.bytes, keyBuffer.length, key, value, mappingFunction, remappingFunction);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	// sets the remapped value on an existing leaf, or removes it if remapped to null
+	private V remap(LeafNode<K, V> leaf, V newValue) {
+		if (newValue == null) {
+			deleteEntry(leaf);
+		}
+		else {
+			leaf.setValue(newValue);
+		}
+		return newValue;
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		int mc = modCount;
+		LeafNode<K, V> leaf = getOrInsert(key, value, null, null);
+		if (mc != modCount) { // inserted
+			return null;
+		}
+		V oldValue = leaf.getValue();
+		if (oldValue == null) {
+			leaf.setValue(value);
+		}
+		return oldValue;
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		int mc = modCount;
+		LeafNode<K, V> leaf = getOrInsert(key, null, mappingFunction, null);
+		if (leaf == null) { // computed null, nothing inserted
+			return null;
+		}
+		if (mc != modCount || leaf.getValue() != null) { // inserted or present
+			return leaf.getValue();
+		}
+		// present but mapped to null
+		V newValue = mappingFunction.apply(key);
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
+		}
+		if (newValue != null) {
+			leaf.setValue(newValue);
+		}
+		return newValue;
+	}
+
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		LeafNode<K, V> leaf = getEntry(key);
+		if (leaf == null || leaf.getValue() == null) {
+			return null;
+		}
+		int mc = modCount;
+		V newValue = remappingFunction.apply(key, leaf.getValue());
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
+		}
+		return remap(leaf, newValue);
+	}
+
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		int mc = modCount;
+		LeafNode<K, V> leaf = getOrInsert(key, null, null, remappingFunction);
+		if (leaf == null) { // absent and computed null
+			return null;
+		}
+		if (mc != modCount) { // inserted
+			return leaf.getValue();
+		}
+		V newValue = remappingFunction.apply(key, leaf.getValue());
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
+		}
+		return remap(leaf, newValue);
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		Objects.requireNonNull(value);
+		int mc = modCount;
+		LeafNode<K, V> leaf = getOrInsert(key, value, null, null);
+		if (mc != modCount) { // inserted
+			return value;
+		}
+		V oldValue = leaf.getValue();
+		if (oldValue == null) {
+			leaf.setValue(value);
+			return value;
+		}
+		V newValue = remappingFunction.apply(oldValue, value);
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
+		}
+		return remap(leaf, newValue);
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		LeafNode<K, V> leaf = getEntry(key);
+		if (leaf == null) {
 			return null;
 		}
-		return put(bytes, key, value);
+		V oldValue = leaf.getValue();
+		leaf.setValue(value);
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		LeafNode<K, V> leaf = getEntry(key);
+		if (leaf == null || !Objects.equals(oldValue, leaf.getValue())) {
+			return false;
+		}
+		leaf.setValue(newValue);
+		return true;
+	}
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		LeafNode<K, V> leaf = getEntry(key);
+		return leaf == null ? defaultValue : leaf.getValue();
 	}
 
 	// note: taken from TreeMap
@@ -113,16 +356,140 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		return getEntry(key) != null;
 	}
 
-	// note: taken from TreeMap
-	// why doesn't TreeMap use AbstractMap's provided impl?
-	// the only difference is default impl requires an iterator to be created,
-	// but it ultimately uses the successor calls to iterate.
+	// walks large trees in parallel, comparing values has no side effects
 	@Override
 	public boolean containsValue(Object value) {
-		for (LeafNode<K, V> e = getFirstEntry(); e != null; e = successor(e))
-			if (valEquals(value, e.getValue()))
-				return true;
-		return false;
+		return search(CONTAINS_VALUE_PARALLELISM_THRESHOLD, (k, v) -> valEquals(value, v) ? Boolean.TRUE : null) != null;
+	}
+
+	// no of keys from which containsValue walks the tree in parallel
+	static final long CONTAINS_VALUE_PARALLELISM_THRESHOLD = 1 << 16;
+
+	/*
+		bulk operations, see ParallelWalker.
+		like ConcurrentHashMap's, the parallelismThreshold is the (estimated) no of keys from which
+		a subtree is walked by a task of it's own on the common ForkJoinPool. Long.MAX_VALUE walks
+		the tree in the calling thread, 1 forks as much as possible.
+		the functions passed in must not modify the tree.
+	 */
+
+	@SuppressWarnings("unchecked")
+	private <U> U walk(long parallelismThreshold, Function<LeafNode<K, V>, ? extends U> visit,
+			BiFunction<? super U, ? super U, ? extends U> reducer, boolean stopOnResult) {
+		int expectedModCount = modCount;
+		return new ParallelWalker<U>(parallelismThreshold, orderStatistics, leaf -> {
+			U result = visit.apply((LeafNode<K, V>) leaf);
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return result;
+		}, reducer, stopOnResult).walk(root, size);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		forEach(Long.MAX_VALUE, action);
+	}
+
+	/**
+	 * Performs the given action for each (key, value).
+	 * Subtrees estimated to have at least parallelismThreshold keys are walked
+	 * in parallel on the {@linkplain ForkJoinPool#commonPool() common pool},
+	 * in which case the action is performed in no particular order, possibly concurrently.
+	 *
+	 * @param parallelismThreshold the (estimated) number of keys needed for this operation to be executed in parallel
+	 * @param action the action
+	 * @throws NullPointerException if the action is null
+	 * @throws ConcurrentModificationException if the map is structurally modified by the action
+	 */
+	public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+		Objects.requireNonNull(action);
+		walk(parallelismThreshold, leaf -> {
+			action.accept(leaf.getKey(), leaf.getValue());
+			return null;
+		}, null, false);
+	}
+
+	/**
+	 * Returns a non-null result from applying the given search function on each (key, value), or null if none.
+	 * Upon success, further element processing is suppressed and the results of any other parallel
+	 * invocations of the search function are ignored.
+	 *
+	 * @param parallelismThreshold the (estimated) number of keys needed for this operation to be executed in parallel
+	 * @param searchFunction a function returning a non-null result on success, else null
+	 * @param <U> the type of the search result
+	 * @return a non-null result from applying the given search function on each (key, value), or null if none
+	 * @throws NullPointerException if the search function is null
+	 */
+	public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+		Objects.requireNonNull(searchFunction);
+		return walk(parallelismThreshold, leaf -> searchFunction.apply(leaf.getKey(), leaf.getValue()),
+				(a, b) -> a, true);
+	}
+
+	/**
+	 * Returns the result of accumulating the given transformation of all (key, value) pairs
+	 * using the given reducer to combine values, or null if none.
+	 * Results are combined in ascending order of keys, hence the reducer needs to be associative,
+	 * but not commutative.
+	 *
+	 * @param parallelismThreshold the (estimated) number of keys needed for this operation to be executed in parallel
+	 * @param transformer a function returning the transformation for an element, or null if there is no
+	 *                    transformation (in which case it is not combined)
+	 * @param reducer an associative combining function
+	 * @param <U> the type of the result
+	 * @return the result of accumulating the given transformation of all (key, value) pairs
+	 * @throws NullPointerException if the transformer or the reducer is null
+	 */
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		Objects.requireNonNull(transformer);
+		Objects.requireNonNull(reducer);
+		return walk(parallelismThreshold, leaf -> transformer.apply(leaf.getKey(), leaf.getValue()), reducer, false);
+	}
+
+	/**
+	 * Returns the result of accumulating the given transformation of all values
+	 * using the given reducer to combine values, or null if none.
+	 *
+	 * @param parallelismThreshold the (estimated) number of keys needed for this operation to be executed in parallel
+	 * @param transformer a function returning the transformation for an element, or null if there is no
+	 *                    transformation (in which case it is not combined)
+	 * @param reducer an associative combining function
+	 * @param <U> the type of the result
+	 * @return the result of accumulating the given transformation of all values
+	 * @throws NullPointerException if the transformer or the reducer is null
+	 * @see #reduce(long, BiFunction, BiFunction)
+	 */
+	public <U> U reduceValues(long parallelismThreshold, Function<? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		Objects.requireNonNull(transformer);
+		Objects.requireNonNull(reducer);
+		return walk(parallelismThreshold, leaf -> transformer.apply(leaf.getValue()), reducer, false);
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		replaceAll(Long.MAX_VALUE, function);
+	}
+
+	/**
+	 * Replaces each entry's value with the result of invoking the given function on that entry.
+	 * Subtrees estimated to have at least parallelismThreshold keys are walked
+	 * in parallel on the {@linkplain ForkJoinPool#commonPool() common pool},
+	 * in which case the function is invoked in no particular order, possibly concurrently.
+	 *
+	 * @param parallelismThreshold the (estimated) number of keys needed for this operation to be executed in parallel
+	 * @param function the function to apply to each entry
+	 * @throws NullPointerException if the function is null
+	 * @throws ConcurrentModificationException if the map is structurally modified by the function
+	 */
+	public void replaceAll(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends V> function) {
+		Objects.requireNonNull(function);
+		walk(parallelismThreshold, leaf -> {
+			leaf.setValue(function.apply(leaf.getKey(), leaf.getValue()));
+			return null;
+		}, null, false);
 	}
 
 	// Note: taken from TreeMap
@@ -186,22 +553,41 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		}
 		@SuppressWarnings("unchecked")
 		K k = (K) key;
-		byte[] bytes = binaryComparable.get(k);
-		return getEntry(root, bytes);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			return getEntry(root, keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public V remove(Object key) {
-		LeafNode<K, V> p = getEntry(key);
+		if (key == null)
+			throw new NullPointerException();
+		if (root == null) {
+			return null;
+		}
+		Path path = scratchPath();
+		LeafNode<K, V> p;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, (K) key);
+		try {
+			p = (LeafNode<K, V>) path.seek(root, keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
 		if (p == null)
 			return null;
 		V oldValue = p.getValue();
-		deleteEntry(p);
+		deleteEntry(path, p);
 		return oldValue;
 	}
 
 	/*
-		given node only has one child and has a parent.
+		given node only has one child and has a parent (null if it is the root).
 		we eliminate this node and pull up it's only child,
 		linking it with the parent.
 
@@ -211,10 +597,10 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		also update child's compressed path updated to:
 		this node's compressed path + partialKey to child + child's own compressed path)
 	 */
-	private void pathCompressOnlyChild(Node4 toCompress) {
+	private void pathCompressOnlyChild(Node4 toCompress, InnerNode parent) {
 		Node onlyChild = toCompress.getChild()[0];
 		updateCompressedPathOfOnlyChild(toCompress, onlyChild);
-		replace(toCompress.uplinkKey(), toCompress.parent(), onlyChild);
+		replace(toCompress.uplinkKey(), parent, onlyChild);
 	}
 
 	/*
@@ -223,7 +609,7 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	 */
 	static void updateCompressedPathOfOnlyChild(Node4 toCompress, Node onlyChild) {
 		assert onlyChild != null;
-		if (!(onlyChild instanceof LeafNode)) {
+		if (onlyChild instanceof InnerNode) {
 			byte partialKeyToOnlyChild = toCompress.getOnlyChildKey();// toCompress.getKeys()[0]; // R
 			InnerNode oc = (InnerNode) onlyChild;
 			// update nextNode's compressed path with toCompress'
@@ -245,15 +631,23 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	}
 
 
-	private LeafNode<K, V> getEntry(Node node, byte[] key) {
+	// only the first keyLen bytes of key are the key's
+	LeafNode<K, V> getEntry(byte[] key, int keyLen) {
+		if (root == null) { // empty tree
+			return null;
+		}
+		return getEntry(root, key, keyLen);
+	}
+
+	static <K, V> LeafNode<K, V> getEntry(Node node, byte[] key, int keyLen) {
 		int depth = 0;
 		boolean skippedPrefix = false;
 		while (true) {
-			if (node instanceof LeafNode) {
+			if (node.kind == Node.LEAF) {
 				LeafNode<K, V> leaf = (LeafNode<K, V>) node;
 				byte[] leafBytes = leaf.getKeyBytes();
 				int startFrom = skippedPrefix ? 0 : depth;
-				if (Arrays.equals(leafBytes, startFrom, leafBytes.length, key, startFrom, key.length)) {
+				if (Arrays.equals(leafBytes, startFrom, leafBytes.length, key, startFrom, keyLen)) {
 					return leaf;
 				}
 				return null;
@@ -261,7 +655,7 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 
 			InnerNode innerNode = (InnerNode) node;
 
-			if (key.length < depth + innerNode.prefixLen) {
+			if (keyLen < depth + innerNode.prefixLen) {
 				return null;
 			}
 
@@ -279,14 +673,14 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 			// took pessimistic match or optimistic jump, continue search
 			depth = depth + innerNode.prefixLen;
 			Node nextNode;
-			if (depth == key.length) {
+			if (depth == keyLen) {
 				nextNode = innerNode.getLeaf();
 				if(!skippedPrefix){
 					return (LeafNode<K, V>)nextNode;
 				}
 			}
 			else {
-				nextNode = innerNode.findChild(key[depth]);
+				nextNode = InnerNode.findChildByKind(innerNode, key[depth]);
 				depth++;
 			}
 			if (nextNode == null) {
@@ -299,17 +693,21 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 
 	// is compressed path equal/more/lesser (0, 1, -1) than key
 	static int comparePessimisticCompressedPath(InnerNode node, byte[] key, int depth) {
+		return comparePessimisticCompressedPath(node, key, key.length, depth);
+	}
+
+	static int comparePessimisticCompressedPath(InnerNode node, byte[] key, int keyLen, int depth) {
 		byte[] prefix = node.prefixKeys;
 		int upperLimitForPessimisticMatch = Math.min(InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, node.prefixLen);
 		// limit key because if key length greater than compressed path
 		// and all byte comparisons are same, then also we consider
 		// compressed path == key length
 		return compare(prefix, 0, upperLimitForPessimisticMatch, key, depth, Math
-				.min(depth + upperLimitForPessimisticMatch, key.length));
+				.min(depth + upperLimitForPessimisticMatch, keyLen));
 	}
 
-	private static int compareOptimisticCompressedPath(InnerNode node, byte[] key, int depth) {
-		int result = comparePessimisticCompressedPath(node, key, depth);
+	static int compareOptimisticCompressedPath(InnerNode node, byte[] key, int keyLen, int depth) {
+		int result = comparePessimisticCompressedPath(node, key, keyLen, depth);
 		if (result != 0 || node.prefixLen <= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
 			return result;
 		}
@@ -320,7 +718,7 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		// compressed path == key length
 		return compare(leafBytes, depth + InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, depth + node.prefixLen,
 				key, depth + InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, Math
-						.min(depth + node.prefixLen, key.length));
+						.min(depth + node.prefixLen, keyLen));
 	}
 
 
@@ -328,7 +726,6 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		if (prevDepth == null) {
 			assert depth == 0;
 			root = replaceWith;
-			Node.replaceUplink(null, root);
 		}
 		else {
 			assert depth > 0;
@@ -340,53 +737,126 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	private void replace(byte partialKey, InnerNode prevDepth, Node replaceWith) {
 		if (prevDepth == null) {
 			root = replaceWith;
-			Node.replaceUplink(null, root);
 		}
 		else {
 			prevDepth.replace(partialKey, replaceWith);
 		}
 	}
 
-	private V put(byte[] keyBytes, K key, V value) {
+	// only the first keyLen bytes of keyBytes are the key's
+	V put(byte[] keyBytes, int keyLen, K key, V value) {
+		int mc = modCount;
+		LeafNode<K, V> leaf = getOrInsert(keyBytes, keyLen, key, value, null, null);
+		if (mc != modCount) { // inserted
+			return null;
+		}
+		V oldValue = leaf.getValue();
+		leaf.setValue(value);
+		return oldValue;
+	}
+
+	/*
+		the one descent shared by put and the compute family.
+		if the key exists, returns it's leaf as is.
+		if it doesn't, a new leaf is inserted right where the key is found to be absent and returned.
+		the new leaf's value is the given value, or if a mapping/remapping function is given
+		then what it computes for the key (remapping function with a null old value).
+		a function computing null means nothing is to be inserted, in which case we return null.
+		callers tell apart an existing leaf from an inserted one by the change in modCount.
+
+		only the first keyLen bytes of keyBytes are the key's
+	 */
+	private LeafNode<K, V> getOrInsert(byte[] keyBytes, int keyLen, K key, V value,
+			Function<? super K, ? extends V> mappingFunction,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		boolean computing = mappingFunction != null || remappingFunction != null;
+		if (root == null) {
+			if (computing && (value = computeAbsent(key, mappingFunction, remappingFunction)) == null) {
+				return null;
+			}
+			// create leaf node and set root to that
+			LeafNode<K, V> newLeaf = new LeafNode<>(keyBytes, keyLen, key, value);
+			root = newLeaf;
+			size = 1;
+			modCount++;
+			return newLeaf;
+		}
 		int depth = 0;
 		InnerNode prevDepth = null;
 		Node node = root;
 		while (true) {
-			if (node instanceof LeafNode) {
+			if (node.kind == Node.LEAF) {
 				@SuppressWarnings("unchecked")
 				LeafNode<K, V> leaf = (LeafNode<K, V>) node;
-				Node pathCompressedNode = lazyExpansion(leaf, keyBytes, key, value, depth);
-				if (pathCompressedNode == node) {
+				byte[] leafBytes = leaf.getKeyBytes();
+				if (Arrays.equals(leafBytes, depth, leafBytes.length, keyBytes, depth, keyLen)) {
 					// key already exists
-					V oldValue = leaf.getValue();
-					leaf.setValue(value);
-					return oldValue;
+					return leaf;
+				}
+				if (computing && (value = computeAbsent(key, mappingFunction, remappingFunction)) == null) {
+					return null;
 				}
+				LeafNode<K, V> newLeaf = new LeafNode<>(keyBytes, keyLen, key, value);
+				Node pathCompressedNode = lazyExpansion(leaf, keyBytes, keyLen, newLeaf, depth, newNode4());
 				// we gotta replace the prevDepth's child pointer to this new node
 				replace(depth, keyBytes, prevDepth, pathCompressedNode);
-				size++;
-				modCount++;
-				return null;
+				if (orderStatistics) {
+					// the existing leaf
+					((InnerNode) pathCompressedNode).setLeafCount(1);
+				}
+				leafAdded(newLeaf);
+				return newLeaf;
 			}
 			// compare with compressed path
 			InnerNode innerNode = (InnerNode) node;
-			int newDepth = matchCompressedPath(innerNode, keyBytes, key, value, depth, prevDepth);
-			if (newDepth == -1) { // matchCompressedPath already inserted the leaf node for us
-				size++;
-				modCount++;
-				return null;
+			int newDepth = matchCompressedPath(innerNode, keyBytes, keyLen, depth);
+			if (newDepth < 0) {
+				// compressed path didn't match entirely, branch out
+				if (computing && (value = computeAbsent(key, mappingFunction, remappingFunction)) == null) {
+					return null;
+				}
+				LeafNode<K, V> newLeaf = new LeafNode<>(keyBytes, keyLen, key, value);
+				int lcp = -(newDepth + 1);
+				InnerNode newNode;
+				if (lcp >= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+					newNode = branchOutOptimistic(newNode4(), innerNode, keyBytes, keyLen, newLeaf, lcp, depth + lcp,
+							getFirstEntry(innerNode).getKeyBytes());
+				}
+				else {
+					newNode = branchOutPessimistic(newNode4(), innerNode, keyBytes, keyLen, newLeaf, lcp, depth + lcp);
+				}
+				// replace "this" node with newNode
+				// initialDepth can be zero even if prefixLen is not zero.
+				// the root node could have a prefix too, for example after insertions of
+				// BAR, BAZ? prefix would be BA kept in the root node itself
+				replace(depth, keyBytes, prevDepth, newNode);
+				if (orderStatistics) {
+					// the node we branched out of
+					newNode.setLeafCount(innerNode.getLeafCount());
+				}
+				leafAdded(newLeaf);
+				return newLeaf;
 			}
 
-			if (keyBytes.length == newDepth) {
-				LeafNode<K, V> leaf = (LeafNode<K, V>) innerNode.getLeaf();
-				V oldValue = leaf.getValue();
-				leaf.setValue(value);
-				return oldValue;
+			if (keyLen == newDepth) {
+				if (innerNode.hasLeaf()) {
+					@SuppressWarnings("unchecked")
+					LeafNode<K, V> leaf = (LeafNode<K, V>) innerNode.getLeaf();
+					return leaf;
+				}
+				// key ended, it means it is a prefix
+				if (computing && (value = computeAbsent(key, mappingFunction, remappingFunction)) == null) {
+					return null;
+				}
+				LeafNode<K, V> newLeaf = new LeafNode<>(keyBytes, keyLen, key, value);
+				innerNode.setLeaf(newLeaf);
+				leafAdded(newLeaf);
+				return newLeaf;
 			}
 
 			// we're now at line 26 in paper
 			byte partialKey = keyBytes[newDepth];
-			Node child = innerNode.findChild(partialKey);
+			Node child = InnerNode.findChildByKind(innerNode, partialKey);
 			if(child != null){
 				// set fields for next iteration
 				prevDepth = innerNode;
@@ -396,16 +866,51 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 			}
 
 			// add this key as child
-			Node leaf = new LeafNode<>(keyBytes, key, value);
+			if (computing && (value = computeAbsent(key, mappingFunction, remappingFunction)) == null) {
+				return null;
+			}
+			LeafNode<K, V> newLeaf = new LeafNode<>(keyBytes, keyLen, key, value);
 			if(innerNode.isFull()){
 				innerNode = innerNode.grow();
 				replace(depth, keyBytes, prevDepth, innerNode);
 			}
-			innerNode.addChild(partialKey, leaf);
-			size++;
-			modCount++;
-			return null;
+			innerNode.addChild(partialKey, newLeaf);
+			leafAdded(newLeaf);
+			return newLeaf;
+		}
+	}
+
+	// the Node4 this tree path compresses and branches out with
+	private Node4 newNode4() {
+		return orderStatistics ? new Node4.Counted() : new Node4();
+	}
+
+	private void leafAdded(LeafNode<K, V> leaf) {
+		size++;
+		modCount++;
+		if (orderStatistics) {
+			// down the leaf's path again, nodes don't link up to their parents
+			byte[] key = leaf.getKeyBytes();
+			Node node = root;
+			int depth = 0;
+			while (node != leaf) {
+				InnerNode innerNode = (InnerNode) node;
+				innerNode.setLeafCount(innerNode.getLeafCount() + 1);
+				depth += innerNode.prefixLen;
+				node = depth == key.length ? innerNode.getLeaf() : innerNode.findChild(key[depth++]);
+			}
+		}
+	}
+
+	// value for an absent key, computed before any structural modification
+	private V computeAbsent(K key, Function<? super K, ? extends V> mappingFunction,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		int mc = modCount;
+		V value = mappingFunction != null ? mappingFunction.apply(key) : remappingFunction.apply(key, null);
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
 		}
+		return value;
 	}
 
     /*
@@ -416,27 +921,43 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
         that's the part over which we need to compute longest common prefix.
         that's the part we can path compress.
     */
-    private static <K, V> Node lazyExpansion(LeafNode<K, V> leaf, byte[] keyBytes, K key, V value, int depth) {
+    static <K, V> Node lazyExpansion(LeafNode<K, V> leaf, byte[] keyBytes, K key, V value, int depth) {
+        return lazyExpansion(leaf, keyBytes, keyBytes.length, key, value, depth);
+    }
+
+    static <K, V> Node lazyExpansion(LeafNode<K, V> leaf, byte[] keyBytes, int keyLen, K key, V value, int depth) {
+        byte[] leafKey = leaf.getKeyBytes();
+        if (Arrays.equals(leafKey, depth, leafKey.length, keyBytes, depth, keyLen)) {
+            // we're referring to a key that already exists, replace value and return current
+            return leaf;
+        }
+        return lazyExpansion(leaf, keyBytes, keyLen, new LeafNode<>(keyBytes, keyLen, key, value), depth);
+    }
+
+    // key of newLeaf must not be the same as leaf's
+    static <K, V> Node lazyExpansion(LeafNode<K, V> leaf, byte[] keyBytes, int keyLen, LeafNode<K, V> newLeaf,
+            int depth) {
+        return lazyExpansion(leaf, keyBytes, keyLen, newLeaf, depth, new Node4());
+    }
+
+    // pathCompressedNode is the empty Node4 to expand into, of the type the tree creates
+    static <K, V> Node lazyExpansion(LeafNode<K, V> leaf, byte[] keyBytes, int keyLen, LeafNode<K, V> newLeaf,
+            int depth, Node4 pathCompressedNode) {
 
         // find LCP
         int lcp = 0;
         byte[] leafKey = leaf.getKeyBytes(); // loadKey in paper
-        int end = Math.min(leafKey.length, keyBytes.length);
+        int end = Math.min(leafKey.length, keyLen);
         for (; depth < end && leafKey[depth] == keyBytes[depth]; depth++, lcp++) ;
-        if (depth == keyBytes.length && depth == leafKey.length) {
-            // we're referring to a key that already exists, replace value and return current
-            return leaf;
-        }
+        assert depth != keyLen || depth != leafKey.length;
 
-        // create new node with LCP
-        Node4 pathCompressedNode = new Node4();
+        // new node with LCP
         pathCompressedNode.prefixLen = lcp;
         int pessimisticLcp = Math.min(lcp, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT);
         System.arraycopy(keyBytes, depth - lcp, pathCompressedNode.prefixKeys, 0, pessimisticLcp);
 
         // add new key and old leaf as children
-        LeafNode newLeaf = new LeafNode<>(keyBytes, key, value);
-        if (depth == keyBytes.length) {
+        if (depth == keyLen) {
             // barca to be inserted, barcalona already exists
             // set barca's parent to be this path compressed node
             // setup uplink whenever we set downlink
@@ -498,29 +1019,25 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 
 		 2) pessimistic path did not match, we have to split
 	 */
-	private int matchCompressedPath(InnerNode node, byte[] keyBytes, K key, V value, int depth, InnerNode prevDepth) {
+	/*
+		returns the depth after the node's compressed path, if the key matches it entirely.
+		else -(lcp + 1), lcp being the length of the compressed path that did match.
+	 */
+	private static int matchCompressedPath(InnerNode node, byte[] keyBytes, int keyLen, int depth) {
 		int lcp = 0;
-		int end = Math.min(keyBytes.length-depth, Math.min(node.prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+		int end = Math.min(keyLen - depth, Math.min(node.prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
 		// match pessimistic compressed path
 		for (; lcp < end && keyBytes[depth] == node.prefixKeys[lcp]; lcp++, depth++);
 
 		if (lcp == node.prefixLen) {
-			if (depth == keyBytes.length && !node.hasLeaf()) { // key ended, it means it is a prefix
-				LeafNode leafNode = new LeafNode<>(keyBytes, key, value);
-				node.setLeaf(leafNode);
-				return -1;
-			}
-			else {
-				return depth;
-			}
+			return depth;
 		}
 
-		InnerNode newNode;
 		if (lcp == InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
 			// match remaining optimistic path
 			byte[] leafBytes = getFirstEntry(node).getKeyBytes();
 			int leftToMatch = node.prefixLen - InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT;
-			end = Math.min(keyBytes.length, depth + leftToMatch);
+			end = Math.min(keyLen, depth + leftToMatch);
 			/*
 				match remaining optimistic path
 				if we match entirely we return with new depth and caller can proceed with findChild (depth + lcp + 1)
@@ -528,45 +1045,32 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 			 */
 			for (; depth < end && keyBytes[depth] == leafBytes[depth]; depth++, lcp++);
 			if (lcp == node.prefixLen) {
-				if (depth == keyBytes.length && !node.hasLeaf()) { // key ended, it means it is a prefix
-					LeafNode leafNode = new LeafNode<>(keyBytes, key, value);
-					node.setLeaf(leafNode);
-					return -1;
-				}
-				else {
-					// matched entirely, but key is left
-					return depth;
-				}
-			}
-			else {
-				newNode = branchOutOptimistic(node, keyBytes, key, value, lcp, depth, leafBytes);
+				// matched entirely
+				return depth;
 			}
 		}
-		else {
-			newNode = branchOutPessimistic(node, keyBytes, key, value, lcp, depth);
-		}
-		// replace "this" node with newNode
-		// initialDepth can be zero even if prefixLen is not zero.
-		// the root node could have a prefix too, for example after insertions of
-		// BAR, BAZ? prefix would be BA kept in the root node itself
-		replace(depth - lcp, keyBytes, prevDepth, newNode);
-		return -1; // we've already inserted the leaf node, caller needs to do nothing more
+		return -(lcp + 1);
 	}
 
 	// called when lcp has become more than InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT
-	static <K, V> InnerNode branchOutOptimistic(InnerNode node, byte[] keyBytes, K key, V value, int lcp, int depth,
-			byte[] leafBytes) {
+	static <K, V> InnerNode branchOutOptimistic(InnerNode node, byte[] keyBytes, int keyLen, K key, V value, int lcp,
+			int depth, byte[] leafBytes) {
+		return branchOutOptimistic(new Node4(), node, keyBytes, keyLen, new LeafNode<>(keyBytes, keyLen, key, value), lcp,
+				depth, leafBytes);
+	}
+
+	// branchOut is the empty Node4 to branch out into, of the type the tree creates
+	static InnerNode branchOutOptimistic(Node4 branchOut, InnerNode node, byte[] keyBytes, int keyLen,
+			LeafNode<?, ?> leafNode, int lcp, int depth, byte[] leafBytes) {
 		// prefix doesn't match entirely, we have to branch
 		assert lcp < node.prefixLen && lcp >= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT : lcp + ", " + node.prefixLen;
 		int initialDepth = depth - lcp;
-		LeafNode leafNode = new LeafNode<>(keyBytes, key, value);
 
 		// new node with updated prefix len, compressed path
-		Node4 branchOut = new Node4();
 		branchOut.prefixLen = lcp;
 		// note: depth is the updated depth (initialDepth = depth - lcp)
 		System.arraycopy(keyBytes, initialDepth, branchOut.prefixKeys, 0, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT);
-		if (depth == keyBytes.length) {
+		if (depth == keyLen) {
 			branchOut.setLeaf(leafNode);
 		}
 		else {
@@ -580,21 +1084,30 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	}
 
 	static <K, V> InnerNode branchOutPessimistic(InnerNode node, byte[] keyBytes, K key, V value, int lcp, int depth) {
+		return branchOutPessimistic(node, keyBytes, keyBytes.length, key, value, lcp, depth);
+	}
+
+	static <K, V> InnerNode branchOutPessimistic(InnerNode node, byte[] keyBytes, int keyLen, K key, V value, int lcp,
+			int depth) {
+		// create new lazy leaf node for unmatched key?
+		return branchOutPessimistic(new Node4(), node, keyBytes, keyLen, new LeafNode<>(keyBytes, keyLen, key, value), lcp,
+				depth);
+	}
+
+	// branchOut is the empty Node4 to branch out into, of the type the tree creates
+	static InnerNode branchOutPessimistic(Node4 branchOut, InnerNode node, byte[] keyBytes, int keyLen,
+			LeafNode<?, ?> leafNode, int lcp, int depth) {
 		// pessimistic prefix doesn't match entirely, we have to branch
 		// BAR, BAZ inserted, now inserting BOZ
 		assert lcp < node.prefixLen && lcp < InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT;
 
 		int initialDepth = depth - lcp;
 
-		// create new lazy leaf node for unmatched key?
-		LeafNode leafNode = new LeafNode<>(keyBytes, key, value);
-
 		// new node with updated prefix len, compressed path
-		Node4 branchOut = new Node4();
 		branchOut.prefixLen = lcp;
 		// note: depth is the updated depth (initialDepth = depth - lcp)
 		System.arraycopy(keyBytes, initialDepth, branchOut.prefixKeys, 0, lcp);
-		if (depth == keyBytes.length) { // key ended it means it is a prefix
+		if (depth == keyLen) { // key ended it means it is a prefix
 			branchOut.setLeaf(leafNode);
 		}
 		else {
@@ -619,7 +1132,7 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	}
 
 	@SuppressWarnings("unchecked")
-	private static <K, V> LeafNode<K, V> getFirstEntry(Node startFrom) {
+	static <K, V> LeafNode<K, V> getFirstEntry(Node startFrom) {
 		Node node = startFrom;
 		Node next = node.firstOrLeaf();
 		while (next != null) {
@@ -641,7 +1154,7 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	}
 
 	@SuppressWarnings("unchecked")
-	private static <K, V> LeafNode<K, V> getLastEntry(Node startFrom) {
+	static <K, V> LeafNode<K, V> getLastEntry(Node startFrom) {
 		Node node = startFrom;
 		Node next = node.last();
 		while (next != null) {
@@ -675,80 +1188,72 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		return getLowerOrFloorEntry(true, k);
 	}
 
-	LeafNode<K, V> getLowerEntry(byte[] k) {
+	LeafNode<K, V> getLowerEntry(byte[] k, int keyLen) {
 		if(isEmpty()){
 			return null;
 		}
-		return getLowerOrFloorEntry(true, k);
+		return getLowerOrFloorEntry(true, k, keyLen);
 	}
 
 	LeafNode<K, V> getFloorEntry(K k) {
 		return getLowerOrFloorEntry(false, k);
 	}
 
-	LeafNode<K, V> getFloorEntry(byte[] k) {
+	LeafNode<K, V> getFloorEntry(byte[] k, int keyLen) {
 		if(isEmpty()){
 			return null;
 		}
-		return getLowerOrFloorEntry(false, k);
+		return getLowerOrFloorEntry(false, k, keyLen);
 	}
 
 	// note: caller needs to check if map is empty
-	private LeafNode<K, V> getLowerOrFloorEntry(boolean lower, byte[] key) {
-		int depth = 0;
-		Node node = root;
-		while (true) {
-			if (node instanceof LeafNode) {
-				// binary comparable comparison
-				@SuppressWarnings("unchecked")
-				LeafNode<K, V> leafNode = (LeafNode<K, V>) node;
-				byte[] leafKey = leafNode.getKeyBytes();
-				if (compare(key, depth, key.length, leafKey, depth, leafKey.length) >= (lower ? 1 : 0)) {
-					return leafNode;
-				}
-				return predecessor(leafNode);
-			}
-			InnerNode innerNode = (InnerNode) node;
-			// compare compressed path
-			int compare = compareOptimisticCompressedPath((InnerNode) node, key, depth);
-			if (compare < 0) { // lesser
-				return getLastEntry(node);
-			}
-			else if (compare > 0) { // greater, that means all children of this node will be greater than key
-				return predecessor(node);
-			}
-			// compressed path matches completely
-			depth += innerNode.prefixLen;
-			if (depth == key.length) {
-				if (!lower && innerNode.hasLeaf()) {
-					return (LeafNode<K, V>) innerNode.getLeaf();
-				}
-				return predecessor(innerNode);
-			}
-            Node child = innerNode.floor(key[depth]);
-			if(child == null){
-                return leafOrPredecessor(innerNode);
-            } else if(child.uplinkKey() != key[depth]){
-                return getLastEntry(child);
-            }
-			depth++;
-			node = child;
-		}
+	// only the first keyLen bytes of key are the key's
+	@SuppressWarnings("unchecked")
+	private LeafNode<K, V> getLowerOrFloorEntry(boolean lower, byte[] key, int keyLen) {
+		return (LeafNode<K, V>) lowerOrFloor(root, 0, lower, key, keyLen);
+	}
+
+	/*
+		the mirror image of higherOrCeil.
+		the node's own leaf is lesser than all of it's children, hence it's the last resort on a level.
+	 */
+	private static Node lowerOrFloor(Node node, int depth, boolean lower, byte[] key, int keyLen) {
+		if (node.kind == Node.LEAF) {
+			byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+			return compare(key, depth, keyLen, leafKey, depth, leafKey.length) >= (lower ? 1 : 0) ? node : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int compare = compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+		if (compare != 0) {
+			return compare < 0 ? getLastEntry(innerNode) : null;
+		}
+		depth += innerNode.prefixLen;
+		if (depth == keyLen) {
+			// the leaf (if any) is key, the children are greater
+			return lower ? null : innerNode.getLeaf();
+		}
+		Node child = InnerNode.findChildByKind(innerNode, key[depth]);
+		if (child != null) {
+			Node found = lowerOrFloor(child, depth + 1, lower, key, keyLen);
+			if (found != null) {
+				return found;
+			}
+		}
+		Node lesser = innerNode.lesser(key[depth]);
+		return lesser == null ? innerNode.getLeaf() : getLastEntry(lesser);
 	}
 
 	private LeafNode<K, V> getLowerOrFloorEntry(boolean lower, K k) {
 		if (isEmpty()) {
 			return null;
 		}
-		byte[] key = binaryComparable.get(k);
-		return getLowerOrFloorEntry(lower, key);
-	}
-
-	private LeafNode<K, V> leafOrPredecessor(InnerNode innerNode) {
-		if (innerNode.hasLeaf()) {
-			return (LeafNode<K, V>) innerNode.getLeaf();
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			return getLowerOrFloorEntry(lower, keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
 		}
-		return predecessor(innerNode);
 	}
 
 	@Override
@@ -757,8 +1262,13 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 	}
 
 	int compare(K k1, byte[] k2Bytes) {
-		byte[] k1Bytes = binaryComparable.get(k1);
-		return compare(k1Bytes, 0, k1Bytes.length, k2Bytes, 0, k2Bytes.length);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k1);
+		try {
+			return compare(keyBuffer.bytes, 0, keyBuffer.length, k2Bytes, 0, k2Bytes.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	// 0 if a == b
@@ -799,102 +1309,80 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		return getHigherOrCeilEntry(false, k);
 	}
 
-	LeafNode<K, V> getHigherEntry(byte[] key) {
+	LeafNode<K, V> getHigherEntry(byte[] key, int keyLen) {
 		if(isEmpty()){
 			return null;
 		}
-		return getHigherOrCeilEntry(false, key);
+		return getHigherOrCeilEntry(false, key, keyLen);
 	}
 
 	LeafNode<K, V> getCeilingEntry(K k) {
 		return getHigherOrCeilEntry(true, k);
 	}
 
-	LeafNode<K, V> getCeilingEntry(byte[] key) {
+	LeafNode<K, V> getCeilingEntry(byte[] key, int keyLen) {
 		if(isEmpty()){
 			return null;
 		}
-		return getHigherOrCeilEntry(true, key);
+		return getHigherOrCeilEntry(true, key, keyLen);
 	}
 
 
-	/*
-		On level X match compressed path of "this" node
-		if matches, then take follow on pointer and continue matching
-		if doesn't, see if compressed path greater/smaller than key
-			if greater, return the first node of the this level i.e. call first on this node and return.
-			if lesser, go one level up (using parent link)
-			and find the next partialKey greater than the uplinking partialKey on level X-1.
-			if you got one, simply take the first child nodes at each down level and return
-			 the leaf (left most traversal)
-			if not, then we got to go on level X-2 and find the next greater
-			and keep going level ups until we either find a next greater partialKey
-			or we find root (which will have parent null and hence search ends).
-
-		What if all compressed paths matched, then when taking the next follow on pointer,
-		we reach a leafNode? or a null?
-		if leafNode then it means, uptil now the leafNode has the same prefix as the provided key.
-			if leafNode >= given key, then return leafNode
-			if leafNode < given key, then take leafNode's parent uplink and find next
-			greater partialKey than the uplinking partialKey on level leaf-1.
-		if you reach a null, then it means key doesn't exist,
-			but before taking this previous partialKey, the entire path did exist.
-			Hence we come up a level from where we got the null.
-			Find the next higher partialKey than which we took for null
-			(no uplink from the null node, so we do it before the recursive call itself).
-
-		so it seems the uplinking traversal is same in all cases
-	  */
 	// note: caller needs to check if map is empty
-	private LeafNode<K, V> getHigherOrCeilEntry(boolean ceil, byte[] key) {
-		int depth = 0;
-		Node node = root;
-		while (true) {
-			if (node instanceof LeafNode) {
-				// binary comparable comparison
-				@SuppressWarnings("unchecked")
-				LeafNode<K, V> leafNode = (LeafNode<K, V>) node;
-				byte[] leafKey = leafNode.getKeyBytes();
-				if (compare(key, depth, key.length, leafKey, depth, leafKey.length) < (ceil ? 1 : 0)) {
-					return leafNode;
-				}
-				return successor(leafNode);
-			}
-			InnerNode innerNode = (InnerNode) node;
-			// compare compressed path
-			int compare = compareOptimisticCompressedPath(innerNode, key, depth);
-			if (compare > 0) { // greater
-				return getFirstEntry(node);
-			}
-			else if (compare < 0) { // lesser, that means all children of this node will be lesser than key
-				return successor(node);
-			}
+	// only the first keyLen bytes of key are the key's
+	@SuppressWarnings("unchecked")
+	private LeafNode<K, V> getHigherOrCeilEntry(boolean ceil, byte[] key, int keyLen) {
+		return (LeafNode<K, V>) higherOrCeil(root, 0, ceil, key, keyLen);
+	}
 
-			// compressed path matches completely
-			depth += innerNode.prefixLen;
-			if (depth == key.length) {
-				// if ceil is true, then we are allowed to return the prefix ending here (leaf of this node)
-				// if ceil is false, then we need something higher and not the prefix, hence we start traversal
-				// from first()
-				return ceil ? getFirstEntry(innerNode) : getFirstEntry(innerNode.first());
+	/*
+		the least leaf greater than (or equal to, if ceil) key in the subtree whose path starts at depth,
+		null if none. descends along key, and on the way back up takes the first leaf of the next greater
+		child on the level the descent found nothing below. a one-shot lookup backtracks through the call
+		stack rather than keep a Path (which Cursor does, see Path#seekHigherOrCeil), hence doesn't allocate.
+	 */
+	private static Node higherOrCeil(Node node, int depth, boolean ceil, byte[] key, int keyLen) {
+		if (node.kind == Node.LEAF) {
+			byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+			return compare(key, depth, keyLen, leafKey, depth, leafKey.length) < (ceil ? 1 : 0) ? node : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int compare = compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+		if (compare != 0) {
+			// all of the subtree is on one side of key
+			return compare > 0 ? getFirstEntry(innerNode) : null;
+		}
+		depth += innerNode.prefixLen;
+		if (depth == keyLen) {
+			// the leaf (if any) is key, the children are greater
+			if (ceil) {
+				return getFirstEntry(innerNode);
 			}
-			Node child = innerNode.ceil(key[depth]);
-			if(child == null){ // on this level, no child is greater or equal
-				return successor(node);
-			} else if(child.uplinkKey() != key[depth]){ // ceil returned a greater child
-				return getFirstEntry(child);
+			Node first = innerNode.first();
+			return first == null ? null : getFirstEntry(first);
+		}
+		Node child = InnerNode.findChildByKind(innerNode, key[depth]);
+		if (child != null) {
+			Node found = higherOrCeil(child, depth + 1, ceil, key, keyLen);
+			if (found != null) {
+				return found;
 			}
-			depth++;
-			node = child;
 		}
+		Node greater = innerNode.greater(key[depth]);
+		return greater == null ? null : getFirstEntry(greater);
 	}
 
 	private LeafNode<K, V> getHigherOrCeilEntry(boolean ceil, K k) {
 		if (isEmpty()) {
 			return null;
 		}
-		byte[] key = binaryComparable.get(k);
-		return getHigherOrCeilEntry(ceil, key);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			return getHigherOrCeilEntry(ceil, keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	@Override
@@ -935,8 +1423,8 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		NavigableMap<K, V> km = descendingMap;
 		return (km != null) ? km :
 				(descendingMap = new DescendingSubMap<>(this,
-						true, null, true,
-						true, null, true));
+						true, (byte[]) null, true,
+						true, (byte[]) null, true));
 	}
 
 	@Override
@@ -1030,52 +1518,42 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		return size;
 	}
 
-	static <K, V> LeafNode<K, V> successor(Node node) {
-		InnerNode uplink;
-		while ((uplink = node.parent()) != null) {
-			if (uplink.getLeaf() == node) {
-				// we surely have a first node
-				return getFirstEntry(uplink.first());
-			}
-			Node greater = uplink.greater(node.uplinkKey());
-			if (greater != null) {
-				return getFirstEntry(greater);
-			}
-			node = uplink;
-		}
-		return null;
+	// leaf should not be null
+	// neither should tree be empty when calling this
+	void deleteEntry(LeafNode<K, V> leaf) {
+		Path path = scratchPath();
+		Node found = path.seek(root, leaf.getKeyBytes(), leaf.getKeyBytes().length);
+		assert found == leaf;
+		deleteEntry(path, leaf);
 	}
 
-	static <K, V> LeafNode<K, V> predecessor(Node node) {
-		InnerNode uplink;
-		while ((uplink = node.parent()) != null) {
-			if (uplink.getLeaf() == node) { // least node, go up
-				node = uplink;
-				continue;
-			}
-			Node lesser = uplink.lesser(node.uplinkKey());
-			if (lesser != null) {
-				return getLastEntry(lesser);
-			}
-			else if (uplink.hasLeaf()) {
-				return (LeafNode<K, V>) uplink.getLeaf();
-			}
-			node = uplink;
-		}
-		return null;
+	/*
+		the path removals seek to the leaf with, so that a remove doesn't allocate one.
+		a structural modification is never concurrent with another (and doesn't call out
+		while on the path), hence one per tree suffices.
+	 */
+	private Path scratchPath() {
+		Path path = scratchPath;
+		return path != null ? path : (scratchPath = new Path());
 	}
 
-	// leaf should not be null
-	// neither should tree be empty when calling this
-	void deleteEntry(LeafNode<K, V> leaf) {
+	// path must lead to the leaf
+	void deleteEntry(Path path, LeafNode<K, V> leaf) {
 		size--;
 		modCount++;
-		InnerNode parent = leaf.parent();
+		InnerNode parent = path.parent();
 		if (parent == null) {
 			// means root == leaf
 			root = null;
 			return;
 		}
+		if (orderStatistics) {
+			// before the path changes, shrunk nodes copy the count
+			for (int i = 0; i < path.depth(); i++) {
+				InnerNode node = path.node(i);
+				node.setLeafCount(node.getLeafCount() - 1);
+			}
+		}
 
 		if (parent.getLeaf() == leaf) {
 			parent.removeLeaf();
@@ -1084,18 +1562,17 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 			parent.removeChild(leaf.uplinkKey());
 		}
 
+		InnerNode grandParent = path.grandParent();
 		if (parent.shouldShrink()) {
 			InnerNode newParent = parent.shrink();
-			// newParent should have copied the uplink to same grandParent of oldParent
-			InnerNode grandParent = newParent.parent();
 			replace(newParent.uplinkKey(), grandParent, newParent);
 		}
 		else if (parent.size() == 1 && !parent.hasLeaf()) {
-			pathCompressOnlyChild((Node4) parent);
+			pathCompressOnlyChild((Node4) parent, grandParent);
 		}
 		else if (parent.size() == 0) {
 			assert parent.hasLeaf();
-			replace(parent.uplinkKey(), parent.parent(), parent.getLeaf());
+			replace(parent.uplinkKey(), grandParent, parent.getLeaf());
 		}
 	}
 
@@ -1124,4 +1601,604 @@ public class AdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements Naviga
 		return new DescendingKeyIterator<>(this, getLastEntry());
 	}
 
+	boolean hasOrderStatistics() {
+		return orderStatistics;
+	}
+
+	private void checkOrderStatistics() {
+		if (!orderStatistics) {
+			throw new UnsupportedOperationException("tree doesn't keep order statistics");
+		}
+	}
+
+	// no of leaves under node, for trees keeping order statistics
+	static int count(Node node) {
+		return node instanceof InnerNode ? ((InnerNode) node).getLeafCount() : 1;
+	}
+
+	// no of leaves under node, by walking them
+	static int countLeaves(Node node) {
+		if (node instanceof LeafNode) {
+			return 1;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int leaves = innerNode.hasLeaf() ? 1 : 0;
+		for (Node child = innerNode.first(); child != null; child = innerNode.greater(child.uplinkKey())) {
+			leaves += countLeaves(child);
+		}
+		return leaves;
+	}
+
+	/**
+	 * Returns the number of keys in this map strictly less than the given key.
+	 * That is the index the key has (or would have, if not present) in the sorted order of keys.
+	 *
+	 * @param key the key to rank
+	 * @return the number of keys strictly less than key
+	 * @throws NullPointerException if the specified key is null
+	 * @throws UnsupportedOperationException if this tree doesn't keep order statistics
+	 * @see #AdaptiveRadixTree(BinaryComparable, boolean)
+	 */
+	public int rank(K key) {
+		checkOrderStatistics();
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			return rank(keyBuffer.bytes, keyBuffer.length, false);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/*
+		no of keys less than (or equal to, if inclusive) the given key.
+		sums the counts of the subtrees to the left of the key's path, on the way down.
+		only the first keyLen bytes of key are the key's
+	 */
+	int rank(byte[] key, int keyLen, boolean inclusive) {
+		int rank = 0;
+		Node node = root;
+		int depth = 0;
+		while (node != null) {
+			if (node instanceof LeafNode) {
+				byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+				if (compare(leafKey, depth, leafKey.length, key, depth, keyLen) < (inclusive ? 1 : 0)) {
+					rank++;
+				}
+				return rank;
+			}
+			InnerNode innerNode = (InnerNode) node;
+			int compare = compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+			if (compare > 0) { // all keys of this node are greater
+				return rank;
+			}
+			else if (compare < 0) { // all keys of this node are lesser
+				return rank + innerNode.getLeafCount();
+			}
+			depth += innerNode.prefixLen;
+			if (depth == keyLen) {
+				// the leaf (if any) is key itself, all children are greater
+				return inclusive && innerNode.hasLeaf() ? rank + 1 : rank;
+			}
+			if (innerNode.hasLeaf()) { // a prefix of key
+				rank++;
+			}
+			int partialKey = Byte.toUnsignedInt(key[depth]);
+			Node child = innerNode.first();
+			for (; child != null && Byte.toUnsignedInt(child.uplinkKey()) < partialKey;
+					child = innerNode.greater(child.uplinkKey())) {
+				rank += count(child);
+			}
+			if (child == null || Byte.toUnsignedInt(child.uplinkKey()) != partialKey) {
+				return rank;
+			}
+			depth++;
+			node = child;
+		}
+		return rank;
+	}
+
+	/**
+	 * Returns the entry at the given index in the sorted order of keys, i.e. the one with
+	 * {@code index} keys less than it's key.
+	 * Together with {@link #tailMap(Object)} this allows paging through the map,
+	 * without iterating through all the preceding keys.
+	 *
+	 * @param index of the entry to return
+	 * @return the entry at index
+	 * @throws IndexOutOfBoundsException if index is negative or not less than {@link #size()}
+	 * @throws UnsupportedOperationException if this tree doesn't keep order statistics
+	 * @see #AdaptiveRadixTree(BinaryComparable, boolean)
+	 */
+	public Map.Entry<K, V> select(int index) {
+		checkOrderStatistics();
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return exportEntry(select(root, index));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> LeafNode<K, V> select(Node node, int index) {
+		while (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			if (innerNode.hasLeaf()) {
+				if (index == 0) {
+					return (LeafNode<K, V>) innerNode.getLeaf();
+				}
+				index--;
+			}
+			Node child = innerNode.first();
+			for (int count; index >= (count = count(child)); child = innerNode.greater(child.uplinkKey())) {
+				index -= count;
+			}
+			node = child;
+		}
+		return (LeafNode<K, V>) node;
+	}
+
+	/**
+	 * Returns the number of keys in the given range, same as
+	 * {@code subMap(fromKey, fromInclusive, toKey, toInclusive).size()}.
+	 *
+	 * @param fromKey low endpoint of the keys to count
+	 * @param fromInclusive {@code true} if the low endpoint is to be included
+	 * @param toKey high endpoint of the keys to count
+	 * @param toInclusive {@code true} if the high endpoint is to be included
+	 * @return the number of keys in the range
+	 * @throws NullPointerException if fromKey or toKey is null
+	 * @throws IllegalArgumentException if fromKey is greater than toKey
+	 * @throws UnsupportedOperationException if this tree doesn't keep order statistics
+	 * @see #AdaptiveRadixTree(BinaryComparable, boolean)
+	 */
+	public int countRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		checkOrderStatistics();
+		if (fromKey == null || toKey == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer from = KeyBuffer.acquire(binaryComparable, fromKey);
+		try {
+			KeyBuffer to = KeyBuffer.acquire(binaryComparable, toKey);
+			try {
+				if (compare(from.bytes, 0, from.length, to.bytes, 0, to.length) > 0) {
+					throw new IllegalArgumentException("fromKey > toKey");
+				}
+				return Math.max(0, rank(to.bytes, to.length, toInclusive)
+						- rank(from.bytes, from.length, !fromInclusive));
+			}
+			finally {
+				to.release();
+			}
+		}
+		finally {
+			from.release();
+		}
+	}
+
+	/**
+	 * Returns the number of keys ranging from fromKey, inclusive, to toKey, exclusive.
+	 * See {@link #countRange(Object, boolean, Object, boolean)}.
+	 *
+	 * @param fromKey low endpoint (inclusive) of the keys to count
+	 * @param toKey high endpoint (exclusive) of the keys to count
+	 * @return the number of keys in the range
+	 */
+	public int countRange(K fromKey, K toKey) {
+		return countRange(fromKey, true, toKey, false);
+	}
+
+	/**
+	 * Removes all of the mappings whose keys range from fromKey to toKey,
+	 * same as {@code subMap(fromKey, fromInclusive, toKey, toInclusive).clear()}.
+	 *
+	 * <p>Subtrees lying entirely within the range are unlinked as a whole,
+	 * only the nodes on the paths of the two endpoints are visited. Hence removing a range
+	 * takes time proportional to the length of the endpoints rather than the number of keys removed
+	 * (for a tree without order statistics, the unlinked subtrees are still walked to count their keys).
+	 *
+	 * @param fromKey low endpoint of the keys to remove
+	 * @param fromInclusive {@code true} if the low endpoint is to be removed
+	 * @param toKey high endpoint of the keys to remove
+	 * @param toInclusive {@code true} if the high endpoint is to be removed
+	 * @throws NullPointerException if fromKey or toKey is null
+	 * @throws IllegalArgumentException if fromKey is greater than toKey
+	 */
+	public void removeRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if (fromKey == null || toKey == null) {
+			throw new NullPointerException();
+		}
+		byte[] from = binaryComparable.get(fromKey);
+		byte[] to = binaryComparable.get(toKey);
+		if (compare(from, 0, from.length, to, 0, to.length) > 0) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		removeRange(from, fromInclusive, to, toInclusive);
+	}
+
+	/**
+	 * Removes all of the mappings whose keys range from fromKey, inclusive, to toKey, exclusive.
+	 * See {@link #removeRange(Object, boolean, Object, boolean)}.
+	 *
+	 * @param fromKey low endpoint (inclusive) of the keys to remove
+	 * @param toKey high endpoint (exclusive) of the keys to remove
+	 */
+	public void removeRange(K fromKey, K toKey) {
+		removeRange(fromKey, true, toKey, false);
+	}
+
+	// null bounds are unbounded
+	void removeRange(byte[] from, boolean fromInclusive, byte[] to, boolean toInclusive) {
+		if (from == null && to == null) {
+			clear();
+			return;
+		}
+		if (root == null) {
+			return;
+		}
+		RangeRemover remover = new RangeRemover(from, fromInclusive, to, toInclusive, orderStatistics);
+		root = remover.removeFrom(root);
+		if (remover.removed != 0) {
+			size -= remover.removed;
+			modCount++;
+		}
+	}
+
+	/**
+	 * Splits this map at the given key. The mappings whose keys are greater than or equal to key
+	 * are removed from this map and returned as a new map, the ones with lesser keys remain.
+	 *
+	 * <p>Only the inner nodes on the path of the key are rebuilt, every other subtree is moved
+	 * as is into one of the two trees. Hence splitting takes time proportional to the length of the key
+	 * rather than the number of keys moved (for a tree without order statistics, the moved
+	 * subtrees are still walked to count their keys). The returned map orders keys by the same
+	 * {@link BinaryComparable} and keeps order statistics if this map does.
+	 *
+	 * @param key the least key of the returned map
+	 * @return a new map with the mappings whose keys are greater than or equal to key
+	 * @throws NullPointerException if key is null
+	 */
+	public AdaptiveRadixTree<K, V> splitAt(K key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		AdaptiveRadixTree<K, V> tail = new AdaptiveRadixTree<>(binaryComparable, orderStatistics);
+		if (root == null) {
+			return tail;
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			Node[] roots = new TreeSplicer(orderStatistics).split(root, keyBuffer.bytes, keyBuffer.length);
+			if (roots[1] != null) {
+				root = roots[0];
+				tail.root = roots[1];
+				tail.size = orderStatistics ? count(roots[1]) : countLeaves(roots[1]);
+				size -= tail.size;
+				modCount++;
+			}
+		}
+		finally {
+			keyBuffer.release();
+		}
+		return tail;
+	}
+
+	/**
+	 * Joins two maps into one, provided all keys of left are less than all keys of right.
+	 * The mappings are moved, not copied: left and right are both empty afterwards.
+	 *
+	 * <p>The two trees can only meet along the rightmost path of left and the leftmost path
+	 * of right. Only the inner nodes on those paths are rebuilt, every other subtree is moved
+	 * as is into the joined tree. Hence joining takes time proportional to the length of the keys
+	 * on those paths rather than the number of keys.
+	 *
+	 * @param left the map with the lesser keys
+	 * @param right the map with the greater keys
+	 * @param <K> the type of keys maintained by the maps
+	 * @param <V> the type of mapped values
+	 * @return a new map with the mappings of both, ordering keys by left's {@link BinaryComparable}
+	 * @throws IllegalArgumentException if left and right are the same map, only one of them
+	 *         keeps order statistics or left's last key is not less than right's first key
+	 */
+	public static <K, V> AdaptiveRadixTree<K, V> join(AdaptiveRadixTree<K, V> left, AdaptiveRadixTree<K, V> right) {
+		if (left == right) {
+			throw new IllegalArgumentException("cannot join a map with itself");
+		}
+		if (left.orderStatistics != right.orderStatistics) {
+			throw new IllegalArgumentException("only one of the maps keeps order statistics");
+		}
+		AdaptiveRadixTree<K, V> joined = new AdaptiveRadixTree<>(left.binaryComparable, left.orderStatistics);
+		if (left.root == null || right.root == null) {
+			joined.root = left.root == null ? right.root : left.root;
+		}
+		else {
+			byte[] last = getLastEntry(left.root).getKeyBytes();
+			byte[] first = getFirstEntry(right.root).getKeyBytes();
+			if (compare(last, 0, last.length, first, 0, first.length) >= 0) {
+				throw new IllegalArgumentException("keys of left are not less than keys of right");
+			}
+			joined.root = new TreeSplicer(left.orderStatistics).join(left.root, right.root);
+		}
+		joined.size = left.size + right.size;
+		// the nodes now belong to the joined tree
+		left.clear();
+		right.clear();
+		return joined;
+	}
+
+	/**
+	 * Merges all of the mappings of other into this map. The mappings are moved, not copied:
+	 * other is empty afterwards. For a key present in both maps, the value is set to the result of
+	 * {@code resolver.apply(thisValue, otherValue)} and if that is null, the key is removed
+	 * (same as {@link #merge(Object, Object, BiFunction)}).
+	 *
+	 * <p>Unlike {@link #putAll(Map)}, which descends from the root for every mapping of other,
+	 * the two trees are walked together. Wherever only one of them has a subtree, that subtree is kept
+	 * (or adopted from other) as is, only the subtrees both have are recursed into. Hence merging takes
+	 * time proportional to the overlap of the two trees rather than the size of other.
+	 *
+	 * @param other the map whose mappings are to be moved into this map,
+	 *        ordering keys the same as this map
+	 * @param resolver the function to resolve the values of keys present in both maps
+	 * @throws NullPointerException if other or resolver is null
+	 * @throws IllegalArgumentException if other is this map, or this map keeps
+	 *         order statistics but other doesn't
+	 */
+	@SuppressWarnings("unchecked")
+	public void mergeFrom(AdaptiveRadixTree<K, V> other, BinaryOperator<V> resolver) {
+		Objects.requireNonNull(other);
+		Objects.requireNonNull(resolver);
+		if (other == this) {
+			throw new IllegalArgumentException("cannot merge a map into itself");
+		}
+		if (orderStatistics && !other.orderStatistics) {
+			throw new IllegalArgumentException("other doesn't keep order statistics");
+		}
+		if (other.root == null) {
+			return;
+		}
+		modCount++;
+		if (root == null) {
+			root = other.root;
+			size = other.size;
+		}
+		else {
+			TreeSplicer splicer = new TreeSplicer(orderStatistics);
+			root = splicer.merge(root, other.root, (BinaryOperator<Object>) resolver);
+			size += other.size - splicer.overlap;
+			for (LeafNode<?, ?> leaf : splicer.resolvedToNull) {
+				deleteEntry((LeafNode<K, V>) leaf);
+			}
+		}
+		// the nodes now belong to this tree
+		other.clear();
+	}
+
+	/**
+	 * Performs the given action for every key present in both this map and other,
+	 * in ascending order of keys. The action is passed the two maps' entries for the key.
+	 *
+	 * <p>Rather than iterating both maps and comparing whole keys at every step, the two trees
+	 * are descended together and a subtree only one of them has is skipped as a whole.
+	 * Hence joining a small map with a huge one takes time proportional to the small one
+	 * (times the length of it's keys).
+	 *
+	 * @param other the map to join with, ordering keys the same as this map
+	 * @param action the action to be performed for each key present in both maps
+	 * @param <W> the type of other's values
+	 * @throws NullPointerException if other or action is null
+	 * @throws ConcurrentModificationException if either map is structurally modified by the action
+	 */
+	@SuppressWarnings("unchecked")
+	public <W> void forEachJoin(AdaptiveRadixTree<K, W> other,
+			BiConsumer<? super Map.Entry<K, V>, ? super Map.Entry<K, W>> action) {
+		Objects.requireNonNull(other);
+		Objects.requireNonNull(action);
+		int expectedModCount = modCount, otherExpectedModCount = other.modCount;
+		if (root == null || other.root == null) {
+			return;
+		}
+		new TreeJoiner((a, b) -> {
+			action.accept((LeafNode<K, V>) a, (LeafNode<K, W>) b);
+			if (modCount != expectedModCount || other.modCount != otherExpectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}, null).join(root, other.root);
+	}
+
+	/**
+	 * Returns a new map with the mappings of this map whose keys are also present in other.
+	 * The two trees are descended together, see {@link #forEachJoin(AdaptiveRadixTree, BiConsumer)},
+	 * and the result is built bottom up from the keys found (see {@link #fromSorted(Iterator, BinaryComparable)}).
+	 * It keeps order statistics if this map does.
+	 *
+	 * @param other the map whose keys to retain, ordering keys the same as this map
+	 * @return a new map with the mappings of this map whose keys are in other
+	 * @throws NullPointerException if other is null
+	 */
+	@SuppressWarnings("unchecked")
+	public AdaptiveRadixTree<K, V> intersect(AdaptiveRadixTree<K, ?> other) {
+		Objects.requireNonNull(other);
+		SortedBuilder<K, V> builder = new SortedBuilder<>(binaryComparable, orderStatistics);
+		new TreeJoiner((a, b) -> builder.add((LeafNode<K, V>) a), null).join(root, other.root);
+		int size = builder.size();
+		return new AdaptiveRadixTree<>(binaryComparable, orderStatistics, builder.build(), size);
+	}
+
+	/**
+	 * Returns a new map with the mappings of this map whose keys are not present in other.
+	 * The two trees are descended together, see {@link #forEachJoin(AdaptiveRadixTree, BiConsumer)},
+	 * except that the subtrees only this map has are walked instead of skipped.
+	 * The result is built bottom up from the keys found (see {@link #fromSorted(Iterator, BinaryComparable)}).
+	 * It keeps order statistics if this map does.
+	 *
+	 * @param other the map whose keys to leave out, ordering keys the same as this map
+	 * @return a new map with the mappings of this map whose keys are not in other
+	 * @throws NullPointerException if other is null
+	 */
+	@SuppressWarnings("unchecked")
+	public AdaptiveRadixTree<K, V> difference(AdaptiveRadixTree<K, ?> other) {
+		Objects.requireNonNull(other);
+		SortedBuilder<K, V> builder = new SortedBuilder<>(binaryComparable, orderStatistics);
+		new TreeJoiner((a, b) -> {
+		}, a -> builder.add((LeafNode<K, V>) a)).join(root, other.root);
+		int size = builder.size();
+		return new AdaptiveRadixTree<>(binaryComparable, orderStatistics, builder.build(), size);
+	}
+
+	/**
+	 * Reports the differences between this map and other to the listener, in ascending order of keys:
+	 * keys only in other as added, keys only in this map as removed and keys mapped to unequal
+	 * values as changed.
+	 *
+	 * <p>Rather than looking up every key of one map in the other, the two trees are descended together,
+	 * comparing the compressed paths and the partial keys of children node by node,
+	 * hence the diff is a single traversal of both trees.
+	 *
+	 * @param other the map to compare with, ordering keys the same as this map
+	 * @param listener to receive the differences
+	 * @throws NullPointerException if other or listener is null
+	 */
+	@SuppressWarnings("unchecked")
+	public void diff(AdaptiveRadixTree<K, V> other, DiffListener<K, V> listener) {
+		Objects.requireNonNull(other);
+		Objects.requireNonNull(listener);
+		new TreeDiffer((DiffListener<Object, Object>) (DiffListener<?, ?>) listener, false).diff(root, other.root);
+	}
+
+	/**
+	 * Compares the specified object with this map for equality, same as {@link AbstractMap#equals(Object)}.
+	 * Another AdaptiveRadixTree using an equal {@link BinaryComparable} is compared structurally,
+	 * the same way as {@link #diff(AdaptiveRadixTree, DiffListener)}, stopping at the first difference.
+	 *
+	 * @param o object to be compared for equality with this map
+	 * @return {@code true} if the specified object is equal to this map
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof AdaptiveRadixTree) || !binaryComparable.equals(((AdaptiveRadixTree<?, ?>) o).binaryComparable)) {
+			return super.equals(o);
+		}
+		AdaptiveRadixTree<?, ?> other = (AdaptiveRadixTree<?, ?>) o;
+		if (size != other.size) {
+			return false;
+		}
+		TreeDiffer differ = new TreeDiffer(new DiffListener<Object, Object>() {
+		}, true);
+		differ.diff(root, other.root);
+		return !differ.differs;
+	}
+
+	// unchanged, overridden along with equals
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+	/**
+	 * Returns a view of the portion of this map whose keys start with the given prefix,
+	 * in their binary comparable form. That is the keys whose {@link BinaryComparable#get(Object)}
+	 * starts with {@code binaryComparable.get(prefix)}, for example the Strings starting with
+	 * a given String.
+	 *
+	 * <p>Unlike a {@link #subMap(Object, Object)} spanning the same keys, the prefix is
+	 * descended only once, to the subtree holding all such keys. The view then works off
+	 * that subtree, iterating it doesn't need to compare against any bounds.
+	 * The returned map is backed by this map and supports all optional map operations,
+	 * same as a sub map. It throws an {@code IllegalArgumentException} on an
+	 * attempt to insert a key that doesn't start with the prefix.
+	 *
+	 * @param prefix the prefix of the keys in the returned map
+	 * @return a view of the portion of this map whose keys start with prefix
+	 * @throws NullPointerException if prefix is null
+	 */
+	public SortedMap<K, V> prefixMap(K prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		return new PrefixMap<>(this, binaryComparable.get(prefix));
+	}
+
+	/**
+	 * Returns a view of the portion of this map whose keys, in their binary comparable form,
+	 * start with the given bytes. See {@link #prefixMap(Object)}.
+	 *
+	 * @param prefix the prefix of the binary comparable keys in the returned map
+	 * @return a view of the portion of this map whose binary comparable keys start with prefix
+	 * @throws NullPointerException if prefix is null
+	 */
+	public SortedMap<K, V> prefixMap(byte[] prefix) {
+		return new PrefixMap<>(this, prefix.clone());
+	}
+
+	/*
+		root of the subtree holding all the keys that start with the given prefix
+		(the first prefixLen bytes of prefix), null if there are no such keys.
+		all keys of the returned node (leaf or inner) start with the prefix.
+	 */
+	Node getPrefixNode(byte[] prefix, int prefixLen) {
+		Node node = root;
+		int depth = 0;
+		while (node != null && depth < prefixLen) {
+			if (node instanceof LeafNode) {
+				byte[] leafBytes = ((LeafNode<?, ?>) node).getKeyBytes();
+				if (leafBytes.length < prefixLen
+						|| !Arrays.equals(leafBytes, depth, prefixLen, prefix, depth, prefixLen)) {
+					return null;
+				}
+				return node;
+			}
+			InnerNode innerNode = (InnerNode) node;
+			// the part of the compressed path that the prefix spans
+			int toMatch = Math.min(innerNode.prefixLen, prefixLen - depth);
+			int pessimistic = Math.min(toMatch, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT);
+			if (!Arrays.equals(innerNode.prefixKeys, 0, pessimistic, prefix, depth, depth + pessimistic)) {
+				return null;
+			}
+			if (toMatch > pessimistic) {
+				// match remaining optimistic path
+				byte[] leafBytes = getFirstEntry(innerNode).getKeyBytes();
+				if (!Arrays.equals(leafBytes, depth + pessimistic, depth + toMatch,
+						prefix, depth + pessimistic, depth + toMatch)) {
+					return null;
+				}
+			}
+			depth += innerNode.prefixLen;
+			if (depth >= prefixLen) {
+				// prefix ended within (or right after) the compressed path
+				return innerNode;
+			}
+			node = innerNode.findChild(prefix[depth]);
+			depth++;
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a new, unpositioned {@link Cursor} over this tree.
+	 * A cursor can be reused for any number of seeks and scans without allocating.
+	 *
+	 * @return a new cursor over this tree
+	 */
+	public Cursor<K, V> cursor() {
+		return new Cursor<>(this);
+	}
+
+	Spliterator<Map.Entry<K, V>> entrySpliterator() {
+		return new EntrySpliterator<>(this);
+	}
+
+	Spliterator<V> valueSpliterator() {
+		return new ValueSpliterator<>(this);
+	}
+
+	Spliterator<K> keySpliterator() {
+		return new KeySpliterator<>(this);
+	}
+
 }
\ No newline at end of file
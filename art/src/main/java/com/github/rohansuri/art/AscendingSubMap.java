@@ -17,6 +17,12 @@ final class AscendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
 	}
 
+	AscendingSubMap(AdaptiveRadixTree<K, V> m,
+			boolean fromStart, byte[] loBytes, boolean loInclusive,
+			boolean toEnd, byte[] hiBytes, boolean hiInclusive) {
+		super(m, fromStart, loBytes, loInclusive, toEnd, hiBytes, hiInclusive);
+	}
+
 	@Override
 	public Comparator<? super K> comparator() {
 		return m.comparator();
@@ -34,24 +40,22 @@ final class AscendingSubMap<K, V> extends NavigableSubMap<K, V> {
 				false, toKey, toInclusive);
 	}
 
-	// TODO: offer another ctor to take in loBytes
 	@Override
 	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
 		if (!inRange(toKey, inclusive))
 			throw new IllegalArgumentException("toKey out of range");
 		return new AscendingSubMap<>(m,
-				fromStart, lo, loInclusive,
-				false, toKey, inclusive);
+				fromStart, loBytes, loInclusive,
+				false, m.binaryComparable().get(toKey), inclusive);
 	}
 
-	// TODO: offer another ctor to take in hiBytes
 	@Override
 	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
 		if (!inRange(fromKey, inclusive))
 			throw new IllegalArgumentException("fromKey out of range");
 		return new AscendingSubMap<>(m,
-				false, fromKey, inclusive,
-				toEnd, hi, hiInclusive);
+				false, m.binaryComparable().get(fromKey), inclusive,
+				toEnd, hiBytes, hiInclusive);
 	}
 
 	@Override
@@ -60,8 +64,8 @@ final class AscendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		return (mv != null) ? mv :
 				(descendingMapView =
 						new DescendingSubMap<>(m,
-								fromStart, lo, loInclusive,
-								toEnd, hi, hiInclusive));
+								fromStart, loBytes, loInclusive,
+								toEnd, hiBytes, hiInclusive));
 	}
 
 	@Override
@@ -51,5 +51,27 @@ package com.github.rohansuri.art;
  */
 public interface BinaryComparable<K> {
 	byte[] get(K key);
+
+	/**
+	 * Writes the binary comparable representation of key into the given scratch array,
+	 * so that the tree can look up keys without allocating a new array every time.
+	 * The tree only copies the bytes out of scratch when a key is inserted.
+	 *
+	 * <p>The default implementation copies the result of {@link #get(Object)}.
+	 * Implementations that can write their bytes directly should override it.
+	 *
+	 * @param key the key to transform
+	 * @param scratch the array to write the bytes into, starting at index 0
+	 * @return the number of bytes written, or if scratch is too small to hold them,
+	 * the negated length of an array that is large enough (contents of scratch are undefined in that case)
+	 */
+	default int encode(K key, byte[] scratch) {
+		byte[] bytes = get(key);
+		if (bytes.length > scratch.length) {
+			return -bytes.length;
+		}
+		System.arraycopy(bytes, 0, scratch, 0, bytes.length);
+		return bytes.length;
+	}
 }
 
@@ -1,7 +1,7 @@
 package com.github.rohansuri.art;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import static com.github.rohansuri.art.BinaryComparableUtils.unsigned;
 
@@ -32,7 +32,8 @@ public class BinaryComparables {
 	}
 
 	public static BinaryComparable<String> forString() {
-		return String::getBytes;
+		// same as String::getBytes
+		return forString(Charset.defaultCharset());
 	}
 
 	/**
@@ -42,18 +43,211 @@ public class BinaryComparables {
 	 * @see <a href="https://docs.oracle.com/javase/tutorial/i18n/text/collationintro.html">Collator</a>
 	 */
 	public static BinaryComparable<String> forString(Charset charset){
-		return (key) -> key.getBytes(charset);
+		return new StringBinaryComparable(charset);
 	}
 
 
-	private static final BinaryComparable<Integer> INTEGER = (key) -> BinaryComparableUtils
-			.unsigned(ByteBuffer.allocate(Integer.BYTES).putInt(key).array());
-	private static final BinaryComparable<Long> LONG = (key) -> BinaryComparableUtils
-			.unsigned(ByteBuffer.allocate(Long.BYTES).putLong(key).array());
-	private static final BinaryComparable<Short> SHORT = (key) -> BinaryComparableUtils
-			.unsigned(ByteBuffer.allocate(Short.BYTES).putShort(key).array());
-	private static final BinaryComparable<Byte> BYTE = (key) -> BinaryComparableUtils
-			.unsigned(ByteBuffer.allocate(Byte.BYTES).put(key).array());
+	private static final BinaryComparable<Integer> INTEGER = new BinaryComparable<Integer>() {
+		@Override
+		public byte[] get(Integer key) {
+			byte[] bytes = new byte[Integer.BYTES];
+			encode(key, bytes);
+			return bytes;
+		}
+
+		@Override
+		public int encode(Integer key, byte[] scratch) {
+			if (scratch.length < Integer.BYTES) {
+				return -Integer.BYTES;
+			}
+			// big endian with the sign bit flipped
+			int k = key ^ Integer.MIN_VALUE;
+			scratch[0] = (byte) (k >>> 24);
+			scratch[1] = (byte) (k >>> 16);
+			scratch[2] = (byte) (k >>> 8);
+			scratch[3] = (byte) k;
+			return Integer.BYTES;
+		}
+	};
+
+	private static final BinaryComparable<Long> LONG = new BinaryComparable<Long>() {
+		@Override
+		public byte[] get(Long key) {
+			byte[] bytes = new byte[Long.BYTES];
+			encode(key, bytes);
+			return bytes;
+		}
+
+		@Override
+		public int encode(Long key, byte[] scratch) {
+			if (scratch.length < Long.BYTES) {
+				return -Long.BYTES;
+			}
+			// big endian with the sign bit flipped
+			long k = key ^ Long.MIN_VALUE;
+			for (int i = 0; i < Long.BYTES; i++) {
+				scratch[i] = (byte) (k >>> ((Long.BYTES - 1 - i) << 3));
+			}
+			return Long.BYTES;
+		}
+	};
+
+	private static final BinaryComparable<Short> SHORT = new BinaryComparable<Short>() {
+		@Override
+		public byte[] get(Short key) {
+			byte[] bytes = new byte[Short.BYTES];
+			encode(key, bytes);
+			return bytes;
+		}
+
+		@Override
+		public int encode(Short key, byte[] scratch) {
+			if (scratch.length < Short.BYTES) {
+				return -Short.BYTES;
+			}
+			scratch[0] = unsigned((byte) (key >>> 8));
+			scratch[1] = (byte) (short) key;
+			return Short.BYTES;
+		}
+	};
+
+	private static final BinaryComparable<Byte> BYTE = new BinaryComparable<Byte>() {
+		@Override
+		public byte[] get(Byte key) {
+			return new byte[] {unsigned(key)};
+		}
+
+		@Override
+		public int encode(Byte key, byte[] scratch) {
+			if (scratch.length < Byte.BYTES) {
+				return -Byte.BYTES;
+			}
+			scratch[0] = unsigned(key);
+			return Byte.BYTES;
+		}
+	};
+
+	/*
+		Strings in charsets that we can encode without allocating (see encode).
+		For others we fall back to String#getBytes.
+	 */
+	static final class StringBinaryComparable implements BinaryComparable<String> {
+		private final Charset charset;
+		// 0xFF for ISO-8859-1, 0x7F for US-ASCII, -1 for UTF-8, 0 for any other charset
+		private final int maxChar;
+
+		StringBinaryComparable(Charset charset) {
+			this.charset = charset;
+			if (charset.equals(StandardCharsets.UTF_8)) {
+				maxChar = -1;
+			}
+			else if (charset.equals(StandardCharsets.ISO_8859_1)) {
+				maxChar = 0xFF;
+			}
+			else if (charset.equals(StandardCharsets.US_ASCII)) {
+				maxChar = 0x7F;
+			}
+			else {
+				maxChar = 0;
+			}
+		}
+
+		@Override
+		public byte[] get(String key) {
+			return key.getBytes(charset);
+		}
+
+		// same charset, same bytes. lets trees keyed by separately created instances be compared structurally
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof StringBinaryComparable && charset.equals(((StringBinaryComparable) o).charset);
+		}
+
+		@Override
+		public int hashCode() {
+			return charset.hashCode();
+		}
+
+		/*
+			same bytes as String#getBytes, including it's replacement of
+			unmappable characters (and malformed surrogates in UTF-8) by '?'.
+		 */
+		@Override
+		public int encode(String key, byte[] scratch) {
+			if (maxChar == 0) {
+				return BinaryComparable.super.encode(key, scratch);
+			}
+			int length = key.length();
+			if (maxChar > 0) {
+				if (scratch.length < length) {
+					return -length;
+				}
+				int j = 0;
+				for (int i = 0; i < length; i++) {
+					char c = key.charAt(i);
+					if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+						i++; // a surrogate pair is a single unmappable character
+					}
+					scratch[j++] = c <= maxChar ? (byte) c : (byte) '?';
+				}
+				return j;
+			}
+			return encodeUTF8(key, scratch);
+		}
+
+		private static int encodeUTF8(String key, byte[] scratch) {
+			int length = key.length();
+			int j = 0;
+			for (int i = 0; i < length; i++) {
+				char c = key.charAt(i);
+				int cp = c;
+				int bytes;
+				if (c < 0x80) {
+					bytes = 1;
+				}
+				else if (c < 0x800) {
+					bytes = 2;
+				}
+				else if (!Character.isSurrogate(c)) {
+					bytes = 3;
+				}
+				else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+					cp = Character.toCodePoint(c, key.charAt(i + 1));
+					bytes = 4;
+				}
+				else { // malformed
+					cp = '?';
+					bytes = 1;
+				}
+				if (j + bytes > scratch.length) {
+					// enough for the rest, at most 3 bytes per char (surrogate pairs take 4 for 2 chars)
+					return -(j + 3 * (length - i) + 1);
+				}
+				switch (bytes) {
+					case 1:
+						scratch[j++] = (byte) cp;
+						break;
+					case 2:
+						scratch[j++] = (byte) (0xC0 | (cp >> 6));
+						scratch[j++] = (byte) (0x80 | (cp & 0x3F));
+						break;
+					case 3:
+						scratch[j++] = (byte) (0xE0 | (cp >> 12));
+						scratch[j++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+						scratch[j++] = (byte) (0x80 | (cp & 0x3F));
+						break;
+					default:
+						scratch[j++] = (byte) (0xF0 | (cp >> 18));
+						scratch[j++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+						scratch[j++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+						scratch[j++] = (byte) (0x80 | (cp & 0x3F));
+						i++; // low surrogate
+				}
+			}
+			return j;
+		}
+	}
+
 	/*
 	 extract from https://docs.oracle.com/javase/tutorial/i18n/text/collationintro.html:
 	 If your application audience is limited to people who speak English,
@@ -0,0 +1,1032 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent Adaptive Radix tree based {@link ConcurrentNavigableMap} implementation.
+ * The map is sorted according to the {@linkplain BinaryComparable} provided at map
+ * creation time.
+ *
+ * <p>Synchronization uses optimistic lock coupling as described in the
+ *  <a href="https://db.in.tum.de/~leis/papers/artsync.pdf">paper</a>
+ * <em>"The ART of Practical Synchronization"</em> by Dr. Viktor Leis et al.
+ * Every inner node carries a version lock. Readers never acquire locks, they read
+ * the version of a node before and after looking at it and restart their traversal
+ * if a writer came by in between. Writers traverse the same way and only lock the
+ * nodes they actually change: the node a leaf is added to or removed from and,
+ * if that node has to be replaced (grown, shrunk, path compressed), its parent.
+ *
+ * <p>Like {@link java.util.concurrent.ConcurrentSkipListMap}, this map
+ * does not permit {@code null} keys or values, the {@code size} method is
+ * not a constant-time snapshot (it reflects completed insertions and removals)
+ * and bulk operations like {@code putAll} and {@code clear} are not atomic.
+ * Iterators and spliterators of the views are <i>weakly consistent</i>:
+ * they never throw {@link java.util.ConcurrentModificationException} and
+ * reflect the state of the map at some point at or since their creation.
+ *
+ * <p>All {@code Map.Entry} pairs returned by methods in this class
+ * represent snapshots of mappings at the time they were
+ * produced. They do <strong>not</strong> support the {@code Entry.setValue}
+ * method. Entries returned by the entry set's iterator do, by writing through
+ * to the map.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see AdaptiveRadixTree
+ * @see BinaryComparable
+ */
+public class ConcurrentAdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements ConcurrentNavigableMap<K, V> {
+	private final BinaryComparable<K> binaryComparable;
+
+	/*
+		the root is a Node256 without a compressed path that is never replaced.
+		that way every node that can be replaced (grown, shrunk, path compressed, branched out)
+		has a parent to lock, and readers always have a node to start from.
+	 */
+	private final InnerNode root = new Node256.Concurrent();
+	private final LongAdder size = new LongAdder();
+
+	private transient ConcurrentSubMap<K, V> all;
+	private transient ConcurrentNavigableMap<K, V> descendingMap;
+
+	public ConcurrentAdaptiveRadixTree(BinaryComparable<K> binaryComparable) {
+		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
+		this.binaryComparable = binaryComparable;
+	}
+
+	public BinaryComparable<K> binaryComparable() {
+		return binaryComparable;
+	}
+
+	@SuppressWarnings("unchecked")
+	byte[] keyBytes(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		return binaryComparable.get((K) key);
+	}
+
+	@Override
+	public V get(Object key) {
+		return doGet(keyBytes(key));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return doGet(keyBytes(key)) != null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(value);
+		return doPut(keyBytes(key), key, value, false);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		Objects.requireNonNull(value);
+		return doPut(keyBytes(key), key, value, true);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return doRemove(keyBytes(key), null);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		return value != null && doRemove(keyBytes(key), value) != null;
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		Objects.requireNonNull(value);
+		return doReplace(keyBytes(key), null, value);
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+		return doReplace(keyBytes(key), oldValue, newValue) != null;
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this map. If this map
+	 * contains more than {@code Integer.MAX_VALUE} elements, returns
+	 * {@code Integer.MAX_VALUE}.
+	 *
+	 * <p>Concurrent insertions and removals that have not completed yet are not reflected.
+	 */
+	@Override
+	public int size() {
+		long n = size.sum();
+		return n >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return findFirst() == null;
+	}
+
+	// not atomic, same as ConcurrentSkipListMap
+	// (detaching whole subtrees would lose concurrent writes into them)
+	@Override
+	public void clear() {
+		for (Snapshot<K, V> e = findFirst(); e != null; e = findCeiling(e.keyBytes, false)) {
+			doRemove(e.keyBytes, null);
+		}
+	}
+
+	// all nodes of this tree are version locked, see Node4.Concurrent
+	private static OptimisticLock lock(InnerNode node) {
+		return (OptimisticLock) node;
+	}
+
+	/*
+		Point operations.
+		All of them follow the same pattern: read a node's version, read what is needed
+		from the node, validate the version and only then act upon what was read.
+		A failed validation (or an obsolete node) restarts the operation from the root.
+	 */
+
+	V doGet(byte[] key) {
+		restart:
+		while (true) {
+			InnerNode node = root;
+			int version = lock(node).readLockOrRestart();
+			int depth = 0;
+			while (true) {
+				int prefixLen = node.prefixLen;
+				if (!matchPessimisticCompressedPath(node, prefixLen, key, depth)) {
+					if (!lock(node).validate(version)) {
+						continue restart;
+					}
+					return null;
+				}
+				depth += prefixLen;
+				Node child = depth == key.length ? node.getLeaf() : node.findChild(key[depth]);
+				if (!lock(node).validate(version)) {
+					continue restart;
+				}
+				if (child == null) {
+					return null;
+				}
+				if (child instanceof LeafNode) {
+					@SuppressWarnings("unchecked")
+					LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+					V value = leaf.getValue();
+					if (!lock(node).validate(version)) {
+						continue restart;
+					}
+					// optimistic part of compressed paths gets verified here
+					return Arrays.equals(leaf.getKeyBytes(), key) ? value : null;
+				}
+				InnerNode next = (InnerNode) child;
+				int nextVersion = lock(next).readLockOrRestart();
+				if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+					continue restart;
+				}
+				node = next;
+				version = nextVersion;
+				depth++;
+			}
+		}
+	}
+
+	V doPut(byte[] key, K k, V value, boolean onlyIfAbsent) {
+		restart:
+		while (true) {
+			InnerNode parent = null;
+			int parentVersion = 0;
+			// the partial key through which parent links to node
+			byte nodeKey = 0;
+			InnerNode node = root;
+			int version = lock(node).readLockOrRestart();
+			int depth = 0;
+			while (true) {
+				int prefixLen = node.prefixLen;
+				if (prefixLen > 0) {
+					// find the longest common prefix between compressed path and key
+					int lcp = 0;
+					int end = Math.min(key.length - depth, Math.min(prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+					for (; lcp < end && node.prefixKeys[lcp] == key[depth + lcp]; lcp++) ;
+					byte[] leafBytes = null;
+					if (prefixLen > InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+						// the optimistic part is only available in the leaves
+						leafBytes = anyLeafKey(node);
+						if (leafBytes == null || leafBytes.length < depth + prefixLen
+								|| !lock(node).validate(version)) {
+							continue restart;
+						}
+						if (lcp == InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+							end = Math.min(key.length - depth, prefixLen);
+							for (; lcp < end && leafBytes[depth + lcp] == key[depth + lcp]; lcp++) ;
+						}
+					}
+					if (lcp < prefixLen) {
+						// compressed path doesn't match entirely, branch out (both the parent's
+						// child pointer and node's compressed path change)
+						byte branchKey = lcp < InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT ?
+								node.prefixKeys[lcp] : leafBytes[depth + lcp];
+						if (!lock(parent).upgradeToWriteLock(parentVersion)) {
+							continue restart;
+						}
+						if (!lock(node).upgradeToWriteLock(version)) {
+							lock(parent).writeUnlock();
+							continue restart;
+						}
+						Node4 branchOut = new Node4.Concurrent();
+						branchOut.prefixLen = lcp;
+						System.arraycopy(key, depth, branchOut.prefixKeys, 0, Math
+								.min(lcp, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+						LeafNode<K, V> leaf = new LeafNode<>(key, k, value);
+						if (depth + lcp == key.length) {
+							branchOut.setLeaf(leaf);
+						}
+						else {
+							branchOut.addChild(key[depth + lcp], leaf);
+						}
+						branchOut.addChild(branchKey, node);
+						removeCompressedPath(node, lcp + 1, depth, leafBytes);
+						parent.replace(nodeKey, branchOut);
+						size.increment();
+						lock(node).writeUnlock();
+						lock(parent).writeUnlock();
+						return null;
+					}
+				}
+				depth += prefixLen;
+
+				if (depth == key.length) {
+					@SuppressWarnings("unchecked")
+					LeafNode<K, V> leaf = (LeafNode<K, V>) node.getLeaf();
+					if (leaf != null && onlyIfAbsent) {
+						V oldValue = leaf.getValue();
+						if (!lock(node).validate(version)) {
+							continue restart;
+						}
+						return oldValue;
+					}
+					if (!lock(node).upgradeToWriteLock(version)) {
+						continue restart;
+					}
+					if (leaf != null) {
+						V oldValue = leaf.setValue(value);
+						lock(node).writeUnlock();
+						return oldValue;
+					}
+					node.setLeaf(new LeafNode<>(key, k, value));
+					size.increment();
+					lock(node).writeUnlock();
+					return null;
+				}
+
+				byte partialKey = key[depth];
+				Node child = node.findChild(partialKey);
+				boolean full = node.isFull();
+				if (!lock(node).validate(version)) {
+					continue restart;
+				}
+
+				if (child == null) {
+					LeafNode<K, V> leaf = new LeafNode<>(key, k, value);
+					if (!full) {
+						if (!lock(node).upgradeToWriteLock(version)) {
+							continue restart;
+						}
+						node.addChild(partialKey, leaf);
+						lock(node).writeUnlock();
+					}
+					else {
+						// the root is a Node256, so a full node always has a parent
+						if (!lock(parent).upgradeToWriteLock(parentVersion)) {
+							continue restart;
+						}
+						if (!lock(node).upgradeToWriteLock(version)) {
+							lock(parent).writeUnlock();
+							continue restart;
+						}
+						InnerNode grown = node.grow();
+						grown.addChild(partialKey, leaf);
+						parent.replace(nodeKey, grown);
+						lock(node).writeUnlockObsolete();
+						lock(parent).writeUnlock();
+					}
+					size.increment();
+					return null;
+				}
+
+				if (child instanceof LeafNode) {
+					@SuppressWarnings("unchecked")
+					LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+					boolean exists = Arrays.equals(leaf.getKeyBytes(), key);
+					if (exists && onlyIfAbsent) {
+						V oldValue = leaf.getValue();
+						if (!lock(node).validate(version)) {
+							continue restart;
+						}
+						return oldValue;
+					}
+					if (!lock(node).upgradeToWriteLock(version)) {
+						continue restart;
+					}
+					if (exists) {
+						V oldValue = leaf.setValue(value);
+						lock(node).writeUnlock();
+						return oldValue;
+					}
+					node.replace(partialKey, AdaptiveRadixTree.lazyExpansion(leaf, key, key.length,
+							new LeafNode<>(key, k, value), depth + 1, new Node4.Concurrent()));
+					size.increment();
+					lock(node).writeUnlock();
+					return null;
+				}
+
+				InnerNode next = (InnerNode) child;
+				int nextVersion = lock(next).readLockOrRestart();
+				if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+					continue restart;
+				}
+				parent = node;
+				parentVersion = version;
+				nodeKey = partialKey;
+				node = next;
+				version = nextVersion;
+				depth++;
+			}
+		}
+	}
+
+	// returns the removed value or null if there was no mapping (or it wasn't mapped to expectedValue)
+	V doRemove(byte[] key, Object expectedValue) {
+		restart:
+		while (true) {
+			InnerNode parent = null;
+			int parentVersion = 0;
+			byte nodeKey = 0;
+			InnerNode node = root;
+			int version = lock(node).readLockOrRestart();
+			int depth = 0;
+			while (true) {
+				int prefixLen = node.prefixLen;
+				if (!matchPessimisticCompressedPath(node, prefixLen, key, depth)) {
+					if (!lock(node).validate(version)) {
+						continue restart;
+					}
+					return null;
+				}
+				depth += prefixLen;
+				boolean isLeaf = depth == key.length;
+				byte partialKey = isLeaf ? 0 : key[depth];
+				Node child = isLeaf ? node.getLeaf() : node.findChild(partialKey);
+				if (!lock(node).validate(version)) {
+					continue restart;
+				}
+				if (child == null) {
+					return null;
+				}
+
+				if (child instanceof InnerNode) {
+					InnerNode next = (InnerNode) child;
+					int nextVersion = lock(next).readLockOrRestart();
+					if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+						continue restart;
+					}
+					parent = node;
+					parentVersion = version;
+					nodeKey = partialKey;
+					node = next;
+					version = nextVersion;
+					depth++;
+					continue;
+				}
+
+				@SuppressWarnings("unchecked")
+				LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+				if (!Arrays.equals(leaf.getKeyBytes(), key)) {
+					return null;
+				}
+				V oldValue = leaf.getValue();
+				if (!lock(node).validate(version)) {
+					continue restart;
+				}
+				if (expectedValue != null && !expectedValue.equals(oldValue)) {
+					return null;
+				}
+
+				// what will node look like after the removal?
+				int children = node.size() - (isLeaf ? 0 : 1);
+				boolean hasLeaf = !isLeaf && node.hasLeaf();
+				boolean replaceNode = node != root &&
+						(children == 0 || (children == 1 && !hasLeaf) || (!isLeaf && shrinksOnRemove(node)));
+
+				if (!replaceNode) {
+					if (!lock(node).upgradeToWriteLock(version)) {
+						continue restart;
+					}
+					removeFrom(node, isLeaf, partialKey);
+					lock(node).writeUnlock();
+					size.decrement();
+					return oldValue;
+				}
+
+				if (!lock(parent).upgradeToWriteLock(parentVersion)) {
+					continue restart;
+				}
+				if (!lock(node).upgradeToWriteLock(version)) {
+					lock(parent).writeUnlock();
+					continue restart;
+				}
+				if (children == 1 && !hasLeaf) {
+					// only child left, path compress it into the parent.
+					// since that changes the only child's compressed path, we need it's lock too.
+					Node[] c = node.getChild();
+					Node onlyChild = isLeaf ? c[0] : (c[0] == leaf ? c[1] : c[0]);
+					InnerNode lockedChild = null;
+					if (onlyChild instanceof InnerNode) {
+						lockedChild = (InnerNode) onlyChild;
+						int childVersion = lock(lockedChild).tryReadLock();
+						if (childVersion == OptimisticLock.RESTART
+								|| !lock(lockedChild).upgradeToWriteLock(childVersion)) {
+							lock(node).writeUnlock();
+							lock(parent).writeUnlock();
+							continue restart;
+						}
+					}
+					removeFrom(node, isLeaf, partialKey);
+					AdaptiveRadixTree.updateCompressedPathOfOnlyChild((Node4) node, onlyChild);
+					parent.replace(nodeKey, onlyChild);
+					if (lockedChild != null) {
+						lock(lockedChild).writeUnlock();
+					}
+				}
+				else {
+					removeFrom(node, isLeaf, partialKey);
+					if (node.shouldShrink()) {
+						parent.replace(nodeKey, node.shrink());
+					}
+					else {
+						assert node.size() == 0 && node.hasLeaf();
+						parent.replace(nodeKey, node.getLeaf());
+					}
+				}
+				lock(node).writeUnlockObsolete();
+				lock(parent).writeUnlock();
+				size.decrement();
+				return oldValue;
+			}
+		}
+	}
+
+	// returns the replaced value or null if there was no mapping (or it wasn't mapped to expectedValue)
+	V doReplace(byte[] key, Object expectedValue, V newValue) {
+		restart:
+		while (true) {
+			InnerNode node = root;
+			int version = lock(node).readLockOrRestart();
+			int depth = 0;
+			while (true) {
+				int prefixLen = node.prefixLen;
+				if (!matchPessimisticCompressedPath(node, prefixLen, key, depth)) {
+					if (!lock(node).validate(version)) {
+						continue restart;
+					}
+					return null;
+				}
+				depth += prefixLen;
+				Node child = depth == key.length ? node.getLeaf() : node.findChild(key[depth]);
+				if (!lock(node).validate(version)) {
+					continue restart;
+				}
+				if (child == null) {
+					return null;
+				}
+				if (child instanceof LeafNode) {
+					@SuppressWarnings("unchecked")
+					LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+					if (!Arrays.equals(leaf.getKeyBytes(), key)) {
+						return null;
+					}
+					V oldValue = leaf.getValue();
+					if (!lock(node).validate(version)) {
+						continue restart;
+					}
+					if (expectedValue != null && !expectedValue.equals(oldValue)) {
+						return null;
+					}
+					// value updates lock the parent too, so that readers get a
+					// consistent (safely published) value after validating
+					if (!lock(node).upgradeToWriteLock(version)) {
+						continue restart;
+					}
+					leaf.setValue(newValue);
+					lock(node).writeUnlock();
+					return oldValue;
+				}
+				InnerNode next = (InnerNode) child;
+				int nextVersion = lock(next).readLockOrRestart();
+				if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+					continue restart;
+				}
+				node = next;
+				version = nextVersion;
+				depth++;
+			}
+		}
+	}
+
+	private static void removeFrom(InnerNode node, boolean isLeaf, byte partialKey) {
+		if (isLeaf) {
+			node.removeLeaf();
+		}
+		else {
+			node.removeChild(partialKey);
+		}
+	}
+
+	// mirrors InnerNode#shouldShrink, but is asked before the child gets removed
+	private static boolean shrinksOnRemove(InnerNode node) {
+		if (node instanceof Node16) {
+			return node.size() == Node4.NODE_SIZE + 1;
+		}
+		if (node instanceof Node48) {
+			return node.size() == Node16.NODE_SIZE + 1;
+		}
+		if (node instanceof Node256) {
+			return node.size() == Node48.NODE_SIZE + 1;
+		}
+		return false;
+	}
+
+	// the optimistic part of compressed paths is verified at the leaf
+	private static boolean matchPessimisticCompressedPath(InnerNode node, int prefixLen, byte[] key, int depth) {
+		if (key.length < depth + prefixLen) {
+			return false;
+		}
+		int limit = Math.min(prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT);
+		for (int i = 0; i < limit; i++) {
+			if (node.prefixKeys[i] != key[depth + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+		removes the first n bytes of node's compressed path, which starts at depth.
+		leafBytes is the key of any leaf below node, needed if node has an optimistic path.
+	 */
+	private static void removeCompressedPath(InnerNode node, int n, int depth, byte[] leafBytes) {
+		int newPrefixLen = node.prefixLen - n;
+		int pessimistic = Math.min(InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, newPrefixLen);
+		if (node.prefixLen <= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+			System.arraycopy(node.prefixKeys, n, node.prefixKeys, 0, pessimistic);
+		}
+		else {
+			System.arraycopy(leafBytes, depth + n, node.prefixKeys, 0, pessimistic);
+		}
+		node.prefixLen = newPrefixLen;
+	}
+
+	/*
+		key of any leaf below node, read without validation. Since node's compressed path only changes
+		with node's version, any leaf that ever was below node shares it, as long as the caller validates node.
+		Returns null if a concurrent writer got in the way.
+		Note: first() is not used since it's assertions don't hold while a writer is mid-way.
+	 */
+	private static byte[] anyLeafKey(InnerNode node) {
+		Node n = node;
+		while (n instanceof InnerNode) {
+			InnerNode inner = (InnerNode) n;
+			n = inner.getLeaf();
+			if (n == null) {
+				n = inner.ceil((byte) 0);
+			}
+		}
+		return n == null ? null : ((LeafNode<?, ?>) n).getKeyBytes();
+	}
+
+	/*
+		Navigation.
+		Done recursively over the levels, since unlike AdaptiveRadixTree we cannot use the parent
+		links to find successors. Every recursive step returns RETRY if a validation failed,
+		null if it found nothing in it's subtree.
+	 */
+
+	/**
+	 * Immutable entry that also remembers the key's binary comparable representation,
+	 * so that views and iterators can continue navigating from it without encoding the key again.
+	 */
+	static final class Snapshot<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		final byte[] keyBytes;
+
+		Snapshot(LeafNode<K, V> leaf, V value) {
+			super(leaf.getKey(), value);
+			this.keyBytes = leaf.getKeyBytes();
+		}
+
+		private Snapshot() {
+			super(null, null);
+			this.keyBytes = null;
+		}
+	}
+
+	private static final Snapshot<?, ?> RETRY = new Snapshot<>();
+
+	// -1, 0, 1 as in AdaptiveRadixTree#compareOptimisticCompressedPath
+	private static final int INCONSISTENT = Integer.MIN_VALUE;
+
+	@SuppressWarnings("unchecked")
+	private Snapshot<K, V> retry() {
+		return (Snapshot<K, V>) RETRY;
+	}
+
+	Snapshot<K, V> findFirst() {
+		while (true) {
+			int version = lock(root).readLockOrRestart();
+			Node first = root.getLeaf();
+			Snapshot<K, V> e = first(first != null ? first : root.ceil((byte) 0), root, version);
+			if (e != RETRY) {
+				return e;
+			}
+		}
+	}
+
+	Snapshot<K, V> findLast() {
+		while (true) {
+			int version = lock(root).readLockOrRestart();
+			Node last = root.floor((byte) -1);
+			Snapshot<K, V> e = last(last != null ? last : root.getLeaf(), root, version);
+			if (e != RETRY) {
+				return e;
+			}
+		}
+	}
+
+	// smallest entry greater than key (or equal, if inclusive)
+	Snapshot<K, V> findCeiling(byte[] key, boolean inclusive) {
+		while (true) {
+			Snapshot<K, V> e = ceiling(root, lock(root).readLockOrRestart(), key, 0, inclusive);
+			if (e != RETRY) {
+				return e;
+			}
+		}
+	}
+
+	// greatest entry lesser than key (or equal, if inclusive)
+	Snapshot<K, V> findFloor(byte[] key, boolean inclusive) {
+		while (true) {
+			Snapshot<K, V> e = floor(root, lock(root).readLockOrRestart(), key, 0, inclusive);
+			if (e != RETRY) {
+				return e;
+			}
+		}
+	}
+
+	private Snapshot<K, V> ceiling(InnerNode node, int version, byte[] key, int depth, boolean inclusive) {
+		int prefixLen = node.prefixLen;
+		int compare = compareCompressedPath(node, prefixLen, key, depth);
+		if (compare == INCONSISTENT || !lock(node).validate(version)) {
+			return retry();
+		}
+		if (compare > 0) { // all keys below are greater
+			Node first = node.getLeaf();
+			return first(first != null ? first : node.ceil((byte) 0), node, version);
+		}
+		if (compare < 0) { // all keys below are lesser
+			return null;
+		}
+		depth += prefixLen;
+		if (depth == key.length) {
+			// node's own leaf is equal to key, all children are greater
+			Node first = inclusive ? node.getLeaf() : null;
+			return first(first != null ? first : node.ceil((byte) 0), node, version);
+		}
+
+		byte partialKey = key[depth];
+		Node child = node.findChild(partialKey);
+		if (!lock(node).validate(version)) {
+			return retry();
+		}
+		if (child instanceof LeafNode) {
+			@SuppressWarnings("unchecked")
+			LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+			byte[] leafKey = leaf.getKeyBytes();
+			int c = AdaptiveRadixTree.compare(leafKey, 0, leafKey.length, key, 0, key.length);
+			if (c > 0 || (c == 0 && inclusive)) {
+				return first(leaf, node, version);
+			}
+		}
+		else if (child != null) {
+			InnerNode next = (InnerNode) child;
+			int nextVersion = lock(next).readLockOrRestart();
+			if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+				return retry();
+			}
+			Snapshot<K, V> e = ceiling(next, nextVersion, key, depth + 1, inclusive);
+			if (e != null) {
+				return e;
+			}
+		}
+		// nothing at or below partialKey, take the next greater child
+		return first(node.greater(partialKey), node, version);
+	}
+
+	private Snapshot<K, V> floor(InnerNode node, int version, byte[] key, int depth, boolean inclusive) {
+		int prefixLen = node.prefixLen;
+		int compare = compareCompressedPath(node, prefixLen, key, depth);
+		if (compare == INCONSISTENT || !lock(node).validate(version)) {
+			return retry();
+		}
+		if (compare < 0) { // all keys below are lesser
+			Node last = node.floor((byte) -1);
+			return last(last != null ? last : node.getLeaf(), node, version);
+		}
+		if (compare > 0) { // all keys below are greater
+			return null;
+		}
+		depth += prefixLen;
+		if (depth == key.length) {
+			// node's own leaf is equal to key, all children are greater
+			return last(inclusive ? node.getLeaf() : null, node, version);
+		}
+
+		byte partialKey = key[depth];
+		Node child = node.findChild(partialKey);
+		if (!lock(node).validate(version)) {
+			return retry();
+		}
+		if (child instanceof LeafNode) {
+			@SuppressWarnings("unchecked")
+			LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+			byte[] leafKey = leaf.getKeyBytes();
+			int c = AdaptiveRadixTree.compare(leafKey, 0, leafKey.length, key, 0, key.length);
+			if (c < 0 || (c == 0 && inclusive)) {
+				return last(leaf, node, version);
+			}
+		}
+		else if (child != null) {
+			InnerNode next = (InnerNode) child;
+			int nextVersion = lock(next).readLockOrRestart();
+			if (nextVersion == OptimisticLock.RESTART || !lock(node).validate(version)) {
+				return retry();
+			}
+			Snapshot<K, V> e = floor(next, nextVersion, key, depth + 1, inclusive);
+			if (e != null) {
+				return e;
+			}
+		}
+		// nothing at or below partialKey, take the next lesser child or else node's own leaf
+		// (which is lesser than all of it's children)
+		Node lesser = node.lesser(partialKey);
+		return last(lesser != null ? lesser : node.getLeaf(), node, version);
+	}
+
+	// smallest entry below (and including) child, which was read from parent at parentVersion
+	private Snapshot<K, V> first(Node child, InnerNode parent, int parentVersion) {
+		while (child instanceof InnerNode) {
+			InnerNode node = (InnerNode) child;
+			int version = lock(node).readLockOrRestart();
+			if (version == OptimisticLock.RESTART || !lock(parent).validate(parentVersion)) {
+				return retry();
+			}
+			child = node.getLeaf();
+			if (child == null) {
+				child = node.ceil((byte) 0);
+			}
+			parent = node;
+			parentVersion = version;
+		}
+		return snapshot(child, parent, parentVersion);
+	}
+
+	// greatest entry below (and including) child, which was read from parent at parentVersion
+	private Snapshot<K, V> last(Node child, InnerNode parent, int parentVersion) {
+		while (child instanceof InnerNode) {
+			InnerNode node = (InnerNode) child;
+			int version = lock(node).readLockOrRestart();
+			if (version == OptimisticLock.RESTART || !lock(parent).validate(parentVersion)) {
+				return retry();
+			}
+			child = node.floor((byte) -1);
+			if (child == null) {
+				child = node.getLeaf();
+			}
+			parent = node;
+			parentVersion = version;
+		}
+		return snapshot(child, parent, parentVersion);
+	}
+
+	private Snapshot<K, V> snapshot(Node child, InnerNode parent, int parentVersion) {
+		if (child == null) {
+			return lock(parent).validate(parentVersion) ? null : retry();
+		}
+		@SuppressWarnings("unchecked")
+		LeafNode<K, V> leaf = (LeafNode<K, V>) child;
+		V value = leaf.getValue();
+		if (!lock(parent).validate(parentVersion)) {
+			return retry();
+		}
+		return new Snapshot<>(leaf, value);
+	}
+
+	private static int compareCompressedPath(InnerNode node, int prefixLen, byte[] key, int depth) {
+		int pessimistic = Math.min(InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, prefixLen);
+		int result = AdaptiveRadixTree.compare(node.prefixKeys, 0, pessimistic, key, depth, Math
+				.min(depth + pessimistic, key.length));
+		if (result != 0 || prefixLen <= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+			return result;
+		}
+		byte[] leafBytes = anyLeafKey(node);
+		if (leafBytes == null || leafBytes.length < depth + prefixLen) {
+			return INCONSISTENT;
+		}
+		return AdaptiveRadixTree.compare(leafBytes, depth + InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, depth + prefixLen,
+				key, depth + InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT, Math.min(depth + prefixLen, key.length));
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return findFloor(keyBytes(key), false);
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(lowerEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return findFloor(keyBytes(key), true);
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(floorEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return findCeiling(keyBytes(key), true);
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(ceilingEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return findCeiling(keyBytes(key), false);
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(higherEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> firstEntry() {
+		return findFirst();
+	}
+
+	@Override
+	public Entry<K, V> lastEntry() {
+		return findLast();
+	}
+
+	@Override
+	public K firstKey() {
+		return AdaptiveRadixTree.key(findFirst());
+	}
+
+	@Override
+	public K lastKey() {
+		return AdaptiveRadixTree.key(findLast());
+	}
+
+	@Override
+	public Entry<K, V> pollFirstEntry() {
+		Snapshot<K, V> e;
+		while ((e = findFirst()) != null) {
+			if (doRemove(e.keyBytes, e.getValue()) != null) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Entry<K, V> pollLastEntry() {
+		Snapshot<K, V> e;
+		while ((e = findLast()) != null) {
+			if (doRemove(e.keyBytes, e.getValue()) != null) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		for (Snapshot<K, V> e = findFirst(); e != null; e = findCeiling(e.keyBytes, false)) {
+			if (value.equals(e.getValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Views
+
+	private ConcurrentSubMap<K, V> all() {
+		ConcurrentSubMap<K, V> a = all;
+		return (a != null) ? a : (all = new ConcurrentSubMap<>(this, null, false, null, false, false));
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return all().entrySet();
+	}
+
+	@Override
+	public Collection<V> values() {
+		return all().values();
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return all().navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> descendingMap() {
+		ConcurrentNavigableMap<K, V> dm = descendingMap;
+		return (dm != null) ? dm :
+				(descendingMap = new ConcurrentSubMap<>(this, null, false, null, false, true));
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		return new ConcurrentSubMap<>(this, keyBytes(fromKey), fromInclusive, keyBytes(toKey), toInclusive, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		return new ConcurrentSubMap<>(this, null, false, keyBytes(toKey), inclusive, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		return new ConcurrentSubMap<>(this, keyBytes(fromKey), inclusive, null, false, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return null;
+	}
+}
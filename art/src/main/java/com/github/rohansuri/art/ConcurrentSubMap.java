@@ -0,0 +1,550 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+
+import com.github.rohansuri.art.ConcurrentAdaptiveRadixTree.Snapshot;
+
+/*
+	A ConcurrentNavigableMap view over a range of ConcurrentAdaptiveRadixTree, in either direction.
+	Modelled after ConcurrentSkipListMap.SubMap: a single class handles both ascending and
+	descending views, with bounds kept as binary comparable representations.
+	Iterators are weakly consistent, they continue from the last returned key's bytes.
+ */
+final class ConcurrentSubMap<K, V> extends AbstractMap<K, V> implements ConcurrentNavigableMap<K, V> {
+	final ConcurrentAdaptiveRadixTree<K, V> m;
+
+	// lower bound or null if from start, likewise upper bound or null if to end
+	private final byte[] lo, hi;
+	private final boolean loInclusive, hiInclusive;
+	private final boolean isDescending;
+
+	private transient KeySet<K> keySetView;
+	private transient Set<Entry<K, V>> entrySetView;
+	private transient Collection<V> valuesView;
+	private transient ConcurrentSubMap<K, V> descendingMapView;
+
+	ConcurrentSubMap(ConcurrentAdaptiveRadixTree<K, V> m,
+			byte[] lo, boolean loInclusive,
+			byte[] hi, boolean hiInclusive,
+			boolean isDescending) {
+		if (lo != null && hi != null &&
+				AdaptiveRadixTree.compare(lo, 0, lo.length, hi, 0, hi.length) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		this.m = m;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.isDescending = isDescending;
+	}
+
+	// internal utilities
+
+	private boolean tooLow(byte[] key) {
+		if (lo != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, lo, 0, lo.length);
+			return c < 0 || (c == 0 && !loInclusive);
+		}
+		return false;
+	}
+
+	private boolean tooHigh(byte[] key) {
+		if (hi != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, hi, 0, hi.length);
+			return c > 0 || (c == 0 && !hiInclusive);
+		}
+		return false;
+	}
+
+	private boolean inRange(byte[] key) {
+		return !tooLow(key) && !tooHigh(key);
+	}
+
+	/*
+	 * Absolute versions of relation operations, mapped to by the
+	 * public methods inverting senses for descending maps.
+	 */
+
+	private Snapshot<K, V> absLowest() {
+		Snapshot<K, V> e = lo == null ? m.findFirst() : m.findCeiling(lo, loInclusive);
+		return (e == null || tooHigh(e.keyBytes)) ? null : e;
+	}
+
+	private Snapshot<K, V> absHighest() {
+		Snapshot<K, V> e = hi == null ? m.findLast() : m.findFloor(hi, hiInclusive);
+		return (e == null || tooLow(e.keyBytes)) ? null : e;
+	}
+
+	private Snapshot<K, V> absCeiling(byte[] key, boolean inclusive) {
+		if (tooLow(key))
+			return absLowest();
+		Snapshot<K, V> e = m.findCeiling(key, inclusive);
+		return (e == null || tooHigh(e.keyBytes)) ? null : e;
+	}
+
+	private Snapshot<K, V> absFloor(byte[] key, boolean inclusive) {
+		if (tooHigh(key))
+			return absHighest();
+		Snapshot<K, V> e = m.findFloor(key, inclusive);
+		return (e == null || tooLow(e.keyBytes)) ? null : e;
+	}
+
+	private Snapshot<K, V> lowest() {
+		return isDescending ? absHighest() : absLowest();
+	}
+
+	private Snapshot<K, V> highest() {
+		return isDescending ? absLowest() : absHighest();
+	}
+
+	// the next entry after key in this view's direction
+	private Snapshot<K, V> next(byte[] key) {
+		return isDescending ? absFloor(key, false) : absCeiling(key, false);
+	}
+
+	// public methods
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		byte[] bytes = m.keyBytes(key);
+		return inRange(bytes) ? m.doGet(bytes) : null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(value);
+		return m.doPut(checkInRange(key), key, value, false);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		Objects.requireNonNull(value);
+		return m.doPut(checkInRange(key), key, value, true);
+	}
+
+	@Override
+	public V remove(Object key) {
+		byte[] bytes = m.keyBytes(key);
+		return inRange(bytes) ? m.doRemove(bytes, null) : null;
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		byte[] bytes = m.keyBytes(key);
+		return value != null && inRange(bytes) && m.doRemove(bytes, value) != null;
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		Objects.requireNonNull(value);
+		byte[] bytes = m.keyBytes(key);
+		return inRange(bytes) ? m.doReplace(bytes, null, value) : null;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+		byte[] bytes = m.keyBytes(key);
+		return inRange(bytes) && m.doReplace(bytes, oldValue, newValue) != null;
+	}
+
+	private byte[] checkInRange(K key) {
+		byte[] bytes = m.keyBytes(key);
+		if (!inRange(bytes))
+			throw new IllegalArgumentException("key out of range");
+		return bytes;
+	}
+
+	@Override
+	public int size() {
+		long count = 0;
+		for (Snapshot<K, V> e = lowest(); e != null; e = next(e.keyBytes))
+			count++;
+		return count >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return lowest() == null;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null)
+			throw new NullPointerException();
+		for (Snapshot<K, V> e = lowest(); e != null; e = next(e.keyBytes))
+			if (value.equals(e.getValue()))
+				return true;
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		for (Snapshot<K, V> e = lowest(); e != null; e = next(e.keyBytes))
+			m.doRemove(e.keyBytes, null);
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absFloor(bytes, true) : absCeiling(bytes, true);
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(ceilingEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absFloor(bytes, false) : absCeiling(bytes, false);
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(higherEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absCeiling(bytes, true) : absFloor(bytes, true);
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(floorEntry(key));
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absCeiling(bytes, false) : absFloor(bytes, false);
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(lowerEntry(key));
+	}
+
+	@Override
+	public K firstKey() {
+		return AdaptiveRadixTree.key(lowest());
+	}
+
+	@Override
+	public K lastKey() {
+		return AdaptiveRadixTree.key(highest());
+	}
+
+	@Override
+	public Entry<K, V> firstEntry() {
+		return lowest();
+	}
+
+	@Override
+	public Entry<K, V> lastEntry() {
+		return highest();
+	}
+
+	@Override
+	public Entry<K, V> pollFirstEntry() {
+		Snapshot<K, V> e;
+		while ((e = lowest()) != null) {
+			if (m.doRemove(e.keyBytes, e.getValue()) != null)
+				return e;
+		}
+		return null;
+	}
+
+	@Override
+	public Entry<K, V> pollLastEntry() {
+		Snapshot<K, V> e;
+		while ((e = highest()) != null) {
+			if (m.doRemove(e.keyBytes, e.getValue()) != null)
+				return e;
+		}
+		return null;
+	}
+
+	// submaps of submaps
+
+	/*
+		fromKey, toKey are from the perspective of this view.
+		A bound that isn't given (null) is inherited, a given one must lie within ours.
+	 */
+	private ConcurrentSubMap<K, V> newSubMap(K fromKey, boolean fromInclusive,
+			K toKey, boolean toInclusive) {
+		byte[] from = fromKey == null ? null : m.keyBytes(fromKey);
+		byte[] to = toKey == null ? null : m.keyBytes(toKey);
+		if (isDescending) { // flip senses
+			byte[] tb = from;
+			from = to;
+			to = tb;
+			boolean ti = fromInclusive;
+			fromInclusive = toInclusive;
+			toInclusive = ti;
+		}
+		if (lo != null) {
+			if (from == null) {
+				from = lo;
+				fromInclusive = loInclusive;
+			}
+			else {
+				int c = AdaptiveRadixTree.compare(from, 0, from.length, lo, 0, lo.length);
+				if (c < 0 || (c == 0 && !loInclusive && fromInclusive))
+					throw new IllegalArgumentException("key out of range");
+			}
+		}
+		if (hi != null) {
+			if (to == null) {
+				to = hi;
+				toInclusive = hiInclusive;
+			}
+			else {
+				int c = AdaptiveRadixTree.compare(to, 0, to.length, hi, 0, hi.length);
+				if (c > 0 || (c == 0 && !hiInclusive && toInclusive))
+					throw new IllegalArgumentException("key out of range");
+			}
+		}
+		return new ConcurrentSubMap<>(m, from, fromInclusive, to, toInclusive, isDescending);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		Objects.requireNonNull(fromKey);
+		Objects.requireNonNull(toKey);
+		return newSubMap(fromKey, fromInclusive, toKey, toInclusive);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		Objects.requireNonNull(toKey);
+		return newSubMap(null, false, toKey, inclusive);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		Objects.requireNonNull(fromKey);
+		return newSubMap(fromKey, inclusive, null, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	@Override
+	public ConcurrentNavigableMap<K, V> descendingMap() {
+		ConcurrentSubMap<K, V> dm = descendingMapView;
+		return (dm != null) ? dm : (descendingMapView =
+				new ConcurrentSubMap<>(m, lo, loInclusive, hi, hiInclusive, !isDescending));
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return m.comparator();
+	}
+
+	// Views
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		KeySet<K> ks = keySetView;
+		return (ks != null) ? ks : (keySetView = new KeySet<>(this));
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		Set<Entry<K, V>> es = entrySetView;
+		return (es != null) ? es : (entrySetView = new EntrySetView());
+	}
+
+	@Override
+	public Collection<V> values() {
+		Collection<V> vs = valuesView;
+		return (vs != null) ? vs : (valuesView = new ValuesView());
+	}
+
+	Iterator<K> keyIterator() {
+		return new SubMapIterator<K>() {
+			@Override
+			public K next() {
+				return nextEntry().getKey();
+			}
+		};
+	}
+
+	Iterator<K> descendingKeyIterator() {
+		return ((ConcurrentSubMap<K, V>) descendingMap()).keyIterator();
+	}
+
+	private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SubMapIterator<Entry<K, V>>() {
+				@Override
+				public Entry<K, V> next() {
+					Snapshot<K, V> e = nextEntry();
+					return new WriteThroughEntry(e.getKey(), e.getValue());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentSubMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentSubMap.this.isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentSubMap.this.clear();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			V v = get(e.getKey());
+			return v != null && v.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return ConcurrentSubMap.this.remove(e.getKey(), e.getValue());
+		}
+	}
+
+	private final class ValuesView extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new SubMapIterator<V>() {
+				@Override
+				public V next() {
+					return nextEntry().getValue();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentSubMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentSubMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentSubMap.this.clear();
+		}
+	}
+
+	/*
+		entries handed out by the entry set's iterator, setValue writes through to the map
+		(same as ConcurrentHashMap's iterator entries).
+		Note that the mapping might have been removed concurrently in the meantime,
+		in which case it is added again.
+	 */
+	private final class WriteThroughEntry extends SimpleEntry<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		WriteThroughEntry(K key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V value) {
+			Objects.requireNonNull(value);
+			V v = super.setValue(value);
+			ConcurrentSubMap.this.put(getKey(), value);
+			return v;
+		}
+	}
+
+	// weakly consistent, continues from the last returned key
+	private abstract class SubMapIterator<T> implements Iterator<T> {
+		private Snapshot<K, V> lastReturned;
+		private Snapshot<K, V> next;
+
+		SubMapIterator() {
+			next = lowest();
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return next != null;
+		}
+
+		final Snapshot<K, V> nextEntry() {
+			Snapshot<K, V> e = next;
+			if (e == null)
+				throw new NoSuchElementException();
+			lastReturned = e;
+			next = ConcurrentSubMap.this.next(e.keyBytes);
+			return e;
+		}
+
+		@Override
+		public final void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			m.doRemove(lastReturned.keyBytes, null);
+			lastReturned = null;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package com.github.rohansuri.art;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * A reusable position in an {@link AdaptiveRadixTree}, for scans that shouldn't allocate per step.
+ *
+ * <p>A cursor remembers the path from the root to it's current entry, as a stack of inner nodes
+ * and the child taken at each. Moving to the next or previous entry only looks at the stack
+ * and moving itself allocates nothing. Neither do the accessors, they hand out what the tree holds.
+ * Unlike the map's iterators, a cursor moves both ways and is reused across scans.
+ *
+ * <p>A cursor is positioned by one of the seek methods and stays usable across any number of seeks.
+ * A structural modification of the tree (an insertion of a new key or a removal)
+ * after the cursor has been positioned invalidates the path it remembers,
+ * {@link #next()} and {@link #prev()} then throw {@link ConcurrentModificationException}
+ * and the cursor needs to be positioned again. Replacing the value of an existing key is not
+ * a structural modification.
+ *
+ * <p>Cursors are not thread safe.
+ *
+ * @param <K> the type of keys maintained by the tree
+ * @param <V> the type of mapped values
+ * @see AdaptiveRadixTree#cursor()
+ */
+public final class Cursor<K, V> {
+	private final AdaptiveRadixTree<K, V> m;
+
+	// path from root to current
+	private final Path path = new Path();
+
+	private LeafNode<K, V> current;
+	private int expectedModCount;
+
+	Cursor(AdaptiveRadixTree<K, V> m) {
+		this.m = m;
+	}
+
+	/**
+	 * Positions this cursor at the given key, if present.
+	 * If not, the cursor is positioned at the least key greater than the given key (if any),
+	 * same as {@link #seekCeil(Object)} would.
+	 *
+	 * @return true if the given key is present
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean seek(K key) {
+		KeyBuffer keyBuffer = acquire(key);
+		try {
+			return seekHigherOrCeil(true, keyBuffer)
+					&& AdaptiveRadixTree.compare(keyBuffer.bytes, 0, keyBuffer.length,
+					current.getKeyBytes(), 0, current.getKeyBytes().length) == 0;
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * Positions this cursor at the least key greater than or equal to the given key.
+	 *
+	 * @return false if there is no such key, in which case the cursor is not positioned
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean seekCeil(K key) {
+		KeyBuffer keyBuffer = acquire(key);
+		try {
+			return seekHigherOrCeil(true, keyBuffer);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * Positions this cursor at the least key strictly greater than the given key.
+	 *
+	 * @return false if there is no such key, in which case the cursor is not positioned
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean seekHigher(K key) {
+		KeyBuffer keyBuffer = acquire(key);
+		try {
+			return seekHigherOrCeil(false, keyBuffer);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * Positions this cursor at the greatest key strictly less than the given key.
+	 *
+	 * @return false if there is no such key, in which case the cursor is not positioned
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean seekLower(K key) {
+		KeyBuffer keyBuffer = acquire(key);
+		try {
+			return seekLowerOrFloor(true, keyBuffer);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * Positions this cursor at the greatest key less than or equal to the given key.
+	 *
+	 * @return false if there is no such key, in which case the cursor is not positioned
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean seekFloor(K key) {
+		KeyBuffer keyBuffer = acquire(key);
+		try {
+			return seekLowerOrFloor(false, keyBuffer);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * Positions this cursor at the least key of the tree.
+	 *
+	 * @return false if the tree is empty
+	 */
+	public boolean seekFirst() {
+		reset();
+		Node root = m.getRoot();
+		return root != null && position(path.first(root));
+	}
+
+	/**
+	 * Positions this cursor at the greatest key of the tree.
+	 *
+	 * @return false if the tree is empty
+	 */
+	public boolean seekLast() {
+		reset();
+		Node root = m.getRoot();
+		return root != null && position(path.last(root));
+	}
+
+	/**
+	 * Moves this cursor to the next greater key.
+	 *
+	 * @return false if there is no next key (or the cursor is not positioned),
+	 * in which case the cursor is no more positioned
+	 * @throws ConcurrentModificationException if the tree has been structurally modified
+	 * since this cursor was positioned
+	 */
+	public boolean next() {
+		checkForComodification();
+		return current != null && position(path.successor());
+	}
+
+	/**
+	 * Moves this cursor to the next lesser key.
+	 *
+	 * @return false if there is no previous key (or the cursor is not positioned),
+	 * in which case the cursor is no more positioned
+	 * @throws ConcurrentModificationException if the tree has been structurally modified
+	 * since this cursor was positioned
+	 */
+	public boolean prev() {
+		checkForComodification();
+		return current != null && position(path.predecessor());
+	}
+
+	/**
+	 * @return true if this cursor is positioned at a key
+	 */
+	public boolean isPositioned() {
+		return current != null;
+	}
+
+	/**
+	 * @return the key this cursor is positioned at
+	 * @throws NoSuchElementException if the cursor is not positioned
+	 */
+	public K key() {
+		return current().getKey();
+	}
+
+	/**
+	 * @return the value of the key this cursor is positioned at
+	 * @throws NoSuchElementException if the cursor is not positioned
+	 */
+	public V value() {
+		return current().getValue();
+	}
+
+	/**
+	 * @return the binary comparable bytes of the key this cursor is positioned at.
+	 * The returned array is the one held by the tree and must not be modified.
+	 * @throws NoSuchElementException if the cursor is not positioned
+	 */
+	public byte[] keyBytes() {
+		return current().getKeyBytes();
+	}
+
+	private LeafNode<K, V> current() {
+		if (current == null) {
+			throw new NoSuchElementException();
+		}
+		return current;
+	}
+
+	private void checkForComodification() {
+		if (current != null && m.getModCount() != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	private KeyBuffer acquire(K key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		reset();
+		return KeyBuffer.acquire(m.binaryComparable(), key);
+	}
+
+	private void reset() {
+		path.clear();
+		current = null;
+		expectedModCount = m.getModCount();
+	}
+
+	private boolean seekHigherOrCeil(boolean ceil, KeyBuffer keyBuffer) {
+		Node root = m.getRoot();
+		return root != null && position(path.seekHigherOrCeil(root, ceil, keyBuffer.bytes, keyBuffer.length));
+	}
+
+	private boolean seekLowerOrFloor(boolean lower, KeyBuffer keyBuffer) {
+		Node root = m.getRoot();
+		return root != null && position(path.seekLowerOrFloor(root, lower, keyBuffer.bytes, keyBuffer.length));
+	}
+
+	// whether there's a leaf to position at
+	@SuppressWarnings("unchecked")
+	private boolean position(Node leaf) {
+		current = (LeafNode<K, V>) leaf;
+		return leaf != null;
+	}
+}
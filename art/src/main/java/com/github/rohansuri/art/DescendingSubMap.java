@@ -15,6 +15,12 @@ final class DescendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
 	}
 
+	DescendingSubMap(AdaptiveRadixTree<K, V> m,
+			boolean fromStart, byte[] loBytes, boolean loInclusive,
+			boolean toEnd, byte[] hiBytes, boolean hiInclusive) {
+		super(m, fromStart, loBytes, loInclusive, toEnd, hiBytes, hiInclusive);
+	}
+
 	@Override
 	public Comparator<? super K> comparator() {
 		return m.comparator();
@@ -39,8 +45,8 @@ final class DescendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		if (!inRange(toKey, inclusive))
 			throw new IllegalArgumentException("toKey out of range");
 		return new DescendingSubMap<>(m,
-				false, toKey, inclusive,
-				toEnd, hi, hiInclusive);
+				false, m.binaryComparable().get(toKey), inclusive,
+				toEnd, hiBytes, hiInclusive);
 	}
 
 	@Override
@@ -48,8 +54,8 @@ final class DescendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		if (!inRange(fromKey, inclusive))
 			throw new IllegalArgumentException("fromKey out of range");
 		return new DescendingSubMap<>(m,
-				fromStart, lo, loInclusive,
-				false, fromKey, inclusive);
+				fromStart, loBytes, loInclusive,
+				false, m.binaryComparable().get(fromKey), inclusive);
 	}
 
 	@Override
@@ -58,8 +64,8 @@ final class DescendingSubMap<K, V> extends NavigableSubMap<K, V> {
 		return (mv != null) ? mv :
 				(descendingMapView =
 						new AscendingSubMap<>(m,
-								fromStart, lo, loInclusive,
-								toEnd, hi, hiInclusive));
+								fromStart, loBytes, loInclusive,
+								toEnd, hiBytes, hiInclusive));
 	}
 
 	@Override
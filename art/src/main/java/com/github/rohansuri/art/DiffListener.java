@@ -0,0 +1,39 @@
+package com.github.rohansuri.art;
+
+import java.util.Map;
+
+/**
+ * Receives the differences between two maps found by {@link AdaptiveRadixTree#diff(AdaptiveRadixTree, DiffListener)},
+ * as the changes that turn the map diffed into the other map. Differences are reported in ascending order of keys.
+ * All methods do nothing by default, so that only the ones of interest need to be overridden.
+ *
+ * @param <K> the type of keys maintained by the maps
+ * @param <V> the type of mapped values
+ */
+public interface DiffListener<K, V> {
+
+	/**
+	 * Called for a key only present in the other map.
+	 *
+	 * @param entry the other map's entry
+	 */
+	default void added(Map.Entry<K, V> entry) {
+	}
+
+	/**
+	 * Called for a key only present in the map diffed.
+	 *
+	 * @param entry the map's entry
+	 */
+	default void removed(Map.Entry<K, V> entry) {
+	}
+
+	/**
+	 * Called for a key present in both maps, mapped to values that are not equal.
+	 *
+	 * @param entry the map's entry
+	 * @param otherEntry the other map's entry
+	 */
+	default void changed(Map.Entry<K, V> entry, Map.Entry<K, V> otherEntry) {
+	}
+}
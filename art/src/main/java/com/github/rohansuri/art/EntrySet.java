@@ -3,6 +3,7 @@ package com.github.rohansuri.art;
 import java.util.AbstractSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Spliterator;
 
 class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
 	private final AdaptiveRadixTree<K, V> m;
@@ -50,5 +51,8 @@ class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
 		m.clear();
 	}
 
-	// TODO: implement Spliterator
+	@Override
+	public Spliterator<Map.Entry<K, V>> spliterator() {
+		return m.entrySpliterator();
+	}
 }
@@ -0,0 +1,46 @@
+package com.github.rohansuri.art;
+
+import java.util.Comparator;
+import java.util.Map;
+
+final class EntrySpliterator<K, V> extends PrivateEntrySpliterator<K, V, Map.Entry<K, V>> {
+	EntrySpliterator(AdaptiveRadixTree<K, V> m) {
+		super(m);
+	}
+
+	private EntrySpliterator(AdaptiveRadixTree<K, V> m, Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		super(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	EntrySpliterator<K, V> split(Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		return new EntrySpliterator<>(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	Map.Entry<K, V> element(LeafNode<K, V> leaf) {
+		return leaf;
+	}
+
+	@Override
+	public int characteristics() {
+		return SORTED | ORDERED | DISTINCT | NONNULL;
+	}
+
+	@Override
+	public Comparator<? super Map.Entry<K, V>> getComparator() {
+		return this::compareEntries;
+	}
+
+	// entries handed out are the leaves themselves, which already hold their key's bytes
+	private int compareEntries(Map.Entry<K, V> e1, Map.Entry<K, V> e2) {
+		if (e1 instanceof LeafNode && e2 instanceof LeafNode) {
+			byte[] b1 = ((LeafNode<K, V>) e1).getKeyBytes();
+			byte[] b2 = ((LeafNode<K, V>) e2).getKeyBytes();
+			return AdaptiveRadixTree.compare(b1, 0, b1.length, b2, 0, b2.length);
+		}
+		return compareKeys(e1.getKey(), e2.getKey());
+	}
+}
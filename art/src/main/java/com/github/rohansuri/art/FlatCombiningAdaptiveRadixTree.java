@@ -0,0 +1,339 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread safe Adaptive Radix tree based {@link Map} implementation for heavily contended writes
+ * to a single tree, using <a href="https://dl.acm.org/doi/10.1145/1810479.1810540">flat combining</a>.
+ *
+ * <p>Instead of every thread taking a lock to apply it's own operation (and handing the lock over
+ * to the next waiting thread after, which under contention costs much more than the operation itself),
+ * threads publish their operation in a per thread slot. Whichever thread gets the lock becomes the
+ * combiner: it collects all operations published so far, sorts them by key and applies them
+ * as one batch, in order, so that consecutive operations find the top of their descent warm in cache.
+ * The other threads merely wait for their slot to be marked done.
+ * Key encoding (and growing the thread's encoding buffer) happens in the publishing thread,
+ * outside of the lock.
+ *
+ * <p>{@code get}, {@code containsKey}, {@code put} and {@code remove} are combined.
+ * Operations published concurrently take effect in an unspecified order, each atomically.
+ * {@code size} is a volatile read of the size as of the last applied batch.
+ * Iterators of the views go over a copy of the map taken (holding the lock) at their creation,
+ * removing through them removes from the map.
+ *
+ * <p>Slots of threads that haven't published anything for a while are dropped from the
+ * publication list (and added back, if the thread publishes again).
+ *
+ * <p>Note that null keys are not permitted.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see ShardedAdaptiveRadixTree
+ */
+public class FlatCombiningAdaptiveRadixTree<K, V> extends AbstractMap<K, V> {
+	private static final int GET = 0, PUT = 1, REMOVE = 2;
+
+	// combining passes after which a slot of a thread that's not been publishing is dropped
+	private static final int SLOT_AGE = 1 << 10;
+	// spins waiting for a combiner before yielding the cpu
+	private static final int SPINS = 1 << 8;
+
+	private static final Comparator<Slot> IN_KEY_ORDER = (a, b) -> AdaptiveRadixTree
+			.compare(a.keyBytes, 0, a.keyLen, b.keyBytes, 0, b.keyLen);
+
+	/*
+		a thread's published operation.
+		the request fields are written by the owner before it publishes (the volatile write of pending),
+		the response fields are written by the combiner before it marks the slot done
+		(the volatile write of pending back to false).
+	 */
+	static final class Slot {
+		int op;
+		Object key;
+		Object value;
+		byte[] keyBytes;
+		int keyLen;
+
+		Object result;
+		boolean found;
+		RuntimeException failure;
+
+		volatile boolean pending;
+
+		// publication list membership, active is only cleared by the combiner
+		volatile boolean active;
+		volatile Slot next;
+		// combiner only, last pass that served (or collected) this slot
+		int lastPass;
+	}
+
+	private final AdaptiveRadixTree<K, V> tree;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicReference<Slot> head = new AtomicReference<>();
+	private final ThreadLocal<Slot> slot = ThreadLocal.withInitial(Slot::new);
+
+	// combiner only
+	private Slot[] batch = new Slot[16];
+	private int passes;
+
+	private volatile int size;
+	private transient Set<Entry<K, V>> entrySet;
+
+	public FlatCombiningAdaptiveRadixTree(BinaryComparable<K> binaryComparable) {
+		tree = new AdaptiveRadixTree<>(binaryComparable);
+	}
+
+	public BinaryComparable<K> binaryComparable() {
+		return tree.binaryComparable();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		return (V) combine(GET, key, null).result;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return combine(GET, key, null).found;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		return (V) combine(PUT, key, value).result;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		return (V) combine(REMOVE, key, null).result;
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			tree.clear();
+			size = 0;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+		publishes the operation in the calling thread's slot and waits till some combiner
+		(possibly this thread itself) has applied it.
+		the returned slot's response fields are valid till the thread's next operation.
+	 */
+	@SuppressWarnings("unchecked")
+	private Slot combine(int op, Object key, Object value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		Slot s = slot.get();
+		KeyBuffer keyBuffer = KeyBuffer.acquire(tree.binaryComparable(), (K) key);
+		try {
+			s.op = op;
+			s.key = key;
+			s.value = value;
+			s.keyBytes = keyBuffer.bytes;
+			s.keyLen = keyBuffer.length;
+			s.pending = true;
+			if (!s.active) {
+				enlist(s);
+			}
+			await(s);
+			s.key = s.value = null;
+			s.keyBytes = null;
+			if (s.failure != null) {
+				RuntimeException failure = s.failure;
+				s.failure = null;
+				throw failure;
+			}
+			return s;
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	private void enlist(Slot s) {
+		s.active = true;
+		Slot h;
+		do {
+			h = head.get();
+			s.next = h;
+		} while (!head.compareAndSet(h, s));
+	}
+
+	private void await(Slot s) {
+		int spins = 0;
+		while (s.pending) {
+			if (!lock.isLocked() && lock.tryLock()) {
+				try {
+					// our own slot might just have been dropped from the list, hence passed explicitly
+					if (s.pending) {
+						combine(s);
+					}
+				}
+				finally {
+					lock.unlock();
+				}
+			}
+			else if (!s.active) {
+				// dropped by a combiner that saw it before it was published
+				enlist(s);
+			}
+			else if (++spins < SPINS) {
+				Thread.onSpinWait();
+			}
+			else {
+				Thread.yield();
+			}
+		}
+	}
+
+	// holding the lock
+	private void combine(Slot own) {
+		int pass = ++passes;
+		int n = 0;
+		own.lastPass = pass;
+		batch[n++] = own;
+		Slot prev = null;
+		for (Slot s = head.get(); s != null; ) {
+			Slot next = s.next;
+			if (s.pending) {
+				if (s.lastPass != pass) {
+					s.lastPass = pass;
+					if (n == batch.length) {
+						batch = Arrays.copyOf(batch, n << 1);
+					}
+					batch[n++] = s;
+				}
+				prev = s;
+			}
+			else if (prev != null && pass - s.lastPass > SLOT_AGE) {
+				// never the head, which publishers concurrently push in front of
+				s.active = false;
+				prev.next = next;
+			}
+			else {
+				prev = s;
+			}
+			s = next;
+		}
+
+		Arrays.sort(batch, 0, n, IN_KEY_ORDER);
+		for (int i = 0; i < n; i++) {
+			Slot s = batch[i];
+			batch[i] = null;
+			apply(s);
+			s.pending = false;
+		}
+		size = tree.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void apply(Slot s) {
+		try {
+			if (s.op == PUT) {
+				s.result = tree.put(s.keyBytes, s.keyLen, (K) s.key, (V) s.value);
+				return;
+			}
+			LeafNode<K, V> leaf = tree.getEntry(s.keyBytes, s.keyLen);
+			s.found = leaf != null;
+			s.result = leaf == null ? null : leaf.getValue();
+			if (leaf != null && s.op == REMOVE) {
+				tree.deleteEntry(leaf);
+			}
+		}
+		catch (RuntimeException e) {
+			s.result = null;
+			s.failure = e;
+		}
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		Set<Entry<K, V>> es = entrySet;
+		return (es != null) ? es : (entrySet = new EntrySet());
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			List<Entry<K, V>> copy;
+			lock.lock();
+			try {
+				copy = new ArrayList<>(tree.size());
+				for (Entry<K, V> e : tree.entrySet()) {
+					copy.add(AdaptiveRadixTree.exportEntry(e));
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			Iterator<Entry<K, V>> i = copy.iterator();
+			return new Iterator<Entry<K, V>>() {
+				private Entry<K, V> lastReturned;
+
+				@Override
+				public boolean hasNext() {
+					return i.hasNext();
+				}
+
+				@Override
+				public Entry<K, V> next() {
+					return lastReturned = i.next();
+				}
+
+				@Override
+				public void remove() {
+					if (lastReturned == null) {
+						throw new IllegalStateException();
+					}
+					FlatCombiningAdaptiveRadixTree.this.remove(lastReturned.getKey());
+					lastReturned = null;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return FlatCombiningAdaptiveRadixTree.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Slot s = combine(GET, e.getKey(), null);
+			return s.found && Objects.equals(s.result, e.getValue());
+		}
+
+		@Override
+		public void clear() {
+			FlatCombiningAdaptiveRadixTree.this.clear();
+		}
+	}
+}
@@ -30,34 +30,30 @@ abstract class InnerNode extends Node {
 
 	final Node[] child;
 
-	InnerNode(int size) {
+	InnerNode(byte kind, int size) {
+		super(kind);
 		prefixKeys = new byte[PESSIMISTIC_PATH_COMPRESSION_LIMIT];
 		child = new Node[size + 1];
 	}
 
 	// copy ctor. called when growing/shrinking
-	InnerNode(InnerNode node, int size) {
-		super(node);
+	InnerNode(InnerNode node, byte kind, int size) {
+		super(node, kind);
 		child = new Node[size + 1];
 		// copy header
 		this.noOfChildren = node.noOfChildren;
 		this.prefixLen = node.prefixLen;
 		this.prefixKeys = node.prefixKeys;
 
-		// copy leaf & replace uplink
+		// copy leaf
 		child[size] = node.getLeaf();
-		if (child[size] != null) {
-			replaceUplink(this, child[size]);
-		}
 	}
 
 	public void setLeaf(LeafNode<?, ?> leaf) {
 		child[child.length - 1] = leaf;
-		createUplink(this, leaf);
 	}
 
 	public void removeLeaf() {
-		removeUplink(child[child.length - 1]);
 		child[child.length - 1] = null;
 	}
 
@@ -97,6 +93,22 @@ abstract class InnerNode extends Node {
 	 */
 	abstract Node findChild(byte partialKey);
 
+	// findChild with the node type switched on, rather than a virtual call that turns megamorphic
+	static Node findChildByKind(InnerNode node, byte partialKey) {
+		switch (node.kind) {
+		case NODE4:
+			return Node4.findChild((Node4) node, partialKey);
+		case NODE16:
+			return Node16.findChild((Node16) node, partialKey);
+		case NODE48:
+			return Node48.findChild((Node48) node, partialKey);
+		case NODE256:
+			return Node256.findChild((Node256) node, partialKey);
+		default:
+			throw new AssertionError(node.kind);
+		}
+	}
+
 	/**
 	 *
 	 * @param partialKey
@@ -117,7 +129,17 @@ abstract class InnerNode extends Node {
 	 * @param partialKey partialKey to be mapped
 	 * @param child the child node to be added
 	 */
-	abstract void addChild(byte partialKey, Node child);
+	void addChild(byte partialKey, Node child) {
+		addSharedChild(partialKey, child);
+		createUplink(child, partialKey);
+	}
+
+	/**
+	 * Same as {@link #addChild(byte, Node)}, except that the child's uplink key is left as is.
+	 * For children shared with other trees (see PersistentAdaptiveRadixTree), whose readers may
+	 * still be reading the uplink key the child has there.
+	 */
+	abstract void addSharedChild(byte partialKey, Node child);
 
 	/**
 	 * @param partialKey for which the child pointer mapping is to be updated
@@ -160,4 +182,38 @@ abstract class InnerNode extends Node {
 	 * Returns null if no such child.
 	 */
 	abstract Node lesser(byte partialKey);
+
+	/**
+	 * Copies the children and their partial keys in ascending order of partial keys,
+	 * without relying on the children's uplinks (which are not maintained for shared nodes,
+	 * see PersistentAdaptiveRadixTree).
+	 * @return no of children copied, i.e. {@link #size()}
+	 */
+	abstract int copyChildren(byte[] partialKeys, Node[] children);
+
+	/**
+	 * No of leaves in this subtree. Only the counted node types (for example {@link Node4.Counted})
+	 * that trees keeping order statistics create have it, the other trees' nodes don't carry the field.
+	 */
+	int getLeafCount() {
+		throw new UnsupportedOperationException("node doesn't keep a leaf count");
+	}
+
+	void setLeafCount(int leafCount) {
+		throw new UnsupportedOperationException("node doesn't keep a leaf count");
+	}
+
+	// the smallest node type that fits noOfChildren, counted if the tree keeps order statistics
+	static InnerNode newNode(int noOfChildren, boolean counted) {
+		if (noOfChildren <= Node4.NODE_SIZE) {
+			return counted ? new Node4.Counted() : new Node4();
+		}
+		else if (noOfChildren <= Node16.NODE_SIZE) {
+			return counted ? new Node16.Counted() : new Node16();
+		}
+		else if (noOfChildren <= Node48.NODE_SIZE) {
+			return counted ? new Node48.Counted() : new Node48();
+		}
+		return counted ? new Node256.Counted() : new Node256();
+	}
 }
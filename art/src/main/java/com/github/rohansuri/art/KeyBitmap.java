@@ -0,0 +1,65 @@
+package com.github.rohansuri.art;
+
+/*
+	the set of (unsigned) partial keys an inner node has children for, as 256 bits in 4 longs.
+	answers the ordered queries (first, last, ceil, floor, greater, lesser) with a few
+	numberOfTrailingZeros/numberOfLeadingZeros on the words, instead of scanning the node's
+	256 slots one by one.
+
+	writers set a key's bit after the child is in place and clear it before the child is removed.
+	optimistic readers (see ConcurrentAdaptiveRadixTree) racing with a writer can still see the two
+	out of sync, a set bit for a missing child, hence nodes treat that as no child and such readers,
+	as for any other half done write, find out when validating the node's version.
+ */
+final class KeyBitmap {
+	static final int WORDS = 256 / Long.SIZE;
+
+	private KeyBitmap() {
+		throw new AssertionError();
+	}
+
+	static long[] create() {
+		return new long[WORDS];
+	}
+
+	static void set(long[] bits, int key) {
+		bits[key >>> 6] |= 1L << key;
+	}
+
+	static void clear(long[] bits, int key) {
+		bits[key >>> 6] &= ~(1L << key);
+	}
+
+	// lowest key >= from, -1 if none
+	static int ceil(long[] bits, int from) {
+		if (from >= Node256.NODE_SIZE) {
+			return -1;
+		}
+		int w = from >>> 6;
+		// shifts are mod 64, hence the bits of the keys >= from within the word
+		long word = bits[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == WORDS) {
+				return -1;
+			}
+			word = bits[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	// highest key <= from, -1 if none
+	static int floor(long[] bits, int from) {
+		if (from < 0) {
+			return -1;
+		}
+		int w = from >>> 6;
+		long word = bits[w] & (-1L >>> (63 - (from & 63)));
+		while (word == 0) {
+			if (--w < 0) {
+				return -1;
+			}
+			word = bits[w];
+		}
+		return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+	}
+}
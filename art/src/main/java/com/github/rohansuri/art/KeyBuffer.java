@@ -0,0 +1,57 @@
+package com.github.rohansuri.art;
+
+/*
+	per thread reusable array to encode keys into (see BinaryComparable#encode),
+	so that looking up a key doesn't allocate it's binary comparable representation.
+
+	a buffer is marked in use from acquire till release. each thread keeps two, so that two keys can be
+	encoded at once (see PrivateEntrySpliterator#compareKeys). In the unlikely case of further reentrant use
+	on the same thread (for example a BinaryComparable that itself looks up some tree)
+	a fresh buffer is handed out instead.
+ */
+final class KeyBuffer {
+	private static final int INITIAL_SIZE = 64;
+	// don't hold on to arrays grown for exceptionally large keys
+	private static final int MAX_RETAINED_SIZE = 1 << 16;
+	private static final ThreadLocal<KeyBuffer[]> BUFFERS =
+			ThreadLocal.withInitial(() -> new KeyBuffer[]{new KeyBuffer(), new KeyBuffer()});
+
+	byte[] bytes = new byte[INITIAL_SIZE];
+	int length;
+	private boolean inUse;
+
+	private KeyBuffer() {
+	}
+
+	// caller must release the returned buffer once done with it
+	static <K> KeyBuffer acquire(BinaryComparable<K> binaryComparable, K key) {
+		KeyBuffer[] buffers = BUFFERS.get();
+		KeyBuffer buffer = buffers[0];
+		if (buffer.inUse) {
+			buffer = buffers[1].inUse ? new KeyBuffer() : buffers[1];
+		}
+		buffer.inUse = true;
+		boolean encoded = false;
+		try {
+			int length;
+			while ((length = binaryComparable.encode(key, buffer.bytes)) < 0) {
+				buffer.bytes = new byte[Math.max(-length, buffer.bytes.length << 1)];
+			}
+			buffer.length = length;
+			encoded = true;
+		}
+		finally {
+			if (!encoded) {
+				buffer.release();
+			}
+		}
+		return buffer;
+	}
+
+	void release() {
+		if (bytes.length > MAX_RETAINED_SIZE) {
+			bytes = new byte[INITIAL_SIZE];
+		}
+		inUse = false;
+	}
+}
@@ -7,6 +7,8 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentMap;
 
 // implementation simply relays/delegates calls to backing map's methods
 final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
@@ -16,23 +18,33 @@ final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
 		m = map;
 	}
 
-	// this KeySet can only be created either on ART or on one of it's subMaps
+	// this KeySet can only be created either on ART, on one of it's subMaps,
+	// on a concurrent ART's (sub)map view or on a persistent ART's (sub)map view
 	@Override
 	@SuppressWarnings("unchecked")
 	public Iterator<E> iterator() {
 		if (m instanceof AdaptiveRadixTree)
 
 			return ((AdaptiveRadixTree<E, ?>) m).keyIterator();
+		else if (m instanceof ConcurrentSubMap)
+			return ((ConcurrentSubMap<E, ?>) m).keyIterator();
+		else if (m instanceof SnapshotMap)
+			return ((SnapshotMap<E, ?>) m).keyIterator();
 		else
 			return ((NavigableSubMap<E, ?>) m).keyIterator();
 	}
 
-	// this KeySet can only be created either on ART or on one of it's subMaps
+	// this KeySet can only be created either on ART, on one of it's subMaps,
+	// on a concurrent ART's (sub)map view or on a persistent ART's (sub)map view
 	@Override
 	@SuppressWarnings("unchecked")
 	public Iterator<E> descendingIterator() {
 		if (m instanceof AdaptiveRadixTree)
 			return ((AdaptiveRadixTree<E, ?>) m).descendingKeyIterator();
+		else if (m instanceof ConcurrentSubMap)
+			return ((ConcurrentSubMap<E, ?>) m).descendingKeyIterator();
+		else if (m instanceof SnapshotMap)
+			return ((SnapshotMap<E, ?>) m).descendingKeyIterator();
 		else
 			return ((NavigableSubMap<E, ?>) m).descendingKeyIterator();
 	}
@@ -106,6 +118,10 @@ final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
 
 	@Override
 	public boolean remove(Object o) {
+		// concurrent maps don't permit null values
+		// and size is neither constant time nor stable for them
+		if (m instanceof ConcurrentMap)
+			return m.remove(o) != null;
 		int oldSize = size();
 		m.remove(o);
 		return size() != oldSize;
@@ -148,5 +164,15 @@ final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
 		return new KeySet<>(m.descendingMap());
 	}
 
-	// TODO: implement Spliterator
+	// concurrent views keep the default, weakly consistent one built on their iterator
+	@Override
+	@SuppressWarnings("unchecked")
+	public Spliterator<E> spliterator() {
+		if (m instanceof AdaptiveRadixTree)
+			return ((AdaptiveRadixTree<E, ?>) m).keySpliterator();
+		else if (m instanceof NavigableSubMap)
+			return ((NavigableSubMap<E, ?>) m).keySpliterator();
+		else
+			return super.spliterator();
+	}
 }
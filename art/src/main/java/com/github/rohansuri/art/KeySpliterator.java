@@ -0,0 +1,35 @@
+package com.github.rohansuri.art;
+
+import java.util.Comparator;
+
+final class KeySpliterator<K, V> extends PrivateEntrySpliterator<K, V, K> {
+	KeySpliterator(AdaptiveRadixTree<K, V> m) {
+		super(m);
+	}
+
+	private KeySpliterator(AdaptiveRadixTree<K, V> m, Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		super(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	KeySpliterator<K, V> split(Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		return new KeySpliterator<>(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	K element(LeafNode<K, V> leaf) {
+		return leaf.getKey();
+	}
+
+	@Override
+	public int characteristics() {
+		return SORTED | ORDERED | DISTINCT | NONNULL;
+	}
+
+	@Override
+	public Comparator<? super K> getComparator() {
+		return this::compareKeys;
+	}
+}
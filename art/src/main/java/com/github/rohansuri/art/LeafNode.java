@@ -14,9 +14,14 @@ class LeafNode<K, V> extends Node implements Map.Entry<K, V> {
 	private final K key;
 
 	LeafNode(byte[] keyBytes, K key, V value) {
+		this(keyBytes, keyBytes.length, key, value);
+	}
+
+	// keyBytes might be a reused buffer (see KeyBuffer), only the first keyLen bytes are the key's
+	LeafNode(byte[] keyBytes, int keyLen, K key, V value) {
 		this.value = value;
 		// defensive copy
-		this.keyBytes = Arrays.copyOf(keyBytes, keyBytes.length);
+		this.keyBytes = Arrays.copyOf(keyBytes, keyLen);
 		this.key = key;
 	}
 
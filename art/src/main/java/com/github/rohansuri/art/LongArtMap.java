@@ -0,0 +1,543 @@
+package com.github.rohansuri.art;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An Adaptive Radix tree based sorted map specialized for primitive {@code long} keys,
+ * ordered the same as {@link Long#compare(long, long)}.
+ *
+ * <p>Unlike {@code AdaptiveRadixTree<Long, V>} with {@link BinaryComparables#forLong()}, keys are never boxed and
+ * their binary comparable representation is never materialized. The bytes of a key are extracted with shifts as
+ * the tree is walked and leaves store the key as a primitive. Hence {@link #get(long)}, {@link #put(long, Object)}
+ * and {@link #remove(long)} do not allocate (other than the leaf and inner nodes a put creates).
+ *
+ * <p>Since all keys have the same length (8 bytes), no key is a prefix of another and compressed paths
+ * never exceed 7 bytes, they're always stored pessimistically in the inner nodes.
+ *
+ * <p>Values may be {@code null}, in which case {@link #containsKey(long)} distinguishes an absent key
+ * from a key mapped to {@code null}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see AdaptiveRadixTree
+ */
+public class LongArtMap<V> {
+	private Node root;
+	private int size;
+	private int modCount;
+	// reused by removals to find their way back up from the leaf
+	private Path scratchPath;
+
+	/**
+	 * A key-value mapping with a primitive {@code long} key.
+	 * Entries returned by {@link LongArtMap} are snapshots of the mapping at the time they were produced.
+	 */
+	public interface Entry<V> {
+		long getKey();
+
+		V getValue();
+	}
+
+	/**
+	 * Consumer of a mapping, used by {@link #forEach(EntryConsumer)} to traverse without allocating entries.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+		void accept(long key, V value);
+	}
+
+	public LongArtMap() {
+	}
+
+	// byte at depth of key's binary comparable representation:
+	// big endian two's complement with the sign bit flipped (same as BinaryComparables.forLong())
+	static byte keyByte(long key, int depth) {
+		return (byte) ((key ^ Long.MIN_VALUE) >>> ((Long.BYTES - 1 - depth) << 3));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+		root = null;
+		modCount++;
+	}
+
+	public V get(long key) {
+		LongLeafNode<V> entry = getEntry(key);
+		return (entry == null ? null : entry.value);
+	}
+
+	public boolean containsKey(long key) {
+		return getEntry(key) != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private LongLeafNode<V> getEntry(long key) {
+		Node node = root;
+		int depth = 0;
+		while (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			for (int i = 0; i < innerNode.prefixLen; i++) {
+				if (innerNode.prefixKeys[i] != keyByte(key, depth + i))
+					return null;
+			}
+			depth += innerNode.prefixLen;
+			node = innerNode.findChild(keyByte(key, depth));
+			depth++;
+		}
+		LongLeafNode<V> leaf = (LongLeafNode<V>) node;
+		return (leaf == null || leaf.key != key) ? null : leaf;
+	}
+
+	/**
+	 * Associates the specified value with the specified key in this map.
+	 * If the map previously contained a mapping for the key, the old
+	 * value is replaced.
+	 *
+	 * @return the previous value associated with {@code key}, or
+	 *         {@code null} if there was no mapping for {@code key}.
+	 */
+	public V put(long key, V value) {
+		if (root == null) {
+			root = new LongLeafNode<>(key, value);
+			size = 1;
+			modCount++;
+			return null;
+		}
+		int depth = 0;
+		InnerNode prevDepth = null;
+		Node node = root;
+		while (true) {
+			if (node instanceof LongLeafNode) {
+				@SuppressWarnings("unchecked")
+				LongLeafNode<V> leaf = (LongLeafNode<V>) node;
+				if (leaf.key == key) {
+					V oldValue = leaf.value;
+					leaf.value = value;
+					return oldValue;
+				}
+				replace(depth, key, prevDepth, lazyExpansion(leaf, key, value, depth));
+				size++;
+				modCount++;
+				return null;
+			}
+
+			InnerNode innerNode = (InnerNode) node;
+			int lcp = 0;
+			for (; lcp < innerNode.prefixLen && innerNode.prefixKeys[lcp] == keyByte(key, depth + lcp); lcp++) ;
+			if (lcp < innerNode.prefixLen) {
+				replace(depth, key, prevDepth, branchOut(innerNode, key, value, lcp, depth));
+				size++;
+				modCount++;
+				return null;
+			}
+			int newDepth = depth + innerNode.prefixLen;
+
+			byte partialKey = keyByte(key, newDepth);
+			Node child = innerNode.findChild(partialKey);
+			if (child != null) {
+				// set fields for next iteration
+				prevDepth = innerNode;
+				depth = newDepth + 1;
+				node = child;
+				continue;
+			}
+
+			// add this key as child
+			Node leaf = new LongLeafNode<>(key, value);
+			if (innerNode.isFull()) {
+				innerNode = innerNode.grow();
+				replace(depth, key, prevDepth, innerNode);
+			}
+			innerNode.addChild(partialKey, leaf);
+			size++;
+			modCount++;
+			return null;
+		}
+	}
+
+	// depth is the depth at which node (to be replaced) begins
+	private void replace(int depth, long key, InnerNode prevDepth, Node replaceWith) {
+		if (prevDepth == null) {
+			assert depth == 0;
+			root = replaceWith;
+		}
+		else {
+			assert depth > 0;
+			prevDepth.replace(keyByte(key, depth - 1), replaceWith);
+		}
+	}
+
+	/*
+		leaf reached at depth, both keys share all bytes before depth.
+		the rest is what we path compress, until the first byte they differ at.
+	 */
+	private static <V> Node lazyExpansion(LongLeafNode<V> leaf, long key, V value, int depth) {
+		// keys differ, so there surely is a set bit
+		int differAt = Long.numberOfLeadingZeros(leaf.key ^ key) >>> 3;
+		int lcp = differAt - depth;
+		Node4 pathCompressedNode = new Node4();
+		pathCompressedNode.prefixLen = lcp;
+		for (int i = 0; i < lcp; i++) {
+			pathCompressedNode.prefixKeys[i] = keyByte(key, depth + i);
+		}
+		pathCompressedNode.addChild(keyByte(leaf.key, differAt), leaf);
+		pathCompressedNode.addChild(keyByte(key, differAt), new LongLeafNode<>(key, value));
+		return pathCompressedNode;
+	}
+
+	// compressed path of node (starting at depth) matched key only till lcp
+	private static <V> InnerNode branchOut(InnerNode node, long key, V value, int lcp, int depth) {
+		Node4 branchOut = new Node4();
+		branchOut.prefixLen = lcp;
+		System.arraycopy(node.prefixKeys, 0, branchOut.prefixKeys, 0, lcp);
+		branchOut.addChild(keyByte(key, depth + lcp), new LongLeafNode<>(key, value));
+		branchOut.addChild(node.prefixKeys[lcp], node); // reusing "this" node
+
+		// remove lcp common prefix and the partial key to node from node's compressed path
+		node.prefixLen = node.prefixLen - lcp - 1;
+		System.arraycopy(node.prefixKeys, lcp + 1, node.prefixKeys, 0, node.prefixLen);
+		return branchOut;
+	}
+
+	/**
+	 * Removes the mapping for this key from this map if present.
+	 *
+	 * @return the previous value associated with {@code key}, or
+	 *         {@code null} if there was no mapping for {@code key}.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		if (root == null)
+			return null;
+		// same as getEntry, but remembering the path taken
+		Path path = scratchPath();
+		path.clear();
+		Node node = root;
+		int depth = 0;
+		while (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			for (int i = 0; i < innerNode.prefixLen; i++) {
+				if (innerNode.prefixKeys[i] != keyByte(key, depth + i))
+					return null;
+			}
+			depth += innerNode.prefixLen;
+			byte partialKey = keyByte(key, depth);
+			path.push(innerNode, Byte.toUnsignedInt(partialKey));
+			node = innerNode.findChild(partialKey);
+			depth++;
+		}
+		LongLeafNode<V> p = (LongLeafNode<V>) node;
+		if (p == null || p.key != key)
+			return null;
+		V oldValue = p.value;
+		deleteEntry(path, p);
+		return oldValue;
+	}
+
+	private Path scratchPath() {
+		Path path = scratchPath;
+		return path != null ? path : (scratchPath = new Path());
+	}
+
+	// path must lead to the leaf
+	private void deleteEntry(Path path, LongLeafNode<V> leaf) {
+		size--;
+		modCount++;
+		InnerNode parent = path.parent();
+		if (parent == null) {
+			// means root == leaf
+			root = null;
+			return;
+		}
+
+		parent.removeChild(leaf.uplinkKey());
+
+		if (parent.shouldShrink()) {
+			InnerNode newParent = parent.shrink();
+			replace(newParent.uplinkKey(), path.grandParent(), newParent);
+		}
+		else if (parent.size() == 1) {
+			// inner nodes never have a leaf, hence only a Node4 can get down to one child
+			Node onlyChild = parent.getChild()[0];
+			AdaptiveRadixTree.updateCompressedPathOfOnlyChild((Node4) parent, onlyChild);
+			replace(parent.uplinkKey(), path.grandParent(), onlyChild);
+		}
+	}
+
+	// replace down link
+	private void replace(byte partialKey, InnerNode prevDepth, Node replaceWith) {
+		if (prevDepth == null) {
+			root = replaceWith;
+		}
+		else {
+			prevDepth.replace(partialKey, replaceWith);
+		}
+	}
+
+	public Entry<V> firstEntry() {
+		return exportEntry(getFirstEntry());
+	}
+
+	public Entry<V> lastEntry() {
+		return exportEntry(getLastEntry());
+	}
+
+	/**
+	 * @throws NoSuchElementException if this map is empty
+	 */
+	public long firstKey() {
+		return key(getFirstEntry());
+	}
+
+	/**
+	 * @throws NoSuchElementException if this map is empty
+	 */
+	public long lastKey() {
+		return key(getLastEntry());
+	}
+
+	@SuppressWarnings("unchecked")
+	public Entry<V> pollFirstEntry() {
+		if (root == null)
+			return null;
+		Path path = scratchPath();
+		path.clear();
+		LongLeafNode<V> p = (LongLeafNode<V>) path.first(root);
+		Entry<V> result = exportEntry(p);
+		deleteEntry(path, p);
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Entry<V> pollLastEntry() {
+		if (root == null)
+			return null;
+		Path path = scratchPath();
+		path.clear();
+		LongLeafNode<V> p = (LongLeafNode<V>) path.last(root);
+		Entry<V> result = exportEntry(p);
+		deleteEntry(path, p);
+		return result;
+	}
+
+	/**
+	 * Returns a key-value mapping associated with the greatest key
+	 * less than or equal to the given key, or {@code null} if there
+	 * is no such key.
+	 */
+	public Entry<V> floorEntry(long key) {
+		return exportEntry(getLowerOrFloorEntry(false, key));
+	}
+
+	/**
+	 * Returns a key-value mapping associated with the greatest key
+	 * strictly less than the given key, or {@code null} if there is
+	 * no such key.
+	 */
+	public Entry<V> lowerEntry(long key) {
+		return exportEntry(getLowerOrFloorEntry(true, key));
+	}
+
+	/**
+	 * Returns a key-value mapping associated with the least key
+	 * greater than or equal to the given key, or {@code null} if
+	 * there is no such key.
+	 */
+	public Entry<V> ceilingEntry(long key) {
+		return exportEntry(getHigherOrCeilEntry(false, key));
+	}
+
+	/**
+	 * Returns a key-value mapping associated with the least key
+	 * strictly greater than the given key, or {@code null} if there
+	 * is no such key.
+	 */
+	public Entry<V> higherEntry(long key) {
+		return exportEntry(getHigherOrCeilEntry(true, key));
+	}
+
+	/**
+	 * Performs the given action for each mapping in ascending key order.
+	 *
+	 * @throws ConcurrentModificationException if the map is structurally modified by the action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> action) {
+		Objects.requireNonNull(action);
+		if (root == null) {
+			return;
+		}
+		int expectedModCount = modCount;
+		Path path = new Path();
+		for (Node n = path.first(root); n != null; n = path.successor()) {
+			LongLeafNode<V> e = (LongLeafNode<V>) n;
+			action.accept(e.key, e.value);
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	private LongLeafNode<V> getFirstEntry() {
+		return root == null ? null : getFirstEntry(root);
+	}
+
+	private LongLeafNode<V> getLastEntry() {
+		return root == null ? null : getLastEntry(root);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> LongLeafNode<V> getFirstEntry(Node startFrom) {
+		Node node = startFrom;
+		Node next = node.firstOrLeaf();
+		while (next != null) {
+			node = next;
+			next = node.firstOrLeaf();
+		}
+		return (LongLeafNode<V>) node;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> LongLeafNode<V> getLastEntry(Node startFrom) {
+		Node node = startFrom;
+		Node next = node.last();
+		while (next != null) {
+			node = next;
+			next = node.last();
+		}
+		return (LongLeafNode<V>) node;
+	}
+
+	// is compressed path equal/more/lesser (0, 1, -1) than key
+	private static int compareCompressedPath(InnerNode node, long key, int depth) {
+		for (int i = 0; i < node.prefixLen; i++) {
+			int c = Byte.toUnsignedInt(node.prefixKeys[i]) - Byte.toUnsignedInt(keyByte(key, depth + i));
+			if (c != 0) {
+				return c < 0 ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	// same as AdaptiveRadixTree#higherOrCeil, backtracking through the call stack
+	private LongLeafNode<V> getHigherOrCeilEntry(boolean higher, long key) {
+		return root == null ? null : higherOrCeil(root, 0, higher, key);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> LongLeafNode<V> higherOrCeil(Node node, int depth, boolean higher, long key) {
+		if (node instanceof LongLeafNode) {
+			LongLeafNode<V> leafNode = (LongLeafNode<V>) node;
+			int c = Long.compare(leafNode.key, key);
+			return c > 0 || (c == 0 && !higher) ? leafNode : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int compare = compareCompressedPath(innerNode, key, depth);
+		if (compare != 0) {
+			// all children are on one side of key
+			return compare > 0 ? getFirstEntry(innerNode) : null;
+		}
+		depth += innerNode.prefixLen;
+		byte partialKey = keyByte(key, depth);
+		Node child = innerNode.findChild(partialKey);
+		if (child != null) {
+			LongLeafNode<V> found = higherOrCeil(child, depth + 1, higher, key);
+			if (found != null) {
+				return found;
+			}
+		}
+		Node greater = innerNode.greater(partialKey);
+		return greater == null ? null : getFirstEntry(greater);
+	}
+
+	// same as AdaptiveRadixTree#lowerOrFloor, inner nodes don't have a leaf here
+	private LongLeafNode<V> getLowerOrFloorEntry(boolean lower, long key) {
+		return root == null ? null : lowerOrFloor(root, 0, lower, key);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> LongLeafNode<V> lowerOrFloor(Node node, int depth, boolean lower, long key) {
+		if (node instanceof LongLeafNode) {
+			LongLeafNode<V> leafNode = (LongLeafNode<V>) node;
+			int c = Long.compare(leafNode.key, key);
+			return c < 0 || (c == 0 && !lower) ? leafNode : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int compare = compareCompressedPath(innerNode, key, depth);
+		if (compare != 0) {
+			return compare < 0 ? getLastEntry(innerNode) : null;
+		}
+		depth += innerNode.prefixLen;
+		byte partialKey = keyByte(key, depth);
+		Node child = innerNode.findChild(partialKey);
+		if (child != null) {
+			LongLeafNode<V> found = lowerOrFloor(child, depth + 1, lower, key);
+			if (found != null) {
+				return found;
+			}
+		}
+		Node lesser = innerNode.lesser(partialKey);
+		return lesser == null ? null : getLastEntry(lesser);
+	}
+
+	private static long key(LongLeafNode<?> e) {
+		if (e == null)
+			throw new NoSuchElementException();
+		return e.key;
+	}
+
+	private static <V> Entry<V> exportEntry(LongLeafNode<V> e) {
+		return (e == null) ? null : new SimpleImmutableEntry<>(e.key, e.value);
+	}
+
+	static final class SimpleImmutableEntry<V> implements Entry<V> {
+		private final long key;
+		private final V value;
+
+		SimpleImmutableEntry(long key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public long getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?> e = (Entry<?>) o;
+			return key == e.getKey() && Objects.equals(value, e.getValue());
+		}
+
+		// same as Map.Entry#hashCode of a boxed key
+		@Override
+		public int hashCode() {
+			return Long.hashCode(key) ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.github.rohansuri.art;
+
+/*
+	leaf of LongArtMap.
+	the key is kept as a primitive, it's binary comparable bytes are extracted with shifts when needed.
+	hence no boxed key and no copy of the key bytes, unlike LeafNode.
+ */
+final class LongLeafNode<V> extends Node {
+	final long key;
+	V value;
+
+	LongLeafNode(long key, V value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	@Override
+	Node first() {
+		return null;
+	}
+
+	@Override
+	Node firstOrLeaf() {
+		return null;
+	}
+
+	@Override
+	Node last() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return key + "=" + value;
+	}
+}
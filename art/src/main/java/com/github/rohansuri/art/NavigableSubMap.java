@@ -32,7 +32,6 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 	 * is the exclusive bound. Similarly for the upper bound.
 	 */
 
-	final K lo, hi;
 	final byte[] loBytes, hiBytes;
 	final boolean fromStart, toEnd;
 	final boolean loInclusive, hiInclusive;
@@ -41,26 +40,44 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 			boolean fromStart, K lo, boolean loInclusive,
 			boolean toEnd, K hi, boolean hiInclusive) {
 		// equivalent to type check in TreeMap
-		this.loBytes = fromStart ? null : m.binaryComparable().get(lo);
-		this.hiBytes = toEnd ? null : m.binaryComparable().get(hi);
+		this(m, fromStart, fromStart ? null : m.binaryComparable().get(lo), loInclusive,
+				toEnd, toEnd ? null : m.binaryComparable().get(hi), hiInclusive);
+	}
+
+	// bounds already in their binary comparable form (of another submap or a prefix map)
+	NavigableSubMap(AdaptiveRadixTree<K, V> m,
+			boolean fromStart, byte[] loBytes, boolean loInclusive,
+			boolean toEnd, byte[] hiBytes, boolean hiInclusive) {
 		if (!fromStart && !toEnd) {
 			if (m.compare(loBytes, 0, loBytes.length, hiBytes, 0, hiBytes.length) > 0)
 				throw new IllegalArgumentException("fromKey > toKey");
 		}
 		this.m = m;
 		this.fromStart = fromStart;
-		this.lo = lo;
+		this.loBytes = loBytes;
 		this.loInclusive = loInclusive;
 		this.toEnd = toEnd;
-		this.hi = hi;
+		this.hiBytes = hiBytes;
 		this.hiInclusive = hiInclusive;
 	}
 
 	// internal utilities
+	// the K versions encode the key once and relay to the byte[] versions,
+	// where only the first keyLen bytes of key are the key's
 
 	final boolean tooLow(K key) {
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			return tooLow(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	final boolean tooLow(byte[] key, int keyLen) {
 		if (!fromStart) {
-			int c = m.compare(key, loBytes);
+			int c = AdaptiveRadixTree.compare(key, 0, keyLen, loBytes, 0, loBytes.length);
 			// if c == 0 and if lower bound is exclusive
 			// then this key is too low
 			// else it is not, since it is as low as our lower bound
@@ -72,8 +89,18 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 	}
 
 	final boolean tooHigh(K key) {
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			return tooHigh(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	final boolean tooHigh(byte[] key, int keyLen) {
 		if (!toEnd) {
-			int c = m.compare(key, hiBytes);
+			int c = AdaptiveRadixTree.compare(key, 0, keyLen, hiBytes, 0, hiBytes.length);
 			// if c == 0 and if upper bound is exclusive
 			// then this key is too higher
 			// else it is not, since it is as greater as our upper bound
@@ -84,16 +111,43 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 		return false;
 	}
 
+	// leaves already hold their key's bytes, no need to encode again
+	final boolean tooLow(LeafNode<K, V> e) {
+		return tooLow(e.getKeyBytes(), e.getKeyBytes().length);
+	}
+
+	final boolean tooHigh(LeafNode<K, V> e) {
+		return tooHigh(e.getKeyBytes(), e.getKeyBytes().length);
+	}
+
 	final boolean inRange(K key) {
-		return !tooLow(key) && !tooHigh(key);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			return inRange(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	final boolean inRange(byte[] key, int keyLen) {
+		return !tooLow(key, keyLen) && !tooHigh(key, keyLen);
 	}
 
 	final boolean inClosedRange(K key) {
-		// if we don't have any upper nor lower bounds, then all keys are always in range.
-		// if we have a lower bound, then this key ought to be higher than our lower bound (closed, hence including).
-		// if we have an upper bound, then this key ought to be lower than our upper bound (closed, hence including).
-		return (fromStart || m.compare(key, loBytes) >= 0)
-				&& (toEnd || m.compare(key, hiBytes) <= 0);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			byte[] bytes = keyBuffer.bytes;
+			int keyLen = keyBuffer.length;
+			// if we don't have any upper nor lower bounds, then all keys are always in range.
+			// if we have a lower bound, then this key ought to be higher than our lower bound (closed, hence including).
+			// if we have an upper bound, then this key ought to be lower than our upper bound (closed, hence including).
+			return (fromStart || AdaptiveRadixTree.compare(bytes, 0, keyLen, loBytes, 0, loBytes.length) >= 0)
+					&& (toEnd || AdaptiveRadixTree.compare(bytes, 0, keyLen, hiBytes, 0, hiBytes.length) <= 0);
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	final boolean inRange(K key, boolean inclusive) {
@@ -110,59 +164,83 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 	final LeafNode<K, V> absLowest() {
 		LeafNode<K, V> e =
 				(fromStart ? m.getFirstEntry() :
-						(loInclusive ? m.getCeilingEntry(loBytes) :
-								m.getHigherEntry(loBytes)));
-		return (e == null || tooHigh(e.getKey())) ? null : e;
+						(loInclusive ? m.getCeilingEntry(loBytes, loBytes.length) :
+								m.getHigherEntry(loBytes, loBytes.length)));
+		return (e == null || tooHigh(e)) ? null : e;
 	}
 
 	final LeafNode<K, V> absHighest() {
 		LeafNode<K, V> e =
 				(toEnd ? m.getLastEntry() :
-						(hiInclusive ? m.getFloorEntry(hiBytes) :
-								m.getLowerEntry(hiBytes)));
-		return (e == null || tooLow(e.getKey())) ? null : e;
+						(hiInclusive ? m.getFloorEntry(hiBytes, hiBytes.length) :
+								m.getLowerEntry(hiBytes, hiBytes.length)));
+		return (e == null || tooLow(e)) ? null : e;
 	}
 
 	final LeafNode<K, V> absCeiling(K key) {
-		if (tooLow(key))
-			return absLowest();
-		LeafNode<K, V> e = m.getCeilingEntry(key);
-		return (e == null || tooHigh(e.getKey())) ? null : e;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (tooLow(keyBuffer.bytes, keyBuffer.length))
+				return absLowest();
+			LeafNode<K, V> e = m.getCeilingEntry(keyBuffer.bytes, keyBuffer.length);
+			return (e == null || tooHigh(e)) ? null : e;
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	final LeafNode<K, V> absHigher(K key) {
-		if (tooLow(key))
-			return absLowest();
-		LeafNode<K, V> e = m.getHigherEntry(key);
-		return (e == null || tooHigh(e.getKey())) ? null : e;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (tooLow(keyBuffer.bytes, keyBuffer.length))
+				return absLowest();
+			LeafNode<K, V> e = m.getHigherEntry(keyBuffer.bytes, keyBuffer.length);
+			return (e == null || tooHigh(e)) ? null : e;
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	final LeafNode<K, V> absFloor(K key) {
-		if (tooHigh(key))
-			return absHighest();
-		LeafNode<K, V> e = m.getFloorEntry(key);
-		return (e == null || tooLow(e.getKey())) ? null : e;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (tooHigh(keyBuffer.bytes, keyBuffer.length))
+				return absHighest();
+			LeafNode<K, V> e = m.getFloorEntry(keyBuffer.bytes, keyBuffer.length);
+			return (e == null || tooLow(e)) ? null : e;
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	final LeafNode<K, V> absLower(K key) {
-		if (tooHigh(key))
-			return absHighest();
-		LeafNode<K, V> e = m.getLowerEntry(key);
-		return (e == null || tooLow(e.getKey())) ? null : e;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (tooHigh(keyBuffer.bytes, keyBuffer.length))
+				return absHighest();
+			LeafNode<K, V> e = m.getLowerEntry(keyBuffer.bytes, keyBuffer.length);
+			return (e == null || tooLow(e)) ? null : e;
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	/** Returns the absolute high fence for ascending traversal */
 	final LeafNode<K, V> absHighFence() {
 		return (toEnd ? null : (hiInclusive ?
-				m.getHigherEntry(hiBytes) :
-				m.getCeilingEntry(hiBytes))); // then hi itself (but we want the entry, hence traversal is required)
+				m.getHigherEntry(hiBytes, hiBytes.length) :
+				m.getCeilingEntry(hiBytes, hiBytes.length))); // then hi itself (but we want the entry, hence traversal is required)
 	}
 
 	/** Return the absolute low fence for descending traversal  */
 	final LeafNode<K, V> absLowFence() {
 		return (fromStart ? null : (loInclusive ?
-				m.getLowerEntry(loBytes) :
-				m.getFloorEntry(loBytes))); // then lo itself (but we want the entry, hence traversal is required)
+				m.getLowerEntry(loBytes, loBytes.length) :
+				m.getFloorEntry(loBytes, loBytes.length))); // then lo itself (but we want the entry, hence traversal is required)
 	}
 
 	// Abstract methods defined in ascending vs descending classes
@@ -203,26 +281,62 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 		return (fromStart && toEnd) ? m.size() : entrySet().size();
 	}
 
+	// the key is encoded once, for the range check as well as the lookup into the backing map
 	@Override
 	public final boolean containsKey(Object key) {
-		return inRange((K) key) && m.containsKey(key);
+		return getEntry(key) != null;
 	}
 
 	@Override
 	public final V put(K key, V value) {
-		if (!inRange(key))
-			throw new IllegalArgumentException("key out of range");
-		return m.put(key, value);
+		if (key == null)
+			throw new NullPointerException();
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (!inRange(keyBuffer.bytes, keyBuffer.length))
+				throw new IllegalArgumentException("key out of range");
+			return m.put(keyBuffer.bytes, keyBuffer.length, key, value);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	// unlinks the range's subtrees from the backing map, instead of removing keys one by one
+	@Override
+	public void clear() {
+		m.removeRange(fromStart ? null : loBytes, loInclusive, toEnd ? null : hiBytes, hiInclusive);
 	}
 
 	@Override
 	public final V get(Object key) {
-		return !inRange((K) key) ? null : m.get(key);
+		LeafNode<K, V> e = getEntry(key);
+		return e == null ? null : e.getValue();
 	}
 
 	@Override
 	public final V remove(Object key) {
-		return !inRange((K) key) ? null : m.remove(key);
+		LeafNode<K, V> e = getEntry(key);
+		if (e == null)
+			return null;
+		V oldValue = e.getValue();
+		m.deleteEntry(e);
+		return oldValue;
+	}
+
+	// null if key is out of range or not present in the backing map
+	final LeafNode<K, V> getEntry(Object key) {
+		if (key == null)
+			throw new NullPointerException();
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), (K) key);
+		try {
+			if (!inRange(keyBuffer.bytes, keyBuffer.length))
+				return null;
+			return m.getEntry(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
 	}
 
 	@Override
@@ -353,6 +467,10 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 		public int size() {
 			if (fromStart && toEnd)
 				return m.size();
+			// ranks of the bounds, without iterating
+			if (m.hasOrderStatistics())
+				return Math.max(0, (toEnd ? m.size() : m.rank(hiBytes, hiBytes.length, hiInclusive))
+						- (fromStart ? 0 : m.rank(loBytes, loBytes.length, !loInclusive)));
 			// if size == -1, it is the first time we're calculating the size
 			// if sizeModCount != m.getModCount(), the map has had modification operations
 			// so it's size must've changed, recalculate.
@@ -371,7 +489,7 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 		@Override
 		public boolean isEmpty() {
 			LeafNode<K, V> n = absLowest();
-			return n == null || tooHigh(n.getKey());
+			return n == null || tooHigh(n);
 		}
 
 		// efficient impl of contains than the default in AbstractSet
@@ -380,24 +498,23 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 			if (!(o instanceof Map.Entry))
 				return false;
 			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
-			Object key = entry.getKey();
-			if (!inRange((K) key))
-				return false;
-			LeafNode<?, ?> node = m.getEntry(key);
+			LeafNode<?, ?> node = getEntry(entry.getKey());
 			return node != null &&
 					AdaptiveRadixTree.valEquals(node.getValue(), entry.getValue());
 		}
 
+		@Override
+		public void clear() {
+			NavigableSubMap.this.clear();
+		}
+
 		// efficient impl of remove than the default in AbstractSet
 		@Override
 		public boolean remove(Object o) {
 			if (!(o instanceof Map.Entry))
 				return false;
 			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
-			Object key = entry.getKey();
-			if (!inRange((K) key))
-				return false;
-			LeafNode<K, V> node = m.getEntry(key);
+			LeafNode<K, V> node = getEntry(entry.getKey());
 			if (node != null && AdaptiveRadixTree.valEquals(node.getValue(),
 					entry.getValue())) {
 				m.deleteEntry(node);
@@ -416,12 +533,16 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 	 *  that understand the submap's upper and lower bound while iterating.
 	 *  Fence is one of the bounds depending on the kind of iterator (ascending, descending)
 	 *  and first becomes the other one to start from.
+	 *  Same as PrivateEntryIterator, moves on by the path to next.
 	 */
 	abstract class SubMapIterator<T> implements Iterator<T> {
 		LeafNode<K, V> lastReturned;
 		LeafNode<K, V> next;
 		final Object fenceKey;
 		int expectedModCount;
+		// leads to next, once positioned
+		private final Path path = new Path();
+		private boolean positioned;
 
 		SubMapIterator(LeafNode<K, V> first,
 				LeafNode<K, V> fence) {
@@ -436,28 +557,39 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 			return next != null && next.getKey() != fenceKey;
 		}
 
+		@SuppressWarnings("unchecked")
 		final LeafNode<K, V> nextEntry() {
 			LeafNode<K, V> e = next;
 			if (e == null || e.getKey() == fenceKey)
 				throw new NoSuchElementException();
 			if (m.getModCount() != expectedModCount)
 				throw new ConcurrentModificationException();
-			next = AdaptiveRadixTree.successor(e);
+			position(e);
+			next = (LeafNode<K, V>) path.successor();
 			lastReturned = e;
 			return e;
 		}
 
+		@SuppressWarnings("unchecked")
 		final LeafNode<K, V> prevEntry() {
 			LeafNode<K, V> e = next;
 			if (e == null || e.getKey() == fenceKey)
 				throw new NoSuchElementException();
 			if (m.getModCount() != expectedModCount)
 				throw new ConcurrentModificationException();
-			next = AdaptiveRadixTree.predecessor(e);
+			position(e);
+			next = (LeafNode<K, V>) path.predecessor();
 			lastReturned = e;
 			return e;
 		}
 
+		private void position(LeafNode<K, V> e) {
+			if (!positioned) {
+				path.seek(m.getRoot(), e.getKeyBytes(), e.getKeyBytes().length);
+				positioned = true;
+			}
+		}
+
 		@Override
 		public void remove() {
 			if (lastReturned == null)
@@ -468,6 +600,7 @@ abstract class NavigableSubMap<K, V> extends AbstractMap<K, V>
 			//	if (lastReturned.left != null && lastReturned.right != null)
 			//		next = lastReturned;
 			m.deleteEntry(lastReturned);
+			positioned = false;
 			lastReturned = null;
 			expectedModCount = m.getModCount();
 		}
@@ -15,44 +15,42 @@ abstract class Node {
 	 */
 	abstract Node last();
 
-	// for upwards traversal
-	// dev note: wherever you setup downlinks, you setup uplinks as well
-	private InnerNode parent;
+	/*
+		the node's type, for the hot paths (see InnerNode#findChildByKind) to switch on
+		instead of going through instanceof checks and virtual calls, which turn megamorphic
+		in trees mixing all node types.
+	 */
+	static final byte LEAF = 0; // LeafNode (LongLeafNode in a LongArtMap)
+	static final byte NODE4 = 1;
+	static final byte NODE16 = 2;
+	static final byte NODE48 = 3;
+	static final byte NODE256 = 4;
+
+	final byte kind;
+
+	/*
+		the partial key this node is linked with by it's parent, to move on to it's siblings.
+		nodes don't link up to their parents, going up is done by remembering the path down (see Path).
+		dev note: wherever you setup downlinks, you set the uplink key as well
+	 */
 	private byte partialKey;
 
-	Node(){}
-
-	// copy ctor. called when growing/shrinking
-	Node(Node node) {
-		this.partialKey = node.partialKey;
-		this.parent = node.parent;
-	}
-
-	// do we need partial key for leaf nodes? we'll find out
-	static void createUplink(InnerNode parent, LeafNode<?, ?> child) {
-		Node c = child;
-		c.parent = parent;
+	Node() {
+		this(LEAF);
 	}
 
-	static void createUplink(InnerNode parent, Node child, byte partialKey) {
-		child.parent = parent;
-		child.partialKey = partialKey;
+	Node(byte kind) {
+		this.kind = kind;
 	}
 
-	// called when growing/shrinking and all children now have a new parent
-	static void replaceUplink(InnerNode parent, Node child) {
-		child.parent = parent;
-	}
-
-	static void removeUplink(Node child) {
-		child.parent = null;
+	// copy ctor. called when growing/shrinking
+	Node(Node node, byte kind) {
+		this.kind = kind;
+		this.partialKey = node.partialKey;
 	}
 
-	/**
-	 * @return the parent of this node. Returns null for root node.
-	 */
-	public InnerNode parent() {
-		return parent;
+	static void createUplink(Node child, byte partialKey) {
+		child.partialKey = partialKey;
 	}
 
 	/**
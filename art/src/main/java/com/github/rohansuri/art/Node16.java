@@ -1,27 +1,46 @@
 package com.github.rohansuri.art;
 
-import java.util.Arrays;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 
 class Node16 extends InnerNode {
 	static final int NODE_SIZE = 16;
+
+	/*
+		the 16 partial keys are searched 8 at a time, as two longs (SWAR: simd within a register),
+		the way the paper compares all of them in one SSE instruction.
+		a search is then a handful of branch free arithmetic, instead of a loop over the keys.
+		the keys past noOfChildren are stale left overs, every search masks them out.
+
+		falls back to scalar loops where reading a long out of the byte array isn't a plain load,
+		or if disabled with -Dcom.github.rohansuri.art.node16.swar=false
+	 */
+	static final boolean SWAR = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+			&& Boolean.parseBoolean(System.getProperty("com.github.rohansuri.art.node16.swar", "true"));
+	// byte i of the array is byte i (from the least significant) of the long
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
 	private final byte[] keys = new byte[NODE_SIZE];
 
+	Node16() {
+		super(NODE16, NODE_SIZE);
+	}
+
 	Node16(Node4 node) {
-		super(node, NODE_SIZE);
+		super(node, NODE16, NODE_SIZE);
 		assert node.isFull();
 		byte[] keys = node.getKeys();
 		Node[] child = node.getChild();
 		System.arraycopy(keys, 0, this.keys, 0, node.noOfChildren);
 		System.arraycopy(child, 0, this.child, 0, node.noOfChildren);
-
-		// update up links
-		for (int i = 0; i < noOfChildren; i++) {
-			replaceUplink(this, this.child[i]);
-		}
 	}
 
 	Node16(Node48 node48) {
-		super(node48, NODE_SIZE);
+		super(node48, NODE16, NODE_SIZE);
 		assert node48.shouldShrink();
 		byte[] keyIndex = node48.getKeyIndex();
 		Node[] children = node48.getChild();
@@ -31,8 +50,7 @@ class Node16 extends InnerNode {
 		for (int i = 0, j = 0; i < Node48.KEY_INDEX_SIZE; i++) {
 			if (keyIndex[i] != Node48.ABSENT) {
 				child[j] = children[keyIndex[i]];
-				keys[j] = BinaryComparableUtils.unsigned(child[j].uplinkKey());
-				replaceUplink(this, child[j]);
+				keys[j] = BinaryComparableUtils.unsigned((byte) i);
 				j++;
 			}
 		}
@@ -40,25 +58,87 @@ class Node16 extends InnerNode {
 
 	@Override
 	public Node findChild(byte partialKey) {
-		// TODO: use simple loop to see if -XX:+SuperWord applies SIMD JVM instrinsics
-		partialKey = BinaryComparableUtils.unsigned(partialKey);
-		for(int i = 0; i < noOfChildren; i++){
-			if(keys[i] == partialKey){
-				return child[i];
+		return findChild(this, partialKey);
+	}
+
+	static Node findChild(Node16 node, byte partialKey) {
+		int index = indexOf(node.keys, node.noOfChildren, BinaryComparableUtils.unsigned(partialKey));
+		return index < 0 ? null : node.child[index];
+	}
+
+	// index of the (unsigned) partial key amongst the first n keys, -1 if absent
+	static int indexOf(byte[] keys, int n, byte unsignedPartialKey) {
+		if (!SWAR) {
+			for (int i = 0; i < n; i++) {
+				if (keys[i] == unsignedPartialKey) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		long broadcast = ONES * (unsignedPartialKey & 0xFF);
+		int index = firstZeroByte((long) LONGS.get(keys, 0) ^ broadcast);
+		if (index == Long.BYTES) {
+			index += firstZeroByte((long) LONGS.get(keys, Long.BYTES) ^ broadcast);
+		}
+		// partial keys are distinct, the first match past n means there's none before it
+		return index < n ? index : -1;
+	}
+
+	// index of the lowest zero byte, 8 if none
+	private static int firstZeroByte(long x) {
+		// a byte's high bit is set iff the byte isn't zero (adding the low bits doesn't carry into the next byte)
+		long nonZero = ((x & LOW_BITS) + LOW_BITS) | x;
+		return Long.numberOfTrailingZeros(~nonZero & HIGH_BITS) >>> 3;
+	}
+
+	/*
+		no of keys amongst the first n, lesser than (or equal to, if inclusive) the (unsigned) partial key.
+		since the keys are sorted, that's the index of the ceil (or greater) key
+		and one past the index of the lesser (or floor) key.
+	 */
+	static int countLesser(byte[] keys, int n, byte unsignedPartialKey, boolean inclusive) {
+		if (!SWAR) {
+			int i = 0;
+			while (i < n && (keys[i] < unsignedPartialKey || (inclusive && keys[i] == unsignedPartialKey))) {
+				i++;
 			}
+			return i;
 		}
-		return null;
+		// keys are stored with their sign bit flipped, flipping it back makes them compare as unsigned bytes
+		long broadcast = ONES * (BinaryComparableUtils.signed(unsignedPartialKey) & 0xFF);
+		long lo = (long) LONGS.get(keys, 0) ^ HIGH_BITS;
+		long hi = (long) LONGS.get(keys, Long.BYTES) ^ HIGH_BITS;
+		long loLesser = inclusive ? greaterOrEqual(broadcast, lo) : ~greaterOrEqual(lo, broadcast) & HIGH_BITS;
+		long hiLesser = inclusive ? greaterOrEqual(broadcast, hi) : ~greaterOrEqual(hi, broadcast) & HIGH_BITS;
+		return Long.bitCount(loLesser & firstBytes(n)) + Long.bitCount(hiLesser & firstBytes(n - Long.BYTES));
+	}
+
+	// high bit of every byte set iff a's byte is greater than or equal to b's (as unsigned bytes)
+	private static long greaterOrEqual(long a, long b) {
+		// per byte 0x80 + low 7 bits of a - low 7 bits of b, which never borrows from the next byte
+		// and has the high bit set iff a's low 7 bits are >= b's
+		long lowGreaterOrEqual = (a | HIGH_BITS) - (b & LOW_BITS);
+		// decided by the high bits if they differ, else by the low 7 bits
+		return ((a & ~b) | (~(a ^ b) & lowGreaterOrEqual)) & HIGH_BITS;
+	}
+
+	// mask of the lowest n bytes of a long
+	private static long firstBytes(int n) {
+		if (n <= 0) {
+			return 0;
+		}
+		return n >= Long.BYTES ? -1L : (1L << (n << 3)) - 1;
 	}
 
 	@Override
-	public void addChild(byte partialKey, Node child) {
+	public void addSharedChild(byte partialKey, Node child) {
 		assert !isFull();
 		byte unsignedPartialKey = BinaryComparableUtils.unsigned(partialKey);
 
-		int index = Arrays.binarySearch(keys, 0, noOfChildren, unsignedPartialKey);
 		// the partialKey should not exist
-		assert index < 0;
-		int insertionPoint = -(index + 1);
+		assert indexOf(keys, noOfChildren, unsignedPartialKey) < 0;
+		int insertionPoint = countLesser(keys, noOfChildren, unsignedPartialKey, false);
 		// shift elements from this point to right by one place
 		assert insertionPoint <= noOfChildren;
 		for (int i = noOfChildren; i > insertionPoint; i--) {
@@ -68,27 +148,25 @@ class Node16 extends InnerNode {
 		keys[insertionPoint] = unsignedPartialKey;
 		this.child[insertionPoint] = child;
 		noOfChildren++;
-		createUplink(this, child, partialKey);
 	}
 
 	@Override
 	public void replace(byte partialKey, Node newChild) {
 		byte unsignedPartialKey = BinaryComparableUtils.unsigned(partialKey);
-		int index = Arrays.binarySearch(keys, 0, noOfChildren, unsignedPartialKey);
+		int index = indexOf(keys, noOfChildren, unsignedPartialKey);
 		assert index >= 0;
 		child[index] = newChild;
-		createUplink(this, newChild, partialKey);
+		createUplink(newChild, partialKey);
 	}
 
 	@Override
 	public void removeChild(byte partialKey) {
 		assert !shouldShrink();
 		byte unsignedPartialKey = BinaryComparableUtils.unsigned(partialKey);
-		int index = Arrays.binarySearch(keys, 0, noOfChildren, unsignedPartialKey);
+		int index = indexOf(keys, noOfChildren, unsignedPartialKey);
 		// if this fails, the question is, how could you reach the leaf node?
 		// this node must've been your follow on pointer holding the partialKey
 		assert index >= 0;
-		removeUplink(child[index]);
 		for (int i = index; i < noOfChildren - 1; i++) {
 			keys[i] = keys[i + 1];
 			child[i] = child[i + 1];
@@ -128,46 +206,35 @@ class Node16 extends InnerNode {
 
 	@Override
 	public Node ceil(byte partialKey) {
-		partialKey = BinaryComparableUtils.unsigned(partialKey);
-		for (int i = 0; i < noOfChildren; i++) {
-			if (keys[i] >= partialKey) {
-				return child[i];
-			}
-		}
-		return null;
+		int i = countLesser(keys, noOfChildren, BinaryComparableUtils.unsigned(partialKey), false);
+		return i < noOfChildren ? child[i] : null;
 	}
 
 	@Override
 	public Node greater(byte partialKey) {
-		partialKey = BinaryComparableUtils.unsigned(partialKey);
-		for (int i = 0; i < noOfChildren; i++) {
-			if (keys[i] > partialKey) {
-				return child[i];
-			}
-		}
-		return null;
+		int i = countLesser(keys, noOfChildren, BinaryComparableUtils.unsigned(partialKey), true);
+		return i < noOfChildren ? child[i] : null;
 	}
 
 	@Override
 	public Node lesser(byte partialKey) {
-		partialKey = BinaryComparableUtils.unsigned(partialKey);
-		for (int i = noOfChildren - 1; i >= 0; i--) {
-			if (keys[i] < partialKey) {
-				return child[i];
-			}
+		int i = countLesser(keys, noOfChildren, BinaryComparableUtils.unsigned(partialKey), false) - 1;
+		return i >= 0 ? child[i] : null;
+	}
+
+	@Override
+	int copyChildren(byte[] partialKeys, Node[] children) {
+		for (int i = 0; i < noOfChildren; i++) {
+			partialKeys[i] = BinaryComparableUtils.signed(keys[i]);
+			children[i] = child[i];
 		}
-		return null;
+		return noOfChildren;
 	}
 
 	@Override
 	public Node floor(byte partialKey) {
-		partialKey = BinaryComparableUtils.unsigned(partialKey);
-		for (int i = noOfChildren - 1; i >= 0; i--) {
-			if (keys[i] <= partialKey) {
-				return child[i];
-			}
-		}
-		return null;
+		int i = countLesser(keys, noOfChildren, BinaryComparableUtils.unsigned(partialKey), true) - 1;
+		return i >= 0 ? child[i] : null;
 	}
 
 	@Override
@@ -178,4 +245,88 @@ class Node16 extends InnerNode {
 	byte[] getKeys() {
 		return keys;
 	}
+
+	// see Node4.Counted
+	static final class Counted extends Node16 {
+		private int leafCount;
+
+		Counted() {
+		}
+
+		Counted(Node4 node4) {
+			super(node4);
+			leafCount = node4.getLeafCount();
+		}
+
+		Counted(Node48 node48) {
+			super(node48);
+			leafCount = node48.getLeafCount();
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node48.Counted(this);
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node4.Counted(this);
+		}
+
+		@Override
+		int getLeafCount() {
+			return leafCount;
+		}
+
+		@Override
+		void setLeafCount(int leafCount) {
+			this.leafCount = leafCount;
+		}
+	}
+
+	// see Node4.Concurrent
+	static final class Concurrent extends Node16 implements OptimisticLock {
+		private static final VarHandle VERSION = OptimisticLock.version(MethodHandles.lookup());
+		private int version;
+
+		Concurrent() {
+		}
+
+		Concurrent(Node4 node4) {
+			super(node4);
+		}
+
+		Concurrent(Node48 node48) {
+			super(node48);
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node48.Concurrent(this);
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node4.Concurrent(this);
+		}
+
+		@Override
+		public int getVersion() {
+			return (int) VERSION.getAcquire(this);
+		}
+
+		@Override
+		public boolean compareAndSetVersion(int expected, int version) {
+			return VERSION.compareAndSet(this, expected, version);
+		}
+
+		@Override
+		public void setVersion(int version) {
+			VERSION.setRelease(this, version);
+		}
+	}
 }
@@ -1,14 +1,25 @@
 package com.github.rohansuri.art;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 class Node256 extends InnerNode {
 	static final int NODE_SIZE = 256;
 
+	// partial keys present, to answer ordered queries without scanning child
+	private final long[] present = KeyBitmap.create();
+
+	Node256() {
+		super(NODE256, NODE_SIZE);
+	}
+
 	Node256(Node48 node) {
-		super(node, NODE_SIZE);
+		super(node, NODE256, NODE_SIZE);
 		assert node.isFull();
 
 		byte[] keyIndex = node.getKeyIndex();
 		Node[] child = node.getChild();
+		System.arraycopy(node.getPresent(), 0, present, 0, KeyBitmap.WORDS);
 
 		for (int i = 0; i < Node48.KEY_INDEX_SIZE; i++) {
 			byte index = keyIndex[i];
@@ -19,28 +30,30 @@ class Node256 extends InnerNode {
 			// index is byte, but gets type promoted
 			// https://docs.oracle.com/javase/specs/jls/se7/html/jls-10.html#jls-10.4-120
 			this.child[i] = child[index];
-			// update up link
-			replaceUplink(this, this.child[i]);
 		}
 	}
 
 	@Override
 	public Node findChild(byte partialKey) {
+		return findChild(this, partialKey);
+	}
+
+	static Node findChild(Node256 node, byte partialKey) {
 		// We treat the 8 bits as unsigned int since we've got 256 slots
 		int index = Byte.toUnsignedInt(partialKey);
-		return child[index];
+		return node.child[index];
 	}
 
     @Override
-    public void addChild(byte partialKey, Node child) {
+    public void addSharedChild(byte partialKey, Node child) {
         // addChild would never be called on a full Node256
         // since the corresponding findChild for any byte key
         // would always find the byte since the Node is full.
         assert !isFull();
         int index = Byte.toUnsignedInt(partialKey);
         assert this.child[index] == null;
-        createUplink(this, child, partialKey);
         this.child[index] = child;
+        KeyBitmap.set(present, index);
         noOfChildren++;
     }
 
@@ -49,14 +62,14 @@ class Node256 extends InnerNode {
 		int index = Byte.toUnsignedInt(partialKey);
 		assert child[index] != null;
 		child[index] = newChild;
-		createUplink(this, newChild, partialKey);
+		createUplink(newChild, partialKey);
 	}
 
 	@Override
 	public void removeChild(byte partialKey) {
 		int index = Byte.toUnsignedInt(partialKey);
 		assert child[index] != null;
-		removeUplink(child[index]);
+		KeyBitmap.clear(present, index);
 		child[index] = null;
 		noOfChildren--;
 	}
@@ -80,61 +93,119 @@ class Node256 extends InnerNode {
 	@Override
 	public Node first() {
 		assert noOfChildren > Node48.NODE_SIZE;
-		int i = 0;
-		while(child[i] == null)i++;
-		return child[i];
+		return childAt(KeyBitmap.ceil(present, 0));
 	}
 
 	@Override
 	public Node last() {
 		assert noOfChildren > Node48.NODE_SIZE;
-		int i = NODE_SIZE - 1;
-		while(child[i] == null)i--;
-		return child[i];
+		return childAt(KeyBitmap.floor(present, NODE_SIZE - 1));
+	}
+
+	// child for the unsigned partial key, null for -1 (no such key)
+	private Node childAt(int key) {
+		return key < 0 ? null : child[key];
 	}
 
 	@Override
 	public Node ceil(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey); i < NODE_SIZE; i++) {
-			if (child[i] != null) {
-				return child[i];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.ceil(present, Byte.toUnsignedInt(partialKey)));
 	}
 
 	@Override
 	public Node greater(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey) + 1; i < NODE_SIZE; i++) {
-			if (child[i] != null) {
-				return child[i];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.ceil(present, Byte.toUnsignedInt(partialKey) + 1));
 	}
 
 	@Override
 	public Node lesser(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey) - 1; i >= 0; i--) {
-			if (child[i] != null) {
-				return child[i];
-			}
+		return childAt(KeyBitmap.floor(present, Byte.toUnsignedInt(partialKey) - 1));
+	}
+
+	@Override
+	int copyChildren(byte[] partialKeys, Node[] children) {
+		int n = 0;
+		for (int i = KeyBitmap.ceil(present, 0); i >= 0; i = KeyBitmap.ceil(present, i + 1)) {
+			partialKeys[n] = (byte) i;
+			children[n++] = child[i];
 		}
-		return null;
+		return n;
 	}
 
 	@Override
 	public Node floor(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey); i >= 0; i--) {
-			if (child[i] != null) {
-				return child[i];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.floor(present, Byte.toUnsignedInt(partialKey)));
 	}
 
 	@Override
 	public boolean isFull() {
 		return noOfChildren == NODE_SIZE;
 	}
+
+	long[] getPresent() {
+		return present;
+	}
+
+	// see Node4.Counted
+	static final class Counted extends Node256 {
+		private int leafCount;
+
+		Counted() {
+		}
+
+		Counted(Node48 node48) {
+			super(node48);
+			leafCount = node48.getLeafCount();
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node48.Counted(this);
+		}
+
+		@Override
+		int getLeafCount() {
+			return leafCount;
+		}
+
+		@Override
+		void setLeafCount(int leafCount) {
+			this.leafCount = leafCount;
+		}
+	}
+
+	// see Node4.Concurrent
+	static final class Concurrent extends Node256 implements OptimisticLock {
+		private static final VarHandle VERSION = OptimisticLock.version(MethodHandles.lookup());
+		private int version;
+
+		Concurrent() {
+		}
+
+		Concurrent(Node48 node48) {
+			super(node48);
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node48.Concurrent(this);
+		}
+
+		@Override
+		public int getVersion() {
+			return (int) VERSION.getAcquire(this);
+		}
+
+		@Override
+		public boolean compareAndSetVersion(int expected, int version) {
+			return VERSION.compareAndSet(this, expected, version);
+		}
+
+		@Override
+		public void setVersion(int version) {
+			VERSION.setRelease(this, version);
+		}
+	}
 }
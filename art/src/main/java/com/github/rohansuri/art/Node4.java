@@ -1,5 +1,8 @@
 package com.github.rohansuri.art;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 class Node4 extends InnerNode {
 
 	static final int NODE_SIZE = 4;
@@ -9,37 +12,36 @@ class Node4 extends InnerNode {
 	private final byte[] keys = new byte[NODE_SIZE];
 
 	Node4() {
-		super(NODE_SIZE);
+		super(NODE4, NODE_SIZE);
 	}
 
 	Node4(Node16 node16) {
-		super(node16, NODE_SIZE);
+		super(node16, NODE4, NODE_SIZE);
 		assert node16.shouldShrink();
 		byte[] keys = node16.getKeys();
 		Node[] child = node16.getChild();
 		System.arraycopy(keys, 0, this.keys, 0, node16.noOfChildren);
 		System.arraycopy(child, 0, this.child, 0, node16.noOfChildren);
-
-		// update up links
-		for (int i = 0; i < noOfChildren; i++) {
-			replaceUplink(this, this.child[i]);
-		}
 	}
 
 	@Override
 	public Node findChild(byte partialKey) {
+		return findChild(this, partialKey);
+	}
+
+	static Node findChild(Node4 node, byte partialKey) {
 		partialKey = BinaryComparableUtils.unsigned(partialKey);
 		// paper does simple loop over because it's a tiny array of size 4
-		for (int i = 0; i < noOfChildren; i++) {
-			if (keys[i] == partialKey) {
-				return child[i];
+		for (int i = 0; i < node.noOfChildren; i++) {
+			if (node.keys[i] == partialKey) {
+				return node.child[i];
 			}
 		}
 		return null;
 	}
 
 	@Override
-	public void addChild(byte partialKey, Node child) {
+	public void addSharedChild(byte partialKey, Node child) {
 		assert !isFull();
 		byte unsignedPartialKey = BinaryComparableUtils.unsigned(partialKey);
 		// shift elements from this point to right by one place
@@ -52,7 +54,6 @@ class Node4 extends InnerNode {
 		keys[i] = unsignedPartialKey;
 		this.child[i] = child;
 		noOfChildren++;
-		createUplink(this, child, partialKey);
 	}
 
 	@Override
@@ -68,7 +69,7 @@ class Node4 extends InnerNode {
 		// replace will be called from in a state where you know partialKey entry surely exists
 		assert index < noOfChildren : "Partial key does not exist";
 		child[index] = newChild;
-		createUplink(this, newChild, partialKey);
+		createUplink(newChild, partialKey);
 	}
 
 	@Override
@@ -83,7 +84,6 @@ class Node4 extends InnerNode {
 		// if this fails, the question is, how could you reach the leaf node?
 		// this node must've been your follow on pointer holding the partialKey
 		assert index < noOfChildren : "Partial key does not exist";
-		removeUplink(child[index]);
 		for (int i = index; i < noOfChildren - 1; i++) {
 			keys[i] = keys[i + 1];
 			child[i] = child[i + 1];
@@ -152,6 +152,15 @@ class Node4 extends InnerNode {
 		return null;
 	}
 
+	@Override
+	int copyChildren(byte[] partialKeys, Node[] children) {
+		for (int i = 0; i < noOfChildren; i++) {
+			partialKeys[i] = BinaryComparableUtils.signed(keys[i]);
+			children[i] = child[i];
+		}
+		return noOfChildren;
+	}
+
 	@Override
 	public Node floor(byte partialKey) {
 		partialKey = BinaryComparableUtils.unsigned(partialKey);
@@ -176,4 +185,69 @@ class Node4 extends InnerNode {
 		assert noOfChildren == 1;
 		return BinaryComparableUtils.signed(keys[0]);
 	}
+
+	// a Node4 keeping the no of leaves under it, the node type of trees keeping order statistics.
+	// growing and shrinking keeps to the counted types (and carries the count over).
+	static final class Counted extends Node4 {
+		private int leafCount;
+
+		Counted() {
+		}
+
+		Counted(Node16 node16) {
+			super(node16);
+			leafCount = node16.getLeafCount();
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node16.Counted(this);
+		}
+
+		@Override
+		int getLeafCount() {
+			return leafCount;
+		}
+
+		@Override
+		void setLeafCount(int leafCount) {
+			this.leafCount = leafCount;
+		}
+	}
+
+	// a Node4 with a version lock, the node type of ConcurrentAdaptiveRadixTree.
+	// growing and shrinking keeps to the concurrent types (a replaced node starts over with a new version).
+	static final class Concurrent extends Node4 implements OptimisticLock {
+		private static final VarHandle VERSION = OptimisticLock.version(MethodHandles.lookup());
+		private int version;
+
+		Concurrent() {
+		}
+
+		Concurrent(Node16 node16) {
+			super(node16);
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node16.Concurrent(this);
+		}
+
+		@Override
+		public int getVersion() {
+			return (int) VERSION.getAcquire(this);
+		}
+
+		@Override
+		public boolean compareAndSetVersion(int expected, int version) {
+			return VERSION.compareAndSet(this, expected, version);
+		}
+
+		@Override
+		public void setVersion(int version) {
+			VERSION.setRelease(this, version);
+		}
+	}
 }
@@ -1,5 +1,7 @@
 package com.github.rohansuri.art;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 
 class Node48 extends InnerNode {
@@ -19,8 +21,20 @@ class Node48 extends InnerNode {
 	// and you see a -1, you know there's no mapping for this key
 	static final byte ABSENT = -1;
 
+	// partial keys present, to answer ordered queries without scanning keyIndex
+	private final long[] present = KeyBitmap.create();
+
+	// bit i set iff child[i] is free, so that addChild takes the lowest free slot without scanning child
+	private static final long ALL_SLOTS_FREE = (1L << NODE_SIZE) - 1;
+	private long freeSlots = ALL_SLOTS_FREE;
+
+	Node48() {
+		super(NODE48, NODE_SIZE);
+		Arrays.fill(keyIndex, ABSENT);
+	}
+
 	Node48(Node16 node) {
-		super(node, NODE_SIZE);
+		super(node, NODE48, NODE_SIZE);
 		assert node.isFull();
 
 		Arrays.fill(keyIndex, ABSENT);
@@ -32,16 +46,17 @@ class Node48 extends InnerNode {
 			byte key = BinaryComparableUtils.signed(keys[i]);
 			int index = Byte.toUnsignedInt(key);
 			keyIndex[index] = (byte) i;
+			KeyBitmap.set(present, index);
 			this.child[i] = child[i];
-			// update up link
-			replaceUplink(this, this.child[i]);
 		}
+		freeSlots = ALL_SLOTS_FREE & -(1L << Node16.NODE_SIZE);
 	}
 
 	Node48(Node256 node256) {
-		super(node256, NODE_SIZE);
+		super(node256, NODE48, NODE_SIZE);
 		assert node256.shouldShrink();
 		Arrays.fill(keyIndex, ABSENT);
+		System.arraycopy(node256.getPresent(), 0, present, 0, KeyBitmap.WORDS);
 
 		Node[] children = node256.getChild();
 		byte j = 0;
@@ -49,37 +64,42 @@ class Node48 extends InnerNode {
 			if (children[i] != null) {
 				keyIndex[i] = j;
 				child[j] = children[i];
-				replaceUplink(this, child[j]);
 				j++;
 			}
 		}
 		assert j == NODE_SIZE;
+		freeSlots = 0;
 	}
 
 	@Override
 	public Node findChild(byte partialKey) {
-		byte index = keyIndex[Byte.toUnsignedInt(partialKey)];
+		return findChild(this, partialKey);
+	}
+
+	static Node findChild(Node48 node, byte partialKey) {
+		byte index = node.keyIndex[Byte.toUnsignedInt(partialKey)];
 		if (index == ABSENT) {
 			return null;
 		}
 
 		assert index >= 0 && index <= 47;
-		return child[index];
+		return node.child[index];
 	}
 
 	@Override
-	public void addChild(byte partialKey, Node child) {
+	public void addSharedChild(byte partialKey, Node child) {
 		assert !isFull();
 		int index = Byte.toUnsignedInt(partialKey);
 		assert keyIndex[index] == ABSENT;
-		// find a null place, left fragmented by a removeChild or has always been null
-		byte insertPosition = 0;
-		for (; this.child[insertPosition] != null && insertPosition < NODE_SIZE; insertPosition++) ;
+		// the lowest null place, left fragmented by a removeChild or has always been null
+		byte insertPosition = (byte) Long.numberOfTrailingZeros(freeSlots);
+		assert this.child[insertPosition] == null;
+		freeSlots &= freeSlots - 1;
 
 		this.child[insertPosition] = child;
 		keyIndex[index] = insertPosition;
+		KeyBitmap.set(present, index);
 		noOfChildren++;
-		createUplink(this, child, partialKey);
 	}
 
 	@Override
@@ -87,7 +107,7 @@ class Node48 extends InnerNode {
 		byte index = keyIndex[Byte.toUnsignedInt(partialKey)];
 		assert index >= 0 && index <= 47;
 		child[index] = newChild;
-		createUplink(this, newChild, partialKey);
+		createUplink(newChild, partialKey);
 	}
 
 	@Override
@@ -96,8 +116,9 @@ class Node48 extends InnerNode {
 		int index = Byte.toUnsignedInt(partialKey);
 		int pos = keyIndex[index];
 		assert pos != ABSENT;
-		removeUplink(child[pos]);
+		KeyBitmap.clear(present, index);
 		child[pos] = null; // fragment
+		freeSlots |= 1L << pos;
 		keyIndex[index] = ABSENT;
 		noOfChildren--;
 	}
@@ -122,17 +143,23 @@ class Node48 extends InnerNode {
 	@Override
 	public Node first() {
 		assert noOfChildren > Node16.NODE_SIZE;
-		int i = 0;
-		while(keyIndex[i] == ABSENT)i++;
-		return child[keyIndex[i]];
+		return childAt(KeyBitmap.ceil(present, 0));
 	}
 
 	@Override
 	public Node last() {
 		assert noOfChildren > Node16.NODE_SIZE;
-		int i = KEY_INDEX_SIZE - 1;
-        while(keyIndex[i] == ABSENT)i--;
-		return child[keyIndex[i]];
+		return childAt(KeyBitmap.floor(present, KEY_INDEX_SIZE - 1));
+	}
+
+	// child for the unsigned partial key, null for -1 (no such key)
+	private Node childAt(int key) {
+		if (key < 0) {
+			return null;
+		}
+		byte index = keyIndex[key];
+		// ABSENT only if racing with a writer
+		return index == ABSENT ? null : child[index];
 	}
 
 	@Override
@@ -142,46 +169,124 @@ class Node48 extends InnerNode {
 
 	@Override
 	public Node ceil(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey); i < KEY_INDEX_SIZE; i++) {
-			if (keyIndex[i] != ABSENT) {
-				return child[keyIndex[i]];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.ceil(present, Byte.toUnsignedInt(partialKey)));
 	}
 
 	@Override
 	public Node greater(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey) + 1; i < KEY_INDEX_SIZE; i++) {
-			if (keyIndex[i] != ABSENT) {
-				return child[keyIndex[i]];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.ceil(present, Byte.toUnsignedInt(partialKey) + 1));
 	}
 
 	@Override
 	public Node lesser(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey) - 1; i >= 0; i--) {
-			if (keyIndex[i] != ABSENT) {
-				return child[keyIndex[i]];
-			}
+		return childAt(KeyBitmap.floor(present, Byte.toUnsignedInt(partialKey) - 1));
+	}
+
+	@Override
+	int copyChildren(byte[] partialKeys, Node[] children) {
+		int n = 0;
+		for (int i = KeyBitmap.ceil(present, 0); i >= 0; i = KeyBitmap.ceil(present, i + 1)) {
+			partialKeys[n] = (byte) i;
+			children[n++] = child[keyIndex[i]];
 		}
-		return null;
+		return n;
 	}
 
 	@Override
 	public Node floor(byte partialKey) {
-		for (int i = Byte.toUnsignedInt(partialKey); i >= 0; i--) {
-			if (keyIndex[i] != ABSENT) {
-				return child[keyIndex[i]];
-			}
-		}
-		return null;
+		return childAt(KeyBitmap.floor(present, Byte.toUnsignedInt(partialKey)));
 	}
 
 
 	byte[] getKeyIndex() {
 		return keyIndex;
 	}
-}
\ No newline at end of file
+
+	long[] getPresent() {
+		return present;
+	}
+
+	// see Node4.Counted
+	static final class Counted extends Node48 {
+		private int leafCount;
+
+		Counted() {
+		}
+
+		Counted(Node16 node16) {
+			super(node16);
+			leafCount = node16.getLeafCount();
+		}
+
+		Counted(Node256 node256) {
+			super(node256);
+			leafCount = node256.getLeafCount();
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node256.Counted(this);
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node16.Counted(this);
+		}
+
+		@Override
+		int getLeafCount() {
+			return leafCount;
+		}
+
+		@Override
+		void setLeafCount(int leafCount) {
+			this.leafCount = leafCount;
+		}
+	}
+
+	// see Node4.Concurrent
+	static final class Concurrent extends Node48 implements OptimisticLock {
+		private static final VarHandle VERSION = OptimisticLock.version(MethodHandles.lookup());
+		private int version;
+
+		Concurrent() {
+		}
+
+		Concurrent(Node16 node16) {
+			super(node16);
+		}
+
+		Concurrent(Node256 node256) {
+			super(node256);
+		}
+
+		@Override
+		public InnerNode grow() {
+			assert isFull();
+			return new Node256.Concurrent(this);
+		}
+
+		@Override
+		public InnerNode shrink() {
+			assert shouldShrink();
+			return new Node16.Concurrent(this);
+		}
+
+		@Override
+		public int getVersion() {
+			return (int) VERSION.getAcquire(this);
+		}
+
+		@Override
+		public boolean compareAndSetVersion(int expected, int version) {
+			return VERSION.compareAndSet(this, expected, version);
+		}
+
+		@Override
+		public void setVersion(int version) {
+			VERSION.setRelease(this, version);
+		}
+	}
+}
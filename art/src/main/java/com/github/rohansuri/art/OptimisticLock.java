@@ -0,0 +1,86 @@
+package com.github.rohansuri.art;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+	version lock for optimistic lock coupling, see "The ART of Practical Synchronization" by Leis et al.
+	only the node types ConcurrentAdaptiveRadixTree creates (Node4.Concurrent and co.) carry the version,
+	the nodes of the other trees don't grow by the field.
+
+	layout: [counter (30 bits) | locked (1 bit) | obsolete (1 bit)]
+	every write unlock bumps the counter, so an unchanged version means no writer came by.
+ */
+interface OptimisticLock {
+
+	int LOCKED = 0b10;
+	int OBSOLETE = 0b01;
+	// returned by the lock methods when the caller needs to restart its traversal
+	int RESTART = -1;
+
+	// reads the version with acquire semantics
+	int getVersion();
+
+	boolean compareAndSetVersion(int expected, int version);
+
+	// writes the version with release semantics
+	void setVersion(int version);
+
+	/**
+	 * Waits for any writer to finish and returns the version to be validated later.
+	 * @return the current version or {@link #RESTART} if the node has been replaced
+	 */
+	default int readLockOrRestart() {
+		int v;
+		while (((v = getVersion()) & LOCKED) != 0) {
+			Thread.onSpinWait();
+		}
+		return (v & OBSOLETE) != 0 ? RESTART : v;
+	}
+
+	/**
+	 * Like {@link #readLockOrRestart()} but does not wait for a writer.
+	 * Used when the caller already holds write locks.
+	 */
+	default int tryReadLock() {
+		int v = getVersion();
+		return (v & (LOCKED | OBSOLETE)) != 0 ? RESTART : v;
+	}
+
+	/**
+	 * @return true if no writer modified this node since {@code version} was read.
+	 * All reads of this node's fields done before this call are then consistent.
+	 */
+	default boolean validate(int version) {
+		VarHandle.acquireFence();
+		return getVersion() == version;
+	}
+
+	/**
+	 * Atomically upgrades a read of {@code version} into a write lock.
+	 * @return false if the node changed since, in which case the caller should restart
+	 */
+	default boolean upgradeToWriteLock(int version) {
+		return compareAndSetVersion(version, version + LOCKED);
+	}
+
+	default void writeUnlock() {
+		// clears the lock bit and carries into the counter
+		setVersion(getVersion() + LOCKED);
+	}
+
+	// for nodes that got replaced (grow, shrink, path compression) while write locked
+	default void writeUnlockObsolete() {
+		setVersion(getVersion() + LOCKED + OBSOLETE);
+	}
+
+	// the handle on the int version field of the lookup's class
+	static VarHandle version(MethodHandles.Lookup lookup) {
+		try {
+			return lookup.findVarHandle(lookup.lookupClass(), "version", int.class);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package com.github.rohansuri.art;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+	builds an ART out of unsorted entries on a ForkJoinPool.
+
+	keys are encoded into leaves in parallel, after which the tree is built top down
+	as a most significant byte first radix sort of the leaves:
+	for a range of leaves (all sharing the bytes till depth) we find their longest common prefix,
+	which becomes the compressed path of the node, and partition (stable counting sort) them
+	by the byte right after it. every partition is a subtree of it's own, built independently
+	by a separate task, and then added as a child into the node (which sets up it's uplink).
+	since we know the number of partitions beforehand, every node is created once at it's final size.
+
+	large ranges are partitioned in parallel too (per chunk histograms, then per chunk scatter),
+	so that skewed or common prefixed keys don't leave the top levels single threaded.
+
+	a stable partitioning keeps duplicate keys in their input order,
+	hence the last one wins, same as a sequence of puts would have it.
+ */
+final class ParallelBuilder {
+	// ranges smaller than this are built by the same task
+	private static final int FORK_THRESHOLD = 1 << 12;
+	// ranges larger than this are partitioned in parallel, in chunks of this size
+	private static final int PARALLEL_PARTITION_CHUNK = 1 << 15;
+
+	// 0 for keys ending at the partitioning depth, 1 + unsigned byte otherwise
+	private static final int BUCKETS = 257;
+
+	private ParallelBuilder() {
+		throw new AssertionError();
+	}
+
+	static <K, V> AdaptiveRadixTree<K, V> build(Collection<? extends Map.Entry<? extends K, ? extends V>> entries,
+			BinaryComparable<K> binaryComparable, ForkJoinPool pool) {
+		Map.Entry<?, ?>[] in = entries.toArray(new Map.Entry<?, ?>[0]);
+		if (in.length == 0) {
+			return new AdaptiveRadixTree<>(binaryComparable);
+		}
+		LeafNode<?, ?>[] leaves = new LeafNode<?, ?>[in.length];
+		pool.invoke(new Encode<>(in, leaves, binaryComparable, 0, in.length));
+		Build build = new Build(leaves, new LeafNode<?, ?>[leaves.length], 0, leaves.length, 0);
+		Node root = pool.invoke(build);
+		return new AdaptiveRadixTree<>(binaryComparable, root, build.size);
+	}
+
+	private static final class Encode<K> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Map.Entry<?, ?>[] in;
+		private final LeafNode<?, ?>[] out;
+		private final BinaryComparable<K> binaryComparable;
+		private final int lo, hi;
+
+		Encode(Map.Entry<?, ?>[] in, LeafNode<?, ?>[] out, BinaryComparable<K> binaryComparable, int lo, int hi) {
+			this.in = in;
+			this.out = out;
+			this.binaryComparable = binaryComparable;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void compute() {
+			if (hi - lo > FORK_THRESHOLD) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Encode<>(in, out, binaryComparable, lo, mid),
+						new Encode<>(in, out, binaryComparable, mid, hi));
+				return;
+			}
+			for (int i = lo; i < hi; i++) {
+				K key = (K) Objects.requireNonNull(in[i].getKey());
+				out[i] = new LeafNode<>(binaryComparable.get(key), key, in[i].getValue());
+			}
+		}
+	}
+
+	private static int bucket(byte[] key, int depth) {
+		return depth == key.length ? 0 : 1 + Byte.toUnsignedInt(key[depth]);
+	}
+
+	// of the keys in src[lo, hi), starting from depth
+	private static int longestCommonPrefix(LeafNode<?, ?>[] src, int lo, int hi, int depth) {
+		byte[] first = src[lo].getKeyBytes();
+		int end = first.length;
+		for (int i = lo + 1; i < hi && end > depth; i++) {
+			byte[] key = src[i].getKeyBytes();
+			int to = Math.min(end, key.length);
+			int mismatch = Arrays.mismatch(first, depth, to, key, depth, to);
+			end = mismatch == -1 ? to : depth + mismatch;
+		}
+		return end - depth;
+	}
+
+	// stable partition of src[lo, hi) into dst[lo, hi) by the byte at depth, in the calling thread.
+	// fills in where every bucket starts in dst, start[BUCKETS] == hi. next is scratch space.
+	private static void partition(LeafNode<?, ?>[] src, LeafNode<?, ?>[] dst, int lo, int hi, int depth,
+			int[] start, int[] next) {
+		Arrays.fill(next, 0);
+		for (int i = lo; i < hi; i++) {
+			next[bucket(src[i].getKeyBytes(), depth)]++;
+		}
+		int pos = lo;
+		for (int b = 0; b < BUCKETS; b++) {
+			start[b] = pos;
+			pos += next[b];
+			next[b] = start[b];
+		}
+		start[BUCKETS] = pos;
+		for (int i = lo; i < hi; i++) {
+			dst[next[bucket(src[i].getKeyBytes(), depth)]++] = src[i];
+		}
+	}
+
+	private static int noOfChildren(int[] start) {
+		int noOfChildren = 0;
+		for (int b = 1; b < BUCKETS; b++) {
+			if (start[b + 1] > start[b]) {
+				noOfChildren++;
+			}
+		}
+		return noOfChildren;
+	}
+
+	// the node for a range partitioned at branchDepth, sized for it's children
+	private static InnerNode newNode(int noOfChildren, byte[] key, int depth, int branchDepth, LeafNode<?, ?> leaf) {
+		InnerNode node;
+		if (noOfChildren <= Node4.NODE_SIZE) {
+			node = new Node4();
+		}
+		else if (noOfChildren <= Node16.NODE_SIZE) {
+			node = new Node16();
+		}
+		else if (noOfChildren <= Node48.NODE_SIZE) {
+			node = new Node48();
+		}
+		else {
+			node = new Node256();
+		}
+		node.prefixLen = branchDepth - depth;
+		System.arraycopy(key, depth, node.prefixKeys, 0, Math
+				.min(node.prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+		if (leaf != null) {
+			node.setLeaf(leaf);
+		}
+		return node;
+	}
+
+	// builds the subtree for src[lo, hi), all of whose keys share the bytes till depth.
+	// dst[lo, hi) is scratch space, the two swap roles for the next level.
+	private static final class Build extends RecursiveTask<Node> {
+		private static final long serialVersionUID = 1L;
+
+		private final LeafNode<?, ?>[] src, dst;
+		private final int lo, hi, depth;
+		// no of distinct keys in the subtree
+		int size;
+
+		Build(LeafNode<?, ?>[] src, LeafNode<?, ?>[] dst, int lo, int hi, int depth) {
+			this.src = src;
+			this.dst = dst;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Node compute() {
+			if (hi - lo <= FORK_THRESHOLD) {
+				Sequential sequential = new Sequential();
+				Node node = sequential.build(src, dst, lo, hi, depth, 0);
+				size = sequential.size;
+				return node;
+			}
+			int branchDepth = depth + longestCommonPrefix(src, lo, hi, depth);
+			int[] start = partition(branchDepth);
+
+			// keys ending at branchDepth are all the same key, last one wins
+			LeafNode<?, ?> leaf = start[1] > start[0] ? dst[start[1] - 1] : null;
+			int noOfChildren = noOfChildren(start);
+			if (noOfChildren == 0) {
+				size = 1;
+				return leaf;
+			}
+			InnerNode node = newNode(noOfChildren, src[lo].getKeyBytes(), depth, branchDepth, leaf);
+			if (leaf != null) {
+				size = 1;
+			}
+
+			// large children are forked, small ones built right here sharing the same buffers
+			Build[] forked = new Build[noOfChildren];
+			for (int b = 1, i = 0; b < BUCKETS; b++) {
+				if (start[b + 1] - start[b] > FORK_THRESHOLD) {
+					forked[i] = new Build(dst, src, start[b], start[b + 1], branchDepth + 1);
+					forked[i].fork();
+					i++;
+				}
+			}
+			Sequential sequential = null;
+			for (int b = 1, i = 0; b < BUCKETS; b++) {
+				Node subtree;
+				if (start[b + 1] - start[b] > FORK_THRESHOLD) {
+					Build child = forked[i++];
+					subtree = child.join();
+					size += child.size;
+				}
+				else if (start[b + 1] > start[b]) {
+					if (sequential == null) {
+						sequential = new Sequential();
+					}
+					subtree = sequential.build(dst, src, start[b], start[b + 1], branchDepth + 1, 0);
+				}
+				else {
+					continue;
+				}
+				node.addChild((byte) (b - 1), subtree);
+			}
+			if (sequential != null) {
+				size += sequential.size;
+			}
+			return node;
+		}
+
+		// stable partition of src[lo, hi) into dst[lo, hi) by the byte at branchDepth.
+		// returns where every bucket starts in dst, start[BUCKETS] == hi.
+		private int[] partition(int branchDepth) {
+			int n = hi - lo;
+			int[] start = new int[BUCKETS + 1];
+			if (n <= 2 * PARALLEL_PARTITION_CHUNK) {
+				ParallelBuilder.partition(src, dst, lo, hi, branchDepth, start, new int[BUCKETS]);
+				return start;
+			}
+			int chunks = (n + PARALLEL_PARTITION_CHUNK - 1) / PARALLEL_PARTITION_CHUNK;
+			int[][] offsets = new int[chunks][BUCKETS];
+			Partition[] tasks = new Partition[chunks];
+			for (int c = 0; c < chunks; c++) {
+				int from = lo + (int) ((long) n * c / chunks);
+				int to = lo + (int) ((long) n * (c + 1) / chunks);
+				tasks[c] = new Partition(src, dst, from, to, branchDepth, offsets[c]);
+			}
+
+			// histograms
+			for (Partition t : tasks) {
+				t.counting = true;
+			}
+			invokeAll(tasks);
+
+			// histograms into offsets, bucket major so that chunks stay in order within a bucket
+			int pos = lo;
+			for (int b = 0; b < BUCKETS; b++) {
+				start[b] = pos;
+				for (int c = 0; c < chunks; c++) {
+					int count = offsets[c][b];
+					offsets[c][b] = pos;
+					pos += count;
+				}
+			}
+			start[BUCKETS] = pos;
+
+			// scatter
+			for (Partition t : tasks) {
+				t.counting = false;
+				t.reinitialize();
+			}
+			invokeAll(tasks);
+			return start;
+		}
+	}
+
+	/*
+		builds subtrees of ranges too small to be worth forking, in the calling thread.
+		same steps as Build, but recursing without a task per node, and reusing the partition buffers:
+		a level's bucket starts are needed only until it's children are built, hence one array per level.
+	 */
+	private static final class Sequential {
+		private int[][] starts = new int[8][];
+		private final int[] next = new int[BUCKETS];
+		// no of distinct keys built
+		int size;
+
+		Node build(LeafNode<?, ?>[] src, LeafNode<?, ?>[] dst, int lo, int hi, int depth, int level) {
+			if (hi - lo == 1) {
+				size++;
+				return src[lo];
+			}
+			int branchDepth = depth + longestCommonPrefix(src, lo, hi, depth);
+			if (level == starts.length) {
+				starts = Arrays.copyOf(starts, level << 1);
+			}
+			if (starts[level] == null) {
+				starts[level] = new int[BUCKETS + 1];
+			}
+			int[] start = starts[level];
+			partition(src, dst, lo, hi, branchDepth, start, next);
+
+			LeafNode<?, ?> leaf = start[1] > start[0] ? dst[start[1] - 1] : null;
+			int noOfChildren = noOfChildren(start);
+			if (noOfChildren == 0) {
+				size++;
+				return leaf;
+			}
+			InnerNode node = newNode(noOfChildren, src[lo].getKeyBytes(), depth, branchDepth, leaf);
+			if (leaf != null) {
+				size++;
+			}
+			for (int b = 1; b < BUCKETS; b++) {
+				if (start[b + 1] > start[b]) {
+					node.addChild((byte) (b - 1), build(dst, src, start[b], start[b + 1], branchDepth + 1, level + 1));
+				}
+			}
+			return node;
+		}
+	}
+
+	private static final class Partition extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final LeafNode<?, ?>[] src, dst;
+		private final int lo, hi, depth;
+		// counts per bucket, then turned into next write position per bucket
+		private final int[] offsets;
+		boolean counting;
+
+		Partition(LeafNode<?, ?>[] src, LeafNode<?, ?>[] dst, int lo, int hi, int depth, int[] offsets) {
+			this.src = src;
+			this.dst = dst;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+			this.offsets = offsets;
+		}
+
+		void count() {
+			for (int i = lo; i < hi; i++) {
+				offsets[bucket(src[i].getKeyBytes(), depth)]++;
+			}
+		}
+
+		void scatter() {
+			for (int i = lo; i < hi; i++) {
+				dst[offsets[bucket(src[i].getKeyBytes(), depth)]++] = src[i];
+			}
+		}
+
+		@Override
+		protected void compute() {
+			if (counting) {
+				count();
+			}
+			else {
+				scatter();
+			}
+		}
+	}
+}
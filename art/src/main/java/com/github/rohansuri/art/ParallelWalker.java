@@ -0,0 +1,133 @@
+package com.github.rohansuri.art;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+	visits every leaf of a tree, reducing what the visits return, on a ForkJoinPool.
+
+	the children of an inner node are separate subtrees, walked by tasks of their own
+	once a child is estimated to have at least parallelismThreshold leaves.
+	for trees keeping order statistics the estimate is the child's leaf count, else the
+	parent's estimate split evenly amongst it's children (starting with the tree's size at the root),
+	which is exact for the top levels of evenly spread keys and errs on the side of forking for skewed ones.
+	smaller subtrees are walked recursively by the task at hand, without going through successor().
+
+	results are reduced in key order (a node's leaf, then it's children left to right),
+	hence the reducer needs to be associative, but not commutative.
+	as for ConcurrentHashMap's bulk operations, a null visit result stands for no result
+	and the reducer is never applied to it.
+
+	with stopOnResult, the walk is a search: it's abandoned (by all tasks) once any visit returns
+	a non null result, which is then the walk's result.
+
+	the tree is only read, visits may set the values of leaves though (see replaceAll).
+	joining the tasks publishes what they wrote to the caller.
+ */
+final class ParallelWalker<U> {
+	private final long parallelismThreshold;
+	private final boolean counted;
+	private final Function<LeafNode<?, ?>, ? extends U> visit;
+	private final BiFunction<? super U, ? super U, ? extends U> reducer;
+	private final boolean stopOnResult;
+	private volatile U found;
+
+	ParallelWalker(long parallelismThreshold, boolean counted, Function<LeafNode<?, ?>, ? extends U> visit,
+			BiFunction<? super U, ? super U, ? extends U> reducer, boolean stopOnResult) {
+		this.parallelismThreshold = Math.max(1, parallelismThreshold);
+		this.counted = counted;
+		this.visit = visit;
+		this.reducer = reducer;
+		this.stopOnResult = stopOnResult;
+	}
+
+	// root can be null (an empty tree)
+	U walk(Node root, int size) {
+		if (root == null) {
+			return null;
+		}
+		if (size < parallelismThreshold) {
+			return walk(root, size, null);
+		}
+		return ForkJoinPool.commonPool().invoke(new Walk(root, size));
+	}
+
+	private final class Walk extends RecursiveTask<U> {
+		private static final long serialVersionUID = 1L;
+
+		private final Node node;
+		private final long estimate;
+
+		Walk(Node node, long estimate) {
+			this.node = node;
+			this.estimate = estimate;
+		}
+
+		@Override
+		protected U compute() {
+			return walk(node, estimate, this);
+		}
+	}
+
+	// task is null if not walking on the pool
+	private U walk(Node node, long estimate, Walk task) {
+		if (stopOnResult && found != null) {
+			return null;
+		}
+		if (node instanceof LeafNode) {
+			return visit((LeafNode<?, ?>) node);
+		}
+		InnerNode innerNode = (InnerNode) node;
+		U result = innerNode.hasLeaf() ? visit(innerNode.getLeaf()) : null;
+		long childEstimate = estimate / Math.max(1, innerNode.size());
+		if (task != null && (counted || childEstimate >= parallelismThreshold)) {
+			return reduce(result, fork(innerNode, childEstimate));
+		}
+		for (Node child = innerNode.first(); child != null; child = innerNode.greater(child.uplinkKey())) {
+			result = reduce(result, walk(child, childEstimate, null));
+		}
+		return result;
+	}
+
+	// forks the large children, walks the rest in this task, then joins in key order
+	@SuppressWarnings("unchecked")
+	private U fork(InnerNode innerNode, long childEstimate) {
+		Walk[] forked = (Walk[]) new ParallelWalker<?>.Walk[innerNode.size()];
+		Object[] walked = new Object[innerNode.size()];
+		int n = 0;
+		for (Node child = innerNode.first(); child != null; child = innerNode.greater(child.uplinkKey()), n++) {
+			long estimate = counted ? AdaptiveRadixTree.count(child) : childEstimate;
+			if (estimate >= parallelismThreshold) {
+				forked[n] = (Walk) new Walk(child, estimate).fork();
+			}
+			else {
+				walked[n] = walk(child, estimate, null);
+			}
+		}
+		U result = null;
+		for (int i = 0; i < n; i++) {
+			result = reduce(result, forked[i] != null ? forked[i].join() : (U) walked[i]);
+		}
+		return result;
+	}
+
+	private U visit(LeafNode<?, ?> leaf) {
+		U result = visit.apply(leaf);
+		if (stopOnResult && result != null && found == null) {
+			found = result;
+		}
+		return result;
+	}
+
+	private U reduce(U a, U b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return reducer.apply(a, b);
+	}
+}
@@ -0,0 +1,284 @@
+package com.github.rohansuri.art;
+
+import java.util.Arrays;
+
+/*
+	the path from the root down to a leaf, as a stack of the inner nodes on the way and the child taken at each.
+	nodes don't link up to their parents, hence this is how iterators, cursors and removals find their way back up:
+	to the next or previous leaf, or to the node a leaf is to be unlinked from.
+
+	a path stays valid only as long as the tree isn't structurally modified, growing or shrinking replaces
+	the node on it and removals path compress nodes away. holders of a path (see PrivateEntryIterator)
+	seek again to the leaf they're at after such a modification.
+
+	positions are the (unsigned) partial keys of the children taken, or LEAF for the leaf an inner node stores,
+	so that moving on to a sibling is a greater/lesser call on the node, without looking at the child.
+	the leaf methods return the leaf (a LeafNode, or a LongLeafNode in a LongArtMap) reached, null if none.
+ */
+final class Path {
+	// position of the leaf stored in an inner node
+	static final int LEAF = -1;
+
+	private InnerNode[] nodes = new InnerNode[16];
+	private int[] positions = new int[16];
+	private int top = -1;
+
+	void clear() {
+		top = -1;
+	}
+
+	// no of inner nodes on the path
+	int depth() {
+		return top + 1;
+	}
+
+	// the inner node at the given depth, 0 being the root
+	InnerNode node(int depth) {
+		return nodes[depth];
+	}
+
+	// the node the leaf reached is stored in, null if the leaf is the root
+	InnerNode parent() {
+		return top < 0 ? null : nodes[top];
+	}
+
+	// the node parent() is a child of, null if none
+	InnerNode grandParent() {
+		return top < 1 ? null : nodes[top - 1];
+	}
+
+	void push(InnerNode node, int position) {
+		if (++top == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length << 1);
+			positions = Arrays.copyOf(positions, positions.length << 1);
+		}
+		nodes[top] = node;
+		positions[top] = position;
+	}
+
+	static int position(Node child) {
+		return Byte.toUnsignedInt(child.uplinkKey());
+	}
+
+	// leftmost traversal from node, always finds a leaf
+	Node first(Node node) {
+		while (node.kind != Node.LEAF) {
+			InnerNode innerNode = (InnerNode) node;
+			if (innerNode.hasLeaf()) {
+				push(innerNode, LEAF);
+				node = innerNode.getLeaf();
+			}
+			else {
+				node = innerNode.first();
+				push(innerNode, position(node));
+			}
+		}
+		return node;
+	}
+
+	// rightmost traversal from node, always finds a leaf
+	Node last(Node node) {
+		while (node.kind != Node.LEAF) {
+			InnerNode innerNode = (InnerNode) node;
+			node = innerNode.last();
+			push(innerNode, position(node));
+		}
+		return node;
+	}
+
+	// first leaf after the subtree at the top of the stack's position
+	Node successor() {
+		for (; top >= 0; top--) {
+			InnerNode node = nodes[top];
+			int position = positions[top];
+			Node next = position == LEAF ? node.first() : node.greater((byte) position);
+			if (next != null) {
+				positions[top] = position(next);
+				return first(next);
+			}
+		}
+		return null;
+	}
+
+	// last leaf before the subtree at the top of the stack's position
+	Node predecessor() {
+		for (; top >= 0; top--) {
+			InnerNode node = nodes[top];
+			int position = positions[top];
+			if (position == LEAF) {
+				continue;
+			}
+			Node previous = node.lesser((byte) position);
+			if (previous != null) {
+				positions[top] = position(previous);
+				return last(previous);
+			}
+			if (node.hasLeaf()) {
+				positions[top] = LEAF;
+				return node.getLeaf();
+			}
+		}
+		return null;
+	}
+
+	/*
+		same as AdaptiveRadixTree#getEntry, but remembering the path taken.
+		on a miss the path is of no use.
+	 */
+	Node seek(Node root, byte[] key, int keyLen) {
+		clear();
+		Node node = root;
+		int depth = 0;
+		boolean skippedPrefix = false;
+		while (true) {
+			if (node.kind == Node.LEAF) {
+				byte[] leafBytes = ((LeafNode<?, ?>) node).getKeyBytes();
+				int startFrom = skippedPrefix ? 0 : depth;
+				return Arrays.equals(leafBytes, startFrom, leafBytes.length, key, startFrom, keyLen) ? node : null;
+			}
+			InnerNode innerNode = (InnerNode) node;
+			if (keyLen < depth + innerNode.prefixLen) {
+				return null;
+			}
+			if (innerNode.prefixLen <= InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT) {
+				for (int i = 0; i < innerNode.prefixLen; i++) {
+					if (innerNode.prefixKeys[i] != key[depth + i])
+						return null;
+				}
+			}
+			else {
+				skippedPrefix = true;
+			}
+			depth += innerNode.prefixLen;
+			if (depth == keyLen) {
+				push(innerNode, LEAF);
+				node = innerNode.getLeaf();
+			}
+			else {
+				push(innerNode, Byte.toUnsignedInt(key[depth]));
+				node = InnerNode.findChildByKind(innerNode, key[depth]);
+				depth++;
+			}
+			if (node == null) {
+				return null;
+			}
+		}
+	}
+
+	/*
+		On level X match compressed path of "this" node
+		if matches, then take follow on pointer and continue matching
+		if doesn't, see if compressed path greater/smaller than key
+			if greater, return the first node of the this level i.e. call first on this node and return.
+			if lesser, go one level up (popping the stack)
+			and find the next partialKey greater than the one taken on level X-1.
+			if you got one, simply take the first child nodes at each down level and return
+			 the leaf (left most traversal)
+			if not, then we got to go on level X-2 and find the next greater
+			and keep going level ups until we either find a next greater partialKey
+			or the stack is empty (and hence search ends).
+
+		What if all compressed paths matched, then when taking the next follow on pointer,
+		we reach a leafNode? or a null?
+		if leafNode then it means, uptil now the leafNode has the same prefix as the provided key.
+			if leafNode >= given key, then return leafNode
+			if leafNode < given key, then go up a level and find next
+			greater partialKey than the one taken on level leaf-1.
+		if you reach a null, then it means key doesn't exist,
+			but before taking this previous partialKey, the entire path did exist.
+			Hence we find the next higher partialKey than which we took for null, on the same level.
+
+		so it seems the upwards traversal is same in all cases, that of successor().
+	 */
+	Node seekHigherOrCeil(Node root, boolean ceil, byte[] key, int keyLen) {
+		clear();
+		Node node = root;
+		int depth = 0;
+		while (true) {
+			if (node.kind == Node.LEAF) {
+				byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+				if (AdaptiveRadixTree.compare(key, depth, keyLen, leafKey, depth, leafKey.length) < (ceil ? 1 : 0)) {
+					return node;
+				}
+				return successor();
+			}
+			InnerNode innerNode = (InnerNode) node;
+			int compare = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+			if (compare > 0) { // greater
+				return first(innerNode);
+			}
+			else if (compare < 0) { // lesser, that means all children of this node will be lesser than key
+				return successor();
+			}
+
+			depth += innerNode.prefixLen;
+			if (depth == keyLen) {
+				// if ceil is true, then we are allowed to return the prefix ending here (leaf of this node)
+				// if ceil is false, then we need something higher and not the prefix
+				if (ceil) {
+					return first(innerNode);
+				}
+				Node first = innerNode.first();
+				push(innerNode, position(first));
+				return first(first);
+			}
+			Node child = innerNode.ceil(key[depth]);
+			if (child == null) { // on this level, no child is greater or equal
+				return successor();
+			}
+			push(innerNode, position(child));
+			if (child.uplinkKey() != key[depth]) { // ceil returned a greater child
+				return first(child);
+			}
+			depth++;
+			node = child;
+		}
+	}
+
+	// the mirror image of seekHigherOrCeil
+	Node seekLowerOrFloor(Node root, boolean lower, byte[] key, int keyLen) {
+		clear();
+		Node node = root;
+		int depth = 0;
+		while (true) {
+			if (node.kind == Node.LEAF) {
+				byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+				if (AdaptiveRadixTree.compare(key, depth, keyLen, leafKey, depth, leafKey.length) >= (lower ? 1 : 0)) {
+					return node;
+				}
+				return predecessor();
+			}
+			InnerNode innerNode = (InnerNode) node;
+			int compare = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+			if (compare < 0) { // lesser
+				return last(innerNode);
+			}
+			else if (compare > 0) { // greater, that means all children of this node will be greater than key
+				return predecessor();
+			}
+
+			depth += innerNode.prefixLen;
+			if (depth == keyLen) {
+				if (!lower && innerNode.hasLeaf()) {
+					push(innerNode, LEAF);
+					return innerNode.getLeaf();
+				}
+				return predecessor();
+			}
+			Node child = innerNode.floor(key[depth]);
+			if (child == null) {
+				if (innerNode.hasLeaf()) {
+					push(innerNode, LEAF);
+					return innerNode.getLeaf();
+				}
+				return predecessor();
+			}
+			push(innerNode, position(child));
+			if (child.uplinkKey() != key[depth]) {
+				return last(child);
+			}
+			depth++;
+			node = child;
+		}
+	}
+}
@@ -0,0 +1,603 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable (persistent) Adaptive Radix tree. Every version of the tree is a value:
+ * {@code put} and {@code remove} leave this tree as is and return a new version
+ * having the change, which shares all of its nodes with this version
+ * except the ones on the path to the key changed. These are copied (path copying),
+ * hence an update costs O(k) time and space, k being the length of the key.
+ *
+ * <p>Keeping an old version around is a snapshot of the map that costs nothing to take.
+ * Versions are safe to be read from any number of threads without synchronization,
+ * a writer can publish new versions (for example through a volatile field or an
+ * {@link java.util.concurrent.atomic.AtomicReference}) while readers keep going
+ * lock-free on the version they started with.
+ *
+ * <p>Since a node can be part of any number of versions, it has no one parent.
+ * Updates descend recursively, copying the path on the way back up,
+ * and iteration keeps an explicit stack of the nodes left to visit.
+ *
+ * <p>Note that null keys are not permitted. All {@code Map.Entry} pairs returned
+ * do <strong>not</strong> support the {@code Entry.setValue} method.
+ *
+ * @param <K> the type of keys maintained by this tree
+ * @param <V> the type of mapped values
+ * @see AdaptiveRadixTree
+ */
+public final class PersistentAdaptiveRadixTree<K, V> implements Iterable<Map.Entry<K, V>> {
+	private final BinaryComparable<K> binaryComparable;
+	private final Node root;
+	private final int size;
+	private NavigableMap<K, V> map;
+
+	private PersistentAdaptiveRadixTree(BinaryComparable<K> binaryComparable, Node root, int size) {
+		this.binaryComparable = binaryComparable;
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * @param binaryComparable to encode the keys with
+	 * @return an empty tree
+	 */
+	public static <K, V> PersistentAdaptiveRadixTree<K, V> empty(BinaryComparable<K> binaryComparable) {
+		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
+		return new PersistentAdaptiveRadixTree<>(binaryComparable, null, 0);
+	}
+
+	Node getRoot() {
+		return root;
+	}
+
+	public BinaryComparable<K> binaryComparable() {
+		return binaryComparable;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public V get(Object key) {
+		LeafNode<K, V> leaf = getEntry(key);
+		return leaf == null ? null : leaf.getValue();
+	}
+
+	/**
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public boolean containsKey(Object key) {
+		return getEntry(key) != null;
+	}
+
+	private LeafNode<K, V> getEntry(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		if (root == null) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) key;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			return AdaptiveRadixTree.getEntry(root, keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/*
+		lookups by binary comparable key, for SnapshotMap.
+		the relational ones descend recursively and back out to a neighbouring child
+		(found from the key's partial key, not the child's uplink) if there's nothing in the one on the key's path.
+	 */
+
+	@SuppressWarnings("unchecked")
+	byte[] keyBytes(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		return binaryComparable.get((K) key);
+	}
+
+	LeafNode<K, V> getEntry(byte[] key) {
+		return root == null ? null : AdaptiveRadixTree.getEntry(root, key, key.length);
+	}
+
+	LeafNode<K, V> findFirst() {
+		return root == null ? null : AdaptiveRadixTree.getFirstEntry(root);
+	}
+
+	LeafNode<K, V> findLast() {
+		return root == null ? null : AdaptiveRadixTree.getLastEntry(root);
+	}
+
+	@SuppressWarnings("unchecked")
+	LeafNode<K, V> findCeiling(byte[] key, boolean inclusive) {
+		return root == null ? null : (LeafNode<K, V>) ceiling(root, 0, key, inclusive);
+	}
+
+	@SuppressWarnings("unchecked")
+	LeafNode<K, V> findFloor(byte[] key, boolean inclusive) {
+		return root == null ? null : (LeafNode<K, V>) floor(root, 0, key, inclusive);
+	}
+
+	// the least leaf greater than (or equal to) key in the subtree whose path starts at depth
+	private static LeafNode<?, ?> ceiling(Node node, int depth, byte[] key, boolean inclusive) {
+		if (node instanceof LeafNode) {
+			LeafNode<?, ?> leaf = (LeafNode<?, ?>) node;
+			int c = AdaptiveRadixTree.compare(leaf.getKeyBytes(), 0, leaf.getKeyBytes().length, key, 0, key.length);
+			return c > 0 || (c == 0 && inclusive) ? leaf : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int c = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, key, key.length, depth);
+		if (c != 0 || depth + innerNode.prefixLen > key.length) {
+			// all of the subtree is on one side of key (key being a prefix of the path, it's on the greater side)
+			return c < 0 ? null : AdaptiveRadixTree.getFirstEntry(innerNode);
+		}
+		depth += innerNode.prefixLen;
+		if (depth == key.length) {
+			// the leaf (if any) is key, the children are greater
+			if (inclusive || !innerNode.hasLeaf()) {
+				return AdaptiveRadixTree.getFirstEntry(innerNode);
+			}
+			Node first = innerNode.first();
+			return first == null ? null : AdaptiveRadixTree.getFirstEntry(first);
+		}
+		Node child = innerNode.findChild(key[depth]);
+		if (child != null) {
+			LeafNode<?, ?> leaf = ceiling(child, depth + 1, key, inclusive);
+			if (leaf != null) {
+				return leaf;
+			}
+		}
+		Node greater = innerNode.greater(key[depth]);
+		return greater == null ? null : AdaptiveRadixTree.getFirstEntry(greater);
+	}
+
+	// the greatest leaf lesser than (or equal to) key in the subtree whose path starts at depth
+	private static LeafNode<?, ?> floor(Node node, int depth, byte[] key, boolean inclusive) {
+		if (node instanceof LeafNode) {
+			LeafNode<?, ?> leaf = (LeafNode<?, ?>) node;
+			int c = AdaptiveRadixTree.compare(leaf.getKeyBytes(), 0, leaf.getKeyBytes().length, key, 0, key.length);
+			return c < 0 || (c == 0 && inclusive) ? leaf : null;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		int c = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, key, key.length, depth);
+		if (c != 0 || depth + innerNode.prefixLen > key.length) {
+			return c < 0 ? AdaptiveRadixTree.getLastEntry(innerNode) : null;
+		}
+		depth += innerNode.prefixLen;
+		if (depth == key.length) {
+			return inclusive ? innerNode.getLeaf() : null;
+		}
+		Node child = innerNode.findChild(key[depth]);
+		if (child != null) {
+			LeafNode<?, ?> leaf = floor(child, depth + 1, key, inclusive);
+			if (leaf != null) {
+				return leaf;
+			}
+		}
+		Node lesser = innerNode.lesser(key[depth]);
+		return lesser == null ? innerNode.getLeaf() : AdaptiveRadixTree.getLastEntry(lesser);
+	}
+
+	/**
+	 * @return a version of this tree having key mapped to value, this tree is left unchanged
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public PersistentAdaptiveRadixTree<K, V> put(K key, V value) {
+		return putUpdate(key, value).version;
+	}
+
+	// put, with the leaf replaced (if any) in the returned update's replaced
+	Update<K, V> putUpdate(K key, V value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			Update<K, V> update = new Update<>(keyBuffer.bytes, keyBuffer.length);
+			update.newLeaf = new LeafNode<>(keyBuffer.bytes, keyBuffer.length, key, value);
+			Node newRoot = root == null ? update.newLeaf : update.put(root, 0);
+			update.version = new PersistentAdaptiveRadixTree<>(binaryComparable, newRoot,
+					update.replaced == null ? size + 1 : size);
+			return update;
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * @return a version of this tree not having key, this tree if it doesn't have it either
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public PersistentAdaptiveRadixTree<K, V> remove(Object key) {
+		return removeUpdate(key).version;
+	}
+
+	// remove, with the leaf removed (if any) in the returned update's replaced
+	Update<K, V> removeUpdate(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) key;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			Update<K, V> update = new Update<>(keyBuffer.bytes, keyBuffer.length);
+			Node newRoot = root == null ? null : update.remove(root, 0);
+			update.version = update.replaced == null ? this :
+					new PersistentAdaptiveRadixTree<>(binaryComparable, newRoot, size - 1);
+			return update;
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * @return an iterator over the entries in ascending order of keys
+	 */
+	@Override
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new EntryIterator<>(root);
+	}
+
+	/**
+	 * @return an unmodifiable {@link NavigableMap} view of this version
+	 */
+	public NavigableMap<K, V> asMap() {
+		NavigableMap<K, V> m = map;
+		return m != null ? m : (map = new SnapshotMap<>(this, null, false, null, false, false));
+	}
+
+	/**
+	 * Reports the differences between this version and another in ascending order of keys,
+	 * the same way as {@link AdaptiveRadixTree#diff(AdaptiveRadixTree, DiffListener)}.
+	 * The subtrees both versions share are skipped without being looked at,
+	 * hence diffing two versions derived from one another costs close to the size of the difference.
+	 *
+	 * @param other version to compare with
+	 * @param listener to receive the differences
+	 * @throws NullPointerException if other or listener is null
+	 */
+	public void diff(PersistentAdaptiveRadixTree<K, V> other, DiffListener<K, V> listener) {
+		Objects.requireNonNull(other);
+		Objects.requireNonNull(listener);
+		// leaves are shared between versions, hand out immutable copies of them
+		new TreeDiffer(new DiffListener<Object, Object>() {
+			@Override
+			public void added(Map.Entry<Object, Object> entry) {
+				listener.added(export(entry));
+			}
+
+			@Override
+			public void removed(Map.Entry<Object, Object> entry) {
+				listener.removed(export(entry));
+			}
+
+			@Override
+			public void changed(Map.Entry<Object, Object> entry, Map.Entry<Object, Object> otherEntry) {
+				listener.changed(export(entry), export(otherEntry));
+			}
+		}, false).diff(root, other.root);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map.Entry<K, V> export(Map.Entry<Object, Object> e) {
+		return AdaptiveRadixTree.exportEntry((Map.Entry<K, V>) (Map.Entry<?, ?>) e);
+	}
+
+	@Override
+	public String toString() {
+		return asMap().toString();
+	}
+
+	/*
+		a put or remove of one key. descends recursively and returns the new node for every node on the path,
+		the nodes passed in are never changed, not even the uplink keys of the children the new nodes share
+		with older versions (they're added with addSharedChild). such a child can be added under a different
+		key byte than before (see expand and the collapse of a single child on remove), and writing it's uplink
+		would race with readers of the older versions. hence uplinkKey() can't be trusted on the nodes of
+		a persistent tree, nothing here relies on it (children are copied out, see copyChildren).
+	 */
+	static final class Update<K, V> {
+		// the key's bytes are only valid during the update
+		private final byte[] key;
+		private final int keyLen;
+		// leaf to be put
+		LeafNode<K, V> newLeaf;
+		// leaf replaced by the put or removed, null if none
+		LeafNode<K, V> replaced;
+		// the version made by the update
+		PersistentAdaptiveRadixTree<K, V> version;
+
+		Update(byte[] key, int keyLen) {
+			this.key = key;
+			this.keyLen = keyLen;
+		}
+
+		// the subtree at depth with newLeaf in it
+		@SuppressWarnings("unchecked")
+		Node put(Node node, int depth) {
+			if (node instanceof LeafNode) {
+				LeafNode<K, V> leaf = (LeafNode<K, V>) node;
+				byte[] leafKey = leaf.getKeyBytes();
+				if (Arrays.equals(leafKey, depth, leafKey.length, key, depth, keyLen)) {
+					replaced = leaf;
+					return newLeaf;
+				}
+				return expand(leaf, depth);
+			}
+
+			InnerNode innerNode = (InnerNode) node;
+			int lcp = matchPrefix(innerNode, depth);
+			if (lcp < innerNode.prefixLen) {
+				// key leaves the compressed path, branch out into it and the (shortened) node
+				byte[] path = AdaptiveRadixTree.getFirstEntry(innerNode).getKeyBytes();
+				Node4 branchOut = new Node4();
+				setPrefix(branchOut, path, depth, lcp);
+				depth += lcp;
+				if (depth == keyLen) {
+					branchOut.setLeaf(newLeaf);
+				}
+				else {
+					branchOut.addChild(key[depth], newLeaf);
+				}
+				branchOut.addChild(path[depth], withPrefix(innerNode, path, depth + 1, innerNode.prefixLen - lcp - 1));
+				return branchOut;
+			}
+
+			depth += innerNode.prefixLen;
+			LeafNode<?, ?> leaf = innerNode.getLeaf();
+			byte[] keys = new byte[innerNode.size() + 1];
+			Node[] children = new Node[innerNode.size() + 1];
+			int n = innerNode.copyChildren(keys, children);
+			if (depth == keyLen) {
+				replaced = (LeafNode<K, V>) leaf;
+				leaf = newLeaf;
+			}
+			else {
+				Node child = innerNode.findChild(key[depth]);
+				if (child == null) {
+					keys[n] = key[depth];
+					children[n++] = newLeaf;
+				}
+				else {
+					children[indexOf(children, n, child)] = put(child, depth + 1);
+				}
+			}
+			InnerNode copy = newNode(leaf, keys, children, n);
+			copyPrefix(copy, innerNode);
+			return copy;
+		}
+
+		// the subtree at depth without key in it, node itself if it doesn't have key
+		@SuppressWarnings("unchecked")
+		Node remove(Node node, int depth) {
+			if (node instanceof LeafNode) {
+				LeafNode<K, V> leaf = (LeafNode<K, V>) node;
+				if (Arrays.equals(leaf.getKeyBytes(), 0, leaf.getKeyBytes().length, key, 0, keyLen)) {
+					replaced = leaf;
+					return null;
+				}
+				return node;
+			}
+
+			InnerNode innerNode = (InnerNode) node;
+			if (matchPrefix(innerNode, depth) < innerNode.prefixLen) {
+				return node;
+			}
+			int nodeDepth = depth;
+			depth += innerNode.prefixLen;
+			LeafNode<?, ?> leaf = innerNode.getLeaf();
+			Node child = null, newChild = null;
+			if (depth == keyLen) {
+				if (leaf == null) {
+					return node;
+				}
+				replaced = (LeafNode<K, V>) leaf;
+				leaf = null;
+			}
+			else {
+				child = innerNode.findChild(key[depth]);
+				if (child == null || (newChild = remove(child, depth + 1)) == child) {
+					return node;
+				}
+			}
+
+			byte[] keys = new byte[innerNode.size()];
+			Node[] children = new Node[innerNode.size()];
+			int n = innerNode.copyChildren(keys, children);
+			if (child != null) {
+				int i = indexOf(children, n, child);
+				if (newChild != null) {
+					children[i] = newChild;
+				}
+				else {
+					System.arraycopy(keys, i + 1, keys, i, n - i - 1);
+					System.arraycopy(children, i + 1, children, i, n - i - 1);
+					n--;
+				}
+			}
+			// same as deleteEntry, a node left with only it's leaf or only one child is done away with
+			if (n == 0) {
+				return leaf;
+			}
+			if (n == 1 && leaf == null) {
+				if (children[0] instanceof LeafNode) {
+					return children[0];
+				}
+				InnerNode onlyChild = (InnerNode) children[0];
+				byte[] path = AdaptiveRadixTree.getFirstEntry(onlyChild).getKeyBytes();
+				return withPrefix(onlyChild, path, nodeDepth, innerNode.prefixLen + 1 + onlyChild.prefixLen);
+			}
+			InnerNode copy = newNode(leaf, keys, children, n);
+			copyPrefix(copy, innerNode);
+			return copy;
+		}
+
+		// AdaptiveRadixTree.lazyExpansion, without writing the uplink of the shared leaf
+		private Node expand(LeafNode<K, V> leaf, int depth) {
+			byte[] leafKey = leaf.getKeyBytes();
+			int end = Math.min(leafKey.length, keyLen);
+			int branchDepth = depth;
+			for (; branchDepth < end && leafKey[branchDepth] == key[branchDepth]; branchDepth++) ;
+			assert branchDepth != keyLen || branchDepth != leafKey.length;
+			byte[] keys = new byte[2];
+			Node[] children = new Node[2];
+			int n = 0;
+			LeafNode<K, V> prefixLeaf = null;
+			if (branchDepth == keyLen) {
+				prefixLeaf = newLeaf;
+			}
+			else {
+				keys[n] = key[branchDepth];
+				children[n++] = newLeaf;
+			}
+			if (branchDepth == leafKey.length) {
+				prefixLeaf = leaf;
+			}
+			else {
+				keys[n] = leafKey[branchDepth];
+				children[n++] = leaf;
+			}
+			InnerNode node = newNode(prefixLeaf, keys, children, n);
+			setPrefix(node, key, depth, branchDepth - depth);
+			return node;
+		}
+
+		// length of node's compressed path (starting at depth) the key matches
+		private int matchPrefix(InnerNode node, int depth) {
+			int end = Math.min(node.prefixLen, keyLen - depth);
+			int pessimisticEnd = Math.min(end, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT);
+			int lcp = 0;
+			for (; lcp < pessimisticEnd && node.prefixKeys[lcp] == key[depth + lcp]; lcp++) ;
+			if (lcp == InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT && lcp < end) {
+				byte[] path = AdaptiveRadixTree.getFirstEntry(node).getKeyBytes();
+				for (; lcp < end && path[depth + lcp] == key[depth + lcp]; lcp++) ;
+			}
+			return lcp;
+		}
+	}
+
+	private static int indexOf(Node[] children, int n, Node child) {
+		int i = 0;
+		for (; children[i] != child; i++) ;
+		assert i < n;
+		return i;
+	}
+
+	// a new node sized to fit the leaf (if any) and children, in any order of partial keys.
+	// the children are shared, their uplinks are left as is
+	private static InnerNode newNode(LeafNode<?, ?> leaf, byte[] keys, Node[] children, int n) {
+		InnerNode node;
+		if (n <= Node4.NODE_SIZE) {
+			node = new Node4();
+		}
+		else if (n <= Node16.NODE_SIZE) {
+			node = new Node16();
+		}
+		else if (n <= Node48.NODE_SIZE) {
+			node = new Node48();
+		}
+		else {
+			node = new Node256();
+		}
+		if (leaf != null) {
+			node.setLeaf(leaf);
+		}
+		for (int i = 0; i < n; i++) {
+			node.addSharedChild(keys[i], children[i]);
+		}
+		return node;
+	}
+
+	// a copy of node (same leaf and children) with a compressed path of prefixLen bytes of path starting at depth
+	private static InnerNode withPrefix(InnerNode node, byte[] path, int depth, int prefixLen) {
+		byte[] keys = new byte[node.size()];
+		Node[] children = new Node[node.size()];
+		int n = node.copyChildren(keys, children);
+		InnerNode copy = newNode(node.getLeaf(), keys, children, n);
+		setPrefix(copy, path, depth, prefixLen);
+		return copy;
+	}
+
+	private static void setPrefix(InnerNode node, byte[] path, int depth, int prefixLen) {
+		node.prefixLen = prefixLen;
+		System.arraycopy(path, depth, node.prefixKeys, 0, Math
+				.min(prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+	}
+
+	private static void copyPrefix(InnerNode copy, InnerNode node) {
+		copy.prefixLen = node.prefixLen;
+		System.arraycopy(node.prefixKeys, 0, copy.prefixKeys, 0, Math
+				.min(node.prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+	}
+
+	// in order, the nodes left to visit are kept on a stack (leaves of inner nodes on top of their children)
+	private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+		private final ArrayDeque<Node> stack = new ArrayDeque<>();
+		private LeafNode<K, V> next;
+
+		EntryIterator(Node root) {
+			if (root != null) {
+				stack.push(root);
+			}
+			next = advance();
+		}
+
+		@SuppressWarnings("unchecked")
+		private LeafNode<K, V> advance() {
+			while (!stack.isEmpty()) {
+				Node node = stack.pop();
+				if (node instanceof LeafNode) {
+					return (LeafNode<K, V>) node;
+				}
+				InnerNode innerNode = (InnerNode) node;
+				Node[] children = new Node[innerNode.size()];
+				int n = innerNode.copyChildren(new byte[children.length], children);
+				for (int i = n - 1; i >= 0; i--) {
+					stack.push(children[i]);
+				}
+				if (innerNode.hasLeaf()) {
+					stack.push(innerNode.getLeaf());
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			LeafNode<K, V> e = next;
+			next = advance();
+			return AdaptiveRadixTree.exportEntry(e);
+		}
+	}
+}
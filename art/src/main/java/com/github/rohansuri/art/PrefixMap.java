@@ -0,0 +1,296 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/*
+	view of the keys of the backing map that start with a prefix (in their binary comparable form).
+
+	all such keys are in a single subtree, the one reached by descending the prefix from the root
+	(see AdaptiveRadixTree#getPrefixNode). the view works off that subtree:
+	first and last keys are it's leftmost and rightmost leaves and iteration walks only it's leaves,
+	without any comparisons against bounds. the subtree is looked up again only after
+	a structural modification of the backing map (since a node may have been replaced by then).
+
+	sub maps of this view are plain NavigableSubMaps with the bounds [prefix, prefix's successor).
+ */
+final class PrefixMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+	private final AdaptiveRadixTree<K, V> m;
+	private final byte[] prefix;
+
+	// the least byte string greater than all strings starting with prefix,
+	// null if there is none (prefix is all 0xFF)
+	private final byte[] prefixEnd;
+
+	private Node subtree;
+	private int subtreeModCount;
+
+	private transient EntrySetView entrySetView;
+	private transient NavigableSubMap<K, V> bounded;
+
+	PrefixMap(AdaptiveRadixTree<K, V> m, byte[] prefix) {
+		this.m = m;
+		this.prefix = prefix;
+		this.prefixEnd = successor(prefix);
+		subtreeModCount = m.getModCount();
+		subtree = m.getPrefixNode(prefix, prefix.length);
+	}
+
+	private static byte[] successor(byte[] prefix) {
+		for (int i = prefix.length - 1; i >= 0; i--) {
+			if (prefix[i] != (byte) 0xFF) {
+				byte[] end = Arrays.copyOf(prefix, i + 1);
+				end[i]++;
+				return end;
+			}
+		}
+		return null;
+	}
+
+	private Node subtree() {
+		if (subtreeModCount != m.getModCount()) {
+			subtreeModCount = m.getModCount();
+			subtree = m.getPrefixNode(prefix, prefix.length);
+		}
+		return subtree;
+	}
+
+	private boolean inRange(byte[] key, int keyLen) {
+		return keyLen >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+	}
+
+	// null if key doesn't start with prefix or is not present in the backing map
+	private LeafNode<K, V> getEntry(Object key) {
+		if (key == null)
+			throw new NullPointerException();
+		@SuppressWarnings("unchecked")
+		K k = (K) key;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), k);
+		try {
+			if (!inRange(keyBuffer.bytes, keyBuffer.length))
+				return null;
+			return m.getEntry(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return getEntry(key) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		LeafNode<K, V> e = getEntry(key);
+		return e == null ? null : e.getValue();
+	}
+
+	@Override
+	public V put(K key, V value) {
+		if (key == null)
+			throw new NullPointerException();
+		KeyBuffer keyBuffer = KeyBuffer.acquire(m.binaryComparable(), key);
+		try {
+			if (!inRange(keyBuffer.bytes, keyBuffer.length))
+				throw new IllegalArgumentException("key out of range");
+			return m.put(keyBuffer.bytes, keyBuffer.length, key, value);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		LeafNode<K, V> e = getEntry(key);
+		if (e == null)
+			return null;
+		V oldValue = e.getValue();
+		m.deleteEntry(e);
+		return oldValue;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return subtree() == null;
+	}
+
+	// unlinks the subtree, see AdaptiveRadixTree#removeRange
+	@Override
+	public void clear() {
+		m.removeRange(prefix, true, prefixEnd, false);
+	}
+
+	@Override
+	public int size() {
+		return entrySet().size();
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return m.comparator();
+	}
+
+	@Override
+	public K firstKey() {
+		Node node = subtree();
+		if (node == null)
+			throw new NoSuchElementException();
+		return AdaptiveRadixTree.<K, V>getFirstEntry(node).getKey();
+	}
+
+	@Override
+	public K lastKey() {
+		Node node = subtree();
+		if (node == null)
+			throw new NoSuchElementException();
+		return AdaptiveRadixTree.<K, V>getLastEntry(node).getKey();
+	}
+
+	private NavigableMap<K, V> bounded() {
+		NavigableSubMap<K, V> b = bounded;
+		return (b != null) ? b : (bounded = new AscendingSubMap<>(m,
+				false, prefix, true,
+				prefixEnd == null, prefixEnd, false));
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return bounded().subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return bounded().headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return bounded().tailMap(fromKey, true);
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		EntrySetView es = entrySetView;
+		return (es != null) ? es : (entrySetView = new EntrySetView());
+	}
+
+	private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+		private transient int size = -1, sizeModCount;
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new PrefixIterator();
+		}
+
+		@Override
+		public int size() {
+			if (m.hasOrderStatistics()) {
+				Node node = subtree();
+				return node == null ? 0 : AdaptiveRadixTree.count(node);
+			}
+			// same as NavigableSubMap's, recounted only after modifications
+			if (size == -1 || sizeModCount != m.getModCount()) {
+				sizeModCount = m.getModCount();
+				Node node = subtree();
+				size = node == null ? 0 : AdaptiveRadixTree.countLeaves(node);
+			}
+			return size;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return subtree() == null;
+		}
+
+		@Override
+		public void clear() {
+			PrefixMap.this.clear();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			LeafNode<K, V> node = getEntry(entry.getKey());
+			return node != null && AdaptiveRadixTree.valEquals(node.getValue(), entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			LeafNode<K, V> node = getEntry(entry.getKey());
+			if (node != null && AdaptiveRadixTree.valEquals(node.getValue(), entry.getValue())) {
+				m.deleteEntry(node);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	// walks the leaves of the subtree, from it's first till it's last
+	private final class PrefixIterator implements Iterator<Entry<K, V>> {
+		private LeafNode<K, V> next;
+		private LeafNode<K, V> lastReturned;
+		private final LeafNode<K, V> last;
+		private int expectedModCount;
+		// leads to next, found again after a remove (the subtree's root might have changed)
+		private final Path path = new Path();
+		private boolean positioned;
+
+		PrefixIterator() {
+			Node node = subtree();
+			expectedModCount = m.getModCount();
+			next = node == null ? null : AdaptiveRadixTree.getFirstEntry(node);
+			last = node == null ? null : AdaptiveRadixTree.getLastEntry(node);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Entry<K, V> next() {
+			LeafNode<K, V> e = next;
+			if (e == null)
+				throw new NoSuchElementException();
+			if (m.getModCount() != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (!positioned) {
+				path.seek(m.getRoot(), e.getKeyBytes(), e.getKeyBytes().length);
+				positioned = true;
+			}
+			next = e == last ? null : (LeafNode<K, V>) path.successor();
+			lastReturned = e;
+			return e;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (m.getModCount() != expectedModCount)
+				throw new ConcurrentModificationException();
+			m.deleteEntry(lastReturned);
+			positioned = false;
+			lastReturned = null;
+			expectedModCount = m.getModCount();
+		}
+	}
+}
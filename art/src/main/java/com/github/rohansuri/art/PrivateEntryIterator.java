@@ -7,12 +7,18 @@ import java.util.NoSuchElementException;
 /**
  * Base class for AdaptiveRadixTree Iterators
  * note: taken from TreeMap
+ *
+ * moves on from one leaf to the next by the path to it (see Path), found lazily
+ * on the first move and again after every remove (that might change the path).
  */
 abstract class PrivateEntryIterator<K, V, T> implements Iterator<T> {
 	private final AdaptiveRadixTree<K, V> m;
 	private LeafNode<K,V> next;
 	private LeafNode<K, V> lastReturned;
 	private int expectedModCount;
+	// leads to next, once positioned
+	private final Path path = new Path();
+	private boolean positioned;
 
 	PrivateEntryIterator(AdaptiveRadixTree<K, V> m, LeafNode<K,V> first) {
 		expectedModCount = m.getModCount();
@@ -25,28 +31,39 @@ abstract class PrivateEntryIterator<K, V, T> implements Iterator<T> {
 		return next != null;
 	}
 
+	@SuppressWarnings("unchecked")
 	final LeafNode<K,V> nextEntry() {
 		LeafNode<K,V> e = next;
 		if (e == null)
 			throw new NoSuchElementException();
 		if (m.getModCount() != expectedModCount)
 			throw new ConcurrentModificationException();
-		next = AdaptiveRadixTree.successor(e);
+		position(e);
+		next = (LeafNode<K, V>) path.successor();
 		lastReturned = e;
 		return e;
 	}
 
+	@SuppressWarnings("unchecked")
 	final LeafNode<K,V> prevEntry() {
 		LeafNode<K,V> e = next;
 		if (e == null)
 			throw new NoSuchElementException();
 		if (m.getModCount() != expectedModCount)
 			throw new ConcurrentModificationException();
-		next = AdaptiveRadixTree.predecessor(e);
+		position(e);
+		next = (LeafNode<K, V>) path.predecessor();
 		lastReturned = e;
 		return e;
 	}
 
+	private void position(LeafNode<K, V> e) {
+		if (!positioned) {
+			path.seek(m.getRoot(), e.getKeyBytes(), e.getKeyBytes().length);
+			positioned = true;
+		}
+	}
+
 	public void remove() {
 		if (lastReturned == null)
 			throw new IllegalStateException();
@@ -55,9 +72,9 @@ abstract class PrivateEntryIterator<K, V, T> implements Iterator<T> {
 		/*
 			next already points to the next leaf node (that might be a sibling to this lastReturned).
 			if next is the only sibling left, then the parent gets path compressed.
-			BUT the reference that next holds to the sibling leaf node remains the same, just it's parent changes.
+			BUT the reference that next holds to the sibling leaf node remains the same, just it's path changes.
 			Therefore at all times, next is a valid reference to be simply returned on the
-			next call to next().
+			next call to next(), only the path to it needs to be found again.
 			Is there any scenario in which the next leaf pointer gets changed and iterator next
 			points to a stale leaf?
 			No.
@@ -66,6 +83,7 @@ abstract class PrivateEntryIterator<K, V, T> implements Iterator<T> {
 			So references to an existing LeafNode won't get stale.
 		 */
 		m.deleteEntry(lastReturned);
+		positioned = false;
 		expectedModCount = m.getModCount();
 		lastReturned = null;
 	}
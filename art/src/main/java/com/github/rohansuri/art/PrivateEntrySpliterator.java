@@ -0,0 +1,183 @@
+package com.github.rohansuri.art;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Base class for AdaptiveRadixTree Spliterators
+ *
+ * covers the leaves of a contiguous run of sibling subtrees [lo, hi) of some node.
+ * splitting halves the run, or if there is a single inner node left in the run,
+ * descends into it and continues splitting along it's children.
+ * hence independent subtrees end up being traversed by different spliterators.
+ * once traversal has begun, no more splits are made.
+ * like TreeMap's, binds to the tree lazily on first use.
+ *
+ * traversal itself is done the same way as iterators do, by moving along the path (see Path)
+ * from the first leaf of the run till the fence (first leaf beyond the run, null for end of tree).
+ */
+abstract class PrivateEntrySpliterator<K, V, T> implements Spliterator<T> {
+	final AdaptiveRadixTree<K, V> m;
+	// the run of sibling subtrees, null once traversal has begun
+	private Node[] nodes;
+	private int lo, hi;
+	private final LeafNode<K, V> fence;
+	private LeafNode<K, V> next;
+	// leads to next, once traversal has begun
+	private final Path path = new Path();
+	private long est; // -1 until bound to the tree
+	private int expectedModCount;
+
+	PrivateEntrySpliterator(AdaptiveRadixTree<K, V> m) {
+		this(m, null, 0, 0, null, -1, 0);
+	}
+
+	PrivateEntrySpliterator(AdaptiveRadixTree<K, V> m, Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		this.m = m;
+		this.nodes = nodes;
+		this.lo = lo;
+		this.hi = hi;
+		this.fence = fence;
+		this.est = est;
+		this.expectedModCount = expectedModCount;
+	}
+
+	abstract PrivateEntrySpliterator<K, V, T> split(Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount);
+
+	abstract T element(LeafNode<K, V> leaf);
+
+	private void bind() {
+		Node root = m.getRoot();
+		nodes = root == null ? new Node[0] : new Node[]{root};
+		lo = 0;
+		hi = nodes.length;
+		est = m.size();
+		expectedModCount = m.getModCount();
+	}
+
+	@Override
+	public final Spliterator<T> trySplit() {
+		if (est < 0) {
+			bind();
+		}
+		if (nodes == null) {
+			return null;
+		}
+		// a single inner node, split along it's children instead
+		while (hi - lo == 1 && nodes[lo] instanceof InnerNode) {
+			nodes = children((InnerNode) nodes[lo]);
+			lo = 0;
+			hi = nodes.length;
+		}
+		if (hi - lo < 2) {
+			return null;
+		}
+		int mid = (lo + hi) >>> 1;
+		est >>>= 1;
+		PrivateEntrySpliterator<K, V, T> prefix = split(nodes, lo, mid,
+				AdaptiveRadixTree.getFirstEntry(nodes[mid]), est, expectedModCount);
+		lo = mid;
+		return prefix;
+	}
+
+	// leaf first, since it is the smallest key of the subtree
+	private static Node[] children(InnerNode node) {
+		int n = node.size();
+		int i = 0;
+		Node[] children;
+		if (node.hasLeaf()) {
+			children = new Node[n + 1];
+			children[i++] = node.getLeaf();
+		}
+		else {
+			children = new Node[n];
+		}
+		for (Node child = node.first(); child != null; child = node.greater(child.uplinkKey())) {
+			children[i++] = child;
+		}
+		return children;
+	}
+
+	// called once to begin traversal
+	private LeafNode<K, V> begin() {
+		LeafNode<K, V> first = lo < hi ? AdaptiveRadixTree.getFirstEntry(nodes[lo]) : fence;
+		nodes = null;
+		if (first != null) {
+			// the run's nodes don't know the path from the root to them
+			path.seek(m.getRoot(), first.getKeyBytes(), first.getKeyBytes().length);
+		}
+		return first;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public final boolean tryAdvance(Consumer<? super T> action) {
+		if (action == null)
+			throw new NullPointerException();
+		if (est < 0) {
+			bind();
+		}
+		if (nodes != null) {
+			next = begin();
+		}
+		LeafNode<K, V> e = next;
+		if (e == null || e == fence)
+			return false;
+		next = (LeafNode<K, V>) path.successor();
+		action.accept(element(e));
+		if (m.getModCount() != expectedModCount)
+			throw new ConcurrentModificationException();
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public final void forEachRemaining(Consumer<? super T> action) {
+		if (action == null)
+			throw new NullPointerException();
+		if (est < 0) {
+			bind();
+		}
+		if (nodes != null) {
+			next = begin();
+		}
+		LeafNode<K, V> e = next;
+		next = fence;
+		while (e != null && e != fence) {
+			LeafNode<K, V> successor = (LeafNode<K, V>) path.successor();
+			action.accept(element(e));
+			e = successor;
+		}
+		if (m.getModCount() != expectedModCount)
+			throw new ConcurrentModificationException();
+	}
+
+	@Override
+	public final long estimateSize() {
+		if (est < 0) {
+			bind();
+		}
+		return est;
+	}
+
+	// keys are ordered by their binary comparable representation, which might not be
+	// their natural ordering.
+	final int compareKeys(K k1, K k2) {
+		KeyBuffer b1 = KeyBuffer.acquire(m.binaryComparable(), k1);
+		try {
+			KeyBuffer b2 = KeyBuffer.acquire(m.binaryComparable(), k2);
+			try {
+				return AdaptiveRadixTree.compare(b1.bytes, 0, b1.length, b2.bytes, 0, b2.length);
+			}
+			finally {
+				b2.release();
+			}
+		}
+		finally {
+			b1.release();
+		}
+	}
+}
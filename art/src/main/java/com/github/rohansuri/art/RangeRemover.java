@@ -0,0 +1,155 @@
+package com.github.rohansuri.art;
+
+/*
+	removes all keys within a range from a tree, without deleting them one by one.
+
+	only the nodes on the paths of the two bounds (lo and hi) can have keys both in and out of range.
+	we descend along those paths, and at every such node:
+	children strictly between the bounds' partial keys are detached as a whole (all their keys are in range),
+	children outside them are left as is and the (at most two) children on a bound's path are recursed into.
+	once the children are done with, the node is fixed up once, just like deleteEntry does for a single removal:
+	shrunk to fit it's remaining children, path compressed into it's only child or replaced by it's leaf.
+
+	hence the work done is proportional to the length of the bounds (times the fan-out of the nodes on their
+	paths), not to the number of keys removed. except for counting the removed keys (for size),
+	which is only free for trees keeping order statistics. otherwise the detached subtrees are walked,
+	which still is a lot cheaper than deleting every leaf.
+ */
+final class RangeRemover {
+	// null if unbounded
+	private final byte[] lo, hi;
+	private final boolean loInclusive, hiInclusive;
+	private final boolean orderStatistics;
+	// no of keys removed so far
+	int removed;
+
+	RangeRemover(byte[] lo, boolean loInclusive, byte[] hi, boolean hiInclusive, boolean orderStatistics) {
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.orderStatistics = orderStatistics;
+	}
+
+	// returns the new root
+	Node removeFrom(Node root) {
+		return remove(root, 0, lo != null, hi != null);
+	}
+
+	private int leaves(Node node) {
+		return orderStatistics ? AdaptiveRadixTree.count(node) : AdaptiveRadixTree.countLeaves(node);
+	}
+
+	private boolean inRange(LeafNode<?, ?> leaf) {
+		byte[] key = leaf.getKeyBytes();
+		if (lo != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, lo, 0, lo.length);
+			if (c < 0 || (c == 0 && !loInclusive)) {
+				return false;
+			}
+		}
+		if (hi != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, hi, 0, hi.length);
+			return c < 0 || (c == 0 && hiInclusive);
+		}
+		return true;
+	}
+
+	/*
+		node's path till depth is lo's (if loBound) and hi's (if hiBound).
+		returns what is to take node's place: node itself, another node or null if it's gone entirely.
+	 */
+	private Node remove(Node node, int depth, boolean loBound, boolean hiBound) {
+		if (!loBound && !hiBound) { // entirely in range
+			removed += leaves(node);
+			return null;
+		}
+		if (node instanceof LeafNode) {
+			if (inRange((LeafNode<?, ?>) node)) {
+				removed++;
+				return null;
+			}
+			return node;
+		}
+
+		InnerNode innerNode = (InnerNode) node;
+		if (loBound) {
+			int c = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, lo, lo.length, depth);
+			if (c < 0) { // all keys lesser than lo
+				return node;
+			}
+			loBound = c == 0;
+		}
+		if (hiBound) {
+			int c = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, hi, hi.length, depth);
+			if (c > 0) { // all keys greater than hi
+				return node;
+			}
+			hiBound = c == 0;
+		}
+		if (!loBound && !hiBound) {
+			removed += leaves(node);
+			return null;
+		}
+		int removedBefore = removed;
+		depth += innerNode.prefixLen;
+
+		// the leaf is the key ending here, a prefix of the bounds going deeper
+		boolean removeLeaf = innerNode.hasLeaf()
+				&& (!loBound || (lo.length == depth && loInclusive))
+				&& (!hiBound || hi.length > depth || hiInclusive);
+
+		// children are all greater than a bound ending here
+		boolean loChild = loBound && lo.length > depth;
+		boolean hiChild = hiBound && hi.length > depth;
+		int loKey = loChild ? Byte.toUnsignedInt(lo[depth]) : -1;
+		int hiKey = hiChild ? Byte.toUnsignedInt(hi[depth]) : hiBound ? -1 : 256;
+
+		// children within [loKey, hiKey], the ones to be detached are collected first
+		// since removing them can shrink the node
+		byte[] toRemove = new byte[Node256.NODE_SIZE];
+		int noToRemove = 0;
+		Node child = loKey < 0 ? innerNode.first() : innerNode.ceil((byte) loKey);
+		while (child != null && Byte.toUnsignedInt(child.uplinkKey()) <= hiKey) {
+			byte partialKey = child.uplinkKey();
+			int key = Byte.toUnsignedInt(partialKey);
+			Node replaceWith = remove(child, depth + 1, loChild && key == loKey, hiChild && key == hiKey);
+			if (replaceWith == null) {
+				toRemove[noToRemove++] = partialKey;
+			}
+			else if (replaceWith != child) {
+				innerNode.replace(partialKey, replaceWith);
+			}
+			child = innerNode.greater(partialKey);
+		}
+
+		if (removeLeaf) {
+			innerNode.removeLeaf();
+			removed++;
+		}
+		for (int i = 0; i < noToRemove; i++) {
+			if (innerNode.shouldShrink()) {
+				innerNode = innerNode.shrink();
+			}
+			innerNode.removeChild(toRemove[i]);
+		}
+		if (innerNode.shouldShrink()) {
+			innerNode = innerNode.shrink();
+		}
+
+		if (innerNode.size() == 0) {
+			// the leaf takes the node's place, if there is one
+			return innerNode.hasLeaf() ? innerNode.getLeaf() : null;
+		}
+		if (innerNode.size() == 1 && !innerNode.hasLeaf()) {
+			// a Node4 by now
+			Node onlyChild = innerNode.getChild()[0];
+			AdaptiveRadixTree.updateCompressedPathOfOnlyChild((Node4) innerNode, onlyChild);
+			return onlyChild;
+		}
+		if (orderStatistics) {
+			innerNode.setLeafCount(innerNode.getLeafCount() - (removed - removedBefore));
+		}
+		return innerNode;
+	}
+}
@@ -0,0 +1,521 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.rohansuri.art.ConcurrentAdaptiveRadixTree.Snapshot;
+
+/**
+ * A {@link ConcurrentMap} that partitions the key space into a number of shards,
+ * each an independent {@link AdaptiveRadixTree} guarded by its own {@link StampedLock}.
+ * Keys are assigned to shards by the leading byte of their {@linkplain BinaryComparable binary comparable}
+ * representation, shard {@code i} of {@code n} holding the keys whose leading byte (unsigned)
+ * is in {@code [256 * i / n, 256 * (i + 1) / n)} (the empty key going to the first shard).
+ * Hence all keys of a shard are lesser than all keys of the next one and the shards
+ * together are in the same order as a single tree holding all the keys.
+ *
+ * <p>Writers lock only the shard of the key written, so that writes to different shards
+ * go on in parallel. Readers first read the shard optimistically, without locking, and validate
+ * that no writer came by meanwhile. Only if one did, they read again holding the shard's read lock.
+ * Hence throughput of mixed reads and writes scales with the number of shards,
+ * as long as the keys are spread over them (keys sharing a leading byte all go into the same shard).
+ *
+ * <p>Navigation methods ({@code ceilingEntry}, {@code higherEntry}, ...) continue into
+ * the next (or previous) shards if the key's shard has no such entry.
+ * Like {@link java.util.concurrent.ConcurrentSkipListMap}, this map
+ * does not permit {@code null} keys or values, {@code size} is not a constant-time snapshot
+ * and bulk operations like {@code putAll} and {@code clear} are not atomic.
+ * Iterators of the views are <i>weakly consistent</i>: they return keys in ascending order,
+ * never throw {@link java.util.ConcurrentModificationException} and continue from the last
+ * returned key, across shards.
+ *
+ * <p>All {@code Map.Entry} pairs returned by methods in this class and its views
+ * represent snapshots of mappings at the time they were produced.
+ * They do <strong>not</strong> support the {@code Entry.setValue} method.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see AdaptiveRadixTree
+ * @see ConcurrentAdaptiveRadixTree
+ */
+public class ShardedAdaptiveRadixTree<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+	static final int DEFAULT_SHARDS = 16;
+
+	private static final class Shard<K, V> {
+		final StampedLock lock = new StampedLock();
+		final AdaptiveRadixTree<K, V> tree;
+
+		Shard(BinaryComparable<K> binaryComparable) {
+			tree = new AdaptiveRadixTree<>(binaryComparable);
+		}
+	}
+
+	private final BinaryComparable<K> binaryComparable;
+	private final Shard<K, V>[] shards;
+	private transient Set<Entry<K, V>> entrySet;
+
+	public ShardedAdaptiveRadixTree(BinaryComparable<K> binaryComparable) {
+		this(binaryComparable, DEFAULT_SHARDS);
+	}
+
+	/**
+	 * @param binaryComparable to encode the keys with
+	 * @param shards no of shards, between 1 and 256
+	 * @throws IllegalArgumentException if the no of shards is out of range
+	 */
+	@SuppressWarnings("unchecked")
+	public ShardedAdaptiveRadixTree(BinaryComparable<K> binaryComparable, int shards) {
+		Objects.requireNonNull(binaryComparable, "Specifying a BinaryComparable is necessary");
+		if (shards < 1 || shards > 256) {
+			throw new IllegalArgumentException("shards must be between 1 and 256: " + shards);
+		}
+		this.binaryComparable = binaryComparable;
+		this.shards = (Shard<K, V>[]) new Shard<?, ?>[shards];
+		for (int i = 0; i < shards; i++) {
+			this.shards[i] = new Shard<>(binaryComparable);
+		}
+	}
+
+	public BinaryComparable<K> binaryComparable() {
+		return binaryComparable;
+	}
+
+	private Shard<K, V> shardOf(byte[] key, int keyLen) {
+		return shards[shardIndex(key, keyLen)];
+	}
+
+	private int shardIndex(byte[] key, int keyLen) {
+		return keyLen == 0 ? 0 : (Byte.toUnsignedInt(key[0]) * shards.length) >>> 8;
+	}
+
+	/*
+		reads a shard optimistically and returns what's been read if no writer came by meanwhile,
+		else reads it again holding the read lock. read must not hand out anything of the tree
+		that is looked at after it returns (entries are to be exported).
+		a writer coming by midway can leave the tree in any half done state,
+		an exception reading it optimistically is the same as a failed validation.
+		errors (a failed assertion included) are not, they propagate.
+	 */
+	private static <K, V, R> R read(Shard<K, V> shard, Function<AdaptiveRadixTree<K, V>, R> read) {
+		StampedLock lock = shard.lock;
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0L) {
+			try {
+				R result = read.apply(shard.tree);
+				if (lock.validate(stamp)) {
+					return result;
+				}
+			}
+			catch (RuntimeException e) {
+				// retried below
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return read.apply(shard.tree);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private static <K, V, R> R write(Shard<K, V> shard, Function<AdaptiveRadixTree<K, V>, R> write) {
+		long stamp = shard.lock.writeLock();
+		try {
+			return write.apply(shard.tree);
+		}
+		finally {
+			shard.lock.unlockWrite(stamp);
+		}
+	}
+
+	private Shard<K, V> shardOf(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) key;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			return shardOf(keyBuffer.bytes, keyBuffer.length);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	private static <K, V> Snapshot<K, V> export(LeafNode<K, V> leaf) {
+		return leaf == null ? null : new Snapshot<>(leaf, leaf.getValue());
+	}
+
+	@Override
+	public V get(Object key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		@SuppressWarnings("unchecked")
+		K k = (K) key;
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, k);
+		try {
+			// same as read, inlined so that the lookup doesn't allocate a capturing lambda
+			Shard<K, V> shard = shardOf(keyBuffer.bytes, keyBuffer.length);
+			StampedLock lock = shard.lock;
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0L) {
+				try {
+					V value = getValue(shard.tree, keyBuffer.bytes, keyBuffer.length);
+					if (lock.validate(stamp)) {
+						return value;
+					}
+				}
+				catch (RuntimeException e) {
+					// retried below
+				}
+			}
+			stamp = lock.readLock();
+			try {
+				return getValue(shard.tree, keyBuffer.bytes, keyBuffer.length);
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	private static <K, V> V getValue(AdaptiveRadixTree<K, V> tree, byte[] key, int keyLen) {
+		LeafNode<K, V> leaf = tree.getEntry(key, keyLen);
+		return leaf == null ? null : leaf.getValue();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		Objects.requireNonNull(value);
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			byte[] bytes = keyBuffer.bytes;
+			int length = keyBuffer.length;
+			return write(shardOf(bytes, length), tree -> tree.put(bytes, length, key, value));
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		return write(shardOf(key), tree -> tree.remove(key));
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		Objects.requireNonNull(value);
+		return write(shardOf(key), tree -> tree.putIfAbsent(key, value));
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		return value != null && write(shardOf(key), tree -> tree.remove(key, value));
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+		return write(shardOf(key), tree -> tree.replace(key, oldValue, newValue));
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		Objects.requireNonNull(value);
+		return write(shardOf(key), tree -> tree.replace(key, value));
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		return write(shardOf(key), tree -> tree.computeIfAbsent(key, mappingFunction));
+	}
+
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		return write(shardOf(key), tree -> tree.computeIfPresent(key, remappingFunction));
+	}
+
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		return write(shardOf(key), tree -> tree.compute(key, remappingFunction));
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		Objects.requireNonNull(remappingFunction);
+		return write(shardOf(key), tree -> tree.merge(key, value, remappingFunction));
+	}
+
+	@Override
+	public int size() {
+		long size = 0;
+		for (Shard<K, V> shard : shards) {
+			size += read(shard, AdaptiveRadixTree::size);
+		}
+		return size >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (Shard<K, V> shard : shards) {
+			if (!read(shard, AdaptiveRadixTree::isEmpty)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// not atomic, the shards are cleared one after the other
+	@Override
+	public void clear() {
+		for (Shard<K, V> shard : shards) {
+			write(shard, tree -> {
+				tree.clear();
+				return null;
+			});
+		}
+	}
+
+	/*
+		navigation, in the key's shard first and then in the shards after (before) it
+	 */
+
+	private Snapshot<K, V> first(int from) {
+		Snapshot<K, V> e = null;
+		for (int i = from; e == null && i < shards.length; i++) {
+			e = read(shards[i], tree -> export(tree.getFirstEntry()));
+		}
+		return e;
+	}
+
+	private Snapshot<K, V> last(int from) {
+		Snapshot<K, V> e = null;
+		for (int i = from; e == null && i >= 0; i--) {
+			e = read(shards[i], tree -> export(tree.getLastEntry()));
+		}
+		return e;
+	}
+
+	Snapshot<K, V> findCeiling(byte[] key, int keyLen, boolean inclusive) {
+		int i = shardIndex(key, keyLen);
+		Snapshot<K, V> e = read(shards[i], tree -> export(inclusive ? tree.getCeilingEntry(key, keyLen) : tree
+				.getHigherEntry(key, keyLen)));
+		return e != null ? e : first(i + 1);
+	}
+
+	Snapshot<K, V> findFloor(byte[] key, int keyLen, boolean inclusive) {
+		int i = shardIndex(key, keyLen);
+		Snapshot<K, V> e = read(shards[i], tree -> export(inclusive ? tree.getFloorEntry(key, keyLen) : tree
+				.getLowerEntry(key, keyLen)));
+		return e != null ? e : last(i - 1);
+	}
+
+	private Snapshot<K, V> findCeiling(K key, boolean inclusive) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			return findCeiling(keyBuffer.bytes, keyBuffer.length, inclusive);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	private Snapshot<K, V> findFloor(K key, boolean inclusive) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			return findFloor(keyBuffer.bytes, keyBuffer.length, inclusive);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	/**
+	 * @return the entry with the least key, or {@code null} if this map is empty
+	 */
+	public Map.Entry<K, V> firstEntry() {
+		return first(0);
+	}
+
+	/**
+	 * @return the entry with the greatest key, or {@code null} if this map is empty
+	 */
+	public Map.Entry<K, V> lastEntry() {
+		return last(shards.length - 1);
+	}
+
+	/**
+	 * @throws NoSuchElementException if this map is empty
+	 */
+	public K firstKey() {
+		return AdaptiveRadixTree.key(firstEntry());
+	}
+
+	/**
+	 * @throws NoSuchElementException if this map is empty
+	 */
+	public K lastKey() {
+		return AdaptiveRadixTree.key(lastEntry());
+	}
+
+	/**
+	 * @return the entry with the least key greater than or equal to the given key, or {@code null} if there is none
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return findCeiling(key, true);
+	}
+
+	public K ceilingKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(ceilingEntry(key));
+	}
+
+	/**
+	 * @return the entry with the least key strictly greater than the given key, or {@code null} if there is none
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public Map.Entry<K, V> higherEntry(K key) {
+		return findCeiling(key, false);
+	}
+
+	public K higherKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(higherEntry(key));
+	}
+
+	/**
+	 * @return the entry with the greatest key less than or equal to the given key, or {@code null} if there is none
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public Map.Entry<K, V> floorEntry(K key) {
+		return findFloor(key, true);
+	}
+
+	public K floorKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(floorEntry(key));
+	}
+
+	/**
+	 * @return the entry with the greatest key strictly less than the given key, or {@code null} if there is none
+	 * @throws NullPointerException if the specified key is null
+	 */
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return findFloor(key, false);
+	}
+
+	public K lowerKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(lowerEntry(key));
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		Set<Entry<K, V>> es = entrySet;
+		return (es != null) ? es : (entrySet = new EntrySet());
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return ShardedAdaptiveRadixTree.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ShardedAdaptiveRadixTree.this.isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			ShardedAdaptiveRadixTree.this.clear();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			V v = get(e.getKey());
+			return v != null && v.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return ShardedAdaptiveRadixTree.this.remove(e.getKey(), e.getValue());
+		}
+	}
+
+	// weakly consistent, continues from the last returned key
+	private final class EntryIterator implements Iterator<Entry<K, V>> {
+		private Snapshot<K, V> lastReturned;
+		private Snapshot<K, V> next;
+
+		EntryIterator() {
+			next = first(0);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			Snapshot<K, V> e = next;
+			if (e == null)
+				throw new NoSuchElementException();
+			lastReturned = e;
+			next = findCeiling(e.keyBytes, e.keyBytes.length, false);
+			return e;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			ShardedAdaptiveRadixTree.this.remove(lastReturned.getKey());
+			lastReturned = null;
+		}
+	}
+}
@@ -0,0 +1,462 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+
+/*
+	An unmodifiable NavigableMap view over a range of a PersistentAdaptiveRadixTree version, in either direction.
+	Modelled after ConcurrentSubMap: a single class handles both ascending and
+	descending views, with bounds kept as binary comparable representations.
+	Since the version never changes, neither does the view: iterators continue from the last returned key's bytes
+	and can never fail, no matter what's been put into or removed from later versions.
+ */
+final class SnapshotMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+	private final PersistentAdaptiveRadixTree<K, V> m;
+
+	// lower bound or null if from start, likewise upper bound or null if to end
+	private final byte[] lo, hi;
+	private final boolean loInclusive, hiInclusive;
+	private final boolean isDescending;
+
+	private transient KeySet<K> keySetView;
+	private transient Set<Entry<K, V>> entrySetView;
+	private transient Collection<V> valuesView;
+	private transient SnapshotMap<K, V> descendingMapView;
+
+	SnapshotMap(PersistentAdaptiveRadixTree<K, V> m,
+			byte[] lo, boolean loInclusive,
+			byte[] hi, boolean hiInclusive,
+			boolean isDescending) {
+		if (lo != null && hi != null &&
+				AdaptiveRadixTree.compare(lo, 0, lo.length, hi, 0, hi.length) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		this.m = m;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.isDescending = isDescending;
+	}
+
+	// internal utilities
+
+	private boolean tooLow(byte[] key) {
+		if (lo != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, lo, 0, lo.length);
+			return c < 0 || (c == 0 && !loInclusive);
+		}
+		return false;
+	}
+
+	private boolean tooHigh(byte[] key) {
+		if (hi != null) {
+			int c = AdaptiveRadixTree.compare(key, 0, key.length, hi, 0, hi.length);
+			return c > 0 || (c == 0 && !hiInclusive);
+		}
+		return false;
+	}
+
+	private boolean inRange(byte[] key) {
+		return !tooLow(key) && !tooHigh(key);
+	}
+
+	private boolean isUnbounded() {
+		return lo == null && hi == null;
+	}
+
+	/*
+	 * Absolute versions of relation operations, mapped to by the
+	 * public methods inverting senses for descending maps.
+	 */
+
+	private LeafNode<K, V> absLowest() {
+		LeafNode<K, V> e = lo == null ? m.findFirst() : m.findCeiling(lo, loInclusive);
+		return (e == null || tooHigh(e.getKeyBytes())) ? null : e;
+	}
+
+	private LeafNode<K, V> absHighest() {
+		LeafNode<K, V> e = hi == null ? m.findLast() : m.findFloor(hi, hiInclusive);
+		return (e == null || tooLow(e.getKeyBytes())) ? null : e;
+	}
+
+	private LeafNode<K, V> absCeiling(byte[] key, boolean inclusive) {
+		if (tooLow(key))
+			return absLowest();
+		LeafNode<K, V> e = m.findCeiling(key, inclusive);
+		return (e == null || tooHigh(e.getKeyBytes())) ? null : e;
+	}
+
+	private LeafNode<K, V> absFloor(byte[] key, boolean inclusive) {
+		if (tooHigh(key))
+			return absHighest();
+		LeafNode<K, V> e = m.findFloor(key, inclusive);
+		return (e == null || tooLow(e.getKeyBytes())) ? null : e;
+	}
+
+	private LeafNode<K, V> lowest() {
+		return isDescending ? absHighest() : absLowest();
+	}
+
+	private LeafNode<K, V> highest() {
+		return isDescending ? absLowest() : absHighest();
+	}
+
+	// the next entry after key in this view's direction
+	private LeafNode<K, V> next(byte[] key) {
+		return isDescending ? absFloor(key, false) : absCeiling(key, false);
+	}
+
+	// public methods
+
+	@Override
+	public boolean containsKey(Object key) {
+		byte[] bytes = m.keyBytes(key);
+		return inRange(bytes) && m.getEntry(bytes) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		byte[] bytes = m.keyBytes(key);
+		if (!inRange(bytes))
+			return null;
+		LeafNode<K, V> e = m.getEntry(bytes);
+		return e == null ? null : e.getValue();
+	}
+
+	@Override
+	public V put(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V remove(Object key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int size() {
+		if (isUnbounded())
+			return m.size();
+		int count = 0;
+		for (LeafNode<K, V> e = lowest(); e != null; e = next(e.getKeyBytes()))
+			count++;
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return lowest() == null;
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return AdaptiveRadixTree.exportEntry(ceiling(key));
+	}
+
+	private LeafNode<K, V> ceiling(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absFloor(bytes, true) : absCeiling(bytes, true);
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(ceiling(key));
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return AdaptiveRadixTree.exportEntry(higher(key));
+	}
+
+	private LeafNode<K, V> higher(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absFloor(bytes, false) : absCeiling(bytes, false);
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(higher(key));
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return AdaptiveRadixTree.exportEntry(floor(key));
+	}
+
+	private LeafNode<K, V> floor(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absCeiling(bytes, true) : absFloor(bytes, true);
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(floor(key));
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return AdaptiveRadixTree.exportEntry(lower(key));
+	}
+
+	private LeafNode<K, V> lower(K key) {
+		byte[] bytes = m.keyBytes(key);
+		return isDescending ? absCeiling(bytes, false) : absFloor(bytes, false);
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return AdaptiveRadixTree.keyOrNull(lower(key));
+	}
+
+	@Override
+	public K firstKey() {
+		return AdaptiveRadixTree.key(lowest());
+	}
+
+	@Override
+	public K lastKey() {
+		return AdaptiveRadixTree.key(highest());
+	}
+
+	@Override
+	public Entry<K, V> firstEntry() {
+		return AdaptiveRadixTree.exportEntry(lowest());
+	}
+
+	@Override
+	public Entry<K, V> lastEntry() {
+		return AdaptiveRadixTree.exportEntry(highest());
+	}
+
+	@Override
+	public Entry<K, V> pollFirstEntry() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Entry<K, V> pollLastEntry() {
+		throw new UnsupportedOperationException();
+	}
+
+	// submaps of submaps
+
+	/*
+		fromKey, toKey are from the perspective of this view.
+		A bound that isn't given (null) is inherited, a given one must lie within ours.
+	 */
+	private SnapshotMap<K, V> newSubMap(K fromKey, boolean fromInclusive,
+			K toKey, boolean toInclusive) {
+		byte[] from = fromKey == null ? null : m.keyBytes(fromKey);
+		byte[] to = toKey == null ? null : m.keyBytes(toKey);
+		if (isDescending) { // flip senses
+			byte[] tb = from;
+			from = to;
+			to = tb;
+			boolean ti = fromInclusive;
+			fromInclusive = toInclusive;
+			toInclusive = ti;
+		}
+		if (lo != null) {
+			if (from == null) {
+				from = lo;
+				fromInclusive = loInclusive;
+			}
+			else {
+				int c = AdaptiveRadixTree.compare(from, 0, from.length, lo, 0, lo.length);
+				if (c < 0 || (c == 0 && !loInclusive && fromInclusive))
+					throw new IllegalArgumentException("key out of range");
+			}
+		}
+		if (hi != null) {
+			if (to == null) {
+				to = hi;
+				toInclusive = hiInclusive;
+			}
+			else {
+				int c = AdaptiveRadixTree.compare(to, 0, to.length, hi, 0, hi.length);
+				if (c > 0 || (c == 0 && !hiInclusive && toInclusive))
+					throw new IllegalArgumentException("key out of range");
+			}
+		}
+		return new SnapshotMap<>(m, from, fromInclusive, to, toInclusive, isDescending);
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		Objects.requireNonNull(fromKey);
+		Objects.requireNonNull(toKey);
+		return newSubMap(fromKey, fromInclusive, toKey, toInclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		Objects.requireNonNull(toKey);
+		return newSubMap(null, false, toKey, inclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		Objects.requireNonNull(fromKey);
+		return newSubMap(fromKey, inclusive, null, false);
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		SnapshotMap<K, V> dm = descendingMapView;
+		return (dm != null) ? dm : (descendingMapView =
+				new SnapshotMap<>(m, lo, loInclusive, hi, hiInclusive, !isDescending));
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return null;
+	}
+
+	// Views
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		KeySet<K> ks = keySetView;
+		return (ks != null) ? ks : (keySetView = new KeySet<>(this));
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		Set<Entry<K, V>> es = entrySetView;
+		return (es != null) ? es : (entrySetView = new EntrySetView());
+	}
+
+	@Override
+	public Collection<V> values() {
+		Collection<V> vs = valuesView;
+		return (vs != null) ? vs : (valuesView = new ValuesView());
+	}
+
+	Iterator<K> keyIterator() {
+		return new SubMapIterator<K>() {
+			@Override
+			public K next() {
+				return nextEntry().getKey();
+			}
+		};
+	}
+
+	Iterator<K> descendingKeyIterator() {
+		return ((SnapshotMap<K, V>) descendingMap()).keyIterator();
+	}
+
+	private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SubMapIterator<Entry<K, V>>() {
+				@Override
+				public Entry<K, V> next() {
+					return AdaptiveRadixTree.exportEntry(nextEntry());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return SnapshotMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SnapshotMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return containsKey(e.getKey()) && Objects.equals(get(e.getKey()), e.getValue());
+		}
+	}
+
+	private final class ValuesView extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new SubMapIterator<V>() {
+				@Override
+				public V next() {
+					return nextEntry().getValue();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return SnapshotMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SnapshotMap.this.isEmpty();
+		}
+	}
+
+	// continues from the last returned key
+	private abstract class SubMapIterator<T> implements Iterator<T> {
+		private LeafNode<K, V> next;
+
+		SubMapIterator() {
+			next = lowest();
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return next != null;
+		}
+
+		final LeafNode<K, V> nextEntry() {
+			LeafNode<K, V> e = next;
+			if (e == null)
+				throw new NoSuchElementException();
+			next = SnapshotMap.this.next(e.getKeyBytes());
+			return e;
+		}
+	}
+}
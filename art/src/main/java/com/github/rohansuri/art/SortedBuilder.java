@@ -0,0 +1,188 @@
+package com.github.rohansuri.art;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+	builds an ART bottom up out of entries sorted by their binary comparable keys,
+	in a single pass and without descending from the root for every key.
+
+	the inner nodes along the rightmost path of the tree built so far are kept open on a stack,
+	with their children buffered. a node is closed once a key arrives that branches out above it,
+	only then do we know all it's children and hence create it once, of it's final size.
+
+	every inner node is identified by it's branch depth (the depth at which it's children differ).
+	for every next key, the longest common prefix with the previous key tells us
+	the branch depth at which it goes into the tree:
+	open nodes deeper than that are closed and the key becomes a child of the node at that depth
+	(which is created if it isn't open yet).
+ */
+final class SortedBuilder<K, V> {
+	private final BinaryComparable<K> binaryComparable;
+	// whether to build counted nodes, for a tree keeping order statistics
+	private final boolean orderStatistics;
+
+	// open inner nodes, from root to the deepest
+	private Frame[] stack = new Frame[16];
+	private int top = -1;
+
+	// the last closed subtree (or the previous leaf) that hasn't yet been added to it's parent
+	private Node pending;
+	private LeafNode<K, V> previous;
+	private int size;
+
+	SortedBuilder(BinaryComparable<K> binaryComparable, boolean orderStatistics) {
+		this.binaryComparable = binaryComparable;
+		this.orderStatistics = orderStatistics;
+	}
+
+	private static final class Frame {
+		// depth of it's children's partial key
+		int branchDepth;
+		final byte[] keys = new byte[Node256.NODE_SIZE];
+		final Node[] children = new Node[Node256.NODE_SIZE];
+		int noOfChildren;
+		LeafNode<?, ?> leaf;
+		// a key of this subtree, to copy the compressed path from
+		byte[] path;
+
+		void add(byte partialKey, Node child) {
+			keys[noOfChildren] = partialKey;
+			children[noOfChildren++] = child;
+		}
+
+		// depth is where this node's compressed path starts,
+		// which is only known once we know the parent this node goes into
+		InnerNode close(int depth, boolean counted) {
+			InnerNode node = InnerNode.newNode(noOfChildren, counted);
+			node.prefixLen = branchDepth - depth;
+			System.arraycopy(path, depth, node.prefixKeys, 0, Math
+					.min(node.prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+			int leaves = 0;
+			if (leaf != null) {
+				node.setLeaf(leaf);
+				leaves++;
+			}
+			for (int i = 0; i < noOfChildren; i++) {
+				node.addChild(keys[i], children[i]);
+				if (counted) {
+					leaves += AdaptiveRadixTree.count(children[i]);
+				}
+				children[i] = null;
+			}
+			if (counted) {
+				node.setLeafCount(leaves);
+			}
+			noOfChildren = 0;
+			leaf = null;
+			path = null;
+			return node;
+		}
+	}
+
+	void add(K key, V value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		KeyBuffer keyBuffer = KeyBuffer.acquire(binaryComparable, key);
+		try {
+			add(keyBuffer.bytes, keyBuffer.length, key, value);
+		}
+		finally {
+			keyBuffer.release();
+		}
+	}
+
+	// adds a copy of an entry of another tree
+	void add(LeafNode<K, V> e) {
+		add(e.getKeyBytes(), e.getKeyBytes().length, e.getKey(), e.getValue());
+	}
+
+	// only the first keyLen bytes of keyBytes are the key's
+	private void add(byte[] keyBytes, int keyLen, K key, V value) {
+		LeafNode<K, V> leaf = new LeafNode<>(keyBytes, keyLen, key, value);
+		if (previous == null) {
+			pending = previous = leaf;
+			size = 1;
+			return;
+		}
+		byte[] prev = previous.getKeyBytes();
+		int end = Math.min(prev.length, keyLen);
+		int lcp = 0;
+		for (; lcp < end && prev[lcp] == keyBytes[lcp]; lcp++) ;
+		if (lcp == keyLen || (lcp < prev.length && Byte.toUnsignedInt(prev[lcp]) > Byte
+				.toUnsignedInt(keyBytes[lcp]))) {
+			throw new IllegalArgumentException("keys are not in strictly ascending order");
+		}
+
+		// close open nodes deeper than where this key branches out
+		while (top >= 0 && stack[top].branchDepth > lcp) {
+			Frame f = stack[top--];
+			f.add(prev[f.branchDepth], pending);
+			// parent is the next open node, or a node at lcp that is yet to be opened
+			int parentBranchDepth = top >= 0 ? Math.max(stack[top].branchDepth, lcp) : lcp;
+			pending = f.close(parentBranchDepth + 1, orderStatistics);
+		}
+
+		if (top >= 0 && stack[top].branchDepth == lcp) {
+			stack[top].add(prev[lcp], pending);
+		}
+		else {
+			Frame f = push();
+			f.branchDepth = lcp;
+			f.path = prev;
+			if (lcp == prev.length) {
+				// previous key is a prefix of this key
+				// (which also means pending is the previous leaf itself)
+				f.leaf = (LeafNode<?, ?>) pending;
+			}
+			else {
+				f.add(prev[lcp], pending);
+			}
+		}
+		pending = previous = leaf;
+		size++;
+	}
+
+	private Frame push() {
+		if (++top == stack.length) {
+			Frame[] grown = new Frame[stack.length << 1];
+			System.arraycopy(stack, 0, grown, 0, stack.length);
+			stack = grown;
+		}
+		if (stack[top] == null) {
+			stack[top] = new Frame();
+		}
+		return stack[top];
+	}
+
+	// closes all open nodes, returns the root (null if no keys were added)
+	Node build() {
+		if (previous != null) {
+			byte[] prev = previous.getKeyBytes();
+			while (top >= 0) {
+				Frame f = stack[top--];
+				f.add(prev[f.branchDepth], pending);
+				pending = f.close(top >= 0 ? stack[top].branchDepth + 1 : 0, orderStatistics);
+			}
+		}
+		Node root = pending;
+		pending = previous = null;
+		return root;
+	}
+
+	int size() {
+		return size;
+	}
+
+	static <K, V> AdaptiveRadixTree<K, V> build(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+			BinaryComparable<K> binaryComparable) {
+		SortedBuilder<K, V> builder = new SortedBuilder<>(binaryComparable, false);
+		while (entries.hasNext()) {
+			Map.Entry<? extends K, ? extends V> e = entries.next();
+			builder.add(e.getKey(), e.getValue());
+		}
+		int size = builder.size();
+		return new AdaptiveRadixTree<>(binaryComparable, builder.build(), size);
+	}
+}
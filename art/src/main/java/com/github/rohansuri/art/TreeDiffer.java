@@ -0,0 +1,225 @@
+package com.github.rohansuri.art;
+
+/*
+	finds the differences between two trees by descending both together,
+	the same way TreeJoiner does, except that keys only on either side are reported too.
+
+	a subtree both trees share (the same node) has no differences and is skipped right away,
+	which is what makes diffing a tree against an earlier copy of itself
+	(sharing all unchanged nodes) cost close to the size of the difference.
+	otherwise node pairs are compared by their compressed paths and the partial keys of their children,
+	regardless of their type (the same keys can be in a Node4 on one side and a Node16 on the other).
+	only where one side is down to a leaf are the leaves of the other side compared against it by key.
+
+	since nodes can be shared between trees (see PersistentAdaptiveRadixTree), uplinks are not relied upon:
+	children are iterated by copying them out of their parent.
+ */
+final class TreeDiffer {
+	private final DiffListener<Object, Object> listener;
+	// stop at the first difference, for equals
+	private final boolean stopAtFirst;
+	boolean differs;
+
+	// when diffing a single leaf against a subtree, the leaf until it's been reported
+	private LeafNode<?, ?> single;
+	private boolean singleIsLeft;
+
+	TreeDiffer(DiffListener<Object, Object> listener, boolean stopAtFirst) {
+		this.listener = listener;
+		this.stopAtFirst = stopAtFirst;
+	}
+
+	// either root can be null (an empty tree)
+	void diff(Node left, Node right) {
+		if (left == null || right == null) {
+			if (left != null) {
+				only(left, true);
+			}
+			else if (right != null) {
+				only(right, false);
+			}
+			return;
+		}
+		diff(left, 0, right, 0, 0);
+	}
+
+	private boolean done() {
+		return stopAtFirst && differs;
+	}
+
+	// a's path (starting at aStart) and b's path (starting at bStart) are the same till depth
+	private void diff(Node a, int aStart, Node b, int bStart, int depth) {
+		if (a == b || done()) {
+			return;
+		}
+		if (a instanceof LeafNode || b instanceof LeafNode) {
+			diffLeaves(a, b);
+			return;
+		}
+
+		InnerNode aNode = (InnerNode) a, bNode = (InnerNode) b;
+		int aBranchDepth = aStart + aNode.prefixLen, bBranchDepth = bStart + bNode.prefixLen;
+		byte[] aKey = AdaptiveRadixTree.getFirstEntry(a).getKeyBytes();
+		byte[] bKey = AdaptiveRadixTree.getFirstEntry(b).getKeyBytes();
+		for (int end = Math.min(aBranchDepth, bBranchDepth); depth < end; depth++) {
+			if (aKey[depth] != bKey[depth]) {
+				// paths differ, nothing in common
+				boolean aFirst = Byte.toUnsignedInt(aKey[depth]) < Byte.toUnsignedInt(bKey[depth]);
+				only(aFirst ? a : b, aFirst);
+				only(aFirst ? b : a, !aFirst);
+				return;
+			}
+		}
+
+		if (aBranchDepth != bBranchDepth) {
+			// the deeper node can only be under the shallower one's child for the next byte of it's path,
+			// every other key of the shallower node is only on it's side
+			boolean aShallow = aBranchDepth < bBranchDepth;
+			InnerNode shallow = aShallow ? aNode : bNode;
+			Node deep = aShallow ? b : a;
+			int deepStart = aShallow ? bStart : aStart;
+			int branchDepth = aShallow ? aBranchDepth : bBranchDepth;
+			int partialKey = Byte.toUnsignedInt((aShallow ? bKey : aKey)[branchDepth]);
+			if (shallow.hasLeaf()) {
+				only(shallow.getLeaf(), aShallow);
+			}
+			boolean deepDone = false;
+			byte[] keys = new byte[shallow.size()];
+			Node[] children = new Node[shallow.size()];
+			int n = shallow.copyChildren(keys, children);
+			for (int i = 0; i < n && !done(); i++) {
+				Node child = children[i];
+				int k = Byte.toUnsignedInt(keys[i]);
+				if (!deepDone && k >= partialKey) {
+					deepDone = true;
+					if (k == partialKey) {
+						if (aShallow) {
+							diff(child, branchDepth + 1, deep, deepStart, branchDepth + 1);
+						}
+						else {
+							diff(deep, deepStart, child, branchDepth + 1, branchDepth + 1);
+						}
+						continue;
+					}
+					only(deep, !aShallow);
+				}
+				only(child, aShallow);
+			}
+			if (!deepDone) {
+				only(deep, !aShallow);
+			}
+			return;
+		}
+
+		// both branch at the same depth, compare the leaves and then the children by partial key
+		if (aNode.hasLeaf() || bNode.hasLeaf()) {
+			if (!bNode.hasLeaf()) {
+				only(aNode.getLeaf(), true);
+			}
+			else if (!aNode.hasLeaf()) {
+				only(bNode.getLeaf(), false);
+			}
+			else {
+				compareValues(aNode.getLeaf(), bNode.getLeaf());
+			}
+		}
+		int next = aBranchDepth + 1;
+		byte[] aKeys = new byte[aNode.size()], bKeys = new byte[bNode.size()];
+		Node[] aChildren = new Node[aNode.size()], bChildren = new Node[bNode.size()];
+		int aSize = aNode.copyChildren(aKeys, aChildren), bSize = bNode.copyChildren(bKeys, bChildren);
+		int i = 0, j = 0;
+		while ((i < aSize || j < bSize) && !done()) {
+			int c = i == aSize ? 1 : j == bSize ? -1 : Integer
+					.compare(Byte.toUnsignedInt(aKeys[i]), Byte.toUnsignedInt(bKeys[j]));
+			if (c < 0) {
+				only(aChildren[i++], true);
+			}
+			else if (c > 0) {
+				only(bChildren[j++], false);
+			}
+			else {
+				diff(aChildren[i++], next, bChildren[j++], next, next);
+			}
+		}
+	}
+
+	// at least one of them is a leaf, which is compared at it's place among the other's leaves
+	private void diffLeaves(Node a, Node b) {
+		singleIsLeft = a instanceof LeafNode;
+		single = (LeafNode<?, ?>) (singleIsLeft ? a : b);
+		visitLeaves(singleIsLeft ? b : a);
+		if (single != null) {
+			only(single, singleIsLeft);
+			single = null;
+		}
+	}
+
+	// in order, every leaf of the other side is reported, except the one with single's key
+	private void visitLeaves(Node node) {
+		if (done()) {
+			return;
+		}
+		if (node instanceof LeafNode) {
+			LeafNode<?, ?> leaf = (LeafNode<?, ?>) node;
+			if (single != null) {
+				int c = AdaptiveRadixTree.compare(single.getKeyBytes(), 0, single.getKeyBytes().length, leaf
+						.getKeyBytes(), 0, leaf.getKeyBytes().length);
+				if (c == 0) {
+					compareValues(singleIsLeft ? single : leaf, singleIsLeft ? leaf : single);
+					single = null;
+					return;
+				}
+				if (c < 0) {
+					only(single, singleIsLeft);
+					single = null;
+				}
+			}
+			only(leaf, !singleIsLeft);
+			return;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		if (innerNode.hasLeaf()) {
+			visitLeaves(innerNode.getLeaf());
+		}
+		Node[] children = new Node[innerNode.size()];
+		int n = innerNode.copyChildren(new byte[children.length], children);
+		for (int i = 0; i < n; i++) {
+			visitLeaves(children[i]);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void compareValues(LeafNode<?, ?> a, LeafNode<?, ?> b) {
+		if (a != b && !AdaptiveRadixTree.valEquals(a.getValue(), b.getValue())) {
+			differs = true;
+			listener.changed((LeafNode<Object, Object>) a, (LeafNode<Object, Object>) b);
+		}
+	}
+
+	// all keys of the subtree are only in the left (removed) or the right (added) tree
+	@SuppressWarnings("unchecked")
+	private void only(Node node, boolean left) {
+		if (done()) {
+			return;
+		}
+		differs = true;
+		if (node instanceof LeafNode) {
+			if (left) {
+				listener.removed((LeafNode<Object, Object>) node);
+			}
+			else {
+				listener.added((LeafNode<Object, Object>) node);
+			}
+			return;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		if (innerNode.hasLeaf()) {
+			only(innerNode.getLeaf(), left);
+		}
+		Node[] children = new Node[innerNode.size()];
+		int n = innerNode.copyChildren(new byte[children.length], children);
+		for (int i = 0; i < n; i++) {
+			only(children[i], left);
+		}
+	}
+}
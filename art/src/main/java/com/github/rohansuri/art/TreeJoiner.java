@@ -0,0 +1,195 @@
+package com.github.rohansuri.art;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/*
+	finds the keys two trees have in common (and optionally the ones only the left one has),
+	by descending both trees together rather than iterating them and comparing whole keys.
+
+	at every pair of nodes, their compressed paths are compared first: if they differ
+	the two subtrees have no keys in common. if one path ends before the other,
+	the deeper node can only be under the shallower one's child for the next byte of it's path.
+	otherwise both nodes branch at the same depth and we leapfrog over the partial keys
+	of their children (ceil on one, then ceil on the other) to find the ones both have.
+	a subtree only one side has is skipped as a whole, hence the work done is proportional
+	to the smaller tree (times the length of it's keys), not to the larger one.
+
+	once either side is down to a leaf, it's key is looked up in the other side's subtree.
+
+	keys are reported in ascending order. for keys only in the left tree, the subtrees
+	the right tree doesn't have are walked instead of skipped.
+ */
+final class TreeJoiner {
+	private final BiConsumer<LeafNode<?, ?>, LeafNode<?, ?>> inBoth;
+	// null if the keys only in the left tree are of no interest
+	private final Consumer<LeafNode<?, ?>> onlyInLeft;
+
+	TreeJoiner(BiConsumer<LeafNode<?, ?>, LeafNode<?, ?>> inBoth, Consumer<LeafNode<?, ?>> onlyInLeft) {
+		this.inBoth = inBoth;
+		this.onlyInLeft = onlyInLeft;
+	}
+
+	// either root can be null (an empty tree)
+	void join(Node left, Node right) {
+		if (left == null) {
+			return;
+		}
+		if (right == null) {
+			onlyInLeft(left);
+			return;
+		}
+		join(left, 0, right, 0, 0);
+	}
+
+	// a's path (starting at aStart) and b's path (starting at bStart) are the same till depth
+	private void join(Node a, int aStart, Node b, int bStart, int depth) {
+		if (a instanceof LeafNode) {
+			LeafNode<?, ?> aLeaf = (LeafNode<?, ?>) a;
+			LeafNode<?, ?> bLeaf = find(b, bStart, aLeaf.getKeyBytes());
+			if (bLeaf != null) {
+				inBoth.accept(aLeaf, bLeaf);
+			}
+			else if (onlyInLeft != null) {
+				onlyInLeft.accept(aLeaf);
+			}
+			return;
+		}
+		if (b instanceof LeafNode) {
+			LeafNode<?, ?> bLeaf = (LeafNode<?, ?>) b;
+			LeafNode<?, ?> aLeaf = find(a, aStart, bLeaf.getKeyBytes());
+			if (onlyInLeft == null) {
+				if (aLeaf != null) {
+					inBoth.accept(aLeaf, bLeaf);
+				}
+				return;
+			}
+			Path path = new Path();
+			for (Node e = path.first(a); e != null; e = path.successor()) {
+				if (e == aLeaf) {
+					inBoth.accept(aLeaf, bLeaf);
+				}
+				else {
+					onlyInLeft.accept((LeafNode<?, ?>) e);
+				}
+			}
+			return;
+		}
+
+		InnerNode aNode = (InnerNode) a, bNode = (InnerNode) b;
+		int aBranchDepth = aStart + aNode.prefixLen, bBranchDepth = bStart + bNode.prefixLen;
+		byte[] aKey = AdaptiveRadixTree.getFirstEntry(a).getKeyBytes();
+		byte[] bKey = AdaptiveRadixTree.getFirstEntry(b).getKeyBytes();
+		for (int end = Math.min(aBranchDepth, bBranchDepth); depth < end; depth++) {
+			if (aKey[depth] != bKey[depth]) { // paths differ
+				onlyInLeft(a);
+				return;
+			}
+		}
+
+		if (aBranchDepth < bBranchDepth) {
+			// b can only be under a's child for the next byte of b's path
+			byte partialKey = bKey[aBranchDepth];
+			if (onlyInLeft == null) {
+				Node child = aNode.findChild(partialKey);
+				if (child != null) {
+					join(child, aBranchDepth + 1, b, bStart, aBranchDepth + 1);
+				}
+				return;
+			}
+			if (aNode.hasLeaf()) {
+				onlyInLeft.accept(aNode.getLeaf());
+			}
+			for (Node child = aNode.first(); child != null; child = aNode.greater(child.uplinkKey())) {
+				if (child.uplinkKey() == partialKey) {
+					join(child, aBranchDepth + 1, b, bStart, aBranchDepth + 1);
+				}
+				else {
+					onlyInLeft(child);
+				}
+			}
+			return;
+		}
+		if (bBranchDepth < aBranchDepth) {
+			// a can only be under b's child for the next byte of a's path
+			Node child = bNode.findChild(aKey[bBranchDepth]);
+			if (child != null) {
+				join(a, aStart, child, bBranchDepth + 1, bBranchDepth + 1);
+			}
+			else {
+				onlyInLeft(a);
+			}
+			return;
+		}
+
+		// both branch at the same depth
+		if (aNode.hasLeaf()) {
+			if (bNode.hasLeaf()) {
+				inBoth.accept(aNode.getLeaf(), bNode.getLeaf());
+			}
+			else if (onlyInLeft != null) {
+				onlyInLeft.accept(aNode.getLeaf());
+			}
+		}
+		int next = aBranchDepth + 1;
+		if (onlyInLeft == null) {
+			// leapfrog to the partial keys both have
+			Node aChild = aNode.first(), bChild;
+			while (aChild != null && (bChild = bNode.ceil(aChild.uplinkKey())) != null) {
+				if (bChild.uplinkKey() == aChild.uplinkKey()) {
+					join(aChild, next, bChild, next, next);
+					aChild = aNode.greater(aChild.uplinkKey());
+				}
+				else {
+					aChild = aNode.ceil(bChild.uplinkKey());
+				}
+			}
+			return;
+		}
+		for (Node aChild = aNode.first(); aChild != null; aChild = aNode.greater(aChild.uplinkKey())) {
+			Node bChild = bNode.findChild(aChild.uplinkKey());
+			if (bChild != null) {
+				join(aChild, next, bChild, next, next);
+			}
+			else {
+				onlyInLeft(aChild);
+			}
+		}
+	}
+
+	// all keys of the subtree are only in the left tree
+	private void onlyInLeft(Node node) {
+		if (onlyInLeft == null) {
+			return;
+		}
+		if (node instanceof LeafNode) {
+			onlyInLeft.accept((LeafNode<?, ?>) node);
+			return;
+		}
+		InnerNode innerNode = (InnerNode) node;
+		if (innerNode.hasLeaf()) {
+			onlyInLeft.accept(innerNode.getLeaf());
+		}
+		for (Node child = innerNode.first(); child != null; child = innerNode.greater(child.uplinkKey())) {
+			onlyInLeft(child);
+		}
+	}
+
+	/*
+		the leaf for key in the subtree whose path starts at depth, null if there's none.
+		compressed paths are skipped optimistically, the leaf reached is compared in full.
+	 */
+	private static LeafNode<?, ?> find(Node node, int depth, byte[] key) {
+		while (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			depth += innerNode.prefixLen;
+			if (depth > key.length) {
+				return null;
+			}
+			node = depth == key.length ? innerNode.getLeaf() : innerNode.findChild(key[depth++]);
+		}
+		LeafNode<?, ?> leaf = (LeafNode<?, ?>) node;
+		return leaf != null && Arrays.equals(leaf.getKeyBytes(), key) ? leaf : null;
+	}
+}
@@ -0,0 +1,392 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/*
+	splits a tree into two at a key, joins two trees whose key ranges don't overlap
+	and merges one tree into another.
+
+	split: only the nodes on the key's path can have keys on both sides of it.
+	we descend along that path and at every such node, the children lesser than the key's partial key
+	(and the leaf, a prefix of the key) go left, the greater ones go right and the one on the path is recursed into.
+	the two sides are then rebuilt as new nodes with the same compressed path, all the children
+	are moved as is, without being visited.
+
+	join: all keys of the left tree are lesser than all keys of the right tree,
+	so the two can only meet along the rightmost path of the left and the leftmost path of the right.
+	we descend both together, as long as their compressed paths agree. where one path is a prefix
+	of the other, the deeper node becomes a child of the shallower one (or is joined with the child
+	already there) and where they disagree a new node branches out into the two.
+
+	merge: like join, but the two trees can meet anywhere. where only one of them has a child,
+	it is kept (or adopted from the other tree) as is, only the children both have are recursed into.
+	leaves with the same key have their values resolved, the merged into tree's leaf keeps it's place.
+
+	a node built anew is fixed up the same way deleteEntry would:
+	sized to fit it's children, replaced by it's leaf or path compressed into it's only child.
+	only the compressed paths and uplinks along the split/join path are touched,
+	hence the work done is proportional to the length of the key (times the fan-out of the nodes on it's path).
+	for a merge, it is proportional to the paths both trees share, not to the size of either.
+ */
+final class TreeSplicer {
+	private final boolean orderStatistics;
+
+	// key to split at
+	private byte[] key;
+	private int keyLen;
+	// right part of the last split, the left part is returned
+	private Node right;
+
+	// resolves the values of keys in both trees being merged
+	private BinaryOperator<Object> resolver;
+	// no of keys in both trees being merged
+	int overlap;
+	// leaves resolved to a null value, to be removed after the merge
+	final List<LeafNode<?, ?>> resolvedToNull = new ArrayList<>();
+
+	TreeSplicer(boolean orderStatistics) {
+		this.orderStatistics = orderStatistics;
+	}
+
+	/*
+		keys lesser than key stay in root's tree, the rest go into the returned tree.
+		returns {left root, right root}, either can be null.
+	 */
+	Node[] split(Node root, byte[] key, int keyLen) {
+		this.key = key;
+		this.keyLen = keyLen;
+		Node left = split(root, 0);
+		Node[] roots = {left, right};
+		right = null;
+		return roots;
+	}
+
+	// all keys of left are lesser than all keys of right
+	Node join(Node left, Node right) {
+		return join(left, right, 0);
+	}
+
+	// other's nodes are moved into base, values of the keys in both are resolved
+	Node merge(Node base, Node other, BinaryOperator<Object> resolver) {
+		this.resolver = resolver;
+		Node root = merge(base, other, 0);
+		this.resolver = null;
+		return root;
+	}
+
+	// node's path till depth is key's
+	private Node split(Node node, int depth) {
+		if (node instanceof LeafNode) {
+			byte[] leafKey = ((LeafNode<?, ?>) node).getKeyBytes();
+			boolean lesser = AdaptiveRadixTree.compare(leafKey, 0, leafKey.length, key, 0, keyLen) < 0;
+			right = lesser ? null : node;
+			return lesser ? node : null;
+		}
+
+		InnerNode innerNode = (InnerNode) node;
+		int c = AdaptiveRadixTree.compareOptimisticCompressedPath(innerNode, key, keyLen, depth);
+		int branchDepth = depth + innerNode.prefixLen;
+		if (c > 0 || (c == 0 && keyLen == branchDepth)) { // all keys greater than (or equal to) key
+			right = node;
+			return null;
+		}
+		if (c < 0) { // all keys lesser than key
+			right = null;
+			return node;
+		}
+
+		int partialKey = Byte.toUnsignedInt(key[branchDepth]);
+		int size = innerNode.size();
+		byte[] leftKeys = new byte[size + 1], rightKeys = new byte[size + 1];
+		Node[] leftChildren = new Node[size + 1], rightChildren = new Node[size + 1];
+		int noOfLeft = 0, noOfRight = 1; // keeping the first for mid's right part
+		Node mid = null;
+		for (Node child = innerNode.first(); child != null; child = innerNode.greater(child.uplinkKey())) {
+			int k = Byte.toUnsignedInt(child.uplinkKey());
+			if (k < partialKey) {
+				leftKeys[noOfLeft] = child.uplinkKey();
+				leftChildren[noOfLeft++] = child;
+			}
+			else if (k > partialKey) {
+				rightKeys[noOfRight] = child.uplinkKey();
+				rightChildren[noOfRight++] = child;
+			}
+			else {
+				mid = child;
+			}
+		}
+		LeafNode<?, ?> leaf = innerNode.getLeaf();
+		Node midLeft = null, midRight = null;
+		if (mid != null) {
+			midLeft = split(mid, branchDepth + 1);
+			midRight = right;
+		}
+		// nothing to split, the node as is goes on one side
+		if (noOfRight == 1 && midRight == null) {
+			right = null;
+			return node;
+		}
+		if (noOfLeft == 0 && leaf == null && midLeft == null) {
+			right = node;
+			return null;
+		}
+		if (midLeft != null) {
+			leftKeys[noOfLeft] = (byte) partialKey;
+			leftChildren[noOfLeft++] = midLeft;
+		}
+		if (midRight != null) {
+			rightKeys[0] = (byte) partialKey;
+			rightChildren[0] = midRight;
+		}
+		int firstRight = rightChildren[0] == null ? 1 : 0;
+		right = build(depth, innerNode.prefixLen, null, rightKeys, rightChildren, firstRight, noOfRight);
+		return build(depth, innerNode.prefixLen, leaf, leftKeys, leftChildren, 0, noOfLeft);
+	}
+
+	/*
+		all keys of a are lesser than all keys of b and both their paths till depth are the same.
+		returns the node to take their place.
+	 */
+	private Node join(Node a, Node b, int depth) {
+		// a's last and b's first key, the closest two
+		byte[] aKey = AdaptiveRadixTree.getLastEntry(a).getKeyBytes();
+		byte[] bKey = AdaptiveRadixTree.getFirstEntry(b).getKeyBytes();
+		int aLen = a instanceof InnerNode ? ((InnerNode) a).prefixLen : aKey.length - depth;
+		int bLen = b instanceof InnerNode ? ((InnerNode) b).prefixLen : bKey.length - depth;
+		int end = Math.min(aLen, bLen);
+		int lcp = 0;
+		for (; lcp < end && aKey[depth + lcp] == bKey[depth + lcp]; lcp++) ;
+		int branchDepth = depth + lcp;
+
+		if (lcp < aLen && lcp < bLen) {
+			// paths differ, branch out into the two
+			shorten(a, depth, lcp + 1);
+			shorten(b, depth, lcp + 1);
+			return build(depth, lcp,
+					null, new byte[]{aKey[branchDepth], bKey[branchDepth]}, new Node[]{a, b}, 0, 2);
+		}
+		if (lcp == aLen && lcp == bLen) {
+			// same paths. b can't have a leaf (that would be lesser than all of a's keys)
+			InnerNode bNode = (InnerNode) b;
+			assert !bNode.hasLeaf();
+			if (a instanceof LeafNode) {
+				// a is the key ending at b
+				bNode.setLeaf((LeafNode<?, ?>) a);
+				return recount(bNode);
+			}
+			// merge the children, only a's last and b's first can have the same partial key
+			InnerNode aNode = (InnerNode) a;
+			int noOfChildren = aNode.size() + bNode.size();
+			byte[] keys = new byte[noOfChildren];
+			Node[] children = new Node[noOfChildren];
+			int n = 0;
+			for (Node child = aNode.first(); child != null; child = aNode.greater(child.uplinkKey())) {
+				keys[n] = child.uplinkKey();
+				children[n++] = child;
+			}
+			int aLast = n - 1;
+			for (Node child = bNode.first(); child != null; child = bNode.greater(child.uplinkKey())) {
+				keys[n] = child.uplinkKey();
+				children[n++] = child;
+			}
+			// joined only after collecting, since joining re-links the children's uplinks we iterate by
+			if (keys[aLast] == keys[aLast + 1]) {
+				children[aLast] = join(children[aLast], children[aLast + 1], branchDepth + 1);
+				System.arraycopy(keys, aLast + 2, keys, aLast + 1, n - aLast - 2);
+				System.arraycopy(children, aLast + 2, children, aLast + 1, n - aLast - 2);
+				n--;
+			}
+			return build(depth, lcp, aNode.getLeaf(), keys, children, 0, n);
+		}
+		if (lcp == aLen) {
+			// a's path is a prefix of b's, b goes under a
+			byte partialKey = bKey[branchDepth];
+			shorten(b, depth, lcp + 1);
+			if (a instanceof LeafNode) {
+				return build(depth, lcp, (LeafNode<?, ?>) a, new byte[]{partialKey}, new Node[]{b}, 0, 1);
+			}
+			return recount(addOrCombine((InnerNode) a, partialKey, b, branchDepth + 1, false));
+		}
+		// b's path is a prefix of a's, a goes under b.
+		// b can't be a leaf or have one, that would be lesser than all of a's keys
+		byte partialKey = aKey[branchDepth];
+		shorten(a, depth, lcp + 1);
+		return recount(addOrCombine((InnerNode) b, partialKey, a, branchDepth + 1, true));
+	}
+
+	/*
+		a is from the tree merged into, b from the tree merged from and both their paths till depth are the same.
+		returns the node to take their place.
+	 */
+	private Node merge(Node a, Node b, int depth) {
+		byte[] aKey = AdaptiveRadixTree.getFirstEntry(a).getKeyBytes();
+		byte[] bKey = AdaptiveRadixTree.getFirstEntry(b).getKeyBytes();
+		int aLen = a instanceof InnerNode ? ((InnerNode) a).prefixLen : aKey.length - depth;
+		int bLen = b instanceof InnerNode ? ((InnerNode) b).prefixLen : bKey.length - depth;
+		int end = Math.min(aLen, bLen);
+		int lcp = 0;
+		for (; lcp < end && aKey[depth + lcp] == bKey[depth + lcp]; lcp++) ;
+		int branchDepth = depth + lcp;
+
+		if (lcp < aLen && lcp < bLen) {
+			// paths differ, branch out into the two
+			shorten(a, depth, lcp + 1);
+			shorten(b, depth, lcp + 1);
+			return build(depth, lcp,
+					null, new byte[]{aKey[branchDepth], bKey[branchDepth]}, new Node[]{a, b}, 0, 2);
+		}
+		if (lcp < bLen) {
+			// a's path is a prefix of b's, b goes under a
+			byte partialKey = bKey[branchDepth];
+			shorten(b, depth, lcp + 1);
+			if (a instanceof LeafNode) {
+				return build(depth, lcp, (LeafNode<?, ?>) a, new byte[]{partialKey}, new Node[]{b}, 0, 1);
+			}
+			return recount(addOrCombine((InnerNode) a, partialKey, b, branchDepth + 1, false));
+		}
+		if (lcp < aLen) {
+			// b's path is a prefix of a's, a goes under b
+			byte partialKey = aKey[branchDepth];
+			shorten(a, depth, lcp + 1);
+			if (b instanceof LeafNode) {
+				return build(depth, lcp, (LeafNode<?, ?>) b, new byte[]{partialKey}, new Node[]{a}, 0, 1);
+			}
+			return recount(addOrCombine((InnerNode) b, partialKey, a, branchDepth + 1, true));
+		}
+
+		// same paths
+		if (b instanceof LeafNode) {
+			if (a instanceof LeafNode) {
+				resolve((LeafNode<?, ?>) a, (LeafNode<?, ?>) b);
+				return a;
+			}
+			return recount(mergeLeaf((InnerNode) a, (LeafNode<?, ?>) b, false));
+		}
+		if (a instanceof LeafNode) {
+			return recount(mergeLeaf((InnerNode) b, (LeafNode<?, ?>) a, true));
+		}
+		// only the children present in both are recursed into, b's other children are adopted as is.
+		// collected first, since merging re-links the children's uplinks we iterate by
+		InnerNode aNode = (InnerNode) a, bNode = (InnerNode) b;
+		int noOfChildren = bNode.size();
+		byte[] keys = new byte[noOfChildren];
+		Node[] children = new Node[noOfChildren];
+		int n = 0;
+		for (Node child = bNode.first(); child != null; child = bNode.greater(child.uplinkKey())) {
+			keys[n] = child.uplinkKey();
+			children[n++] = child;
+		}
+		for (int i = 0; i < n; i++) {
+			aNode = addOrCombine(aNode, keys[i], children[i], branchDepth + 1, false);
+		}
+		if (bNode.hasLeaf()) {
+			aNode = mergeLeaf(aNode, bNode.getLeaf(), false);
+		}
+		return recount(aNode);
+	}
+
+	// sets leaf as node's leaf or resolves it with the leaf already there
+	private InnerNode mergeLeaf(InnerNode node, LeafNode<?, ?> leaf, boolean leafIsBase) {
+		if (!node.hasLeaf()) {
+			node.setLeaf(leaf);
+		}
+		else if (leafIsBase) {
+			resolve(leaf, node.getLeaf());
+			node.setLeaf(leaf);
+		}
+		else {
+			resolve(node.getLeaf(), leaf);
+		}
+		return node;
+	}
+
+	// same key in both trees, base keeps it's place with the resolved value
+	@SuppressWarnings("unchecked")
+	private void resolve(LeafNode<?, ?> base, LeafNode<?, ?> other) {
+		overlap++;
+		LeafNode<Object, Object> leaf = (LeafNode<Object, Object>) base;
+		Object value = resolver.apply(leaf.getValue(), other.getValue());
+		leaf.setValue(value);
+		if (value == null) {
+			resolvedToNull.add(base);
+		}
+	}
+
+	/*
+		adds node as parent's child or joins (merges) it with the child already there.
+		node comes first in the join (is the base in the merge) if nodeFirst.
+		the caller recounts parent.
+	 */
+	private InnerNode addOrCombine(InnerNode parent, byte partialKey, Node node, int depth, boolean nodeFirst) {
+		Node child = parent.findChild(partialKey);
+		if (child != null) {
+			Node first = nodeFirst ? node : child, second = nodeFirst ? child : node;
+			parent.replace(partialKey, resolver == null ? join(first, second, depth) : merge(first, second, depth));
+		}
+		else {
+			if (parent.isFull()) {
+				parent = parent.grow();
+			}
+			parent.addChild(partialKey, node);
+		}
+		return parent;
+	}
+
+	/*
+		the node at depth with a compressed path of prefixLen bytes, holding leaf (if any)
+		and children [from, to). it is the leaf if there are no children
+		and the only child (with it's path extended) if there's no leaf either.
+	 */
+	private Node build(int depth, int prefixLen, LeafNode<?, ?> leaf, byte[] keys, Node[] children, int from, int to) {
+		int noOfChildren = to - from;
+		if (noOfChildren == 0) {
+			return leaf;
+		}
+		if (noOfChildren == 1 && leaf == null) {
+			Node onlyChild = children[from];
+			if (onlyChild instanceof InnerNode) {
+				setPrefix((InnerNode) onlyChild, depth, prefixLen + 1 + ((InnerNode) onlyChild).prefixLen);
+			}
+			return onlyChild;
+		}
+		InnerNode node = InnerNode.newNode(noOfChildren, orderStatistics);
+		if (leaf != null) {
+			node.setLeaf(leaf);
+		}
+		for (int i = from; i < to; i++) {
+			node.addChild(keys[i], children[i]);
+		}
+		setPrefix(node, depth, prefixLen);
+		recount(node);
+		return node;
+	}
+
+	// drops the first n bytes of node's compressed path, now starting at depth + n
+	private static void shorten(Node node, int depth, int n) {
+		if (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			setPrefix(innerNode, depth + n, innerNode.prefixLen - n);
+		}
+	}
+
+	// copies the compressed path from one of node's keys
+	private static void setPrefix(InnerNode node, int depth, int prefixLen) {
+		byte[] path = AdaptiveRadixTree.getFirstEntry(node).getKeyBytes();
+		node.prefixLen = prefixLen;
+		System.arraycopy(path, depth, node.prefixKeys, 0, Math
+				.min(prefixLen, InnerNode.PESSIMISTIC_PATH_COMPRESSION_LIMIT));
+	}
+
+	private InnerNode recount(InnerNode node) {
+		if (orderStatistics) {
+			int leaves = node.hasLeaf() ? 1 : 0;
+			for (Node child = node.first(); child != null; child = node.greater(child.uplinkKey())) {
+				leaves += AdaptiveRadixTree.count(child);
+			}
+			node.setLeafCount(leaves);
+		}
+		return node;
+	}
+}
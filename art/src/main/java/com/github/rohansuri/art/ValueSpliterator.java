@@ -0,0 +1,29 @@
+package com.github.rohansuri.art;
+
+final class ValueSpliterator<K, V> extends PrivateEntrySpliterator<K, V, V> {
+	ValueSpliterator(AdaptiveRadixTree<K, V> m) {
+		super(m);
+	}
+
+	private ValueSpliterator(AdaptiveRadixTree<K, V> m, Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		super(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	ValueSpliterator<K, V> split(Node[] nodes, int lo, int hi,
+			LeafNode<K, V> fence, long est, int expectedModCount) {
+		return new ValueSpliterator<>(m, nodes, lo, hi, fence, est, expectedModCount);
+	}
+
+	@Override
+	V element(LeafNode<K, V> leaf) {
+		return leaf.getValue();
+	}
+
+	// values are neither sorted nor distinct, and might be null
+	@Override
+	public int characteristics() {
+		return ORDERED;
+	}
+}
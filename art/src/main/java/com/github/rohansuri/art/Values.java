@@ -6,6 +6,7 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 // contains all stuff borrowed from TreeMap
 // such methods/utilities should be taken out and made a library of their own
@@ -35,10 +36,17 @@ class Values<K, V> extends AbstractCollection<V> {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public boolean remove(Object o) {
-		for (LeafNode<K,V> e = m.getFirstEntry(); e != null; e = AdaptiveRadixTree.successor(e)) {
-			if (AdaptiveRadixTree.valEquals(e.getValue(), o)) {
-				m.deleteEntry(e);
+		Node root = m.getRoot();
+		if (root == null) {
+			return false;
+		}
+		Path path = new Path();
+		for (Node e = path.first(root); e != null; e = path.successor()) {
+			LeafNode<K, V> leaf = (LeafNode<K, V>) e;
+			if (AdaptiveRadixTree.valEquals(leaf.getValue(), o)) {
+				m.deleteEntry(path, leaf);
 				return true;
 			}
 		}
@@ -50,6 +58,9 @@ class Values<K, V> extends AbstractCollection<V> {
 		m.clear();
 	}
 
-	// TODO: implement Spliterator
+	@Override
+	public Spliterator<V> spliterator() {
+		return m.valueSpliterator();
+	}
 }
 
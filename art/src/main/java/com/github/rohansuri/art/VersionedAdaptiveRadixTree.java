@@ -0,0 +1,225 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A multi-version Adaptive Radix tree based {@link Map} implementation,
+ * for readers that need a consistent view of the map while it's being written to.
+ *
+ * <p>Every write is a commit that bumps the map's {@linkplain #commitTimestamp() commit timestamp}
+ * and publishes a new {@link PersistentAdaptiveRadixTree} version of the map, sharing all nodes
+ * but the ones on the path to the key changed with the previous version.
+ * {@link #snapshot()} hands out the latest commit as a {@link Snapshot} in O(1) time:
+ * it's version, viewable as a {@link NavigableMap}, along with it's timestamp. A snapshot never changes, it can be scanned (in any thread) for as long
+ * as needed without blocking writers or being aborted by them, i.e. it never throws
+ * {@link ConcurrentModificationException}. Versions no snapshot refers to anymore are
+ * garbage collected as usual.
+ *
+ * <p>Reads never block. Writes are serialized (writers hold this map's monitor)
+ * and each of {@code put}, {@code remove}, {@code putAll} and {@code clear} is a single commit,
+ * that readers see either entirely or not at all.
+ *
+ * <p>The iterators of the views iterate over the snapshot as of their creation,
+ * removing through them removes from the map.
+ *
+ * <p>Note that null keys are not permitted.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see PersistentAdaptiveRadixTree
+ */
+public class VersionedAdaptiveRadixTree<K, V> extends AbstractMap<K, V> {
+
+	/**
+	 * A version of the map along with the timestamp of the commit that produced it.
+	 * Both come out of the same read of the latest commit, so they always agree.
+	 *
+	 * @param <K> the type of keys maintained by the map
+	 * @param <V> the type of mapped values
+	 */
+	public static final class Snapshot<K, V> {
+		private final PersistentAdaptiveRadixTree<K, V> version;
+		private final long timestamp;
+
+		Snapshot(PersistentAdaptiveRadixTree<K, V> version, long timestamp) {
+			this.version = version;
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * @return timestamp of the commit that produced this version, see {@link VersionedAdaptiveRadixTree#commitTimestamp()}
+		 */
+		public long timestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return an unmodifiable view of the map as of this commit
+		 */
+		public NavigableMap<K, V> asMap() {
+			return version.asMap();
+		}
+
+		/**
+		 * @return the map as of this commit
+		 */
+		public PersistentAdaptiveRadixTree<K, V> version() {
+			return version;
+		}
+	}
+
+	private volatile Snapshot<K, V> current;
+	private transient Set<Entry<K, V>> entrySet;
+
+	public VersionedAdaptiveRadixTree(BinaryComparable<K> binaryComparable) {
+		current = new Snapshot<>(PersistentAdaptiveRadixTree.empty(binaryComparable), 0);
+	}
+
+	/**
+	 * Note that a later {@link #snapshot()} may already be of a later commit,
+	 * use {@link Snapshot#timestamp()} for the timestamp of a snapshot.
+	 *
+	 * @return timestamp of the latest commit, starting at 0 for no commits and incremented by every commit
+	 */
+	public long commitTimestamp() {
+		return current.timestamp;
+	}
+
+	/**
+	 * @return this map as of the latest commit along with it's timestamp, unaffected by later commits
+	 */
+	public Snapshot<K, V> snapshot() {
+		return current;
+	}
+
+	/**
+	 * @return this map as of the latest commit
+	 */
+	public PersistentAdaptiveRadixTree<K, V> version() {
+		return current.version;
+	}
+
+	private void commit(PersistentAdaptiveRadixTree<K, V> version) {
+		current = new Snapshot<>(version, current.timestamp + 1);
+	}
+
+	@Override
+	public int size() {
+		return current.version.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return current.version.isEmpty();
+	}
+
+	@Override
+	public V get(Object key) {
+		return current.version.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return current.version.containsKey(key);
+	}
+
+	@Override
+	public synchronized V put(K key, V value) {
+		PersistentAdaptiveRadixTree.Update<K, V> update = current.version.putUpdate(key, value);
+		commit(update.version);
+		return update.replaced == null ? null : update.replaced.getValue();
+	}
+
+	@Override
+	public synchronized V remove(Object key) {
+		PersistentAdaptiveRadixTree.Update<K, V> update = current.version.removeUpdate(key);
+		if (update.replaced == null) {
+			return null;
+		}
+		commit(update.version);
+		return update.replaced.getValue();
+	}
+
+	// all in one commit
+	@Override
+	public synchronized void putAll(Map<? extends K, ? extends V> m) {
+		if (m.isEmpty()) {
+			return;
+		}
+		PersistentAdaptiveRadixTree<K, V> version = current.version;
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			version = version.put(e.getKey(), e.getValue());
+		}
+		commit(version);
+	}
+
+	@Override
+	public synchronized void clear() {
+		PersistentAdaptiveRadixTree<K, V> version = current.version;
+		if (!version.isEmpty()) {
+			commit(PersistentAdaptiveRadixTree.empty(version.binaryComparable()));
+		}
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		Set<Entry<K, V>> es = entrySet;
+		return (es != null) ? es : (entrySet = new EntrySet());
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			Iterator<Entry<K, V>> snapshot = current.version.iterator();
+			return new Iterator<Entry<K, V>>() {
+				private Entry<K, V> lastReturned;
+
+				@Override
+				public boolean hasNext() {
+					return snapshot.hasNext();
+				}
+
+				@Override
+				public Entry<K, V> next() {
+					return lastReturned = snapshot.next();
+				}
+
+				@Override
+				public void remove() {
+					if (lastReturned == null) {
+						throw new IllegalStateException();
+					}
+					VersionedAdaptiveRadixTree.this.remove(lastReturned.getKey());
+					lastReturned = null;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return VersionedAdaptiveRadixTree.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			PersistentAdaptiveRadixTree<K, V> version = current.version;
+			return version.containsKey(e.getKey()) && Objects.equals(version.get(e.getKey()), e.getValue());
+		}
+
+		@Override
+		public void clear() {
+			VersionedAdaptiveRadixTree.this.clear();
+		}
+	}
+}
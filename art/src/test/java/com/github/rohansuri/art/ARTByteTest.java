@@ -1,6 +1,5 @@
 package com.github.rohansuri.art;
 
-import java.lang.reflect.Field;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -14,7 +13,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 public class ARTByteTest {
 	@Test
 	// TODO: replace with AbstractNavigableMapTest
-	public void testInsertingAndDeletingAllInt8BitIntegers() throws ReflectiveOperationException {
+	public void testInsertingAndDeletingAllInt8BitIntegers() {
 		AdaptiveRadixTree<Byte, String> art = new AdaptiveRadixTree<>(BinaryComparables.forByte());
 
 		// insert all
@@ -60,11 +59,6 @@ public class ARTByteTest {
 		assertEquals((Byte) Byte.MAX_VALUE, lastEntry.getKey());
 		assertEquals((Byte) Byte.MAX_VALUE, art.lastKey());
 
-		// assert parent of root is null
-		Field root = art.getClass().getDeclaredField("root");
-		root.setAccessible(true);
-		assertNull(((Node) root.get(art)).parent());
-
 
 		// test sorted order iteration
 		i = Byte.MIN_VALUE;
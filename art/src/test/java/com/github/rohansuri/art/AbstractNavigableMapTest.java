@@ -432,6 +432,22 @@ public abstract class AbstractNavigableMapTest<K, V> extends AbstractSortedMapTe
 			return this.main.getSampleKeys();
 		}
 
+		// the descending view supports whatever main's map supports
+		@Override
+		public boolean isAllowNullValue() {
+			return this.main.isAllowNullValue();
+		}
+
+		@Override
+		public boolean isSetValueSupported() {
+			return this.main.isSetValueSupported();
+		}
+
+		@Override
+		public boolean isFailFastExpected() {
+			return this.main.isFailFastExpected();
+		}
+
 		@Override
 		public NavigableMap<K, V> makeObject() {
 			return this.main.makeObject().descendingMap();
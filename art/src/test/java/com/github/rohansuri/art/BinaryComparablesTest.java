@@ -0,0 +1,67 @@
+package com.github.rohansuri.art;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class BinaryComparablesTest {
+
+	private static <K> byte[] encode(BinaryComparable<K> c, K key, int scratchSize) {
+		byte[] scratch = new byte[scratchSize];
+		int length = c.encode(key, scratch);
+		if (length < 0) {
+			// negated length is an upper bound that must be enough
+			scratch = new byte[-length];
+			length = c.encode(key, scratch);
+			assertTrue(length >= 0);
+		}
+		return Arrays.copyOf(scratch, length);
+	}
+
+	private static <K> void assertEncodes(byte[] expected, BinaryComparable<K> c, K key) {
+		assertArrayEquals(expected, c.get(key));
+		// large enough, exactly sized and too small scratch arrays
+		assertArrayEquals(expected, encode(c, key, 64));
+		assertArrayEquals(expected, encode(c, key, expected.length));
+		assertArrayEquals(expected, encode(c, key, 0));
+	}
+
+	@Test
+	public void testNumbers() {
+		for (long l : new long[]{Long.MIN_VALUE, -257, -1, 0, 1, 255, 256, Long.MAX_VALUE}) {
+			assertEncodes(ByteBuffer.allocate(8).putLong(l ^ Long.MIN_VALUE).array(), BinaryComparables.forLong(), l);
+		}
+		for (int i : new int[]{Integer.MIN_VALUE, -257, -1, 0, 1, 255, 256, Integer.MAX_VALUE}) {
+			assertEncodes(ByteBuffer.allocate(4).putInt(i ^ Integer.MIN_VALUE).array(), BinaryComparables
+					.forInteger(), i);
+		}
+		for (short s : new short[]{Short.MIN_VALUE, -1, 0, 1, Short.MAX_VALUE}) {
+			assertEncodes(ByteBuffer.allocate(2).putShort((short) (s ^ Short.MIN_VALUE))
+					.array(), BinaryComparables.forShort(), s);
+		}
+		for (byte b : new byte[]{Byte.MIN_VALUE, -1, 0, 1, Byte.MAX_VALUE}) {
+			assertEncodes(new byte[]{(byte) (b ^ Byte.MIN_VALUE)}, BinaryComparables.forByte(), b);
+		}
+	}
+
+	@Test
+	public void testStrings() {
+		String[] keys = {"", "a", "abc", "\u00FCn\u00EFc\u00F6d\u00E9", "\u20AC100", "\uD83D\uDE00 emoji",
+				// malformed surrogates
+				"\uD83D", "a\uDE00b", "\uDE00\uD83D",
+				new String(new char[1000]).replace('\0', '\u0800')};
+		Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+				StandardCharsets.UTF_16BE};
+		for (Charset charset : charsets) {
+			BinaryComparable<String> c = BinaryComparables.forString(charset);
+			for (String key : keys) {
+				assertEncodes(key.getBytes(charset), c, key);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class BulkOperationsTest {
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		for (int round = 0; round < 50; round++) {
+			boolean orderStatistics = r.nextBoolean();
+			AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+					orderStatistics);
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			putRandom(r, r.nextInt(r.nextBoolean() ? 20 : 5_000), expected, art);
+			// sequential, forking at every node and in between
+			for (long threshold : new long[]{Long.MAX_VALUE, 1, 50}) {
+				Set<String> visited = ConcurrentHashMap.newKeySet();
+				AtomicInteger visits = new AtomicInteger();
+				art.forEach(threshold, (k, v) -> {
+					Assertions.assertEquals(expected.get(k), v);
+					visited.add(k);
+					visits.incrementAndGet();
+				});
+				Assertions.assertEquals(expected.keySet(), visited);
+				Assertions.assertEquals(expected.size(), visits.get());
+
+				// reduced in key order
+				String concatenated = art.reduce(threshold, (k, v) -> k + ",", String::concat);
+				Assertions.assertEquals(expected.isEmpty() ? null : String.join(",", expected.keySet()) + ",",
+						concatenated);
+				Long sum = art.reduceValues(threshold, v -> (long) v, Long::sum);
+				Assertions.assertEquals(expected.isEmpty() ? null : expected.values().stream()
+						.mapToLong(v -> v).sum(), sum);
+				// nulls are skipped
+				long even = expected.values().stream().filter(v -> v % 2 == 0).count();
+				Assertions.assertEquals(even == 0 ? null : even, art.reduceValues(threshold, v -> v % 2 == 0 ? 1L : null,
+						Long::sum));
+
+				if (!expected.isEmpty()) {
+					String some = new ArrayList<>(expected.keySet()).get(r.nextInt(expected.size()));
+					Assertions.assertEquals(some, art.search(threshold, (k, v) -> k.equals(some) ? k : null));
+					Assertions.assertTrue(art.containsValue(expected.get(some)));
+				}
+				Assertions.assertNull(art.search(threshold, (k, v) -> v < 0 ? k : null));
+				Assertions.assertFalse(art.containsValue(-1));
+
+				art.replaceAll(threshold, (k, v) -> v + k.length());
+				expected.replaceAll((k, v) -> v + k.length());
+				assertSame(expected, art);
+			}
+			List<String> keys = new ArrayList<>();
+			art.forEach((k, v) -> keys.add(k));
+			Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+		}
+	}
+
+	@Test
+	public void testLargeTree() {
+		// large enough for containsValue to go parallel, with every node type
+		AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+		int n = 200_000;
+		for (int i = 0; i < n; i++) {
+			art.put(i * 7, i);
+		}
+		Assertions.assertTrue(art.containsValue(n - 1));
+		Assertions.assertFalse(art.containsValue(n));
+		Assertions.assertEquals((long) n * (n - 1) / 2, (long) art.reduceValues(1_000, v -> (long) v, Long::sum));
+		art.replaceAll(1_000, (k, v) -> k);
+		Assertions.assertEquals(n - 1, (int) art.<Integer>search(1_000, (k, v) -> k == (n - 1) * 7 ? v / 7 : null));
+		Assertions.assertEquals((long) n * (n - 1) / 2 * 7, (long) art.reduceValues(1, v -> (long) v, Long::sum));
+	}
+
+	@Test
+	public void testConcurrentModification() {
+		AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+		for (int i = 0; i < 100; i++) {
+			art.put(i, i);
+		}
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> art.forEach((k, v) -> art.remove(k)));
+		Assertions.assertThrows(NullPointerException.class, () -> art.forEach(1, null));
+		Assertions.assertThrows(NullPointerException.class, () -> art.reduce(1, (k, v) -> v, null));
+		// value changes aren't structural
+		art.forEach((k, v) -> art.put(k, v + 1));
+		Assertions.assertEquals(2, (int) art.firstEntry().getValue());
+	}
+}
@@ -0,0 +1,102 @@
+package com.github.rohansuri.art;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ComputeTest {
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		// null values, null results (removals) and every kind of insertion point (lazy leaf, prefix leaf,
+		// branching out of pessimistic and optimistic compressed paths, growing nodes)
+		Function<String, Integer> mf = k -> k.length() % 5 == 0 ? null : k.length();
+		BiFunction<String, Integer, Integer> rf = (k, v) -> v == null ? Integer.valueOf(k.length())
+				: v % 3 == 0 ? null : Integer.valueOf(v + 1);
+		BiFunction<Integer, Integer, Integer> merger = (a, b) -> (a + b) % 7 == 0 ? null : Integer.valueOf(a + b);
+		for (int i = 0; i < 50_000; i++) {
+			String key = "prefix_longer_than_eight_" + r.nextInt(20) + "_" + Integer.toString(r.nextInt(2_000), 36);
+			key = key.substring(0, key.length() - r.nextInt(key.length()));
+			Integer value = r.nextInt(10) == 0 ? null : i;
+			switch (r.nextInt(9)) {
+			case 0:
+				Assertions.assertEquals(expected.put(key, value), art.put(key, value));
+				break;
+			case 1:
+				Assertions.assertEquals(expected.putIfAbsent(key, value), art.putIfAbsent(key, value));
+				break;
+			case 2:
+				Assertions.assertEquals(expected.computeIfAbsent(key, mf), art.computeIfAbsent(key, mf));
+				break;
+			case 3:
+				Assertions.assertEquals(expected.computeIfPresent(key, rf), art.computeIfPresent(key, rf));
+				break;
+			case 4:
+				Assertions.assertEquals(expected.compute(key, rf), art.compute(key, rf));
+				break;
+			case 5:
+				Integer v = value == null ? i : value;
+				Assertions.assertEquals(expected.merge(key, v, merger), art.merge(key, v, merger));
+				break;
+			case 6:
+				Assertions.assertEquals(expected.replace(key, value), art.replace(key, value));
+				break;
+			case 7:
+				Integer old = expected.get(key);
+				Assertions.assertEquals(expected.replace(key, old, value), art.replace(key, old, value));
+				Assertions.assertEquals(expected.replace(key, -1, value), art.replace(key, -1, value));
+				break;
+			default:
+				Assertions.assertEquals(expected.getOrDefault(key, -1), art.getOrDefault(key, -1));
+				Assertions.assertEquals(expected.remove(key), art.remove(key));
+			}
+			Assertions.assertEquals(expected.size(), art.size());
+		}
+		Assertions.assertEquals(expected, art);
+		Assertions.assertEquals(expected.size(), SortedBuilderTest.assertWellFormed(art.getRoot(), null));
+	}
+
+	@Test
+	public void testEmptyAndNulls() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Assertions.assertNull(art.computeIfAbsent("a", k -> null));
+		Assertions.assertNull(art.compute("a", (k, v) -> null));
+		Assertions.assertTrue(art.isEmpty());
+		Assertions.assertNull(art.getRoot());
+
+		Assertions.assertEquals(1, art.merge("a", 1, Integer::sum));
+		Assertions.assertEquals(3, art.merge("a", 2, Integer::sum));
+		Assertions.assertNull(art.merge("a", 1, (a, b) -> null));
+		Assertions.assertTrue(art.isEmpty());
+
+		Assertions.assertThrows(NullPointerException.class, () -> art.putIfAbsent(null, 1));
+		Assertions.assertThrows(NullPointerException.class, () -> art.compute(null, (k, v) -> 1));
+		Assertions.assertThrows(NullPointerException.class, () -> art.merge("a", null, Integer::sum));
+		Assertions.assertThrows(NullPointerException.class, () -> art.computeIfAbsent("a", null));
+	}
+
+	@Test
+	public void testFunctionModifyingMap() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		art.put("a", 1);
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> art.computeIfAbsent("b", k -> {
+			art.put("c", 3);
+			return 2;
+		}));
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> art.compute("a", (k, v) -> {
+			art.remove("c");
+			return 2;
+		}));
+		// lookups from within the function are fine
+		Assertions.assertEquals(4, art.computeIfAbsent("d", k -> art.get("a") + 3));
+		Assertions.assertEquals(4, art.get("d"));
+	}
+}
@@ -0,0 +1,220 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/*
+	multi threaded tests, single threaded behaviour is covered by acc.ConcurrentARTStringTest
+ */
+public class ConcurrentARTTest {
+	private static final int THREADS = 4;
+
+	private ExecutorService pool;
+
+	@BeforeEach
+	public void setup() {
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		pool.shutdownNow();
+		Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	// keys with long common prefixes, so that branch outs happen at optimistic compressed paths
+	// and nodes grow and shrink through all sizes.
+	private static String key(int thread, int i) {
+		return "prefix_longer_than_eight_bytes_" + (i % 300) + "_" + thread + "_" + i;
+	}
+
+	private void runAll(List<Runnable> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable task : tasks) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				task.run();
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testConcurrentPutsAndRemoves() throws Exception {
+		ConcurrentAdaptiveRadixTree<String, Integer> art = new ConcurrentAdaptiveRadixTree<>(BinaryComparables
+				.forString());
+		int n = 20_000;
+		List<Runnable> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				for (int i = 0; i < n; i++) {
+					Assertions.assertNull(art.put(key(thread, i), i));
+				}
+				// remove every other key
+				for (int i = 0; i < n; i += 2) {
+					Assertions.assertEquals(i, (int) art.remove(key(thread, i)));
+				}
+				// and replace the rest
+				for (int i = 1; i < n; i += 2) {
+					Assertions.assertTrue(art.replace(key(thread, i), i, -i));
+				}
+			});
+		}
+		runAll(tasks);
+
+		ConcurrentSkipListMap<String, Integer> expected = new ConcurrentSkipListMap<>();
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 1; i < n; i += 2) {
+				expected.put(key(t, i), -i);
+			}
+		}
+		Assertions.assertEquals(expected.size(), art.size());
+		Iterator<Map.Entry<String, Integer>> it = art.entrySet().iterator();
+		for (Map.Entry<String, Integer> e : expected.entrySet()) {
+			Assertions.assertEquals(e, it.next());
+		}
+		Assertions.assertFalse(it.hasNext());
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 0; i < n; i += 2) {
+				Assertions.assertNull(art.get(key(t, i)));
+			}
+		}
+	}
+
+	// all threads fight over the same small key space
+	@Test
+	public void testContendedPutIfAbsentAndRemove() throws Exception {
+		ConcurrentAdaptiveRadixTree<Integer, Integer> art = new ConcurrentAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		int keys = 512;
+		int ops = 100_000;
+		List<Runnable> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			tasks.add(() -> {
+				ThreadLocalRandom r = ThreadLocalRandom.current();
+				for (int i = 0; i < ops; i++) {
+					int k = r.nextInt(keys);
+					if (r.nextBoolean()) {
+						Integer old = art.putIfAbsent(k, k);
+						Assertions.assertTrue(old == null || old == k);
+					}
+					else {
+						art.remove(k, k);
+					}
+				}
+			});
+		}
+		runAll(tasks);
+
+		int count = 0;
+		Integer previous = null;
+		for (Map.Entry<Integer, Integer> e : art.entrySet()) {
+			Assertions.assertEquals(e.getKey(), e.getValue());
+			Assertions.assertEquals(e.getValue(), art.get(e.getKey()));
+			if (previous != null) {
+				Assertions.assertTrue(previous < e.getKey());
+			}
+			previous = e.getKey();
+			count++;
+		}
+		Assertions.assertEquals(count, art.size());
+	}
+
+	// readers never see a torn tree: stable keys are always found and iteration stays sorted
+	@Test
+	public void testReadersDuringWrites() throws Exception {
+		ConcurrentAdaptiveRadixTree<String, String> art = new ConcurrentAdaptiveRadixTree<>(BinaryComparables
+				.forString());
+		int stable = 2_000;
+		for (int i = 0; i < stable; i++) {
+			art.put(key(0, i), "v" + i);
+		}
+		AtomicBoolean done = new AtomicBoolean();
+		List<Runnable> tasks = new ArrayList<>();
+		// writers churn keys around the stable ones
+		for (int t = 1; t < THREADS - 1; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				for (int round = 0; round < 5; round++) {
+					for (int i = 0; i < stable; i++) {
+						art.put(key(thread, i), "w");
+					}
+					for (int i = 0; i < stable; i++) {
+						art.remove(key(thread, i));
+					}
+				}
+				done.set(true);
+			});
+		}
+		tasks.add(() -> {
+			while (!done.get()) {
+				for (int i = 0; i < stable; i += 7) {
+					String k = key(0, i);
+					Assertions.assertEquals("v" + i, art.get(k));
+					Assertions.assertEquals(k, art.ceilingKey(k));
+					Assertions.assertEquals(k, art.floorKey(k));
+				}
+				String previous = null;
+				int seen = 0;
+				for (String k : art.keySet()) {
+					if (previous != null) {
+						Assertions.assertTrue(previous.compareTo(k) < 0, previous + " " + k);
+					}
+					if (k.endsWith("_0_" + k.substring(k.lastIndexOf('_') + 1))) {
+						seen++;
+					}
+					previous = k;
+				}
+				Assertions.assertEquals(stable, seen);
+			}
+		});
+		runAll(tasks);
+		Assertions.assertEquals(stable, art.size());
+	}
+
+	@Test
+	public void testPollFirstFromManyThreads() throws Exception {
+		ConcurrentAdaptiveRadixTree<Integer, Integer> art = new ConcurrentAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		int n = 50_000;
+		for (int i = 0; i < n; i++) {
+			art.put(i, i);
+		}
+		ConcurrentSkipListMap<Integer, Integer> polled = new ConcurrentSkipListMap<>();
+		List<Runnable> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			tasks.add(() -> {
+				Map.Entry<Integer, Integer> e;
+				while ((e = art.pollFirstEntry()) != null) {
+					// every entry is polled exactly once
+					Assertions.assertNull(polled.put(e.getKey(), e.getValue()));
+				}
+			});
+		}
+		runAll(tasks);
+		Assertions.assertTrue(art.isEmpty());
+		Assertions.assertEquals(0, art.size());
+		Assertions.assertEquals(n, polled.size());
+	}
+}
@@ -0,0 +1,124 @@
+package com.github.rohansuri.art;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CursorTest {
+
+	private static void assertAt(Map.Entry<String, Integer> expected, boolean positioned, Cursor<String, Integer> c) {
+		if (expected == null) {
+			Assertions.assertFalse(positioned);
+			Assertions.assertFalse(c.isPositioned());
+			return;
+		}
+		Assertions.assertTrue(positioned, "expected " + expected);
+		Assertions.assertEquals(expected.getKey(), c.key());
+		Assertions.assertEquals(expected.getValue(), c.value());
+	}
+
+	// walks a few steps from the cursor's position both ways, along with TreeMap
+	private static void assertSteps(TreeMap<String, Integer> expected, Cursor<String, Integer> c, int steps) {
+		if (!c.isPositioned()) {
+			return;
+		}
+		String from = c.key();
+		Iterator<Map.Entry<String, Integer>> ascending = expected.tailMap(from, false).entrySet().iterator();
+		for (int i = 0; i < steps; i++) {
+			assertAt(ascending.hasNext() ? ascending.next() : null, c.next(), c);
+			if (!c.isPositioned()) {
+				break;
+			}
+		}
+		Assertions.assertTrue(c.seekFloor(from));
+		Iterator<Map.Entry<String, Integer>> descending = expected.headMap(from, false).descendingMap().entrySet()
+				.iterator();
+		for (int i = 0; i < steps; i++) {
+			assertAt(descending.hasNext() ? descending.next() : null, c.prev(), c);
+			if (!c.isPositioned()) {
+				break;
+			}
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		for (int i = 0; i < 20_000; i++) {
+			// ascii, common prefixes and keys that are prefixes of others
+			String key = "prefix_longer_than_eight_" + r.nextInt(50) + "_" + Integer.toString(r.nextInt(10_000), 36);
+			key = key.substring(0, key.length() - r.nextInt(3));
+			expected.put(key, i);
+			art.put(key, i);
+		}
+		Cursor<String, Integer> c = art.cursor();
+		for (int i = 0; i < 5_000; i++) {
+			String probe = "prefix_longer_than_eight_" + r.nextInt(52) + "_" + Integer.toString(r.nextInt(11_000), 36);
+			probe = probe.substring(0, probe.length() - r.nextInt(probe.length()));
+
+			Assertions.assertEquals(expected.containsKey(probe), c.seek(probe));
+			assertAt(expected.ceilingEntry(probe), c.isPositioned(), c);
+			assertAt(expected.ceilingEntry(probe), c.seekCeil(probe), c);
+			assertSteps(expected, c, 3);
+			assertAt(expected.higherEntry(probe), c.seekHigher(probe), c);
+			assertAt(expected.floorEntry(probe), c.seekFloor(probe), c);
+			assertSteps(expected, c, 3);
+			assertAt(expected.lowerEntry(probe), c.seekLower(probe), c);
+		}
+
+		// full scans
+		Iterator<Map.Entry<String, Integer>> it = expected.entrySet().iterator();
+		for (boolean positioned = c.seekFirst(); positioned; positioned = c.next()) {
+			assertAt(it.next(), true, c);
+		}
+		Assertions.assertFalse(it.hasNext());
+		it = expected.descendingMap().entrySet().iterator();
+		for (boolean positioned = c.seekLast(); positioned; positioned = c.prev()) {
+			assertAt(it.next(), true, c);
+		}
+		Assertions.assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testEmptyAndSingle() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Cursor<String, Integer> c = art.cursor();
+		Assertions.assertFalse(c.seekFirst());
+		Assertions.assertFalse(c.seekCeil("a"));
+		Assertions.assertFalse(c.next());
+		Assertions.assertThrows(NoSuchElementException.class, c::key);
+
+		art.put("a", 1);
+		Assertions.assertTrue(c.seek("a"));
+		Assertions.assertArrayEquals(BinaryComparables.forString().get("a"), c.keyBytes());
+		Assertions.assertFalse(c.next());
+		Assertions.assertTrue(c.seekFloor("b"));
+		Assertions.assertFalse(c.prev());
+	}
+
+	@Test
+	public void testStructuralModification() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		art.put("a", 1);
+		art.put("b", 2);
+		Cursor<String, Integer> c = art.cursor();
+		Assertions.assertTrue(c.seekFirst());
+		// value replacement is fine
+		art.put("a", 3);
+		Assertions.assertTrue(c.next());
+		Assertions.assertEquals("b", c.key());
+		art.put("c", 3);
+		Assertions.assertThrows(ConcurrentModificationException.class, c::prev);
+		// positioning again makes it usable
+		Assertions.assertTrue(c.seekLast());
+		Assertions.assertEquals("c", c.key());
+	}
+}
@@ -0,0 +1,147 @@
+package com.github.rohansuri.art;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class DiffTest {
+
+	// records the differences as "+key", "-key" and "~key"
+	private static List<String> diff(AdaptiveRadixTree<String, Integer> a, AdaptiveRadixTree<String, Integer> b) {
+		List<String> diff = new ArrayList<>();
+		a.diff(b, new DiffListener<String, Integer>() {
+			@Override
+			public void added(Map.Entry<String, Integer> entry) {
+				Assertions.assertEquals(b.get(entry.getKey()), entry.getValue());
+				diff.add("+" + entry.getKey());
+			}
+
+			@Override
+			public void removed(Map.Entry<String, Integer> entry) {
+				Assertions.assertEquals(a.get(entry.getKey()), entry.getValue());
+				diff.add("-" + entry.getKey());
+			}
+
+			@Override
+			public void changed(Map.Entry<String, Integer> entry, Map.Entry<String, Integer> otherEntry) {
+				Assertions.assertEquals(entry.getKey(), otherEntry.getKey());
+				Assertions.assertNotEquals(entry.getValue(), otherEntry.getValue());
+				diff.add("~" + entry.getKey());
+			}
+		});
+		return diff;
+	}
+
+	private static List<String> expectedDiff(TreeMap<String, Integer> a, TreeMap<String, Integer> b) {
+		TreeSet<String> keys = new TreeSet<>(a.keySet());
+		keys.addAll(b.keySet());
+		List<String> diff = new ArrayList<>();
+		for (String key : keys) {
+			if (!b.containsKey(key)) {
+				diff.add("-" + key);
+			}
+			else if (!a.containsKey(key)) {
+				diff.add("+" + key);
+			}
+			else if (!a.get(key).equals(b.get(key))) {
+				diff.add("~" + key);
+			}
+		}
+		return diff;
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		for (int round = 0; round < 300; round++) {
+			TreeMap<String, Integer> expectedA = new TreeMap<>();
+			AdaptiveRadixTree<String, Integer> a = new AdaptiveRadixTree<>(BinaryComparables.forString());
+			putRandom(r, r.nextInt(2_000), expectedA, a);
+			// a few changes away, mostly
+			TreeMap<String, Integer> expectedB = new TreeMap<>(expectedA);
+			AdaptiveRadixTree<String, Integer> b = new AdaptiveRadixTree<>(BinaryComparables.forString());
+			b.putAll(a);
+			for (int i = 0, n = r.nextInt(r.nextBoolean() ? 5 : 1_000); i < n; i++) {
+				String key = randomKey(r);
+				switch (r.nextInt(3)) {
+				case 0:
+					expectedB.remove(key);
+					b.remove(key);
+					break;
+				case 1:
+					expectedB.put(key, i);
+					b.put(key, i);
+					break;
+				default:
+					expectedB.put(key, expectedB.getOrDefault(key, 0));
+					b.put(key, b.getOrDefault(key, 0));
+				}
+			}
+
+			Assertions.assertEquals(expectedDiff(expectedA, expectedB), diff(a, b));
+			Assertions.assertEquals(expectedDiff(expectedB, expectedA), diff(b, a));
+			Assertions.assertEquals(expectedA.equals(expectedB), a.equals(b));
+			Assertions.assertEquals(expectedA.equals(expectedB), b.equals(a));
+		}
+	}
+
+	@Test
+	public void testEquals() {
+		AdaptiveRadixTree<String, Integer> a = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		AdaptiveRadixTree<String, Integer> b = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Assertions.assertEquals(a, b);
+		// same keys, different insertion order (and node types along the way)
+		for (int i = 0; i < 100; i++) {
+			a.put("k" + i, i);
+			b.put("k" + (99 - i), 99 - i);
+		}
+		Assertions.assertEquals(a, b);
+		b.put("k0", -1);
+		Assertions.assertNotEquals(a, b);
+		b.put("k0", 0);
+		b.remove("k1");
+		b.put("k100", 1);
+		Assertions.assertNotEquals(a, b);
+
+		// differently encoded keys fall back to comparing entries
+		AdaptiveRadixTree<String, Integer> utf16 = new AdaptiveRadixTree<>(BinaryComparables
+				.forString(StandardCharsets.UTF_16BE));
+		utf16.putAll(a);
+		Assertions.assertEquals(a, utf16);
+		Assertions.assertEquals(utf16, a);
+		Assertions.assertEquals(new TreeMap<>(a), a);
+		Assertions.assertEquals(a, new TreeMap<>(a));
+	}
+
+	@Test
+	public void testEdges() {
+		AdaptiveRadixTree<String, Integer> empty = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		art.put("a", 1);
+		art.put("ab", 2);
+		Assertions.assertEquals(List.of("-a", "-ab"), diff(art, empty));
+		Assertions.assertEquals(List.of("+a", "+ab"), diff(empty, art));
+		Assertions.assertEquals(List.of(), diff(art, art));
+
+		// a leaf against a subtree
+		AdaptiveRadixTree<String, Integer> other = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		other.put("ab", 3);
+		Assertions.assertEquals(List.of("-a", "~ab"), diff(art, other));
+		Assertions.assertEquals(List.of("+a", "~ab"), diff(other, art));
+		// paths branching apart
+		other.put("b", 3);
+		other.put("ba", 3);
+		Assertions.assertEquals(List.of("-a", "~ab", "+b", "+ba"), diff(art, other));
+		// listener methods default to doing nothing
+		art.diff(other, new DiffListener<String, Integer>() {
+		});
+	}
+}
@@ -0,0 +1,143 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class FlatCombiningAdaptiveRadixTreeTest {
+
+	private static void runAll(int threads, List<Runnable> tasks) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (Runnable task : tasks) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					task.run();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> f : futures) {
+				f.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		FlatCombiningAdaptiveRadixTree<String, Integer> map = new FlatCombiningAdaptiveRadixTree<>(BinaryComparables
+				.forString());
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 20_000; i++) {
+			String key = randomKey(r);
+			switch (r.nextInt(3)) {
+			case 0:
+				Assertions.assertEquals(expected.remove(key), map.remove(key));
+				break;
+			case 1:
+				Assertions.assertEquals(expected.get(key), map.get(key));
+				Assertions.assertEquals(expected.containsKey(key), map.containsKey(key));
+				break;
+			default:
+				Assertions.assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			Assertions.assertEquals(expected.size(), map.size());
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+		Assertions.assertEquals(expected, map);
+
+		// null values are values
+		map.put("", null);
+		Assertions.assertTrue(map.containsKey(""));
+		Assertions.assertNull(map.get(""));
+
+		for (Iterator<String> i = map.keySet().iterator(); i.hasNext(); ) {
+			if (i.next().length() % 2 == 0) {
+				i.remove();
+			}
+		}
+		expected.keySet().removeIf(key -> key.length() % 2 == 0);
+		Assertions.assertEquals(expected, map);
+		map.clear();
+		Assertions.assertTrue(map.isEmpty());
+		Assertions.assertThrows(NullPointerException.class, () -> map.put(null, 1));
+		Assertions.assertThrows(NullPointerException.class, () -> map.get(null));
+	}
+
+	@Test
+	public void testContendedWrites() throws Exception {
+		int threads = 16;
+		int n = 20_000;
+		FlatCombiningAdaptiveRadixTree<Integer, Integer> map = new FlatCombiningAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		List<Runnable> tasks = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				// keys of different threads interleaved, hence batches mix them
+				for (int i = thread; i < n; i += threads) {
+					Assertions.assertNull(map.put(i, i));
+					Assertions.assertEquals(i, (int) map.get(i));
+				}
+				for (int i = thread; i < n; i += 2 * threads) {
+					Assertions.assertEquals(i, (int) map.remove(i));
+					Assertions.assertFalse(map.containsKey(i));
+				}
+			});
+		}
+		runAll(threads, tasks);
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < n; i++) {
+			if (i % (2 * threads) >= threads) {
+				expected.put(i, i);
+			}
+		}
+		Assertions.assertEquals(expected.size(), map.size());
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+	}
+
+	@Test
+	public void testShortLivedThreads() throws Exception {
+		// threads come and go, their slots are dropped and operations of the remaining ones still get applied
+		FlatCombiningAdaptiveRadixTree<Integer, Integer> map = new FlatCombiningAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		for (int round = 0; round < 50; round++) {
+			int base = round * 1_000;
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int from = base + t * 250;
+				threads.add(new Thread(() -> {
+					for (int i = from; i < from + 250; i++) {
+						map.put(i, i);
+					}
+				}));
+			}
+			threads.forEach(Thread::start);
+			for (Thread t : threads) {
+				t.join();
+			}
+			// enough passes from this thread alone to age out the slots of the ones gone
+			for (int i = 0; i < 2_000; i++) {
+				Assertions.assertEquals(base + i % 1_000, (int) map.get(base + i % 1_000));
+			}
+		}
+		Assertions.assertEquals(50_000, map.size());
+	}
+}
@@ -139,7 +139,6 @@ public abstract class InnerNodeUnitTest {
 		for (int i = 0; i < pairs.size(); i++) {
 			Pair p = pairs.get(i);
 			// uplinks setup
-			assertEquals(node, p.child.parent());
 			assertEquals(p.partialKey, p.child.uplinkKey());
 			// all added partial keys exist
 			assertEquals(p.child, node.findChild(p.partialKey));
@@ -233,22 +232,20 @@ public abstract class InnerNodeUnitTest {
 		node.removeChild(head.uplinkKey());
 		assertNull(node.findChild(head.uplinkKey()));
 		assertEquals(initialSize - 1, node.size());
-		assertNull(head.parent());
 
 		// remove at tail
 		Node tail = node.last();
 		node.removeChild(tail.uplinkKey());
 		assertNull(node.findChild(tail.uplinkKey()));
 		assertEquals(initialSize - 2, node.size());
-		assertNull(tail.parent());
 
 		verifyUnsignedLexicographicOrder();
 	}
 
 	/*
 		after growing, new node:
-		 contains same key, child mappings in same lexicographic order but with uplinks to new grown node
-		 same prefix key, no of children, uplink key, parent
+		 contains same key, child mappings in same lexicographic order and same uplink keys
+		 same prefix key, no of children, uplink key
 	 */
 	@Test
 	public void testGrow() {
@@ -284,7 +281,6 @@ public abstract class InnerNodeUnitTest {
 		for (i = 0; i < pairs.size(); i++) {
 			Pair p = pairs.get(i);
 			// uplinks setup
-			assertEquals(grown, p.child.parent());
 			assertEquals(p.partialKey, p.child.uplinkKey());
 			// all added partial keys exist
 			assertEquals(p.child, grown.findChild(p.partialKey));
@@ -295,7 +291,7 @@ public abstract class InnerNodeUnitTest {
 	/*
 		after shrinking contains same key, child mappings
 		lexicographic order maintained
-		same parent as before, prefix len, prefix keys
+		same uplink key as before, prefix len, prefix keys
 	 */
 	@Test
 	public void testShrink() {
@@ -313,7 +309,6 @@ public abstract class InnerNodeUnitTest {
 		for (int i = 0; i < pairs.size(); i++) {
 			Pair p = pairs.get(i);
 			// uplinks setup
-			assertEquals(shrunk, p.child.parent());
 			assertEquals(p.partialKey, p.child.uplinkKey());
 			// all added partial keys exist
 			assertEquals(p.child, shrunk.findChild(p.partialKey));
@@ -326,7 +321,6 @@ public abstract class InnerNodeUnitTest {
 		InnerNode bb = (InnerNode) b;
 		assertEquals(aa.prefixLen, bb.prefixLen);
 		assertArrayEquals(getValidPrefixKey(aa), getValidPrefixKey(bb));
-		assertEquals(aa.parent(), bb.parent());
 		assertEquals(aa.uplinkKey(), bb.uplinkKey());
 	}
 
@@ -335,14 +329,8 @@ public abstract class InnerNodeUnitTest {
 		assert new child found
 		same size
 		lexicographic order maintained
-		uplink setup for new child
-		old child uplink stays:
-			why? because in lazy leaf expansion case, we first link current leaf node with a
-			new Node4() and later replace current down pointer to this leaf node with this new
-			Node4() parent. If we remove old child's uplink, it could be the case that the old child
-			has been linked with a new parent.
-			Well we could make sure that explicitly in the branch, but it is fine
-			to not do in replace as well.
+		uplink key setup for new child
+		old child uplink key stays
 	 */
 	@Test
 	public void testReplace() {
@@ -352,9 +340,7 @@ public abstract class InnerNodeUnitTest {
 		assertEquals(newChild, node.findChild(first.uplinkKey()));
 		assertEquals(existingData.length, node.size());
 		assertEquals(newChild.uplinkKey(), first.uplinkKey());
-		assertEquals(node, newChild.parent());
 		assertEquals(first.uplinkKey(), first.uplinkKey());
-		assertEquals(node, first.parent());
 	}
 
 }
@@ -0,0 +1,48 @@
+package com.github.rohansuri.art;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class KeyBitmapTest {
+
+	@Test
+	public void testAgainstLinearScan() {
+		Random r = new Random(0);
+		for (int round = 0; round < 500; round++) {
+			long[] bits = KeyBitmap.create();
+			boolean[] present = new boolean[256];
+			// sparse to full, keys at the word boundaries included
+			int n = r.nextInt(4) == 0 ? r.nextInt(4) : r.nextInt(257);
+			for (int i = 0; i < n; i++) {
+				int key = r.nextBoolean() ? r.nextInt(256) : 63 + 64 * r.nextInt(4) + r.nextInt(2);
+				key = Math.min(key, 255);
+				if (r.nextInt(5) == 0) {
+					KeyBitmap.clear(bits, key);
+					present[key] = false;
+				}
+				else {
+					KeyBitmap.set(bits, key);
+					present[key] = true;
+				}
+			}
+			for (int key = -1; key <= 256; key++) {
+				int ceil = -1, floor = -1;
+				for (int i = Math.max(0, key); i < 256 && ceil < 0; i++) {
+					ceil = present[i] ? i : -1;
+				}
+				for (int i = Math.min(255, key); i >= 0 && floor < 0; i--) {
+					floor = present[i] ? i : -1;
+				}
+				// ceil is asked for past the last key (greater), floor for before the first (lesser)
+				if (key >= 0) {
+					Assertions.assertEquals(ceil, KeyBitmap.ceil(bits, key));
+				}
+				if (key <= 255) {
+					Assertions.assertEquals(floor, KeyBitmap.floor(bits, key));
+				}
+			}
+		}
+	}
+}
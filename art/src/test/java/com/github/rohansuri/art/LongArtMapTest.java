@@ -0,0 +1,112 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LongArtMapTest {
+
+	private static void assertSameEntry(Map.Entry<Long, String> expected, LongArtMap.Entry<String> actual) {
+		if (expected == null) {
+			Assertions.assertNull(actual);
+			return;
+		}
+		Assertions.assertNotNull(actual, "expected " + expected);
+		Assertions.assertEquals((long) expected.getKey(), actual.getKey());
+		Assertions.assertEquals(expected.getValue(), actual.getValue());
+	}
+
+	private static void assertSameMaps(TreeMap<Long, String> expected, LongArtMap<String> actual) {
+		Assertions.assertEquals(expected.size(), actual.size());
+		List<Long> keys = new ArrayList<>();
+		actual.forEach((k, v) -> {
+			keys.add(k);
+			Assertions.assertEquals(expected.get(k), v);
+		});
+		Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+	}
+
+	@Test
+	public void testKeyBytesSameAsBinaryComparable() {
+		long[] keys = {Long.MIN_VALUE, -1, 0, 1, 255, 256, -256, Long.MAX_VALUE, 0x0102030405060708L};
+		for (long key : keys) {
+			byte[] expected = BinaryComparables.forLong().get(key);
+			for (int i = 0; i < Long.BYTES; i++) {
+				Assertions.assertEquals(expected[i], LongArtMap.keyByte(key, i));
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		LongArtMap<String> m = new LongArtMap<>();
+		Assertions.assertTrue(m.isEmpty());
+		Assertions.assertNull(m.get(0));
+		Assertions.assertNull(m.remove(0));
+		Assertions.assertNull(m.firstEntry());
+		Assertions.assertNull(m.floorEntry(0));
+		Assertions.assertNull(m.ceilingEntry(0));
+		Assertions.assertThrows(NoSuchElementException.class, m::firstKey);
+		Assertions.assertThrows(NoSuchElementException.class, m::lastKey);
+	}
+
+	@Test
+	public void testNullValue() {
+		LongArtMap<String> m = new LongArtMap<>();
+		Assertions.assertNull(m.put(1, null));
+		Assertions.assertTrue(m.containsKey(1));
+		Assertions.assertFalse(m.containsKey(2));
+		Assertions.assertNull(m.put(1, "one"));
+		Assertions.assertEquals("one", m.get(1));
+	}
+
+	/*
+		random operations against TreeMap.
+		keys are drawn from a few clusters so that nodes grow up to Node256,
+		shrink back and compressed paths get branched out and path compressed again.
+	 */
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		long[] bases = {Long.MIN_VALUE, -1L << 20, -300, 0, 1L << 40, Long.MAX_VALUE - 1000};
+		LongArtMap<String> m = new LongArtMap<>();
+		TreeMap<Long, String> expected = new TreeMap<>();
+		for (int round = 0; round < 4; round++) {
+			for (int i = 0; i < 20_000; i++) {
+				long key = bases[r.nextInt(bases.length)] + r.nextInt(1000) * (r.nextBoolean() ? 1 : 257);
+				String value = "v" + i;
+				if (r.nextInt(3) == 0) {
+					Assertions.assertEquals(expected.remove(key), m.remove(key));
+				}
+				else {
+					Assertions.assertEquals(expected.put(key, value), m.put(key, value));
+				}
+			}
+			assertSameMaps(expected, m);
+
+			for (int i = 0; i < 2_000; i++) {
+				long key = bases[r.nextInt(bases.length)] + r.nextInt(1200) - 100;
+				Assertions.assertEquals(expected.get(key), m.get(key));
+				assertSameEntry(expected.floorEntry(key), m.floorEntry(key));
+				assertSameEntry(expected.lowerEntry(key), m.lowerEntry(key));
+				assertSameEntry(expected.ceilingEntry(key), m.ceilingEntry(key));
+				assertSameEntry(expected.higherEntry(key), m.higherEntry(key));
+			}
+			assertSameEntry(expected.firstEntry(), m.firstEntry());
+			assertSameEntry(expected.lastEntry(), m.lastEntry());
+		}
+
+		while (!expected.isEmpty()) {
+			assertSameEntry(expected.pollFirstEntry(), m.pollFirstEntry());
+			assertSameEntry(expected.pollLastEntry(), m.pollLastEntry());
+		}
+		Assertions.assertTrue(m.isEmpty());
+		Assertions.assertNull(m.pollFirstEntry());
+	}
+}
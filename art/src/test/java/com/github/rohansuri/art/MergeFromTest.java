@@ -0,0 +1,98 @@
+package com.github.rohansuri.art;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class MergeFromTest {
+
+	// sums, except for sums divisible by 3 which remove the key
+	private static Integer resolve(Integer a, Integer b) {
+		int sum = a + b;
+		return sum % 3 == 0 ? null : Integer.valueOf(sum);
+	}
+
+	private static void testAgainstTreeMap(boolean orderStatistics) {
+		Random r = new Random(0);
+		for (int round = 0; round < 300; round++) {
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			AdaptiveRadixTree<String, Integer> base = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+					orderStatistics);
+			putRandom(r, r.nextInt(2_000), expected, base);
+			AdaptiveRadixTree<String, Integer> delta = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+					orderStatistics);
+			for (int i = 0, n = r.nextInt(500); i < n; i++) {
+				String key = randomKey(r);
+				delta.put(key, i);
+			}
+			delta.forEach((k, v) -> expected.merge(k, v, MergeFromTest::resolve));
+			base.mergeFrom(delta, MergeFromTest::resolve);
+			assertSame(expected, base);
+			Assertions.assertTrue(delta.isEmpty());
+
+			// still usable
+			String key = randomKey(r);
+			Assertions.assertEquals(expected.put(key, -1), base.put(key, -1));
+			assertSame(expected, base);
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		testAgainstTreeMap(false);
+	}
+
+	@Test
+	public void testAgainstTreeMapWithOrderStatistics() {
+		testAgainstTreeMap(true);
+	}
+
+	@Test
+	public void testNodeSizes() {
+		// interleaved dense keys, every node of the base grows up to a Node256
+		AdaptiveRadixTree<Integer, Integer> base = new AdaptiveRadixTree<>(BinaryComparables.forInteger(), true);
+		AdaptiveRadixTree<Integer, Integer> delta = new AdaptiveRadixTree<>(BinaryComparables.forInteger(), true);
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 256 * 4; i++) {
+			(i % 5 == 0 ? base : delta).put(i, i);
+			expected.put(i, i);
+		}
+		base.mergeFrom(delta, (a, b) -> {
+			throw new AssertionError("no keys in both");
+		});
+		assertSame(expected, base);
+	}
+
+	@Test
+	public void testEdges() {
+		AdaptiveRadixTree<String, Integer> base = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		AdaptiveRadixTree<String, Integer> delta = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		int modCount = base.getModCount();
+		base.mergeFrom(delta, Integer::sum);
+		Assertions.assertEquals(modCount, base.getModCount());
+
+		delta.put("a", 1);
+		base.mergeFrom(delta, Integer::sum);
+		Assertions.assertEquals(Map.of("a", 1), base);
+		Assertions.assertTrue(delta.isEmpty());
+
+		delta.put("a", 2);
+		delta.put("ab", 3);
+		base.mergeFrom(delta, Integer::sum);
+		Assertions.assertEquals(Map.of("a", 3, "ab", 3), base);
+
+		// removed
+		delta.put("a", 0);
+		base.mergeFrom(delta, (a, b) -> null);
+		assertSame(new TreeMap<>(Map.of("ab", 3)), base);
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> base.mergeFrom(base, Integer::sum));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveRadixTree<String, Integer>(
+				BinaryComparables.forString(), true).mergeFrom(delta, Integer::sum));
+		Assertions.assertThrows(NullPointerException.class, () -> base.mergeFrom(delta, null));
+	}
+}
@@ -1,9 +1,51 @@
 package com.github.rohansuri.art;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
 public class Node16UnitTest extends InnerNodeUnitTest {
 
 	Node16UnitTest() {
 		super(Node4.NODE_SIZE);
 	}
 
+	@Test
+	public void testSearchAgainstLinearScan() {
+		Random r = new Random(0);
+		byte[] keys = new byte[Node16.NODE_SIZE];
+		for (int round = 0; round < 2_000; round++) {
+			// sorted distinct keys, followed by stale garbage
+			int n = r.nextInt(Node16.NODE_SIZE + 1);
+			r.nextBytes(keys);
+			byte[] distinct = new byte[n];
+			boolean[] taken = new boolean[256];
+			for (int i = 0; i < n; ) {
+				byte b = (byte) r.nextInt(256);
+				if (!taken[b & 0xFF]) {
+					taken[b & 0xFF] = true;
+					distinct[i++] = b;
+				}
+			}
+			Arrays.sort(distinct);
+			System.arraycopy(distinct, 0, keys, 0, n);
+
+			for (int b = Byte.MIN_VALUE; b <= Byte.MAX_VALUE; b++) {
+				byte key = (byte) b;
+				int index = -1, lesser = 0, lesserOrEqual = 0;
+				for (int i = 0; i < n; i++) {
+					if (keys[i] == key) {
+						index = i;
+					}
+					lesser += keys[i] < key ? 1 : 0;
+					lesserOrEqual += keys[i] <= key ? 1 : 0;
+				}
+				Assertions.assertEquals(index, Node16.indexOf(keys, n, key));
+				Assertions.assertEquals(lesser, Node16.countLesser(keys, n, key, false));
+				Assertions.assertEquals(lesserOrEqual, Node16.countLesser(keys, n, key, true));
+			}
+		}
+	}
 }
@@ -1,8 +1,55 @@
 package com.github.rohansuri.art;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
 public class Node48UnitTest extends InnerNodeUnitTest {
 
 	Node48UnitTest() {
 		super(Node16.NODE_SIZE);
 	}
+
+	@Test
+	public void testChurn() {
+		// adds and removes between 17 and 48 children, reusing the slots fragmented by removes
+		Random r = new Random(0);
+		Node48 node48 = (Node48) node;
+		Map<Byte, Node> children = new HashMap<>();
+		for (Pair p : existingData) {
+			children.put(p.partialKey, p.child);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			byte partialKey = (byte) r.nextInt(256);
+			if (children.containsKey(partialKey)) {
+				if (!node48.shouldShrink()) {
+					node48.removeChild(partialKey);
+					children.remove(partialKey);
+				}
+			}
+			else if (!node48.isFull()) {
+				Node child = Mockito.spy(Node.class);
+				node48.addChild(partialKey, child);
+				children.put(partialKey, child);
+			}
+			Assertions.assertEquals(children.size(), node48.size());
+		}
+		for (int b = Byte.MIN_VALUE; b <= Byte.MAX_VALUE; b++) {
+			Assertions.assertSame(children.get((byte) b), node48.findChild((byte) b));
+		}
+		// all 48 slots in use once full
+		while (!node48.isFull()) {
+			byte partialKey = (byte) r.nextInt(256);
+			if (node48.findChild(partialKey) == null) {
+				node48.addChild(partialKey, Mockito.spy(Node.class));
+			}
+		}
+		for (int i = 0; i < Node48.NODE_SIZE; i++) {
+			Assertions.assertNotNull(node48.getChild()[i]);
+		}
+	}
 }
@@ -0,0 +1,126 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class OrderStatisticsTest {
+
+	// every inner node is counted, with the no of leaves under it
+	static int assertCounts(Node node) {
+		if (node instanceof LeafNode) {
+			return 1;
+		}
+		InnerNode inner = (InnerNode) node;
+		int leaves = inner.hasLeaf() ? 1 : 0;
+		for (Node child = inner.first(); child != null; child = inner.greater(child.uplinkKey())) {
+			leaves += assertCounts(child);
+		}
+		Assertions.assertEquals(leaves, inner.getLeafCount());
+		return leaves;
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString(), true);
+		for (int round = 0; round < 4; round++) {
+			// grow and shrink nodes, alternately
+			boolean inserting = round % 2 == 0;
+			for (int i = 0; i < 10_000; i++) {
+				String key = randomKey(r);
+				if (inserting || r.nextInt(4) == 0) {
+					Assertions.assertEquals(expected.put(key, i), art.put(key, i));
+				}
+				else {
+					Assertions.assertEquals(expected.remove(key), art.remove(key));
+				}
+			}
+			assertSame(expected, art);
+
+			List<String> keys = new ArrayList<>(expected.keySet());
+			for (int i = 0; i < keys.size(); i += 7) {
+				Assertions.assertEquals(i, art.rank(keys.get(i)));
+				Assertions.assertEquals(keys.get(i), art.select(i).getKey());
+			}
+			for (int i = 0; i < 1_000; i++) {
+				String from = randomKey(r), to = randomKey(r);
+				if (from.compareTo(to) > 0) {
+					String t = from;
+					from = to;
+					to = t;
+				}
+				boolean fromInclusive = r.nextBoolean(), toInclusive = r.nextBoolean();
+				Assertions.assertEquals(expected.headMap(from).size(), art.rank(from));
+				int count = expected.subMap(from, fromInclusive, to, toInclusive).size();
+				Assertions.assertEquals(count, art.countRange(from, fromInclusive, to, toInclusive));
+				Assertions.assertEquals(count, art.subMap(from, fromInclusive, to, toInclusive).size());
+				Assertions.assertEquals(expected.tailMap(from, fromInclusive).size(), art.tailMap(from, fromInclusive)
+						.size());
+				Assertions.assertEquals(expected.headMap(to, toInclusive).size(), art.descendingMap()
+						.tailMap(to, toInclusive).size());
+				String prefix = from.substring(0, r.nextInt(from.length() + 1));
+				Assertions.assertEquals(expected.subMap(prefix, prefix + Character.MAX_VALUE).size(), art
+						.prefixMap(prefix).size());
+			}
+		}
+	}
+
+	@Test
+	public void testOnlyCountedTreesHaveCountedNodes() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		putRandom(r, 1_000, expected, art);
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> ((InnerNode) art.getRoot()).getLeafCount());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> ((InnerNode) AdaptiveRadixTree
+				.fromSorted(expected.entrySet().iterator(), BinaryComparables.forString()).getRoot()).getLeafCount());
+
+		AdaptiveRadixTree<String, Integer> counted = new AdaptiveRadixTree<>(BinaryComparables.forString(), true);
+		counted.putAll(art);
+		assertSame(expected, counted);
+		assertSame(expected, counted.intersect(art));
+	}
+
+	@Test
+	public void testPaging() {
+		AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger(), true);
+		for (int i = -50_000; i < 50_000; i += 3) {
+			art.put(i, i);
+		}
+		int pageSize = 20;
+		for (int page : new int[]{0, 1, 500, 1665}) {
+			Map.Entry<Integer, Integer> first = art.select(page * pageSize);
+			Assertions.assertEquals(-50_000 + page * pageSize * 3, (int) first.getKey());
+			Assertions.assertEquals(page * pageSize, art.rank(first.getKey()));
+		}
+		Assertions.assertEquals(art.lastKey(), art.select(art.size() - 1).getKey());
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> art.select(art.size()));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> art.select(-1));
+		Assertions.assertEquals(0, art.countRange(1, 1));
+		Assertions.assertEquals(1, art.countRange(1, true, 1, true));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> art.countRange(2, 1));
+
+		art.clear();
+		Assertions.assertEquals(0, art.rank(1));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> art.select(0));
+	}
+
+	@Test
+	public void testWithoutOrderStatistics() {
+		AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+		art.put(1, 1);
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> art.rank(1));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> art.select(0));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> art.countRange(0, 2));
+		// sub maps still count by iterating
+		Assertions.assertEquals(1, art.subMap(0, 2).size());
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.rohansuri.art;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ParallelBuilderTest {
+
+	private static <K, V> void assertSameAsPuts(List<Map.Entry<K, V>> entries, BinaryComparable<K> bc,
+			ForkJoinPool pool) {
+		AdaptiveRadixTree<K, V> expected = new AdaptiveRadixTree<>(bc);
+		for (Map.Entry<K, V> e : entries) {
+			expected.put(e.getKey(), e.getValue());
+		}
+		AdaptiveRadixTree<K, V> art = AdaptiveRadixTree.fromUnsorted(entries, bc, pool);
+		Assertions.assertEquals(expected.size(), art.size());
+		if (!expected.isEmpty()) {
+			Assertions.assertEquals(expected.size(), SortedBuilderTest.assertWellFormed(art.getRoot(), null));
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(art.entrySet()));
+		for (K key : expected.keySet()) {
+			Assertions.assertEquals(expected.get(key), art.get(key));
+		}
+
+		// further modifications work as usual
+		List<K> keys = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < keys.size(); i += 2) {
+			Assertions.assertEquals(expected.remove(keys.get(i)), art.remove(keys.get(i)));
+		}
+		for (Map.Entry<K, V> e : entries) {
+			Assertions.assertEquals(expected.put(e.getKey(), e.getValue()), art.put(e.getKey(), e.getValue()));
+		}
+		Assertions.assertEquals(expected, art);
+	}
+
+	@Test
+	public void testStringsWithDuplicates() {
+		Random r = new Random(0);
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+		// large enough to be partitioned in parallel, with common prefixes and keys that are prefixes of others
+		for (int i = 0; i < 200_000; i++) {
+			String key = "prefix_longer_than_eight_" + r.nextInt(100) + "_" + Integer.toString(r.nextInt(50_000), 36);
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(key, i));
+			if (r.nextInt(10) == 0) {
+				entries.add(new AbstractMap.SimpleImmutableEntry<>(key.substring(0, r.nextInt(key.length()) + 1), i));
+			}
+		}
+		assertSameAsPuts(entries, BinaryComparables.forString(), ForkJoinPool.commonPool());
+	}
+
+	@Test
+	public void testLongs() {
+		Random r = new Random(0);
+		List<Map.Entry<Long, Integer>> entries = new ArrayList<>();
+		for (int i = 0; i < 300_000; i++) {
+			long key = i % 3 == 0 ? i : r.nextLong();
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(key, i));
+		}
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			assertSameAsPuts(entries, BinaryComparables.forLong(), pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSmall() {
+		for (int n = 0; n <= 300; n++) {
+			List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				entries.add(new AbstractMap.SimpleImmutableEntry<>((i * 7919) % 301, i));
+			}
+			assertSameAsPuts(entries, BinaryComparables.forInteger(), ForkJoinPool.commonPool());
+		}
+	}
+
+	@Test
+	public void testNullKey() {
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+		entries.add(new AbstractMap.SimpleImmutableEntry<>("a", 1));
+		entries.add(new AbstractMap.SimpleImmutableEntry<>(null, 2));
+		Assertions.assertThrows(NullPointerException.class, () -> AdaptiveRadixTree
+				.fromUnsorted(entries, BinaryComparables.forString()));
+	}
+}
@@ -0,0 +1,105 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PathTest {
+
+	// prefixes of each other (leaves in inner nodes) and long common prefixes (optimistic paths)
+	private static AdaptiveRadixTree<String, String> tree(Random r, TreeMap<String, String> expected, boolean orderStatistics) {
+		AdaptiveRadixTree<String, String> art = new AdaptiveRadixTree<>(BinaryComparables.forString(), orderStatistics);
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder key = new StringBuilder(r.nextInt(4) == 0 ? "commonprefixlongerthaneight" : "");
+			for (int n = r.nextInt(4); n >= 0; n--) {
+				key.append((char) ('a' + r.nextInt(r.nextBoolean() ? 3 : 26)));
+			}
+			art.put(key.toString(), key.toString());
+			expected.put(key.toString(), key.toString());
+		}
+		return art;
+	}
+
+	@Test
+	public void testSuccessorAndPredecessor() {
+		TreeMap<String, String> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, String> art = tree(new Random(0), expected, false);
+
+		List<String> keys = new ArrayList<>();
+		Path path = new Path();
+		for (Node e = path.first(art.getRoot()); e != null; e = path.successor()) {
+			keys.add(((LeafNode<String, String>) e).getKey());
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+
+		keys.clear();
+		for (Node e = path.last(art.getRoot()); e != null; e = path.predecessor()) {
+			keys.add(((LeafNode<String, String>) e).getKey());
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.descendingKeySet()), keys);
+	}
+
+	@Test
+	public void testSeek() {
+		TreeMap<String, String> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, String> art = tree(new Random(1), expected, false);
+		Path path = new Path();
+		for (String key : expected.keySet()) {
+			byte[] bytes = BinaryComparables.forString().get(key);
+			Node leaf = path.seek(art.getRoot(), bytes, bytes.length);
+			Assertions.assertEquals(key, ((LeafNode<String, String>) leaf).getKey());
+			// the path leads to the leaf
+			InnerNode parent = path.parent();
+			if (parent.getLeaf() != leaf) {
+				Assertions.assertSame(leaf, parent.findChild(leaf.uplinkKey()));
+			}
+			Node next = path.successor();
+			String higher = expected.higherKey(key);
+			Assertions.assertEquals(higher, next == null ? null : ((LeafNode<String, String>) next).getKey());
+		}
+		byte[] absent = BinaryComparables.forString().get("zzzzzzz");
+		Assertions.assertNull(path.seek(art.getRoot(), absent, absent.length));
+	}
+
+	@Test
+	public void testIteratorRemoveShrinksNodesOnThePath() {
+		for (boolean orderStatistics : new boolean[]{false, true}) {
+			Random r = new Random(2);
+			TreeMap<String, String> expected = new TreeMap<>();
+			AdaptiveRadixTree<String, String> art = tree(r, expected, orderStatistics);
+
+			// removing most keys shrinks and path compresses the nodes the iterators are at
+			Iterator<Map.Entry<String, String>> i = art.entrySet().iterator();
+			Iterator<Map.Entry<String, String>> j = expected.entrySet().iterator();
+			while (j.hasNext()) {
+				Assertions.assertEquals(j.next(), i.next());
+				if (r.nextInt(4) != 0) {
+					i.remove();
+					j.remove();
+				}
+			}
+			Assertions.assertFalse(i.hasNext());
+			Assertions.assertEquals(expected, art);
+
+			Iterator<String> di = art.descendingKeySet().iterator();
+			Iterator<String> dj = expected.descendingKeySet().iterator();
+			while (dj.hasNext()) {
+				Assertions.assertEquals(dj.next(), di.next());
+				if (r.nextBoolean()) {
+					di.remove();
+					dj.remove();
+				}
+			}
+			Assertions.assertEquals(expected, art);
+			if (orderStatistics) {
+				Assertions.assertEquals(expected.size(), OrderStatisticsTest.assertCounts(art.getRoot()));
+			}
+		}
+	}
+}
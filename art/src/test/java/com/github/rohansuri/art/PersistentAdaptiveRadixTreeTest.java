@@ -0,0 +1,215 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class PersistentAdaptiveRadixTreeTest {
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		for (int round = 0; round < 50; round++) {
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			PersistentAdaptiveRadixTree<String, Integer> tree = PersistentAdaptiveRadixTree
+					.empty(BinaryComparables.forString());
+			// every version along the way, with what it should have
+			List<PersistentAdaptiveRadixTree<String, Integer>> versions = new ArrayList<>();
+			List<TreeMap<String, Integer>> expectedVersions = new ArrayList<>();
+			for (int i = 0, n = r.nextInt(3_000); i < n; i++) {
+				String key = randomKey(r);
+				if (r.nextInt(3) == 0) {
+					PersistentAdaptiveRadixTree<String, Integer> removed = tree.remove(key);
+					Assertions.assertEquals(expected.remove(key) == null, removed == tree);
+					tree = removed;
+				}
+				else {
+					expected.put(key, i);
+					tree = tree.put(key, i);
+				}
+				Assertions.assertEquals(expected.get(key), tree.get(key));
+				if (i % 100 == 0) {
+					versions.add(tree);
+					expectedVersions.add(new TreeMap<>(expected));
+				}
+			}
+			assertSame(expected, tree);
+			for (String key : expected.keySet()) {
+				Assertions.assertEquals(expected.get(key), tree.get(key));
+			}
+
+			// older versions are unchanged
+			for (int i = 0; i < versions.size(); i++) {
+				assertSame(expectedVersions.get(i), versions.get(i));
+			}
+		}
+	}
+
+	// records the differences as "+key", "-key" and "~key"
+	private static List<String> diff(PersistentAdaptiveRadixTree<String, Integer> a,
+			PersistentAdaptiveRadixTree<String, Integer> b) {
+		List<String> diff = new ArrayList<>();
+		a.diff(b, new DiffListener<String, Integer>() {
+			@Override
+			public void added(Map.Entry<String, Integer> entry) {
+				diff.add("+" + entry.getKey());
+			}
+
+			@Override
+			public void removed(Map.Entry<String, Integer> entry) {
+				diff.add("-" + entry.getKey());
+			}
+
+			@Override
+			public void changed(Map.Entry<String, Integer> entry, Map.Entry<String, Integer> otherEntry) {
+				Assertions.assertThrows(UnsupportedOperationException.class, () -> entry.setValue(0));
+				diff.add("~" + entry.getKey());
+			}
+		});
+		return diff;
+	}
+
+	@Test
+	public void testDiffBetweenVersions() {
+		Random r = new Random(0);
+		for (int round = 0; round < 100; round++) {
+			TreeMap<String, Integer> expectedA = new TreeMap<>();
+			PersistentAdaptiveRadixTree<String, Integer> a = PersistentAdaptiveRadixTree
+					.empty(BinaryComparables.forString());
+			for (int i = 0, n = r.nextInt(2_000); i < n; i++) {
+				String key = randomKey(r);
+				expectedA.put(key, i);
+				a = a.put(key, i);
+			}
+			TreeMap<String, Integer> expectedB = new TreeMap<>(expectedA);
+			PersistentAdaptiveRadixTree<String, Integer> b = a;
+			for (int i = 0, n = r.nextInt(r.nextBoolean() ? 5 : 500); i < n; i++) {
+				String key = randomKey(r);
+				if (r.nextBoolean()) {
+					expectedB.remove(key);
+					b = b.remove(key);
+				}
+				else {
+					expectedB.put(key, i);
+					b = b.put(key, i);
+				}
+			}
+
+			TreeSet<String> keys = new TreeSet<>(expectedA.keySet());
+			keys.addAll(expectedB.keySet());
+			List<String> expectedDiff = new ArrayList<>();
+			for (String key : keys) {
+				if (!expectedB.containsKey(key)) {
+					expectedDiff.add("-" + key);
+				}
+				else if (!expectedA.containsKey(key)) {
+					expectedDiff.add("+" + key);
+				}
+				else if (!expectedA.get(key).equals(expectedB.get(key))) {
+					expectedDiff.add("~" + key);
+				}
+			}
+			Assertions.assertEquals(expectedDiff, diff(a, b));
+			Assertions.assertEquals(expectedA, a.asMap());
+			Assertions.assertEquals(expectedB, b.asMap());
+		}
+	}
+
+	@Test
+	public void testOlderVersionsAreNotWritten() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		PersistentAdaptiveRadixTree<String, Integer> tree = PersistentAdaptiveRadixTree
+				.empty(BinaryComparables.forString());
+		for (int i = 0; i < 2_000; i++) {
+			String key = randomKey(r);
+			expected.put(key, i);
+			tree = tree.put(key, i);
+		}
+		PersistentAdaptiveRadixTree<String, Integer> old = tree;
+		// not even the uplinks of the nodes shared with later versions
+		Map<Node, Byte> uplinks = new IdentityHashMap<>();
+		collectUplinks(old.getRoot(), uplinks);
+		for (int i = 0; i < 2_000; i++) {
+			String key = randomKey(r);
+			tree = r.nextInt(3) == 0 ? tree.remove(key) : tree.put(key, i);
+		}
+		uplinks.forEach((node, uplink) -> Assertions.assertEquals(uplink, node.uplinkKey()));
+		assertSame(expected, old);
+	}
+
+	private static void collectUplinks(Node node, Map<Node, Byte> uplinks) {
+		uplinks.put(node, node.uplinkKey());
+		if (node instanceof InnerNode) {
+			InnerNode innerNode = (InnerNode) node;
+			byte[] keys = new byte[innerNode.size()];
+			Node[] children = new Node[innerNode.size()];
+			int n = innerNode.copyChildren(keys, children);
+			if (innerNode.hasLeaf()) {
+				uplinks.put(innerNode.getLeaf(), innerNode.getLeaf().uplinkKey());
+			}
+			for (int i = 0; i < n; i++) {
+				collectUplinks(children[i], uplinks);
+			}
+		}
+	}
+
+	@Test
+	public void testNodeSizes() {
+		// dense keys, every node type grows and shrinks back through copies
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		PersistentAdaptiveRadixTree<Integer, Integer> tree = PersistentAdaptiveRadixTree
+				.empty(BinaryComparables.forInteger());
+		for (int i = 0; i < 256 * 4; i++) {
+			expected.put(i, i);
+			tree = tree.put(i, i);
+		}
+		PersistentAdaptiveRadixTree<Integer, Integer> full = tree;
+		assertSame(expected, full);
+		for (int i = 0; i < 256 * 4; i++) {
+			expected.remove(i);
+			tree = tree.remove(i);
+			if (i % 50 == 0) {
+				assertSame(expected, tree);
+			}
+		}
+		Assertions.assertTrue(tree.isEmpty());
+		Assertions.assertEquals(256 * 4, full.size());
+		Assertions.assertEquals(7, full.get(7));
+	}
+
+	@Test
+	public void testEdges() {
+		PersistentAdaptiveRadixTree<String, Integer> empty = PersistentAdaptiveRadixTree
+				.empty(BinaryComparables.forString());
+		Assertions.assertSame(empty, empty.remove("a"));
+		Assertions.assertFalse(empty.iterator().hasNext());
+		Assertions.assertEquals("{}", empty.toString());
+
+		PersistentAdaptiveRadixTree<String, Integer> one = empty.put("a", 1);
+		PersistentAdaptiveRadixTree<String, Integer> two = one.put("ab", 2);
+		PersistentAdaptiveRadixTree<String, Integer> replaced = two.put("a", 3);
+		Assertions.assertEquals(Map.of("a", 1), one.asMap());
+		Assertions.assertEquals(Map.of("a", 1, "ab", 2), two.asMap());
+		Assertions.assertEquals(Map.of("a", 3, "ab", 2), replaced.asMap());
+		Assertions.assertSame(two, two.remove("abc"));
+		Assertions.assertEquals(Map.of("ab", 2), two.remove("a").asMap());
+		Assertions.assertTrue(one.remove("a").isEmpty());
+		Assertions.assertTrue(two.containsKey("ab"));
+		Assertions.assertFalse(two.containsKey("b"));
+
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> two.iterator().next().setValue(5));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> two.asMap().put("b", 5));
+		Assertions.assertThrows(NullPointerException.class, () -> two.put(null, 1));
+		Assertions.assertThrows(NullPointerException.class, () -> two.get(null));
+		Assertions.assertThrows(NullPointerException.class, () -> two.remove(null));
+	}
+}
@@ -0,0 +1,130 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PrefixMapTest {
+
+	private static TreeMap<String, Integer> expected(TreeMap<String, Integer> all, String prefix) {
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		all.forEach((k, v) -> {
+			if (k.startsWith(prefix)) {
+				expected.put(k, v);
+			}
+		});
+		return expected;
+	}
+
+	private static void assertSame(TreeMap<String, Integer> expected, SortedMap<String, Integer> actual) {
+		Assertions.assertEquals(expected.size(), actual.size());
+		Assertions.assertEquals(expected.isEmpty(), actual.isEmpty());
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+		if (!expected.isEmpty()) {
+			Assertions.assertEquals(expected.firstKey(), actual.firstKey());
+			Assertions.assertEquals(expected.lastKey(), actual.lastKey());
+		}
+		else {
+			Assertions.assertThrows(NoSuchElementException.class, actual::firstKey);
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> all = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		for (int i = 0; i < 20_000; i++) {
+			// ascii, long compressed paths and keys that are prefixes of others
+			String key = "prefix_longer_than_eight_" + r.nextInt(30) + "_" + Integer.toString(r.nextInt(5_000), 36);
+			key = key.substring(0, key.length() - r.nextInt(3));
+			all.put(key, i);
+			art.put(key, i);
+		}
+		for (int i = 0; i < 2_000; i++) {
+			String probe = "prefix_longer_than_eight_" + r.nextInt(32) + "_" + Integer.toString(r.nextInt(5_500), 36);
+			probe = probe.substring(0, probe.length() - r.nextInt(probe.length() + 1));
+			TreeMap<String, Integer> expected = expected(all, probe);
+			SortedMap<String, Integer> prefixMap = art.prefixMap(probe);
+			assertSame(expected, prefixMap);
+			Assertions.assertEquals(expected, art.prefixMap(BinaryComparables.forString().get(probe)));
+			Assertions.assertEquals(expected.containsKey(probe), prefixMap.containsKey(probe));
+			Assertions.assertEquals(expected.get(probe + "1"), prefixMap.get(probe + "1"));
+			if (!probe.isEmpty()) {
+				// out of range
+				Assertions.assertNull(prefixMap.get(probe.substring(1)));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteThrough() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		TreeMap<String, Integer> all = new TreeMap<>();
+		for (String s : new String[]{"a", "ab", "abc", "abd", "b", "abcdefghijklmnop", "abcdefghijklmnoq"}) {
+			art.put(s, s.length());
+			all.put(s, s.length());
+		}
+		SortedMap<String, Integer> ab = art.prefixMap("ab");
+		assertSame(expected(all, "ab"), ab);
+
+		// modifications through the backing map are visible, even after nodes get replaced
+		// (ascii, growing the node to a Node256)
+		for (int i = 0; i < 79; i++) {
+			art.put("ab" + (char) ('0' + i), i);
+			all.put("ab" + (char) ('0' + i), i);
+		}
+		assertSame(expected(all, "ab"), ab);
+
+		// and vice versa
+		Assertions.assertEquals(2, ab.put("ab", 20));
+		Assertions.assertEquals(20, art.get("ab"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ab.put("b", 1));
+		Assertions.assertEquals(all.remove("abc"), ab.remove("abc"));
+		Assertions.assertNull(ab.remove("b"));
+		Assertions.assertTrue(art.containsKey("b"));
+		all.put("ab", 20);
+		assertSame(expected(all, "ab"), ab);
+
+		// sub maps are bounded by the prefix too
+		Assertions.assertEquals(expected(all, "ab").headMap("abd"), ab.headMap("abd"));
+		Assertions.assertEquals(expected(all, "ab").tailMap("abd"), ab.tailMap("abd"));
+		Assertions.assertEquals(expected(all, "ab").subMap("ab1", "abd"), ab.subMap("ab1", "abd"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ab.headMap("b"));
+
+		Iterator<Map.Entry<String, Integer>> it = ab.entrySet().iterator();
+		it.next();
+		art.put("c", 1);
+		Assertions.assertThrows(ConcurrentModificationException.class, it::next);
+
+		ab.clear();
+		Assertions.assertTrue(ab.isEmpty());
+		all.keySet().removeIf(k -> k.startsWith("ab"));
+		Assertions.assertEquals(all.size() + 1, art.size());
+		Assertions.assertTrue(art.containsKey("a"));
+		Assertions.assertTrue(art.prefixMap("").containsKey("c"));
+	}
+
+	@Test
+	public void testBinaryPrefix() {
+		AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+		for (int i = -1000; i < 1000; i++) {
+			art.put(i, i);
+		}
+		// non negative ints below 1 << 8 share the first three bytes (sign bit flipped)
+		SortedMap<Integer, Integer> m = art.prefixMap(new byte[]{(byte) 0x80, 0, 0});
+		Assertions.assertEquals(art.subMap(0, 256), m);
+		Assertions.assertEquals(0, m.firstKey());
+		Assertions.assertEquals(255, m.lastKey());
+		Assertions.assertTrue(art.prefixMap(new byte[]{(byte) 0xFF}).isEmpty());
+		Assertions.assertEquals(art.headMap(0), art.prefixMap(new byte[]{(byte) 0x7F}));
+	}
+}
@@ -0,0 +1,104 @@
+package com.github.rohansuri.art;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class RemoveRangeTest {
+
+	private static void testAgainstTreeMap(boolean orderStatistics) {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+				orderStatistics);
+		for (int round = 0; round < 300; round++) {
+			putRandom(r, 200, expected, art);
+			String from = randomKey(r), to = randomKey(r);
+			if (from.compareTo(to) > 0) {
+				String t = from;
+				from = to;
+				to = t;
+			}
+			boolean fromInclusive = r.nextBoolean(), toInclusive = r.nextBoolean();
+			switch (r.nextInt(5)) {
+			case 0:
+				expected.subMap(from, fromInclusive, to, toInclusive).clear();
+				art.removeRange(from, fromInclusive, to, toInclusive);
+				break;
+			case 1:
+				expected.headMap(to, toInclusive).clear();
+				art.headMap(to, toInclusive).clear();
+				break;
+			case 2:
+				expected.tailMap(from, fromInclusive).clear();
+				art.tailMap(from, fromInclusive).keySet().clear();
+				break;
+			case 3:
+				expected.descendingMap().subMap(to, toInclusive, from, fromInclusive).clear();
+				art.descendingMap().subMap(to, toInclusive, from, fromInclusive).entrySet().clear();
+				break;
+			default:
+				String prefix = from.substring(0, from.length() / 2);
+				expected.subMap(prefix, prefix + Character.MAX_VALUE).clear();
+				art.prefixMap(prefix).clear();
+			}
+			assertSame(expected, art);
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		testAgainstTreeMap(false);
+	}
+
+	@Test
+	public void testAgainstTreeMapWithOrderStatistics() {
+		testAgainstTreeMap(true);
+	}
+
+	@Test
+	public void testShrinkingNodes() {
+		// dense keys to get Node256s, cleared to the point of every smaller node type
+		for (int keep : new int[]{0, 1, 2, 4, 5, 16, 17, 48, 49, 200}) {
+			AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger(), true);
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 256 * 4; i++) {
+				art.put(i, i);
+				expected.put(i, i);
+			}
+			art.removeRange(keep, 256 * 4 - keep);
+			expected.subMap(keep, 256 * 4 - keep).clear();
+			assertSame(expected, art);
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		art.removeRange("a", "b");
+		art.put("a", 1);
+		art.removeRange("a", false, "a", true);
+		Assertions.assertEquals(1, art.size());
+		art.removeRange("a", true, "a", true);
+		Assertions.assertTrue(art.isEmpty());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> art.removeRange("b", "a"));
+
+		art.put("a", 1);
+		art.put("b", 2);
+		NavigableMap<String, Integer> sub = art.subMap("a", true, "b", false);
+		int modCount = art.getModCount();
+		art.subMap("c", "d").clear();
+		Assertions.assertEquals(modCount, art.getModCount());
+		sub.clear();
+		Assertions.assertEquals(Map.of("b", 2), art);
+		SortedMap<String, Integer> all = art.prefixMap("");
+		all.clear();
+		Assertions.assertTrue(art.isEmpty());
+	}
+}
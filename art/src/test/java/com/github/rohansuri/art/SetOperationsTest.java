@@ -0,0 +1,112 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class SetOperationsTest {
+
+	@Test
+	public void testAgainstTreeMap() {
+		Random r = new Random(0);
+		for (int round = 0; round < 300; round++) {
+			boolean orderStatistics = r.nextBoolean();
+			TreeMap<String, Integer> expectedLeft = new TreeMap<>();
+			TreeMap<String, Integer> expectedRight = new TreeMap<>();
+			AdaptiveRadixTree<String, Integer> left = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+					orderStatistics);
+			AdaptiveRadixTree<String, String> right = new AdaptiveRadixTree<>(BinaryComparables.forString());
+			// sides of very different sizes too
+			int leftSize = r.nextInt(r.nextBoolean() ? 20 : 2_000);
+			int rightSize = r.nextInt(r.nextBoolean() ? 20 : 2_000);
+			for (int i = 0; i < leftSize; i++) {
+				String key = randomKey(r, 1_000);
+				expectedLeft.put(key, i);
+				left.put(key, i);
+			}
+			for (int i = 0; i < rightSize; i++) {
+				String key = randomKey(r, 1_000);
+				expectedRight.put(key, i);
+				right.put(key, key);
+			}
+
+			TreeMap<String, Integer> intersection = new TreeMap<>(expectedLeft);
+			intersection.keySet().retainAll(expectedRight.keySet());
+			TreeMap<String, Integer> difference = new TreeMap<>(expectedLeft);
+			difference.keySet().removeAll(expectedRight.keySet());
+			assertSame(intersection, left.intersect(right));
+			assertSame(difference, left.difference(right));
+
+			List<String> joined = new ArrayList<>();
+			left.forEachJoin(right, (a, b) -> {
+				Assertions.assertEquals(a.getKey(), b.getValue());
+				Assertions.assertEquals(expectedLeft.get(a.getKey()), a.getValue());
+				joined.add(a.getKey());
+			});
+			Assertions.assertEquals(new ArrayList<>(intersection.keySet()), joined);
+
+			// neither is changed
+			assertSame(expectedLeft, left);
+			Assertions.assertEquals(expectedRight.keySet(), right.keySet());
+		}
+	}
+
+	@Test
+	public void testNodeSizes() {
+		// dense keys, every node type on either side
+		for (int step : new int[]{1, 2, 5, 17, 49}) {
+			AdaptiveRadixTree<Integer, Integer> left = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+			AdaptiveRadixTree<Integer, Integer> right = new AdaptiveRadixTree<>(BinaryComparables.forInteger());
+			TreeMap<Integer, Integer> intersection = new TreeMap<>();
+			TreeMap<Integer, Integer> difference = new TreeMap<>();
+			for (int i = 0; i < 256 * 4; i++) {
+				left.put(i, i);
+				if (i % step == 0) {
+					right.put(i, i);
+					intersection.put(i, i);
+				}
+				else {
+					difference.put(i, i);
+				}
+			}
+			assertSame(intersection, left.intersect(right));
+			assertSame(intersection, right.intersect(left));
+			assertSame(difference, left.difference(right));
+			Assertions.assertTrue(right.difference(left).isEmpty());
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		AdaptiveRadixTree<String, Integer> empty = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		art.put("a", 1);
+		art.put("ab", 2);
+		Assertions.assertTrue(art.intersect(empty).isEmpty());
+		Assertions.assertTrue(empty.intersect(art).isEmpty());
+		Assertions.assertTrue(empty.difference(art).isEmpty());
+		Assertions.assertEquals(Map.of("a", 1, "ab", 2), art.difference(empty));
+		Assertions.assertEquals(art, art.intersect(art));
+
+		AdaptiveRadixTree<String, Integer> other = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		other.put("ab", 3);
+		other.put("abc", 4);
+		Assertions.assertEquals(Map.of("ab", 2), art.intersect(other));
+		Assertions.assertEquals(Map.of("a", 1), art.difference(other));
+		Assertions.assertEquals(Map.of("abc", 4), other.difference(art));
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> art
+				.forEachJoin(other, (a, b) -> other.put("b", 5)));
+		Assertions.assertThrows(NullPointerException.class, () -> art.forEachJoin(other, null));
+
+		// values set through the entries write through
+		art.forEachJoin(other, (a, b) -> a.setValue(b.getValue()));
+		Assertions.assertEquals(3, art.get("ab"));
+	}
+}
@@ -0,0 +1,209 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class ShardedAdaptiveRadixTreeTest {
+	private static final int THREADS = 4;
+
+	private ExecutorService pool;
+
+	@BeforeEach
+	public void setup() {
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		pool.shutdownNow();
+		Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private void runAll(List<Runnable> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable task : tasks) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				task.run();
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	// spread over the leading bytes, hence shards
+	private static String shardedKey(Random r) {
+		return (char) ('!' + r.nextInt(90)) + randomKey(r, 500);
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		for (int shards : new int[]{1, 3, 16, 256}) {
+			Random r = new Random(shards);
+			ShardedAdaptiveRadixTree<String, Integer> map = new ShardedAdaptiveRadixTree<>(BinaryComparables
+					.forString(), shards);
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 20_000; i++) {
+				String key = shardedKey(r);
+				switch (r.nextInt(4)) {
+				case 0:
+					Assertions.assertEquals(expected.remove(key), map.remove(key));
+					break;
+				case 1:
+					Assertions.assertEquals(expected.merge(key, i, Integer::sum), map.merge(key, i, Integer::sum));
+					break;
+				default:
+					Assertions.assertEquals(expected.put(key, i), map.put(key, i));
+				}
+			}
+			Assertions.assertEquals(expected.size(), map.size());
+			Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+			Assertions.assertEquals(expected, map);
+			Assertions.assertEquals(expected.firstEntry(), map.firstEntry());
+			Assertions.assertEquals(expected.lastEntry(), map.lastEntry());
+			for (int i = 0; i < 2_000; i++) {
+				String key = shardedKey(r);
+				Assertions.assertEquals(expected.get(key), map.get(key));
+				Assertions.assertEquals(expected.ceilingEntry(key), map.ceilingEntry(key));
+				Assertions.assertEquals(expected.higherEntry(key), map.higherEntry(key));
+				Assertions.assertEquals(expected.floorEntry(key), map.floorEntry(key));
+				Assertions.assertEquals(expected.lowerEntry(key), map.lowerEntry(key));
+			}
+
+			// removing through the iterator
+			for (Iterator<String> i = map.keySet().iterator(); i.hasNext(); ) {
+				if (i.next().length() % 2 == 0) {
+					i.remove();
+				}
+			}
+			expected.keySet().removeIf(key -> key.length() % 2 == 0);
+			Assertions.assertEquals(expected, map);
+			map.clear();
+			Assertions.assertTrue(map.isEmpty());
+			Assertions.assertNull(map.firstEntry());
+			Assertions.assertNull(map.ceilingEntry("a"));
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ShardedAdaptiveRadixTree<>(BinaryComparables
+				.forString(), 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ShardedAdaptiveRadixTree<>(BinaryComparables
+				.forString(), 257));
+		ShardedAdaptiveRadixTree<String, Integer> map = new ShardedAdaptiveRadixTree<>(BinaryComparables.forString());
+		map.put("", 0);
+		map.put("\u007f", 1);
+		Assertions.assertEquals("", map.firstKey());
+		Assertions.assertEquals("\u007f", map.lastKey());
+		Assertions.assertEquals("\u007f", map.higherKey(""));
+		Assertions.assertEquals("", map.lowerKey("\u007f"));
+		Assertions.assertEquals(0, map.putIfAbsent("", 5));
+		Assertions.assertNull(map.putIfAbsent("a", 5));
+		Assertions.assertTrue(map.remove("a", 5));
+		Assertions.assertFalse(map.replace("", 1, 2));
+		Assertions.assertTrue(map.replace("", 0, 2));
+		Assertions.assertEquals(2, map.get(""));
+		Assertions.assertThrows(NullPointerException.class, () -> map.put("a", null));
+		Assertions.assertThrows(NullPointerException.class, () -> map.put(null, 1));
+		Assertions.assertThrows(NullPointerException.class, () -> map.get(null));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> map.firstEntry().setValue(1));
+	}
+
+	@Test
+	public void testConcurrentPutsAndRemoves() throws Exception {
+		ShardedAdaptiveRadixTree<Integer, Integer> map = new ShardedAdaptiveRadixTree<>(BinaryComparables
+				.forInteger(), 8);
+		int n = 50_000;
+		List<Runnable> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				// spread over all shards, keys of different threads interleaved
+				for (int i = thread; i < n; i += THREADS) {
+					Assertions.assertNull(map.put(i * 85_899, i));
+				}
+				for (int i = thread; i < n; i += 2 * THREADS) {
+					Assertions.assertEquals(i, (int) map.remove(i * 85_899));
+				}
+			});
+		}
+		runAll(tasks);
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < n; i++) {
+			if (i % (2 * THREADS) >= THREADS) {
+				expected.put(i * 85_899, i);
+			}
+		}
+		Assertions.assertEquals(expected.size(), map.size());
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+	}
+
+	@Test
+	public void testReadsDuringWrites() throws Exception {
+		ShardedAdaptiveRadixTree<Integer, Integer> map = new ShardedAdaptiveRadixTree<>(BinaryComparables
+				.forInteger(), 4);
+		// stable keys are never written to, readers must always find them
+		int n = 10_000;
+		for (int i = 0; i < n; i += 2) {
+			map.put(i, i);
+		}
+		AtomicBoolean done = new AtomicBoolean();
+		List<Runnable> tasks = new ArrayList<>();
+		tasks.add(() -> {
+			Random r = new Random(0);
+			for (int round = 0; round < 200_000; round++) {
+				int key = 2 * r.nextInt(n / 2) + 1;
+				if (r.nextBoolean()) {
+					map.put(key, key);
+				}
+				else {
+					map.remove(key);
+				}
+			}
+			done.set(true);
+		});
+		for (int t = 1; t < THREADS; t++) {
+			tasks.add(() -> {
+				Random r = new Random();
+				while (!done.get()) {
+					int key = 2 * r.nextInt(n / 2);
+					Assertions.assertEquals(key, (int) map.get(key));
+					Integer odd = map.get(key + 1);
+					Assertions.assertTrue(odd == null || odd == key + 1);
+					Map.Entry<Integer, Integer> higher = map.higherEntry(key);
+					Assertions.assertTrue(higher == null || higher.getKey() <= key + 2);
+					Assertions.assertEquals(higher == null ? null : higher.getKey(), higher == null ? null : higher
+							.getValue());
+				}
+				// iteration is in order across shards
+				int previous = Integer.MIN_VALUE;
+				for (int key : map.keySet()) {
+					Assertions.assertTrue(key > previous);
+					previous = key;
+				}
+			});
+		}
+		runAll(tasks);
+	}
+}
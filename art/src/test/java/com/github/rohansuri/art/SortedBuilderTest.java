@@ -0,0 +1,126 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SortedBuilderTest {
+
+	// every inner node is of the smallest type that fits it's children and has right uplink keys
+	static int assertWellFormed(Node node, InnerNode parent) {
+		return assertWellFormed(node, parent, true);
+	}
+
+	// uplinks are left unchecked for the nodes of persistent trees, which can't maintain them for shared nodes
+	static int assertWellFormed(Node node, InnerNode parent, boolean uplinks) {
+		if (uplinks && parent != null && parent.getLeaf() != node) {
+			Assertions.assertSame(node, parent.findChild(node.uplinkKey()));
+		}
+		if (node instanceof LeafNode) {
+			return 1;
+		}
+		InnerNode inner = (InnerNode) node;
+		int n = inner.size();
+		if (inner instanceof Node4) {
+			Assertions.assertTrue(n >= 1 && n <= 4);
+			Assertions.assertTrue(n >= 2 || inner.hasLeaf());
+		}
+		else if (inner instanceof Node16) {
+			Assertions.assertTrue(n > 4 && n <= 16);
+		}
+		else if (inner instanceof Node48) {
+			Assertions.assertTrue(n > 16 && n <= 48);
+		}
+		else {
+			Assertions.assertTrue(n > 48 && n <= 256);
+		}
+		int leaves = inner.hasLeaf() ? 1 : 0;
+		Node[] children = new Node[n];
+		Assertions.assertEquals(n, inner.copyChildren(new byte[n], children));
+		for (Node child : children) {
+			leaves += assertWellFormed(child, inner, uplinks);
+		}
+		return leaves;
+	}
+
+	private static <K, V> void assertSameAsPuts(TreeMap<K, V> expected, BinaryComparable<K> bc) {
+		AdaptiveRadixTree<K, V> art = AdaptiveRadixTree.fromSorted(expected.entrySet().iterator(), bc);
+		Assertions.assertEquals(expected.size(), art.size());
+		if (!expected.isEmpty()) {
+			Assertions.assertEquals(expected.size(), assertWellFormed(art.getRoot(), null));
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(art.entrySet()));
+		for (K key : expected.keySet()) {
+			Assertions.assertEquals(expected.get(key), art.get(key));
+		}
+
+		// further modifications work as usual
+		List<K> keys = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < keys.size(); i += 2) {
+			Assertions.assertEquals(expected.remove(keys.get(i)), art.remove(keys.get(i)));
+		}
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(art.entrySet()));
+		for (K key : keys) {
+			V v = expected.get(keys.get(0));
+			Assertions.assertEquals(expected.put(key, v), art.put(key, v));
+		}
+		Assertions.assertEquals(expected, art);
+	}
+
+	@Test
+	public void testStrings() {
+		Random r = new Random(0);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 20_000; i++) {
+			// ascii, hence String's natural ordering is the same as the binary comparable one
+			String key = "prefix_longer_than_eight_" + r.nextInt(100) + "_" + Integer.toString(r.nextInt(), 36);
+			expected.put(key, i);
+			// and keys that are prefixes of other keys
+			expected.put(key.substring(0, r.nextInt(key.length()) + 1), i);
+		}
+		assertSameAsPuts(expected, BinaryComparables.forString());
+	}
+
+	@Test
+	public void testIntegers() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		Random r = new Random(0);
+		for (int i = -100_000; i < 100_000; i++) {
+			// dense ranges to get Node256s and sparse ones for smaller nodes
+			expected.put(i < 0 ? i : r.nextInt(), i);
+		}
+		assertSameAsPuts(expected, BinaryComparables.forInteger());
+	}
+
+	@Test
+	public void testSmall() {
+		for (int n = 0; n <= 300; n++) {
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < n; i++) {
+				expected.put(i * 3, i);
+			}
+			assertSameAsPuts(expected, BinaryComparables.forInteger());
+		}
+	}
+
+	@Test
+	public void testNotAscending() {
+		TreeMap<String, Integer> m = new TreeMap<>();
+		m.put("b", 1);
+		m.put("ab", 2);
+		m.put("a", 3);
+		Iterator<Map.Entry<String, Integer>> descending = m.descendingMap().entrySet().iterator();
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AdaptiveRadixTree
+				.fromSorted(descending, BinaryComparables.forString()));
+
+		List<Map.Entry<String, Integer>> duplicates = List.of(Map.entry("a", 1), Map.entry("a", 2));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AdaptiveRadixTree
+				.fromSorted(duplicates.iterator(), BinaryComparables.forString()));
+	}
+}
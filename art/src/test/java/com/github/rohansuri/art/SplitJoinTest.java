@@ -0,0 +1,114 @@
+package com.github.rohansuri.art;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class SplitJoinTest {
+
+	private static void testAgainstTreeMap(boolean orderStatistics) {
+		Random r = new Random(0);
+		for (int round = 0; round < 300; round++) {
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString(),
+					orderStatistics);
+			putRandom(r, r.nextInt(2_000), expected, art);
+
+			String at = randomKey(r);
+			TreeMap<String, Integer> expectedTail = new TreeMap<>(expected.tailMap(at));
+			expected.tailMap(at).clear();
+			AdaptiveRadixTree<String, Integer> tail = art.splitAt(at);
+			assertSame(expected, art);
+			assertSame(expectedTail, tail);
+
+			// both halves stay usable
+			String key = randomKey(r);
+			(key.compareTo(at) < 0 ? expected : expectedTail).put(key, -1);
+			(key.compareTo(at) < 0 ? art : tail).put(key, -1);
+			assertSame(expected, art);
+			assertSame(expectedTail, tail);
+
+			AdaptiveRadixTree<String, Integer> joined = AdaptiveRadixTree.join(art, tail);
+			expected.putAll(expectedTail);
+			assertSame(expected, joined);
+			Assertions.assertTrue(art.isEmpty());
+			Assertions.assertTrue(tail.isEmpty());
+		}
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		testAgainstTreeMap(false);
+	}
+
+	@Test
+	public void testAgainstTreeMapWithOrderStatistics() {
+		testAgainstTreeMap(true);
+	}
+
+	@Test
+	public void testNodeSizes() {
+		// dense keys to get Node256s, split into every node type and joined back
+		for (int at : new int[]{0, 1, 2, 4, 5, 16, 17, 48, 49, 200, 256, 257, 256 * 4 - 1, 256 * 4}) {
+			AdaptiveRadixTree<Integer, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forInteger(), true);
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 256 * 4; i++) {
+				art.put(i, i);
+				expected.put(i, i);
+			}
+			AdaptiveRadixTree<Integer, Integer> tail = art.splitAt(at);
+			assertSame(new TreeMap<>(expected.headMap(at)), art);
+			assertSame(new TreeMap<>(expected.tailMap(at)), tail);
+			assertSame(expected, AdaptiveRadixTree.join(art, tail));
+		}
+	}
+
+	@Test
+	public void testJoinUnrelated() {
+		// trees built independently, not halves of one
+		Random r = new Random(1);
+		for (int round = 0; round < 300; round++) {
+			TreeMap<String, Integer> expected = new TreeMap<>();
+			AdaptiveRadixTree<String, Integer> left = new AdaptiveRadixTree<>(BinaryComparables.forString(), true);
+			AdaptiveRadixTree<String, Integer> right = new AdaptiveRadixTree<>(BinaryComparables.forString(), true);
+			String at = randomKey(r);
+			for (int i = 0, n = r.nextInt(500); i < n; i++) {
+				String key = randomKey(r);
+				expected.put(key, i);
+				(key.compareTo(at) < 0 ? left : right).put(key, i);
+			}
+			assertSame(expected, AdaptiveRadixTree.join(left, right));
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Assertions.assertTrue(art.splitAt("a").isEmpty());
+		art.put("a", 1);
+		art.put("ab", 2);
+		int modCount = art.getModCount();
+		Assertions.assertTrue(art.splitAt("b").isEmpty());
+		Assertions.assertEquals(modCount, art.getModCount());
+		AdaptiveRadixTree<String, Integer> tail = art.splitAt("a");
+		Assertions.assertTrue(art.isEmpty());
+		Assertions.assertEquals(Map.of("a", 1, "ab", 2), tail);
+		Assertions.assertThrows(NullPointerException.class, () -> tail.splitAt(null));
+
+		// a key ending where the other tree's path does
+		AdaptiveRadixTree<String, Integer> ab = tail.splitAt("ab");
+		Assertions.assertEquals(Map.of("a", 1), tail);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AdaptiveRadixTree.join(ab, tail));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AdaptiveRadixTree.join(tail, tail));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AdaptiveRadixTree
+				.join(tail, new AdaptiveRadixTree<>(BinaryComparables.forString(), true)));
+		AdaptiveRadixTree<String, Integer> joined = AdaptiveRadixTree.join(tail, ab);
+		Assertions.assertEquals(Map.of("a", 1, "ab", 2), joined);
+		Assertions.assertEquals(Map.of("a", 1, "ab", 2), AdaptiveRadixTree.join(joined, art));
+		Assertions.assertTrue(joined.isEmpty());
+	}
+}
@@ -0,0 +1,106 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SpliteratorTest {
+
+	private static AdaptiveRadixTree<String, Integer> randomTree(TreeMap<String, Integer> expected, int n) {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Random r = new Random(0);
+		for (int i = 0; i < n; i++) {
+			// common prefixes so that we have all node types and compressed paths
+			String key = "key" + r.nextInt(300) + "_" + r.nextInt(n);
+			expected.put(key, i);
+			art.put(key, i);
+		}
+		// a key that is a prefix of others, to have a leaf stored in an inner node
+		expected.put("key1", -1);
+		art.put("key1", -1);
+		return art;
+	}
+
+	// splits recursively as deep as possible and traverses the resulting spliterators in order
+	private static <T> int splitAll(Spliterator<T> s, List<T> into) {
+		Spliterator<T> prefix = s.trySplit();
+		if (prefix == null) {
+			s.forEachRemaining(into::add);
+			return 1;
+		}
+		return splitAll(prefix, into) + splitAll(s, into);
+	}
+
+	@Test
+	public void testSplitsCoverAllEntriesInOrder() {
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = randomTree(expected, 10_000);
+
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+		int parts = splitAll(art.entrySet().spliterator(), entries);
+		Assertions.assertTrue(parts > 100, "only " + parts + " splits");
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), entries);
+
+		List<String> keys = new ArrayList<>();
+		splitAll(art.keySet().spliterator(), keys);
+		Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+
+		List<Integer> values = new ArrayList<>();
+		splitAll(art.values().spliterator(), values);
+		Assertions.assertEquals(new ArrayList<>(expected.values()), values);
+	}
+
+	@Test
+	public void testParallelStreams() {
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = randomTree(expected, 50_000);
+
+		Assertions.assertEquals(new ArrayList<>(expected.keySet()), art.keySet().parallelStream()
+				.collect(Collectors.toList()));
+		Assertions.assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(),
+				art.values().parallelStream().mapToLong(Integer::longValue).sum());
+		Assertions.assertEquals(expected.size(), art.entrySet().parallelStream().count());
+	}
+
+	@Test
+	public void testCharacteristics() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		int sorted = Spliterator.SORTED | Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+		Assertions.assertEquals(sorted, art.keySet().spliterator().characteristics());
+		Assertions.assertEquals(sorted, art.entrySet().spliterator().characteristics());
+		Assertions.assertEquals(Spliterator.ORDERED, art.values().spliterator().characteristics());
+		Assertions.assertTrue(art.keySet().spliterator().getComparator().compare("a", "b") < 0);
+	}
+
+	@Test
+	public void testLateBindingAndEmpty() {
+		AdaptiveRadixTree<String, Integer> art = new AdaptiveRadixTree<>(BinaryComparables.forString());
+		Spliterator<String> empty = art.keySet().spliterator();
+		Assertions.assertNull(empty.trySplit());
+		Assertions.assertFalse(empty.tryAdvance(k -> Assertions.fail()));
+
+		Spliterator<String> s = art.keySet().spliterator();
+		art.put("a", 1);
+		art.put("b", 2);
+		Assertions.assertEquals(2, s.estimateSize());
+		List<String> keys = new ArrayList<>();
+		s.forEachRemaining(keys::add);
+		Assertions.assertEquals(List.of("a", "b"), keys);
+	}
+
+	@Test
+	public void testConcurrentModification() {
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		AdaptiveRadixTree<String, Integer> art = randomTree(expected, 100);
+		Spliterator<String> s = art.keySet().spliterator();
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> s.tryAdvance(art::remove));
+	}
+}
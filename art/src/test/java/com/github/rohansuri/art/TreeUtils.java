@@ -0,0 +1,60 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+
+// for tests checking a tree against a TreeMap expected to hold the same mappings
+class TreeUtils {
+
+	// ascii, long compressed paths and keys that are prefixes of others
+	static String randomKey(Random r) {
+		return randomKey(r, 3_000);
+	}
+
+	// bound limits the no of distinct keys, for more or less overlap between trees
+	static String randomKey(Random r, int bound) {
+		String key = "prefix_longer_than_eight_" + r.nextInt(20) + "_" + Integer.toString(r.nextInt(bound), 36);
+		return key.substring(0, key.length() - r.nextInt(key.length() + 1));
+	}
+
+	// n random keys, mapped to the index they were put at
+	static void putRandom(Random r, int n, TreeMap<String, Integer> expected, Map<String, Integer> tree) {
+		for (int i = 0; i < n; i++) {
+			String key = randomKey(r);
+			expected.put(key, i);
+			tree.put(key, i);
+		}
+	}
+
+	// same mappings in the same order, with a well formed tree (and leaf counts, if kept) underneath
+	static <K> void assertSame(TreeMap<K, ?> expected, AdaptiveRadixTree<K, ?> art) {
+		Assertions.assertEquals(expected.size(), art.size());
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(art.entrySet()));
+		if (expected.isEmpty()) {
+			Assertions.assertNull(art.getRoot());
+			return;
+		}
+		Assertions.assertEquals(expected.size(), SortedBuilderTest.assertWellFormed(art.getRoot(), null));
+		if (art.hasOrderStatistics()) {
+			OrderStatisticsTest.assertCounts(art.getRoot());
+		}
+	}
+
+	// same, for a persistent tree
+	static <K> void assertSame(TreeMap<K, ?> expected, PersistentAdaptiveRadixTree<K, ?> tree) {
+		Assertions.assertEquals(expected.size(), tree.size());
+		List<Map.Entry<K, ?>> entries = new ArrayList<>();
+		tree.forEach(entries::add);
+		Assertions.assertEquals(new ArrayList<>(expected.entrySet()), entries);
+		if (expected.isEmpty()) {
+			Assertions.assertNull(tree.getRoot());
+			return;
+		}
+		Assertions.assertEquals(expected.size(), SortedBuilderTest.assertWellFormed(tree.getRoot(), null, false));
+	}
+}
@@ -0,0 +1,197 @@
+package com.github.rohansuri.art;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static com.github.rohansuri.art.TreeUtils.*;
+
+public class VersionedAdaptiveRadixTreeTest {
+
+	@Test
+	public void testSnapshotsAreUnchanged() {
+		Random r = new Random(0);
+		VersionedAdaptiveRadixTree<String, Integer> map = new VersionedAdaptiveRadixTree<>(BinaryComparables
+				.forString());
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		List<VersionedAdaptiveRadixTree.Snapshot<String, Integer>> snapshots = new ArrayList<>();
+		List<TreeMap<String, Integer>> expectedSnapshots = new ArrayList<>();
+		List<Long> expectedTimestamps = new ArrayList<>();
+		long commits = 0;
+		for (int i = 0; i < 20_000; i++) {
+			String key = randomKey(r);
+			if (r.nextInt(3) == 0) {
+				boolean present = expected.containsKey(key);
+				Assertions.assertEquals(expected.remove(key), map.remove(key));
+				commits += present ? 1 : 0;
+			}
+			else {
+				Assertions.assertEquals(expected.put(key, i), map.put(key, i));
+				commits++;
+			}
+			Assertions.assertEquals(commits, map.commitTimestamp());
+			if (i % 1_000 == 0) {
+				snapshots.add(map.snapshot());
+				expectedSnapshots.add(new TreeMap<>(expected));
+				expectedTimestamps.add(commits);
+			}
+		}
+		Assertions.assertEquals(expected, map);
+		for (int i = 0; i < snapshots.size(); i++) {
+			NavigableMap<String, Integer> snapshot = snapshots.get(i).asMap();
+			Assertions.assertEquals(expectedTimestamps.get(i), snapshots.get(i).timestamp());
+			Assertions.assertEquals(expectedSnapshots.get(i), snapshot);
+			Assertions.assertEquals(new ArrayList<>(expectedSnapshots.get(i).entrySet()), new ArrayList<>(snapshot
+					.entrySet()));
+		}
+	}
+
+	@Test
+	public void testSnapshotNavigation() {
+		Random r = new Random(0);
+		VersionedAdaptiveRadixTree<String, Integer> map = new VersionedAdaptiveRadixTree<>(BinaryComparables
+				.forString());
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 2_000; i++) {
+			String key = randomKey(r);
+			expected.put(key, i);
+			map.put(key, i);
+		}
+		NavigableMap<String, Integer> snapshot = map.snapshot().asMap();
+		map.clear();
+		for (int i = 0; i < 1_000; i++) {
+			String key = randomKey(r);
+			Assertions.assertEquals(expected.ceilingEntry(key), snapshot.ceilingEntry(key));
+			Assertions.assertEquals(expected.higherEntry(key), snapshot.higherEntry(key));
+			Assertions.assertEquals(expected.floorEntry(key), snapshot.floorEntry(key));
+			Assertions.assertEquals(expected.lowerEntry(key), snapshot.lowerEntry(key));
+			Assertions.assertEquals(expected.containsKey(key), snapshot.containsKey(key));
+		}
+		for (int i = 0; i < 100; i++) {
+			String from = randomKey(r), to = randomKey(r);
+			if (from.compareTo(to) > 0) {
+				String t = from;
+				from = to;
+				to = t;
+			}
+			boolean fromInclusive = r.nextBoolean(), toInclusive = r.nextBoolean();
+			NavigableMap<String, Integer> expectedSub = expected.subMap(from, fromInclusive, to, toInclusive);
+			NavigableMap<String, Integer> sub = snapshot.subMap(from, fromInclusive, to, toInclusive);
+			Assertions.assertEquals(expectedSub.size(), sub.size());
+			Assertions.assertEquals(new ArrayList<>(expectedSub.entrySet()), new ArrayList<>(sub.entrySet()));
+			Assertions.assertEquals(new ArrayList<>(expectedSub.descendingMap().keySet()), new ArrayList<>(sub
+					.descendingMap().keySet()));
+			Assertions.assertEquals(expectedSub.firstEntry(), sub.firstEntry());
+			Assertions.assertEquals(expectedSub.lastEntry(), sub.lastEntry());
+			Assertions.assertEquals(expected.headMap(to, toInclusive), snapshot.headMap(to, toInclusive));
+			Assertions.assertEquals(expected.tailMap(from, fromInclusive), snapshot.tailMap(from, fromInclusive));
+		}
+		Assertions.assertTrue(map.isEmpty());
+		Assertions.assertEquals(expected, snapshot);
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.put("a", 1));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.firstEntry().setValue(1));
+		Assertions.assertThrows(UnsupportedOperationException.class, snapshot::pollFirstEntry);
+	}
+
+	@Test
+	public void testIteratingWhileWriting() {
+		VersionedAdaptiveRadixTree<Integer, Integer> map = new VersionedAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		// the iterator goes over the map as of it's creation, unaffected by the writes made meanwhile
+		int expectedKey = 0;
+		for (Iterator<Map.Entry<Integer, Integer>> i = map.entrySet().iterator(); i.hasNext(); expectedKey++) {
+			Map.Entry<Integer, Integer> e = i.next();
+			Assertions.assertEquals(expectedKey, e.getKey());
+			map.put(e.getKey() + 1_000, e.getValue());
+			if (e.getKey() % 2 == 0) {
+				i.remove();
+			}
+		}
+		Assertions.assertEquals(1_000, expectedKey);
+		Assertions.assertEquals(1_500, map.size());
+		Assertions.assertFalse(map.containsKey(0));
+		Assertions.assertTrue(map.containsKey(1));
+	}
+
+	@Test
+	public void testConcurrentScans() throws Exception {
+		// transfers between accounts, every commit keeps the total the same
+		int accounts = 500;
+		VersionedAdaptiveRadixTree<Integer, Integer> map = new VersionedAdaptiveRadixTree<>(BinaryComparables
+				.forInteger());
+		Map<Integer, Integer> initial = new HashMap<>();
+		for (int i = 0; i < accounts; i++) {
+			initial.put(i, 100);
+		}
+		map.putAll(initial);
+		Assertions.assertEquals(1, map.commitTimestamp());
+
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				readers.add(executor.submit(() -> {
+					long timestamp = 0;
+					while (!done.get()) {
+						VersionedAdaptiveRadixTree.Snapshot<Integer, Integer> s = map.snapshot();
+						// commits are only ever seen in order
+						Assertions.assertTrue(s.timestamp() >= timestamp);
+						timestamp = s.timestamp();
+						NavigableMap<Integer, Integer> snapshot = s.asMap();
+						int total = 0;
+						for (int value : snapshot.values()) {
+							total += value;
+						}
+						Assertions.assertEquals(accounts * 100, total);
+						Assertions.assertEquals(accounts, snapshot.size());
+					}
+				}));
+			}
+			Future<?> writer = executor.submit(() -> {
+				Random r = new Random(0);
+				for (int i = 0; i < 20_000; i++) {
+					int from = r.nextInt(accounts), to = r.nextInt(accounts);
+					if (from == to) {
+						continue;
+					}
+					synchronized (map) {
+						Map<Integer, Integer> transfer = new HashMap<>();
+						transfer.put(from, map.get(from) - 1);
+						transfer.put(to, map.get(to) + 1);
+						map.putAll(transfer);
+					}
+				}
+				done.set(true);
+			});
+			writer.get(1, TimeUnit.MINUTES);
+			for (Future<?> reader : readers) {
+				reader.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			done.set(true);
+			executor.shutdownNow();
+		}
+		int total = 0;
+		for (int value : map.values()) {
+			total += value;
+		}
+		Assertions.assertEquals(accounts * 100, total);
+	}
+}
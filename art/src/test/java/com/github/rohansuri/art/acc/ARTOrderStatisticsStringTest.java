@@ -0,0 +1,25 @@
+package com.github.rohansuri.art.acc;
+
+import java.util.NavigableMap;
+
+import com.github.rohansuri.art.AdaptiveRadixTree;
+import com.github.rohansuri.art.BinaryComparables;
+import junit.framework.Test;
+import org.apache.commons.collections4.BulkTest;
+
+// same as ARTStringTest, with sizes of sub maps coming from order statistics
+public class ARTOrderStatisticsStringTest extends ARTStringTest {
+
+	public ARTOrderStatisticsStringTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		return BulkTest.makeSuite(ARTOrderStatisticsStringTest.class);
+	}
+
+	@Override
+	public NavigableMap<String, String> makeObject() {
+		return new AdaptiveRadixTree<>(BinaryComparables.forString(), true);
+	}
+}
@@ -0,0 +1,36 @@
+package com.github.rohansuri.art.acc;
+
+import java.util.NavigableMap;
+
+import com.github.rohansuri.art.BinaryComparables;
+import com.github.rohansuri.art.ConcurrentAdaptiveRadixTree;
+import junit.framework.Test;
+import org.apache.commons.collections4.BulkTest;
+
+public class ConcurrentARTStringTest extends ARTStringTest {
+
+	public ConcurrentARTStringTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		return BulkTest.makeSuite(ConcurrentARTStringTest.class);
+	}
+
+	@Override
+	public NavigableMap<String, String> makeObject() {
+		return new ConcurrentAdaptiveRadixTree<>(BinaryComparables.forString());
+	}
+
+	// same as ConcurrentSkipListMap
+	@Override
+	public boolean isAllowNullValue() {
+		return false;
+	}
+
+	// iterators are weakly consistent
+	@Override
+	public boolean isFailFastExpected() {
+		return false;
+	}
+}